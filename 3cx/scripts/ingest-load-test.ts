@@ -0,0 +1,87 @@
+/**
+ * Local ingest load test: pushes synthetic CDRs to a running API over the REST single-call
+ * endpoint, the REST batch endpoint and the binary WebSocket stream, and prints throughput.
+ *
+ * Every run writes fresh "loadtest-<run>-*" call entries, so point it at a disposable local
+ * database, and start the API with RATE_LIMIT_ENABLED=false so the token buckets don't cap
+ * the REST runs.
+ *
+ *   API_BASE_URL=http://localhost:8080/api LOAD_TEST_CALLS=20000 npm run load-test
+ */
+
+import ApiClient from '../src/services/api-client.js';
+import PbxStreamClient from '../src/services/stream-client.js';
+import { ApiConfig } from '../src/types/config.types.js';
+import { PbxCallRequest } from '../src/types/api.types.js';
+
+const calls = Number(process.env.LOAD_TEST_CALLS ?? 20000);
+const singleCalls = Math.min(calls, Number(process.env.LOAD_TEST_SINGLE_CALLS ?? 2000));
+const concurrency = Number(process.env.LOAD_TEST_CONCURRENCY ?? 8);
+const batchSize = Number(process.env.LOAD_TEST_BATCH_SIZE ?? 500);
+
+const config: ApiConfig = {
+  base_url: process.env.API_BASE_URL ?? 'http://localhost:8080/api',
+  timeout_seconds: 60,
+  retry_attempts: 3,
+  source_id: 'load-test',
+};
+
+const runId = Date.now().toString(36);
+
+function syntheticCalls(label: string, count: number): PbxCallRequest[] {
+  const start = Date.now() - count * 1000;
+  return Array.from({ length: count }, (_, i) => ({
+    phoneNumber: `907555${String(i % 10000).padStart(4, '0')}`,
+    callDuration: 30 + (i % 600),
+    callOwnerExtension: String(100 + (i % 50)),
+    callOwnerEmail: `loadtest.user${i % 50}@example.com`,
+    callDirection: i % 2 === 0 ? 'INBOUND' : 'OUTBOUND',
+    timestamp: new Date(start + i * 1000).toISOString(),
+    pbxCallId: `loadtest-${runId}-${label}-${i}`,
+  }));
+}
+
+async function timed(label: string, count: number, run: () => Promise<void>): Promise<void> {
+  const startedAt = process.hrtime.bigint();
+  await run();
+  const seconds = Number(process.hrtime.bigint() - startedAt) / 1e9;
+  console.log(`${label.padEnd(12)} ${String(count).padStart(7)} calls  ${seconds.toFixed(2).padStart(7)}s  ` +
+    `${(count / seconds).toFixed(0).padStart(7)} calls/s`);
+}
+
+async function main(): Promise<void> {
+  const apiClient = new ApiClient(config);
+  const streamClient = new PbxStreamClient(config);
+
+  const single = syntheticCalls('single', singleCalls);
+  await timed('rest-single', single.length, async () => {
+    let next = 0;
+    await Promise.all(Array.from({ length: concurrency }, async () => {
+      while (next < single.length) {
+        await apiClient.submitPbxCall(single[next++]);
+      }
+    }));
+  });
+
+  const batched = syntheticCalls('batch', calls);
+  await timed('rest-batch', batched.length, async () => {
+    for (let offset = 0; offset < batched.length; offset += batchSize) {
+      await apiClient.submitPbxCallBatch(batched.slice(offset, offset + batchSize));
+    }
+  });
+
+  const streamed = syntheticCalls('stream', calls);
+  await streamClient.connect();
+  await timed('stream', streamed.length, async () => {
+    const result = await streamClient.submitBatch(streamed);
+    if (result.created + result.merged !== streamed.length) {
+      throw new Error(`Stream wrote ${result.created + result.merged} of ${streamed.length} calls`);
+    }
+  });
+  streamClient.close();
+}
+
+main().catch((error) => {
+  console.error('Load test failed:', error);
+  process.exit(1);
+});
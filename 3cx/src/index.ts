@@ -8,18 +8,25 @@ import express from 'express';
 import logger from './utils/logger.js';
 import loadConfig from './config/config-loader.js';
 import ApiClient from './services/api-client.js';
+import PbxStreamClient from './services/stream-client.js';
 import CdrPoller from './services/cdr-poller.js';
 import ExtensionMapper from './services/extension-mapper.js';
 import BusinessHoursService from './services/business-hours.js';
 import CallGroupMonitor from './services/call-group-monitor.js';
 import { CdrRecord } from './types/pbx.types.js';
-import { PbxCallRequest } from './types/api.types.js';
+import { filterUnsynced } from './services/sync-digest.js';
+import { PbxBatchResponse, PbxCallRequest } from './types/api.types.js';
 
 // Load environment variables
 dotenv.config();
 
+// Catch-up digest granularity, and the widest window the API will digest in one request
+const SYNC_BUCKET_SECONDS = 300;
+const MAX_SYNC_WINDOW_MS = 31 * 24 * 60 * 60 * 1000;
+
 class ThreeCXIntegration {
   private apiClient!: ApiClient;
+  private streamClient: PbxStreamClient | null = null;
   private cdrPoller!: CdrPoller;
   private extensionMapper!: ExtensionMapper;
   private businessHours!: BusinessHoursService;
@@ -27,6 +34,8 @@ class ThreeCXIntegration {
   private app: express.Application;
   private pollingJob?: cron.ScheduledTask;
   private alertJob?: cron.ScheduledTask;
+  private syncWatermark: Date | null = null;
+  private serverSideCoverage = false;
 
   constructor() {
     this.app = express();
@@ -45,6 +54,10 @@ class ThreeCXIntegration {
 
       // Initialize services
       this.apiClient = new ApiClient(config.api);
+      if (String(config.api.use_stream) === 'true') {
+        this.streamClient = new PbxStreamClient(config.api);
+      }
+      this.serverSideCoverage = String(config.callGroups.server_side_coverage) === 'true';
       this.cdrPoller = new CdrPoller(config.threecx.cdr_database);
       this.extensionMapper = new ExtensionMapper(config.extensionMapping);
       this.businessHours = new BusinessHoursService(config.businessHours);
@@ -69,6 +82,9 @@ class ThreeCXIntegration {
         logger.warn('API health check failed, but continuing (will retry on calls)');
       }
 
+      // Find where the API left off so a catch-up poll only resends what it is missing
+      await this.loadSyncWatermark();
+
       // Set up HTTP endpoints
       this.setupRoutes();
 
@@ -146,19 +162,22 @@ class ThreeCXIntegration {
       }
     });
 
-    // Call group alert job (every 5 minutes by default, only during business hours)
+    // Call group alert job (every 5 minutes by default, only during business hours).
+    // Skipped when the API evaluates coverage itself from call start/end events.
     const alertInterval = process.env.ALERT_CHECK_INTERVAL_MINUTES || '5';
-    this.alertJob = cron.schedule(`*/${alertInterval} * * * *`, async () => {
-      try {
-        await this.callGroupMonitor.checkCallGroups();
-      } catch (error) {
-        logger.error('Call group alert job failed', { error });
-      }
-    });
+    if (!this.serverSideCoverage) {
+      this.alertJob = cron.schedule(`*/${alertInterval} * * * *`, async () => {
+        try {
+          await this.callGroupMonitor.checkCallGroups();
+        } catch (error) {
+          logger.error('Call group alert job failed', { error });
+        }
+      });
+    }
 
     logger.info('Scheduled jobs started', {
       pollingInterval: `${pollingInterval}s`,
-      alertInterval: `${alertInterval}m`,
+      alertInterval: this.serverSideCoverage ? 'server-side' : `${alertInterval}m`,
     });
   }
 
@@ -175,11 +194,34 @@ class ThreeCXIntegration {
 
       logger.info(`Processing ${records.length} new CDR records`);
 
-      for (const record of records) {
-        await this.processCdrRecord(record);
+      const requests = records
+        .map((record) => this.buildPbxCallRequest(record))
+        .filter((request): request is PbxCallRequest => request !== null);
+
+      if (requests.length === 0) {
+        return;
+      }
+
+      const unsynced = await this.filterAlreadySynced(requests);
+      if (unsynced.length === 0) {
+        logger.info(`All ${requests.length} CDR records already synced to API`);
+        return;
+      }
+
+      // Submit the whole poll as one batch; the API skips pbxCallIds it already has
+      const result = await this.submitBatch(unsynced);
+
+      for (const item of result.items) {
+        if (item.status === 'INVALID') {
+          logger.error('CDR record rejected by API', { callId: item.pbxCallId, error: item.error });
+        }
       }
 
-      logger.info(`Processed ${records.length} CDR records successfully`);
+      logger.info(`Processed ${records.length} CDR records successfully`, {
+        created: result.created,
+        duplicates: result.duplicates,
+        invalid: result.invalid,
+      });
     } catch (error) {
       logger.error('Failed to process CDR records', { error });
       throw error;
@@ -187,60 +229,108 @@ class ThreeCXIntegration {
   }
 
   /**
-   * Process a single CDR record
+   * Send a batch over the ingest stream when enabled, falling back to the REST batch endpoint
    */
-  private async processCdrRecord(record: CdrRecord): Promise<void> {
+  private async submitBatch(requests: PbxCallRequest[]): Promise<PbxBatchResponse> {
+    if (this.streamClient) {
+      try {
+        return await this.streamClient.submitBatch(requests);
+      } catch (error) {
+        logger.warn('PBX ingest stream failed, falling back to REST batch', {
+          error: (error as Error).message,
+        });
+      }
+    }
+    return this.apiClient.submitPbxCallBatch(requests);
+  }
+
+  /**
+   * Fetch the newest CDR the API holds for this source; on failure every record is sent
+   */
+  private async loadSyncWatermark(): Promise<void> {
     try {
-      logger.debug('Processing CDR record', {
-        callId: record.callId,
-        phoneNumber: record.phoneNumber,
-        extension: record.extension,
+      const watermark = await this.apiClient.getSyncWatermark();
+      this.syncWatermark = watermark.latestCdrAt ? new Date(watermark.latestCdrAt) : null;
+      logger.info('Loaded sync watermark from API', {
+        latestPbxCallId: watermark.latestPbxCallId,
+        latestCdrAt: watermark.latestCdrAt,
       });
+    } catch (error) {
+      this.syncWatermark = null;
+      logger.warn('Failed to load sync watermark, catch-up will resend all records', { error });
+    }
+  }
 
-      // Skip if not answered
-      if (!record.answered) {
-        logger.debug('Skipping unanswered call', { callId: record.callId });
-        return;
-      }
+  /**
+   * Drop catch-up records (at or before the watermark) that sit in digest buckets already matching the API
+   */
+  private async filterAlreadySynced(requests: PbxCallRequest[]): Promise<PbxCallRequest[]> {
+    const watermark = this.syncWatermark;
+    if (watermark === null) {
+      return requests;
+    }
 
-      // Map extension to email
-      const email = this.extensionMapper.getEmail(record.extension);
+    const catchUp = requests.filter((request) => new Date(request.timestamp) <= watermark);
+    const fresh = requests.filter((request) => new Date(request.timestamp) > watermark);
+    if (catchUp.length === 0) {
+      return requests;
+    }
 
-      if (!email) {
-        logger.warn('No email mapping for extension, skipping call', {
-          extension: record.extension,
-          callId: record.callId,
-        });
-        return;
-      }
+    const times = catchUp.map((request) => new Date(request.timestamp).getTime());
+    const from = new Date(Math.min(...times));
+    const to = new Date(Math.max(...times) + 1);
+    if (to.getTime() - from.getTime() > MAX_SYNC_WINDOW_MS) {
+      return requests;
+    }
 
-      // Create PBX call request
-      const pbxCallRequest: PbxCallRequest = {
-        phoneNumber: record.phoneNumber,
-        callDuration: record.duration,
-        callOwnerExtension: record.extension,
-        callOwnerEmail: email,
-        callDirection: record.callDirection,
-        callGroupId: record.callGroupId,
-        timestamp: record.endTime.toISOString(),
-        pbxCallId: record.callId,
-      };
-
-      // Submit to API
-      await this.apiClient.submitPbxCall(pbxCallRequest);
-
-      logger.info('CDR record processed and submitted to API', {
-        callId: record.callId,
-        extension: record.extension,
-        email,
-      });
+    try {
+      const digest = await this.apiClient.getSyncDigest(from, to, SYNC_BUCKET_SECONDS);
+      const missing = filterUnsynced(catchUp, digest);
+      logger.info(`Catch-up: ${catchUp.length - missing.length} of ${catchUp.length} CDR records already synced`);
+      return [...missing, ...fresh];
     } catch (error) {
-      logger.error('Failed to process CDR record', {
+      logger.warn('Failed to fetch sync digest, resending catch-up records', { error });
+      return requests;
+    }
+  }
+
+  /**
+   * Map a CDR record to an API request, or null if it should be skipped
+   */
+  private buildPbxCallRequest(record: CdrRecord): PbxCallRequest | null {
+    logger.debug('Processing CDR record', {
+      callId: record.callId,
+      phoneNumber: record.phoneNumber,
+      extension: record.extension,
+    });
+
+    // Skip if not answered
+    if (!record.answered) {
+      logger.debug('Skipping unanswered call', { callId: record.callId });
+      return null;
+    }
+
+    // Map extension to email; unmapped extensions are still sent and the API resolves the owner
+    // from its extension directory
+    const email = this.extensionMapper.getEmail(record.extension);
+
+    if (!email) {
+      logger.debug('No local email mapping for extension, leaving owner to the API', {
+        extension: record.extension,
         callId: record.callId,
-        error: (error as Error).message,
       });
-      // Don't throw - continue processing other records
     }
+
+    return {
+      phoneNumber: record.phoneNumber,
+      callDuration: record.duration,
+      callOwnerExtension: record.extension,
+      ...(email ? { callOwnerEmail: email } : {}),
+      callDirection: record.callDirection,
+      callGroupId: record.callGroupId,
+      timestamp: record.endTime.toISOString(),
+      pbxCallId: record.callId,
+    };
   }
 
   /**
@@ -274,6 +364,8 @@ class ThreeCXIntegration {
       this.alertJob.stop();
     }
 
+    this.streamClient?.close();
+
     // Disconnect from CDR database
     await this.cdrPoller.disconnect();
 
@@ -6,6 +6,9 @@ import axios, { AxiosInstance, AxiosError } from 'axios';
 import { ApiConfig } from '../types/config.types.js';
 import {
   PbxCallRequest,
+  PbxBatchResponse,
+  PbxSyncWatermark,
+  PbxSyncDigest,
   CallEntryResponse,
   CallGroupAlertRequest,
   CallGroupAlertResponse,
@@ -23,6 +26,7 @@ export class ApiClient {
       timeout: config.timeout_seconds * 1000,
       headers: {
         'Content-Type': 'application/json',
+        ...(config.source_id ? { 'X-Source-Id': config.source_id } : {}),
       },
     });
 
@@ -66,6 +70,47 @@ export class ApiClient {
     });
   }
 
+  /**
+   * Submit a batch of PBX call records in one request
+   */
+  async submitPbxCallBatch(calls: PbxCallRequest[]): Promise<PbxBatchResponse> {
+    logger.info('Submitting PBX call batch to API', { count: calls.length });
+
+    return this.executeWithRetry(async () => {
+      const response = await this.client.post<PbxBatchResponse>('/calls/from-pbx/batch', calls);
+      logger.info('PBX call batch submitted successfully', {
+        received: response.data.received,
+        created: response.data.created,
+        merged: response.data.merged,
+        duplicates: response.data.duplicates,
+        invalid: response.data.invalid,
+      });
+      return response.data;
+    });
+  }
+
+  /**
+   * Get the latest CDR the API already holds for this sideloader
+   */
+  async getSyncWatermark(): Promise<PbxSyncWatermark> {
+    return this.executeWithRetry(async () => {
+      const response = await this.client.get<PbxSyncWatermark>('/pbx/sync/watermark');
+      return response.data;
+    });
+  }
+
+  /**
+   * Get per-bucket digests of the pbxCallIds the API holds for this sideloader in [from, to)
+   */
+  async getSyncDigest(from: Date, to: Date, bucketSeconds: number): Promise<PbxSyncDigest> {
+    return this.executeWithRetry(async () => {
+      const response = await this.client.get<PbxSyncDigest>('/pbx/sync/digest', {
+        params: { from: from.toISOString(), to: to.toISOString(), bucketSeconds },
+      });
+      return response.data;
+    });
+  }
+
   /**
    * Submit call group alert to backend
    */
@@ -115,10 +160,15 @@ export class ApiClient {
       } catch (error) {
         lastError = error as Error;
 
-        // Don't retry on client errors (4xx)
+        let retryAfterMs: number | null = null;
+
+        // Don't retry on client errors (4xx), except rate limiting
         if (axios.isAxiosError(error)) {
           const axiosError = error as AxiosError<ApiErrorResponse>;
-          if (axiosError.response && axiosError.response.status >= 400 && axiosError.response.status < 500) {
+          const status = axiosError.response?.status;
+          if (status === 429 || status === 503) {
+            retryAfterMs = this.parseRetryAfter(axiosError.response?.headers['retry-after']);
+          } else if (axiosError.response && status !== undefined && status >= 400 && status < 500) {
             logger.error('Client error, not retrying', {
               status: axiosError.response.status,
               message: axiosError.response.data?.message,
@@ -128,7 +178,7 @@ export class ApiClient {
         }
 
         if (attempt < this.retryAttempts) {
-          const delayMs = Math.min(1000 * Math.pow(2, attempt - 1), 10000);
+          const delayMs = retryAfterMs ?? Math.min(1000 * Math.pow(2, attempt - 1), 10000);
           logger.warn(`API call failed, retrying in ${delayMs}ms`, {
             attempt,
             maxAttempts: this.retryAttempts,
@@ -146,6 +196,14 @@ export class ApiClient {
     throw lastError;
   }
 
+  /**
+   * Parse a Retry-After header (delay in seconds) into milliseconds
+   */
+  private parseRetryAfter(value: unknown): number | null {
+    const seconds = Number(value);
+    return Number.isFinite(seconds) && seconds >= 0 ? seconds * 1000 : null;
+  }
+
   /**
    * Sleep helper for retry delays
    */
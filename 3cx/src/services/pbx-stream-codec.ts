@@ -0,0 +1,179 @@
+/**
+ * Binary framing for the API's PBX ingest stream (mirror of PbxStreamCodec in the API).
+ * Integers are unsigned LEB128 varints (zigzag for signed values); strings are a varint byte
+ * length followed by UTF-8.
+ */
+
+import { PbxBatchItemResult, PbxCallRequest } from '../types/api.types.js';
+
+export const FRAME_EVENTS = 0x01;
+export const FRAME_ACK = 0x02;
+export const FRAME_RETRY = 0x03;
+
+const FLAG_EMAIL = 0x01;
+const FLAG_CALL_GROUP = 0x02;
+const FLAG_OUTBOUND = 0x04;
+const FLAG_SOURCE = 0x08;
+
+// Same order as PbxBatchResult.ItemStatus and PbxStreamCodec.RetryReason in the API
+const ACK_STATUSES: PbxBatchItemResult['status'][] = ['CREATED', 'MERGED', 'DUPLICATE', 'INVALID'];
+const RETRY_REASONS = ['RATE_LIMITED', 'OVERLOADED', 'SERVER_ERROR'] as const;
+
+export interface AckFrame {
+  type: 'ACK';
+  firstSequence: number;
+  items: { status: PbxBatchItemResult['status']; error: string | null }[];
+}
+
+export interface RetryFrame {
+  type: 'RETRY';
+  firstSequence: number;
+  count: number;
+  reason: (typeof RETRY_REASONS)[number];
+  retryAfterSeconds: number;
+}
+
+class FrameWriter {
+  private bytes: number[] = [];
+
+  byte(value: number): void {
+    this.bytes.push(value & 0xff);
+  }
+
+  varint(value: number): void {
+    let remaining = BigInt(value);
+    while (remaining > 0x7fn) {
+      this.bytes.push(Number((remaining & 0x7fn) | 0x80n));
+      remaining >>= 7n;
+    }
+    this.bytes.push(Number(remaining));
+  }
+
+  zigzag(value: number): void {
+    this.varint(value >= 0 ? value * 2 : -value * 2 - 1);
+  }
+
+  string(value: string): void {
+    const encoded = Buffer.from(value, 'utf8');
+    this.varint(encoded.length);
+    for (const byte of encoded) {
+      this.bytes.push(byte);
+    }
+  }
+
+  toBuffer(): Buffer {
+    return Buffer.from(this.bytes);
+  }
+}
+
+class FrameReader {
+  private offset = 0;
+
+  constructor(private readonly buffer: Buffer) {}
+
+  byte(): number {
+    if (this.offset >= this.buffer.length) {
+      throw new Error('Truncated stream frame');
+    }
+    return this.buffer[this.offset++];
+  }
+
+  varint(): number {
+    let value = 0n;
+    for (let shift = 0n; shift < 64n; shift += 7n) {
+      const byte = this.byte();
+      value |= BigInt(byte & 0x7f) << shift;
+      if ((byte & 0x80) === 0) {
+        return Number(value);
+      }
+    }
+    throw new Error('Varint too long');
+  }
+
+  string(): string {
+    const length = this.varint();
+    if (this.offset + length > this.buffer.length) {
+      throw new Error('Truncated stream frame');
+    }
+    const value = this.buffer.toString('utf8', this.offset, this.offset + length);
+    this.offset += length;
+    return value;
+  }
+}
+
+/**
+ * Offset of an ISO-8601 timestamp in seconds (the API keeps the CDR's original offset)
+ */
+function offsetSeconds(timestamp: string): number {
+  const match = /([+-])(\d{2}):?(\d{2})$/.exec(timestamp);
+  if (!match) {
+    return 0;
+  }
+  const seconds = Number(match[2]) * 3600 + Number(match[3]) * 60;
+  return match[1] === '-' ? -seconds : seconds;
+}
+
+/**
+ * Encode consecutive events starting at firstSequence as one EVENTS frame
+ */
+export function encodeEvents(firstSequence: number, events: PbxCallRequest[]): Buffer {
+  const writer = new FrameWriter();
+  writer.byte(FRAME_EVENTS);
+  writer.varint(firstSequence);
+  writer.varint(events.length);
+
+  for (const event of events) {
+    const flags =
+      (event.callOwnerEmail ? FLAG_EMAIL : 0) |
+      (event.callGroupId ? FLAG_CALL_GROUP : 0) |
+      (event.sourceId ? FLAG_SOURCE : 0) |
+      (event.callDirection === 'OUTBOUND' ? FLAG_OUTBOUND : 0);
+    writer.byte(flags);
+    writer.string(event.pbxCallId);
+    writer.string(event.phoneNumber);
+    writer.string(event.callOwnerExtension);
+    if (event.callOwnerEmail) {
+      writer.string(event.callOwnerEmail);
+    }
+    if (event.callGroupId) {
+      writer.string(event.callGroupId);
+    }
+    if (event.sourceId) {
+      writer.string(event.sourceId);
+    }
+    writer.varint(event.callDuration);
+    writer.varint(Date.parse(event.timestamp));
+    writer.zigzag(offsetSeconds(event.timestamp));
+  }
+
+  return writer.toBuffer();
+}
+
+/**
+ * Decode an ACK or RETRY frame sent by the API
+ */
+export function decodeServerFrame(buffer: Buffer): AckFrame | RetryFrame {
+  const reader = new FrameReader(buffer);
+  const type = reader.byte();
+  const firstSequence = reader.varint();
+  const count = reader.varint();
+
+  if (type === FRAME_ACK) {
+    const items: AckFrame['items'] = [];
+    for (let i = 0; i < count; i++) {
+      const status = ACK_STATUSES[reader.byte()];
+      if (status === undefined) {
+        throw new Error('Unknown ack status');
+      }
+      items.push({ status, error: status === 'INVALID' ? reader.string() : null });
+    }
+    return { type: 'ACK', firstSequence, items };
+  }
+
+  if (type === FRAME_RETRY) {
+    const reason = RETRY_REASONS[reader.byte()] ?? 'SERVER_ERROR';
+    return { type: 'RETRY', firstSequence, count, reason, retryAfterSeconds: reader.varint() };
+  }
+
+  throw new Error(`Unknown stream frame type ${type}`);
+}
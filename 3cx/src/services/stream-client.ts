@@ -0,0 +1,192 @@
+/**
+ * Persistent binary ingest channel to the API (WebSocket at /api/pbx/stream).
+ * Events are pipelined in EVENTS frames without waiting for replies; the API acknowledges
+ * them in batches and asks for RETRY of ranges it rate-limited or failed to write.
+ */
+
+import WebSocket from 'ws';
+import { ApiConfig } from '../types/config.types.js';
+import { PbxBatchItemResult, PbxBatchResponse, PbxCallRequest } from '../types/api.types.js';
+import { AckFrame, RetryFrame, decodeServerFrame, encodeEvents } from './pbx-stream-codec.js';
+import logger from '../utils/logger.js';
+
+// Keep frames well under the API's max-frame-bytes and batch max-items
+const EVENTS_PER_FRAME = 200;
+
+interface PendingBatch {
+  items: PbxBatchItemResult[];
+  remaining: number;
+  resolve: (response: PbxBatchResponse) => void;
+  reject: (error: Error) => void;
+}
+
+interface PendingEvent {
+  request: PbxCallRequest;
+  batch: PendingBatch;
+  index: number;
+}
+
+export class PbxStreamClient {
+  private readonly url: string;
+  private readonly sourceId?: string;
+  private socket: WebSocket | null = null;
+  private nextSequence = 1;
+  private readonly pending = new Map<number, PendingEvent>();
+
+  constructor(config: ApiConfig) {
+    this.url = config.stream_url ?? `${config.base_url.replace(/^http/, 'ws')}/pbx/stream`;
+    this.sourceId = config.source_id;
+  }
+
+  /**
+   * Open the stream (no-op if already open)
+   */
+  async connect(): Promise<void> {
+    if (this.socket && this.socket.readyState === WebSocket.OPEN) {
+      return;
+    }
+
+    const socket = new WebSocket(this.url, {
+      headers: this.sourceId ? { 'X-Source-Id': this.sourceId } : {},
+    });
+
+    await new Promise<void>((resolve, reject) => {
+      socket.once('open', () => resolve());
+      socket.once('error', (error) => reject(error));
+    });
+
+    socket.on('message', (data: Buffer) => this.handleFrame(data));
+    socket.on('close', (code, reason) => this.handleClose(code, reason.toString()));
+    socket.on('error', (error) => logger.warn('PBX stream error', { error: error.message }));
+    this.socket = socket;
+    logger.info('PBX ingest stream connected', { url: this.url });
+  }
+
+  /**
+   * Send a batch over the stream; resolves once every event has been acknowledged
+   */
+  async submitBatch(requests: PbxCallRequest[]): Promise<PbxBatchResponse> {
+    await this.connect();
+    if (requests.length === 0) {
+      return { received: 0, created: 0, merged: 0, duplicates: 0, invalid: 0, items: [] };
+    }
+
+    return new Promise<PbxBatchResponse>((resolve, reject) => {
+      const batch: PendingBatch = {
+        items: new Array<PbxBatchItemResult>(requests.length),
+        remaining: requests.length,
+        resolve,
+        reject,
+      };
+
+      for (let offset = 0; offset < requests.length; offset += EVENTS_PER_FRAME) {
+        const chunk = requests.slice(offset, offset + EVENTS_PER_FRAME);
+        const firstSequence = this.nextSequence;
+        this.nextSequence += chunk.length;
+        chunk.forEach((request, i) => {
+          this.pending.set(firstSequence + i, { request, batch, index: offset + i });
+        });
+        this.send(firstSequence, chunk);
+      }
+    });
+  }
+
+  /**
+   * Close the stream; unacknowledged batches are rejected
+   */
+  close(): void {
+    this.socket?.close(1000);
+  }
+
+  private send(firstSequence: number, events: PbxCallRequest[]): void {
+    if (!this.socket || this.socket.readyState !== WebSocket.OPEN) {
+      return;
+    }
+    this.socket.send(encodeEvents(firstSequence, events));
+  }
+
+  private handleFrame(data: Buffer): void {
+    let frame: AckFrame | RetryFrame;
+    try {
+      frame = decodeServerFrame(data);
+    } catch (error) {
+      logger.error('Malformed frame from PBX stream', { error: (error as Error).message });
+      this.socket?.close(1003);
+      return;
+    }
+
+    if (frame.type === 'RETRY') {
+      this.scheduleResend(frame);
+      return;
+    }
+
+    frame.items.forEach((item, i) => {
+      const sequence = frame.firstSequence + i;
+      const event = this.pending.get(sequence);
+      if (!event) {
+        return;
+      }
+      this.pending.delete(sequence);
+      event.batch.items[event.index] = {
+        index: event.index,
+        pbxCallId: event.request.pbxCallId,
+        status: item.status,
+        callEntryId: null,
+        error: item.error,
+      };
+      if (--event.batch.remaining === 0) {
+        event.batch.resolve(summarize(event.batch.items));
+      }
+    });
+  }
+
+  private scheduleResend(frame: RetryFrame): void {
+    logger.warn('PBX stream asked to resend events', {
+      count: frame.count,
+      reason: frame.reason,
+      retryAfterSeconds: frame.retryAfterSeconds,
+    });
+
+    setTimeout(() => {
+      const events: PbxCallRequest[] = [];
+      for (let sequence = frame.firstSequence; sequence < frame.firstSequence + frame.count; sequence++) {
+        const event = this.pending.get(sequence);
+        if (!event) {
+          break;
+        }
+        events.push(event.request);
+      }
+      if (events.length > 0) {
+        this.send(frame.firstSequence, events);
+      }
+    }, frame.retryAfterSeconds * 1000);
+  }
+
+  private handleClose(code: number, reason: string): void {
+    this.socket = null;
+    if (this.pending.size === 0) {
+      return;
+    }
+
+    logger.warn('PBX stream closed with unacknowledged events', { code, reason, pending: this.pending.size });
+    const batches = new Set([...this.pending.values()].map((event) => event.batch));
+    this.pending.clear();
+    for (const batch of batches) {
+      batch.reject(new Error(`PBX stream closed (${code}) before all events were acknowledged`));
+    }
+  }
+}
+
+function summarize(items: PbxBatchItemResult[]): PbxBatchResponse {
+  const count = (status: PbxBatchItemResult['status']) => items.filter((item) => item.status === status).length;
+  return {
+    received: items.length,
+    created: count('CREATED'),
+    merged: count('MERGED'),
+    duplicates: count('DUPLICATE'),
+    invalid: count('INVALID'),
+    items,
+  };
+}
+
+export default PbxStreamClient;
@@ -0,0 +1,63 @@
+/**
+ * Client side of the API's PBX sync digest (see PbxSyncService in the API).
+ * Buckets local call requests by CDR end time exactly as the API does and keeps only the
+ * requests in buckets whose count or hash differ, i.e. the gaps the API is missing.
+ */
+
+import { PbxCallRequest, PbxSyncDigest } from '../types/api.types.js';
+
+const FNV_OFFSET_BASIS = 0xcbf29ce484222325n;
+const FNV_PRIME = 0x100000001b3n;
+const MASK_64 = 0xffffffffffffffffn;
+
+/**
+ * 64-bit FNV-1a over the UTF-8 bytes of a value
+ */
+export function fnv1a64(value: string): bigint {
+  let hash = FNV_OFFSET_BASIS;
+  for (const byte of Buffer.from(value, 'utf8')) {
+    hash ^= BigInt(byte);
+    hash = (hash * FNV_PRIME) & MASK_64;
+  }
+  return hash;
+}
+
+/**
+ * Requests the API does not appear to have, judged bucket by bucket against its digest
+ */
+export function filterUnsynced(requests: PbxCallRequest[], digest: PbxSyncDigest): PbxCallRequest[] {
+  const fromMs = Date.parse(digest.from);
+  const toMs = Date.parse(digest.to);
+  const bucketMs = digest.bucketSeconds * 1000;
+
+  const local = new Map<number, { count: number; hash: bigint; requests: PbxCallRequest[] }>();
+  const outsideWindow: PbxCallRequest[] = [];
+
+  for (const request of requests) {
+    const timestampMs = Date.parse(request.timestamp);
+    if (timestampMs < fromMs || timestampMs >= toMs) {
+      outsideWindow.push(request);
+      continue;
+    }
+    const index = Math.floor((timestampMs - fromMs) / bucketMs);
+    const bucket = local.get(index) ?? { count: 0, hash: 0n, requests: [] };
+    bucket.count++;
+    bucket.hash ^= fnv1a64(request.pbxCallId);
+    bucket.requests.push(request);
+    local.set(index, bucket);
+  }
+
+  const remote = new Map(digest.buckets.map((bucket) => [bucket.index, bucket]));
+  const unsynced = [...outsideWindow];
+  for (const [index, bucket] of local) {
+    const remoteBucket = remote.get(index);
+    const matches =
+      remoteBucket !== undefined &&
+      remoteBucket.count === bucket.count &&
+      remoteBucket.hash === bucket.hash.toString(16).padStart(16, '0');
+    if (!matches) {
+      unsynced.push(...bucket.requests);
+    }
+  }
+  return unsynced;
+}
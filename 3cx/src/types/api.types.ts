@@ -13,6 +13,44 @@ export interface PbxCallRequest {
   pbxCallId: string;
 }
 
+export interface PbxBatchItemResult {
+  index: number;
+  pbxCallId: string | null;
+  status: 'CREATED' | 'MERGED' | 'DUPLICATE' | 'INVALID';
+  callEntryId: string | null;
+  error: string | null;
+}
+
+export interface PbxBatchResponse {
+  received: number;
+  created: number;
+  merged: number;
+  duplicates: number;
+  invalid: number;
+  items: PbxBatchItemResult[];
+}
+
+export interface PbxSyncWatermark {
+  sourceId: string | null;
+  latestPbxCallId: string | null;
+  latestCdrAt: string | null;
+}
+
+export interface PbxSyncDigestBucket {
+  index: number;  // bucket number from the start of the window
+  count: number;
+  hash: string;   // XOR of FNV-1a 64 hashes of the bucket's pbxCallIds, 16 hex digits
+}
+
+export interface PbxSyncDigest {
+  sourceId: string | null;
+  from: string;
+  to: string;
+  bucketSeconds: number;
+  totalCalls: number;
+  buckets: PbxSyncDigestBucket[];
+}
+
 export interface CallEntryResponse {
   id: string;
   datatechName: string;
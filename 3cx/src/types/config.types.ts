@@ -28,6 +28,9 @@ export interface ApiConfig {
   base_url: string;
   timeout_seconds: number;
   retry_attempts: number;
+  source_id?: string;
+  use_stream?: boolean | string;  // send CDRs over the binary WebSocket stream instead of REST batches
+  stream_url?: string;            // defaults to base_url with ws:// and /pbx/stream
 }
 
 export interface BusinessHoursConfig {
@@ -48,6 +51,7 @@ export interface DayHours {
 
 export interface CallGroupsConfig {
   alert_check_interval_minutes: number;
+  server_side_coverage?: boolean;
   monitored_groups: MonitoredGroup[];
 }
 
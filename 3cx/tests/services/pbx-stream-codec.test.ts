@@ -0,0 +1,75 @@
+/**
+ * Unit tests for the PBX ingest stream codec
+ */
+
+import { decodeServerFrame, encodeEvents } from '../../src/services/pbx-stream-codec';
+import { PbxCallRequest } from '../../src/types/api.types';
+
+describe('encodeEvents', () => {
+  it('should write the frame header with varint sequence and count', () => {
+    const request: PbxCallRequest = {
+      phoneNumber: '9075551234',
+      callDuration: 300,
+      callOwnerExtension: '101',
+      callDirection: 'OUTBOUND',
+      timestamp: '2024-03-01T00:00:00.000Z',
+      pbxCallId: 'a',
+    };
+
+    const frame = encodeEvents(300, [request]);
+
+    // EVENTS, firstSequence 300 (0xac 0x02), one event, flags = outbound only, pbxCallId "a"
+    expect([...frame.subarray(0, 7)]).toEqual([0x01, 0xac, 0x02, 0x01, 0x04, 0x01, 0x61]);
+    // ... duration 300, then a zero UTC offset closes the event
+    expect(frame[frame.length - 1]).toBe(0x00);
+  });
+
+  it('should add optional fields only when present', () => {
+    const base: PbxCallRequest = {
+      phoneNumber: '1',
+      callDuration: 1,
+      callOwnerExtension: '1',
+      callDirection: 'INBOUND',
+      timestamp: '2024-03-01T00:00:00.000Z',
+      pbxCallId: '1',
+    };
+
+    const plain = encodeEvents(1, [base]);
+    const withEmail = encodeEvents(1, [{ ...base, callOwnerEmail: 'a@b.c' }]);
+
+    expect(withEmail.length - plain.length).toBe(6);
+    expect(withEmail[3]).toBe(0x01);
+  });
+});
+
+describe('decodeServerFrame', () => {
+  it('should decode per-event ack statuses and errors', () => {
+    const frame = Buffer.from([0x02, 0xac, 0x02, 0x03, 0x00, 0x02, 0x03, 0x03, 0x62, 0x61, 0x64]);
+
+    expect(decodeServerFrame(frame)).toEqual({
+      type: 'ACK',
+      firstSequence: 300,
+      items: [
+        { status: 'CREATED', error: null },
+        { status: 'DUPLICATE', error: null },
+        { status: 'INVALID', error: 'bad' },
+      ],
+    });
+  });
+
+  it('should decode retry requests', () => {
+    const frame = Buffer.from([0x03, 0x0a, 0x05, 0x00, 0x02]);
+
+    expect(decodeServerFrame(frame)).toEqual({
+      type: 'RETRY',
+      firstSequence: 10,
+      count: 5,
+      reason: 'RATE_LIMITED',
+      retryAfterSeconds: 2,
+    });
+  });
+
+  it('should reject truncated frames', () => {
+    expect(() => decodeServerFrame(Buffer.from([0x02, 0x01, 0x02, 0x00]))).toThrow('Truncated');
+  });
+});
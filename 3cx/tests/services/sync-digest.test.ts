@@ -0,0 +1,65 @@
+/**
+ * Unit tests for the PBX sync digest client
+ */
+
+import { filterUnsynced, fnv1a64 } from '../../src/services/sync-digest';
+import { PbxCallRequest, PbxSyncDigest } from '../../src/types/api.types';
+
+function request(pbxCallId: string, timestamp: string): PbxCallRequest {
+  return {
+    phoneNumber: '9075551234',
+    callDuration: 60,
+    callOwnerExtension: '101',
+    callDirection: 'INBOUND',
+    timestamp,
+    pbxCallId,
+  };
+}
+
+function hex(value: bigint): string {
+  return value.toString(16).padStart(16, '0');
+}
+
+describe('fnv1a64', () => {
+  it('should match the reference vectors used by the API', () => {
+    expect(hex(fnv1a64(''))).toBe('cbf29ce484222325');
+    expect(hex(fnv1a64('a'))).toBe('af63dc4c8601ec8c');
+  });
+});
+
+describe('filterUnsynced', () => {
+  const requests = [
+    request('3cx-1', '2024-03-01T00:01:00.000Z'),
+    request('3cx-2', '2024-03-01T00:59:59.999Z'),
+    request('3cx-3', '2024-03-01T01:30:00.000Z'),
+  ];
+
+  it('should drop buckets the API already has and keep mismatched ones', () => {
+    const digest: PbxSyncDigest = {
+      sourceId: '3cx-main',
+      from: '2024-03-01T00:00:00.000Z',
+      to: '2024-03-01T02:00:00.000Z',
+      bucketSeconds: 3600,
+      totalCalls: 2,
+      buckets: [
+        { index: 0, count: 2, hash: hex(fnv1a64('3cx-1') ^ fnv1a64('3cx-2')) },
+        { index: 1, count: 1, hash: hex(fnv1a64('3cx-other')) },
+      ],
+    };
+
+    expect(filterUnsynced(requests, digest).map((r) => r.pbxCallId)).toEqual(['3cx-3']);
+  });
+
+  it('should keep everything when the API has nothing in the window', () => {
+    const digest: PbxSyncDigest = {
+      sourceId: '3cx-main',
+      from: '2024-03-01T00:00:00.000Z',
+      to: '2024-03-01T02:00:00.000Z',
+      bucketSeconds: 3600,
+      totalCalls: 0,
+      buckets: [],
+    };
+
+    expect(filterUnsynced(requests, digest)).toHaveLength(3);
+  });
+});
@@ -0,0 +1,108 @@
+package com.wai.callform.config;
+
+import com.wai.callform.service.IngestRateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Applies IngestRateLimiter to the sideloader write endpoints.
+ * Sources identify themselves with X-Source-Id (or X-API-Key); unidentified callers are keyed by address.
+ * Exhausted buckets get 429 and a saturated connection pool gets 503, both with Retry-After.
+ * Batch bodies are charged per record by the controller once parsed; the filter only passes the
+ * source key along in a request attribute.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IngestRateLimitFilter extends OncePerRequestFilter {
+
+    static final String SOURCE_ID_HEADER = "X-Source-Id";
+    static final String API_KEY_HEADER = "X-API-Key";
+    public static final String SOURCE_KEY_ATTRIBUTE = "callform.ingest.rateLimitSourceKey";
+    private static final String BATCH_PATH = "/api/calls/from-pbx/batch";
+
+    private static final long SHED_RETRY_AFTER_SECONDS = 1;
+
+    private final IngestRateLimiter rateLimiter;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !rateLimiter.isEnabled() || limitFor(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        IngestRateLimiter.Limit limit = limitFor(request);
+        String source = sourceKey(request);
+
+        if (rateLimiter.isDatabaseSaturated()) {
+            log.warn("Shedding {} request from source {}: database pool saturated", limit, source);
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, SHED_RETRY_AFTER_SECONDS);
+            return;
+        }
+
+        if (isBatch(request)) {
+            request.setAttribute(SOURCE_KEY_ATTRIBUTE, source);
+        } else {
+            long retryAfter = rateLimiter.tryAcquire(limit, source);
+            if (retryAfter > 0) {
+                log.warn("Rate limit exceeded for {} source {}, retry after {}s", limit, source, retryAfter);
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, retryAfter);
+                return;
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private static IngestRateLimiter.Limit limitFor(HttpServletRequest request) {
+        if (!"POST".equalsIgnoreCase(request.getMethod())) {
+            return null;
+        }
+        String path = pathOf(request);
+        if (path.startsWith("/api/calls/from-pbx")) {
+            return IngestRateLimiter.Limit.PBX;
+        }
+        if (path.equals("/api/alerts/call-groups")) {
+            return IngestRateLimiter.Limit.ALERTS;
+        }
+        return null;
+    }
+
+    private static boolean isBatch(HttpServletRequest request) {
+        return pathOf(request).equals(BATCH_PATH);
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static String sourceKey(HttpServletRequest request) {
+        String sourceId = request.getHeader(SOURCE_ID_HEADER);
+        if (sourceId != null && !sourceId.isBlank()) {
+            return "source:" + sourceId.trim();
+        }
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        if (apiKey != null && !apiKey.isBlank()) {
+            // Don't keep or log raw keys
+            return "key:" + Integer.toHexString(apiKey.trim().hashCode());
+        }
+        return "addr:" + request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds) {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    }
+}
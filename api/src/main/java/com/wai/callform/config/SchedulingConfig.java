@@ -0,0 +1,11 @@
+package com.wai.callform.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    // Enables @Scheduled background jobs (report workers, lease heartbeats and reaper).
+}
@@ -0,0 +1,64 @@
+package com.wai.callform.controller;
+
+import com.wai.callform.dto.CallGroupAlertAnalytics;
+import com.wai.callform.dto.CallGroupAlertDto;
+import com.wai.callform.service.CallGroupAlertAnalyticsService;
+import com.wai.callform.service.CallGroupAlertService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Call group alert analytics and paged alert history
+ */
+@RestController
+@RequestMapping("/api/alerts")
+@RequiredArgsConstructor
+@Slf4j
+public class AlertAnalyticsController {
+
+    private static final int MAX_HISTORY_PAGE_SIZE = 500;
+
+    private final CallGroupAlertAnalyticsService analyticsService;
+    private final CallGroupAlertService callGroupAlertService;
+
+    /**
+     * Per-group alert counts, time-to-resolve (mean, p50, p90) and frequency buckets over [from, to)
+     */
+    @GetMapping("/analytics")
+    public ResponseEntity<CallGroupAlertAnalytics> getAnalytics(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(defaultValue = "86400") long bucketSeconds,
+            @RequestParam(required = false) String callGroupId) {
+        log.debug("Getting alert analytics {} - {} ({}s buckets, group {})", from, to, bucketSeconds, callGroupId);
+        try {
+            return ResponseEntity.ok(analyticsService.getAnalytics(from, to, bucketSeconds, callGroupId));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected alert analytics request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Alerts created in [from, to), newest first
+     */
+    @GetMapping("/history")
+    public ResponseEntity<Page<CallGroupAlertDto>> getHistory(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(required = false) String callGroupId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        PageRequest pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_HISTORY_PAGE_SIZE),
+                Sort.by(Sort.Direction.DESC, "createdAt"));
+        return ResponseEntity.ok(callGroupAlertService.getAlertHistory(callGroupId, from, to, pageable));
+    }
+}
@@ -1,17 +1,22 @@
 package com.wai.callform.controller;
 
 import com.wai.callform.dto.CallEntryDto;
+import com.wai.callform.dto.CallSearchPage;
 import com.wai.callform.dto.StartCallRequest;
 import com.wai.callform.dto.UpdateCallRequest;
 import com.wai.callform.service.CallEntryService;
+import com.wai.callform.service.CallSearchService;
+import com.wai.callform.service.TaskSubjectService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.time.OffsetDateTime;
 import java.util.List;
@@ -24,6 +29,8 @@ import java.util.UUID;
 public class CallEntryController {
 
     private final CallEntryService callEntryService;
+    private final TaskSubjectService taskSubjectService;
+    private final CallSearchService callSearchService;
 
     /**
      * Start a new call
@@ -60,10 +67,10 @@ public class CallEntryController {
      * Get call by ID
      */
     @GetMapping("/{callId}")
-    public ResponseEntity<CallEntryDto> getCall(@PathVariable UUID callId) {
+    public ResponseEntity<CallEntryDto> getCall(@PathVariable UUID callId, ServletWebRequest request) {
         log.debug("Getting call with ID: {}", callId);
         CallEntryDto callEntry = callEntryService.getCall(callId);
-        return ResponseEntity.ok(callEntry);
+        return ConditionalGet.respond(request, callsETag(List.of(callEntry)), () -> callEntry);
     }
 
     /**
@@ -71,10 +78,11 @@ public class CallEntryController {
      */
     @GetMapping("/user/{userEmail}")
     public ResponseEntity<Page<CallEntryDto>> getCallsByUser(@PathVariable String userEmail, 
-                                                           Pageable pageable) {
+                                                           Pageable pageable,
+                                                           ServletWebRequest request) {
         log.debug("Getting calls for user: {} with pagination", userEmail);
         Page<CallEntryDto> calls = callEntryService.getUserCalls(userEmail, pageable);
-        return ResponseEntity.ok(calls);
+        return ConditionalGet.respond(request, pageETag(calls), () -> calls);
     }
 
     /**
@@ -83,10 +91,11 @@ public class CallEntryController {
     @GetMapping("/date-range")
     public ResponseEntity<List<CallEntryDto>> getCallsByDateRange(
             @RequestParam OffsetDateTime startDate,
-            @RequestParam OffsetDateTime endDate) {
+            @RequestParam OffsetDateTime endDate,
+            ServletWebRequest request) {
         log.debug("Getting calls between {} and {}", startDate, endDate);
         List<CallEntryDto> calls = callEntryService.getCallsByDateRange(startDate, endDate);
-        return ResponseEntity.ok(calls);
+        return ConditionalGet.respond(request, callsETag(calls), () -> calls);
     }
 
     /**
@@ -99,7 +108,8 @@ public class CallEntryController {
             @RequestParam(required = false) UUID subjectId,
             @RequestParam(required = false) OffsetDateTime startDate,
             @RequestParam(required = false) OffsetDateTime endDate,
-            Pageable pageable) {
+            Pageable pageable,
+            ServletWebRequest request) {
         log.debug("Getting filtered calls with filters - user: {}, taskId: {}, subjectId: {}", 
                  userEmail, taskId, subjectId);
         
@@ -108,9 +118,31 @@ public class CallEntryController {
         
         Page<CallEntryDto> calls = callEntryService.getCallsWithFilters(
             userEmail, taskId, subjectId, startDate, endDate, convertedPageable);
-        return ResponseEntity.ok(calls);
+        return ConditionalGet.respond(request, pageETag(calls), () -> calls);
     }
     
+    /**
+     * Full-text search of call comments; ranked best match first within a date window of up to 31 days,
+     * newest first otherwise. Pass nextCursor back for more
+     */
+    @GetMapping("/search")
+    public ResponseEntity<CallSearchPage> searchComments(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) String userEmail,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "25") int size) {
+        log.debug("Searching call comments for \"{}\" - user: {}, {} to {}", query, userEmail, startDate, endDate);
+        try {
+            return ResponseEntity.ok(callSearchService.searchComments(query, userEmail, startDate, endDate, cursor,
+                    size));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected call comment search: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     private Pageable convertSortFields(Pageable pageable) {
         if (pageable.getSort().isEmpty()) {
             return pageable;
@@ -137,20 +169,30 @@ public class CallEntryController {
      * Get active call for user
      */
     @GetMapping("/user/{userEmail}/active")
-    public ResponseEntity<CallEntryDto> getActiveCallByUser(@PathVariable String userEmail) {
+    public ResponseEntity<CallEntryDto> getActiveCallByUser(@PathVariable String userEmail,
+                                                            ServletWebRequest request) {
         log.debug("Getting active call for user: {}", userEmail);
         var activeCall = callEntryService.getUserActiveCall(userEmail);
         if (activeCall.isPresent()) {
-            return ResponseEntity.ok(activeCall.get());
+            return ConditionalGet.respond(request, callsETag(List.of(activeCall.get())), activeCall::get);
         } else {
             return ResponseEntity.noContent().build();
         }
     }
 
     @GetMapping("/users")
-    public ResponseEntity<List<String>> getAllUsers() {
+    public ResponseEntity<List<String>> getAllUsers(ServletWebRequest request) {
         log.debug("Getting all unique user emails");
         List<String> users = callEntryService.getAllUniqueUserEmails();
-        return ResponseEntity.ok(users);
+        return ConditionalGet.respond(request, ConditionalGet.ofValues(users), () -> users);
+    }
+
+    private String callsETag(List<CallEntryDto> calls) {
+        return ConditionalGet.ofCalls(taskSubjectService.getSnapshot().version(), calls);
+    }
+
+    private String pageETag(Page<CallEntryDto> page) {
+        return ConditionalGet.ofCalls(taskSubjectService.getSnapshot().version(), page.getContent(),
+                page.getTotalElements(), page.getNumber(), page.getSize());
     }
 }
\ No newline at end of file
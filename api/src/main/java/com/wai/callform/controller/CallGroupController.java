@@ -0,0 +1,62 @@
+package com.wai.callform.controller;
+
+import com.wai.callform.dto.CallGroupDto;
+import com.wai.callform.service.CallGroupCoverageEngine;
+import com.wai.callform.service.CallGroupService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST Controller for call group membership and live coverage
+ */
+@RestController
+@RequestMapping("/api/call-groups")
+@RequiredArgsConstructor
+@Slf4j
+public class CallGroupController {
+
+    private final CallGroupService callGroupService;
+    private final CallGroupCoverageEngine coverageEngine;
+
+    /**
+     * Configured call groups with their current coverage (served from memory)
+     */
+    @GetMapping
+    public ResponseEntity<List<CallGroupDto>> getCoverage() {
+        return ResponseEntity.ok(coverageEngine.getCoverage());
+    }
+
+    /**
+     * Create or replace a call group and its members (admin function)
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<?> saveGroup(@PathVariable String id, @Valid @RequestBody CallGroupDto dto) {
+        if (!id.equals(dto.getId())) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Call group ID does not match the path"));
+        }
+        log.info("Saving call group {}", id);
+        callGroupService.saveGroup(dto);
+        // Re-evaluate with the committed membership right away
+        coverageEngine.reload();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Delete a call group (admin function)
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteGroup(@PathVariable String id) {
+        log.info("Deleting call group {}", id);
+        if (!callGroupService.deleteGroup(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        coverageEngine.reload();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,90 @@
+package com.wai.callform.controller;
+
+import com.wai.callform.dto.CallEntryDto;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * Strong ETags and If-None-Match handling for read endpoints.
+ * Responses are sent with "Cache-Control: private, no-cache", so browsers keep them but revalidate
+ * every time; a matching If-None-Match gets a 304 with no body.
+ */
+final class ConditionalGet {
+
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * Answer 304 if the client already has etag, otherwise 200 with the supplied body
+     */
+    static <T> ResponseEntity<T> respond(ServletWebRequest request, String etag, Supplier<T> body) {
+        return respond(request, etag, null, body);
+    }
+
+    static <T> ResponseEntity<T> respond(ServletWebRequest request, String etag, MediaType contentType,
+                                         Supplier<T> body) {
+        // Set before the check so a 304 carries the same caching directives as the 200 it revalidates
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE.getHeaderValue());
+        }
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE);
+        if (contentType != null) {
+            response.contentType(contentType);
+        }
+        return response.body(body.get());
+    }
+
+    /**
+     * ETag of a reference data response: fixed for as long as the reference data version is
+     */
+    static String ofReferenceVersion(long version) {
+        return "\"ref-" + version + "\"";
+    }
+
+    /**
+     * ETag of call entries: each call's id and updated_at, the reference data version (task and
+     * subject names are embedded) and any extra page state such as the total count
+     */
+    static String ofCalls(long referenceVersion, Collection<CallEntryDto> calls, Object... extra) {
+        StringBuilder state = new StringBuilder().append(referenceVersion);
+        for (CallEntryDto call : calls) {
+            state.append('|').append(call.getId()).append('@')
+                    .append(call.getUpdatedAt() != null ? call.getUpdatedAt().toInstant() : "");
+        }
+        for (Object value : extra) {
+            state.append('#').append(value);
+        }
+        return "\"" + digest(state.toString()) + "\"";
+    }
+
+    /**
+     * ETag of an arbitrary list of values
+     */
+    static String ofValues(Collection<?> values) {
+        return "\"" + digest(String.join("\n", values.stream().map(String::valueOf).toList())) + "\"";
+    }
+
+    private static String digest(String state) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(state.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.wai.callform.controller;
+
+import com.wai.callform.dto.ExtensionDirectoryDto;
+import com.wai.callform.service.ExtensionDirectoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST Controller for the PBX extension directory (extension -> user mapping used at ingest)
+ */
+@RestController
+@RequestMapping("/api/directory")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class ExtensionDirectoryController {
+
+    private final ExtensionDirectoryService extensionDirectoryService;
+
+    /**
+     * Get all directory entries (admin function)
+     */
+    @GetMapping("/extensions")
+    public ResponseEntity<List<ExtensionDirectoryDto>> getAllEntries() {
+        log.info("Fetching extension directory");
+        return ResponseEntity.ok(extensionDirectoryService.getAllEntries());
+    }
+
+    /**
+     * Bulk load directory entries from CSV (admin function)
+     * Header: extension,email,display_name[,is_active]
+     */
+    @PostMapping(value = "/extensions/import", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<?> importEntries(@RequestBody String csv) {
+        log.info("Importing extension directory CSV ({} chars)", csv.length());
+        try {
+            ExtensionDirectoryService.ImportResult result =
+                    extensionDirectoryService.importCsv(new StringReader(csv));
+            // Publish the committed entries to the in-memory snapshot right away
+            extensionDirectoryService.refresh();
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected extension directory CSV: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            log.error("Failed to read extension directory CSV", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
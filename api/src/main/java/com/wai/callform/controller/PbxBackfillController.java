@@ -0,0 +1,120 @@
+package com.wai.callform.controller;
+
+import com.wai.callform.dto.PbxBackfillStatus;
+import com.wai.callform.service.PbxBackfillService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Admin import of historical PBX call records (CSV or NDJSON of PbxCallRequest)
+ */
+@RestController
+@RequestMapping("/api/admin/pbx-backfill")
+@RequiredArgsConstructor
+@Slf4j
+public class PbxBackfillController {
+
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    private static final String CSV_MEDIA_TYPE = "text/csv";
+
+    private final PbxBackfillService pbxBackfillService;
+
+    /**
+     * Upload a CSV backfill file; poll the returned Location for progress
+     */
+    @PostMapping(consumes = CSV_MEDIA_TYPE)
+    public ResponseEntity<PbxBackfillStatus> submitCsv(InputStream body,
+                                                       @RequestHeader(value = PbxIntegrationController.SOURCE_ID_HEADER, required = false) String sourceId) {
+        return submit(body, PbxBackfillService.Format.CSV, sourceId);
+    }
+
+    /**
+     * Upload an NDJSON backfill file; poll the returned Location for progress
+     */
+    @PostMapping(consumes = NDJSON_MEDIA_TYPE)
+    public ResponseEntity<PbxBackfillStatus> submitNdjson(InputStream body,
+                                                          @RequestHeader(value = PbxIntegrationController.SOURCE_ID_HEADER, required = false) String sourceId) {
+        return submit(body, PbxBackfillService.Format.NDJSON, sourceId);
+    }
+
+    /**
+     * Get progress of a backfill
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<PbxBackfillStatus> getStatus(@PathVariable UUID jobId) {
+        try {
+            return ResponseEntity.ok(pbxBackfillService.getStatus(jobId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Run a failed backfill again from the spool file it kept
+     */
+    @PostMapping("/{jobId}/retry")
+    public ResponseEntity<PbxBackfillStatus> retry(@PathVariable UUID jobId) {
+        try {
+            PbxBackfillStatus status = pbxBackfillService.retry(jobId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .location(URI.create("/api/admin/pbx-backfill/" + jobId))
+                    .body(status);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            log.warn("Cannot retry PBX backfill {}: {}", jobId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    /**
+     * Delete the spool file a failed backfill kept for retry
+     */
+    @DeleteMapping("/{jobId}/spool")
+    public ResponseEntity<Void> discard(@PathVariable UUID jobId) {
+        try {
+            pbxBackfillService.discard(jobId);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            log.warn("Cannot discard PBX backfill {} spool file: {}", jobId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IOException e) {
+            log.error("Failed to delete PBX backfill {} spool file", jobId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * List recent backfills, newest first
+     */
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<PbxBackfillStatus>> getRecentJobs() {
+        return ResponseEntity.ok(pbxBackfillService.getRecentJobs());
+    }
+
+    private ResponseEntity<PbxBackfillStatus> submit(InputStream body, PbxBackfillService.Format format,
+                                                     String sourceId) {
+        try {
+            PbxBackfillStatus status = pbxBackfillService.submit(body, format, sourceId);
+            log.info("Queued PBX backfill {} ({})", status.getId(), format);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .location(URI.create("/api/admin/pbx-backfill/" + status.getId()))
+                    .body(status);
+        } catch (IOException e) {
+            log.error("Failed to spool PBX backfill upload", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.wai.callform.controller;
+
+import com.wai.callform.dto.PbxBatchResult;
+import com.wai.callform.dto.PbxCallRequest;
+import com.wai.callform.service.IngestRateLimiter;
+import com.wai.callform.service.PbxIntegrationService;
+import com.wai.callform.service.PbxStreamCodec;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistent binary ingest channel for sideloaders (WebSocket at /api/pbx/stream).
+ * Clients pipeline EVENTS frames without waiting for replies; events are buffered per connection
+ * and written through PbxIntegrationService.createCallsFromPbx once flush-size events arrive or the
+ * linger time passes, and each written batch is acknowledged with one ACK frame. Rate-limited or
+ * shed frames get a RETRY frame and are resent by the client; unacknowledged events are resent
+ * after a reconnect, which the unique pbx_call_id index makes harmless.
+ */
+@Component
+@Slf4j
+public class PbxIngestStreamHandler extends BinaryWebSocketHandler {
+
+    private static final int SEND_TIME_LIMIT_MS = 10_000;
+    private static final int SEND_BUFFER_LIMIT_BYTES = 1024 * 1024;
+    private static final long ERROR_RETRY_AFTER_SECONDS = 1;
+
+    private final PbxIntegrationService pbxIntegrationService;
+    private final IngestRateLimiter rateLimiter;
+    private final int maxFrameEvents;
+    private final int flushSize;
+    private final long lingerMs;
+
+    private final Map<String, StreamState> streams = new ConcurrentHashMap<>();
+    // Only times linger expiries; the flush itself (a database write) runs on flushExecutor
+    private final ScheduledExecutorService lingerExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pbx-stream-linger");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService flushExecutor;
+
+    public PbxIngestStreamHandler(PbxIntegrationService pbxIntegrationService,
+                                  IngestRateLimiter rateLimiter,
+                                  @Value("${callform.pbx.batch.max-items:5000}") int maxFrameEvents,
+                                  @Value("${callform.pbx.stream.flush-size:500}") int flushSize,
+                                  @Value("${callform.pbx.stream.linger-ms:50}") long lingerMs,
+                                  @Value("${callform.pbx.stream.flush-threads:4}") int flushThreads) {
+        this.pbxIntegrationService = pbxIntegrationService;
+        this.rateLimiter = rateLimiter;
+        this.maxFrameEvents = maxFrameEvents;
+        this.flushSize = flushSize;
+        this.lingerMs = lingerMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.flushExecutor = Executors.newFixedThreadPool(flushThreads, runnable -> {
+            Thread thread = new Thread(runnable, "pbx-stream-flush-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        String sourceId = session.getHandshakeHeaders().getFirst(PbxIntegrationController.SOURCE_ID_HEADER);
+        WebSocketSession sender = new ConcurrentWebSocketSessionDecorator(session,
+                SEND_TIME_LIMIT_MS, SEND_BUFFER_LIMIT_BYTES);
+        streams.put(session.getId(), new StreamState(sender,
+                sourceId != null && !sourceId.isBlank() ? sourceId.trim() : null));
+        log.info("PBX ingest stream opened: session={}, source={}", session.getId(), sourceId);
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws IOException {
+        StreamState stream = streams.get(session.getId());
+        if (stream == null) {
+            return;
+        }
+
+        PbxStreamCodec.EventsFrame frame;
+        try {
+            frame = PbxStreamCodec.decodeEvents(message.getPayload(), maxFrameEvents);
+        } catch (IllegalArgumentException e) {
+            log.warn("Closing PBX ingest stream {}: {}", session.getId(), e.getMessage());
+            session.close(CloseStatus.BAD_DATA.withReason(e.getMessage()));
+            return;
+        }
+        if (frame.events().isEmpty()) {
+            return;
+        }
+
+        if (rateLimiter.isEnabled()) {
+            String sourceKey = stream.sourceId != null ? "source:" + stream.sourceId : "stream:" + session.getId();
+            if (rateLimiter.isDatabaseSaturated()) {
+                sendRetry(stream, frame, PbxStreamCodec.RetryReason.OVERLOADED, ERROR_RETRY_AFTER_SECONDS);
+                return;
+            }
+            // One token per event, as for HTTP batches
+            long retryAfter = rateLimiter.tryAcquire(IngestRateLimiter.Limit.PBX, sourceKey, frame.events().size());
+            if (retryAfter > 0) {
+                sendRetry(stream, frame, PbxStreamCodec.RetryReason.RATE_LIMITED, retryAfter);
+                return;
+            }
+        }
+
+        for (PbxCallRequest event : frame.events()) {
+            if (event.getSourceId() == null) {
+                event.setSourceId(stream.sourceId);
+            }
+        }
+        stream.append(frame);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.warn("PBX ingest stream {} transport error: {}", session.getId(), exception.getMessage());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        StreamState stream = streams.remove(session.getId());
+        if (stream != null) {
+            int dropped = stream.close();
+            log.info("PBX ingest stream closed: session={}, status={}, unacknowledged events dropped={}",
+                    session.getId(), status, dropped);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        lingerExecutor.shutdownNow();
+        flushExecutor.shutdownNow();
+    }
+
+    private void sendRetry(StreamState stream, PbxStreamCodec.EventsFrame frame,
+                           PbxStreamCodec.RetryReason reason, long retryAfterSeconds) throws IOException {
+        log.warn("Asking PBX stream source {} to resend {} events ({}), retry after {}s",
+                stream.sourceId, frame.events().size(), reason, retryAfterSeconds);
+        stream.sender.sendMessage(new BinaryMessage(PbxStreamCodec.encodeRetry(
+                frame.firstSequence(), frame.events().size(), reason, retryAfterSeconds)));
+    }
+
+    /**
+     * Per-connection buffer of received, not yet written events.
+     * Flushes hold the lock while writing, so a slow database stops this connection's reader
+     * (and through TCP flow control, the client) instead of growing the buffer. Linger flushes run on
+     * the shared flush pool, so one stalled write never delays other connections' timers.
+     */
+    private final class StreamState {
+
+        private final WebSocketSession sender;
+        private final String sourceId;
+        private final List<PbxCallRequest> buffer = new ArrayList<>();
+        private long bufferFirstSequence;
+        private ScheduledFuture<?> lingerFlush;
+        // Bumped whenever a pending linger flush is superseded, so a late-running one becomes a no-op
+        private long lingerGeneration;
+        private boolean closed;
+
+        StreamState(WebSocketSession sender, String sourceId) {
+            this.sender = sender;
+            this.sourceId = sourceId;
+        }
+
+        synchronized void append(PbxStreamCodec.EventsFrame frame) {
+            // A gap (the client skipped a retried range) starts a new batch so acks stay contiguous
+            if (!buffer.isEmpty() && frame.firstSequence() != bufferFirstSequence + buffer.size()) {
+                flush();
+            }
+            if (buffer.isEmpty()) {
+                bufferFirstSequence = frame.firstSequence();
+            }
+            buffer.addAll(frame.events());
+
+            if (buffer.size() >= flushSize) {
+                flush();
+            } else if (lingerFlush == null) {
+                long generation = lingerGeneration;
+                lingerFlush = lingerExecutor.schedule(() -> handOffLingerFlush(generation),
+                        lingerMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void handOffLingerFlush(long generation) {
+            try {
+                flushExecutor.execute(() -> lingerExpired(generation));
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the client resends whatever was not acknowledged
+                log.debug("Dropped PBX stream linger flush: {}", e.getMessage());
+            }
+        }
+
+        private synchronized void lingerExpired(long generation) {
+            if (generation != lingerGeneration) {
+                return;
+            }
+            lingerFlush = null;
+            flush();
+        }
+
+        private void flush() {
+            lingerGeneration++;
+            if (lingerFlush != null) {
+                lingerFlush.cancel(false);
+                lingerFlush = null;
+            }
+            if (closed || buffer.isEmpty()) {
+                return;
+            }
+
+            List<PbxCallRequest> batch = new ArrayList<>(buffer);
+            long firstSequence = bufferFirstSequence;
+            buffer.clear();
+
+            byte[] reply;
+            try {
+                PbxBatchResult result = pbxIntegrationService.createCallsFromPbx(batch);
+                reply = PbxStreamCodec.encodeAck(firstSequence, result);
+            } catch (RuntimeException e) {
+                log.error("Error writing PBX stream batch of {} events", batch.size(), e);
+                reply = PbxStreamCodec.encodeRetry(firstSequence, batch.size(),
+                        PbxStreamCodec.RetryReason.SERVER_ERROR, ERROR_RETRY_AFTER_SECONDS);
+            }
+
+            try {
+                sender.sendMessage(new BinaryMessage(reply));
+            } catch (IOException | RuntimeException e) {
+                // Client resends anything it did not see acknowledged once it reconnects
+                log.warn("Failed to acknowledge PBX stream batch: {}", e.getMessage());
+            }
+        }
+
+        synchronized int close() {
+            closed = true;
+            if (lingerFlush != null) {
+                lingerFlush.cancel(false);
+                lingerFlush = null;
+            }
+            int dropped = buffer.size();
+            buffer.clear();
+            return dropped;
+        }
+    }
+}
@@ -1,17 +1,34 @@
 package com.wai.callform.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wai.callform.config.IngestRateLimitFilter;
 import com.wai.callform.dto.CallEntryDto;
 import com.wai.callform.dto.CallGroupAlertDto;
+import com.wai.callform.dto.PbxBatchResult;
 import com.wai.callform.dto.PbxCallRequest;
 import com.wai.callform.service.CallGroupAlertService;
+import com.wai.callform.service.IngestRateLimiter;
+import com.wai.callform.service.PbxIngestJournal;
 import com.wai.callform.service.PbxIntegrationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -21,17 +38,42 @@ import java.util.UUID;
 @Slf4j
 public class PbxIntegrationController {
 
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    static final String SOURCE_ID_HEADER = "X-Source-Id";
+    private static final int MAX_PENDING_PAGE_SIZE = 1000;
+
     private final PbxIntegrationService pbxIntegrationService;
     private final CallGroupAlertService callGroupAlertService;
+    private final PbxIngestJournal pbxIngestJournal;
+    private final IngestRateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+
+    @Value("${callform.pbx.batch.max-items:5000}")
+    private int maxBatchItems;
 
     /**
-     * Endpoint for 3CX integration to submit call data
+     * Endpoint for 3CX integration to submit call data.
+     * In journal ingest mode the record is durably journaled and acknowledged with 202;
+     * the call entry is written to the database shortly after by the journal drainer.
      */
     @PostMapping("/calls/from-pbx")
-    public ResponseEntity<CallEntryDto> createCallFromPbx(@Valid @RequestBody PbxCallRequest request) {
+    public ResponseEntity<?> createCallFromPbx(@Valid @RequestBody PbxCallRequest request,
+                                               @RequestHeader(value = SOURCE_ID_HEADER, required = false) String sourceId) {
+        applySourceId(request, sourceId);
         log.info("Received PBX call data: pbxCallId={}, extension={}, phoneNumber={}",
                 request.getPbxCallId(), request.getCallOwnerExtension(), request.getPhoneNumber());
 
+        if (pbxIngestJournal.isEnabled()) {
+            try {
+                long offset = pbxIngestJournal.append(request);
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .body(new PbxIngestAck(request.getPbxCallId(), "ACCEPTED", offset));
+            } catch (Exception e) {
+                log.error("Error journaling PBX call", e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            }
+        }
+
         try {
             CallEntryDto callEntry = pbxIntegrationService.createCallFromPbx(request);
             return ResponseEntity.status(HttpStatus.CREATED).body(callEntry);
@@ -45,25 +87,116 @@ public class PbxIntegrationController {
     }
 
     /**
-     * Get all pending PBX calls (calls that need user completion)
+     * Batch endpoint for 3CX backlog replay (JSON array body)
+     */
+    @PostMapping(value = "/calls/from-pbx/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<PbxBatchResult> createCallsFromPbx(@RequestBody List<PbxCallRequest> requests,
+                                                             @RequestHeader(value = SOURCE_ID_HEADER, required = false) String sourceId,
+                                                             @RequestAttribute(value = IngestRateLimitFilter.SOURCE_KEY_ATTRIBUTE, required = false) String rateLimitKey) {
+        requests.forEach(request -> applySourceId(request, sourceId));
+        return processBatch(requests, rateLimitKey);
+    }
+
+    /**
+     * Batch endpoint for 3CX backlog replay (newline-delimited JSON body, one PbxCallRequest per line)
+     */
+    @PostMapping(value = "/calls/from-pbx/batch", consumes = NDJSON_MEDIA_TYPE)
+    public ResponseEntity<PbxBatchResult> createCallsFromPbxNdjson(InputStream body,
+                                                                   @RequestHeader(value = SOURCE_ID_HEADER, required = false) String sourceId,
+                                                                   @RequestAttribute(value = IngestRateLimitFilter.SOURCE_KEY_ATTRIBUTE, required = false) String rateLimitKey) {
+        List<PbxCallRequest> requests = new ArrayList<>();
+        try (MappingIterator<PbxCallRequest> iterator =
+                     objectMapper.readerFor(PbxCallRequest.class).readValues(body)) {
+            while (iterator.hasNext()) {
+                if (requests.size() >= maxBatchItems) {
+                    return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+                }
+                PbxCallRequest request = iterator.next();
+                applySourceId(request, sourceId);
+                requests.add(request);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Malformed NDJSON PBX batch after {} records: {}", requests.size(), e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        return processBatch(requests, rateLimitKey);
+    }
+
+    private static void applySourceId(PbxCallRequest request, String sourceId) {
+        if (request != null && request.getSourceId() == null && sourceId != null && !sourceId.isBlank()) {
+            request.setSourceId(sourceId.trim());
+        }
+    }
+
+    private ResponseEntity<PbxBatchResult> processBatch(List<PbxCallRequest> requests, String rateLimitKey) {
+        log.info("Received PBX call batch: {} records", requests.size());
+
+        if (requests.size() > maxBatchItems) {
+            log.warn("PBX batch of {} records exceeds limit of {}", requests.size(), maxBatchItems);
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+
+        // Set by IngestRateLimitFilter when rate limiting is on; charged per record, not per request
+        if (rateLimitKey != null) {
+            long retryAfter = rateLimiter.tryAcquire(IngestRateLimiter.Limit.PBX, rateLimitKey, requests.size());
+            if (retryAfter > 0) {
+                log.warn("Rate limit exceeded for PBX batch of {} records from {}, retry after {}s",
+                        requests.size(), rateLimitKey, retryAfter);
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter))
+                        .build();
+            }
+        }
+
+        try {
+            return ResponseEntity.ok(pbxIntegrationService.createCallsFromPbx(requests));
+        } catch (Exception e) {
+            log.error("Error processing PBX call batch", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Get a page of pending PBX calls (calls that need user completion), oldest first.
+     * Pass the startTime and id of the last call seen as afterStartTime/afterId to page by position,
+     * which stays correct while calls are being classified; page is then ignored.
      */
     @GetMapping("/calls/pending-pbx")
-    public ResponseEntity<List<CallEntryDto>> getPendingPbxCalls() {
-        log.debug("Getting all pending PBX calls");
-        List<CallEntryDto> pendingCalls = pbxIntegrationService.getPendingPbxCalls();
+    public ResponseEntity<Page<CallEntryDto>> getPendingPbxCalls(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "200") int size,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime afterStartTime,
+            @RequestParam(required = false) UUID afterId) {
+        log.debug("Getting pending PBX calls (page={}, size={}, after={}/{})", page, size, afterStartTime, afterId);
+        Page<CallEntryDto> pendingCalls = afterStartTime != null && afterId != null
+                ? pbxIntegrationService.getPendingPbxCallsAfter(afterStartTime, afterId, pendingPage(0, size))
+                : pbxIntegrationService.getPendingPbxCalls(pendingPage(page, size));
         return ResponseEntity.ok(pendingCalls);
     }
 
     /**
-     * Get pending PBX calls for a specific user
+     * Get a page of pending PBX calls for a specific user, oldest first; afterStartTime/afterId as above
      */
     @GetMapping("/calls/user/{userEmail}/pending-pbx")
-    public ResponseEntity<List<CallEntryDto>> getPendingPbxCallsForUser(@PathVariable String userEmail) {
-        log.debug("Getting pending PBX calls for user: {}", userEmail);
-        List<CallEntryDto> pendingCalls = pbxIntegrationService.getPendingPbxCallsForUser(userEmail);
+    public ResponseEntity<Page<CallEntryDto>> getPendingPbxCallsForUser(
+            @PathVariable String userEmail,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "200") int size,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime afterStartTime,
+            @RequestParam(required = false) UUID afterId) {
+        log.debug("Getting pending PBX calls for user: {} (page={}, size={}, after={}/{})",
+                userEmail, page, size, afterStartTime, afterId);
+        Page<CallEntryDto> pendingCalls = afterStartTime != null && afterId != null
+                ? pbxIntegrationService.getPendingPbxCallsForUserAfter(userEmail, afterStartTime, afterId,
+                        pendingPage(0, size))
+                : pbxIntegrationService.getPendingPbxCallsForUser(userEmail, pendingPage(page, size));
         return ResponseEntity.ok(pendingCalls);
     }
 
+    private static Pageable pendingPage(int page, int size) {
+        return PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PENDING_PAGE_SIZE));
+    }
+
     /**
      * Submit call group alert
      */
@@ -126,4 +259,10 @@ public class PbxIntegrationController {
      */
     public record HealthResponse(String status, long timestamp) {
     }
+
+    /**
+     * Acknowledgement for a journaled (not yet persisted) PBX call
+     */
+    public record PbxIngestAck(String pbxCallId, String status, long journalOffset) {
+    }
 }
@@ -0,0 +1,62 @@
+package com.wai.callform.controller;
+
+import com.wai.callform.dto.PbxSyncDigest;
+import com.wai.callform.dto.PbxSyncWatermark;
+import com.wai.callform.service.PbxSyncService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Incremental sync endpoints for the 3CX sideloader.
+ * The source defaults to the caller's X-Source-Id header.
+ */
+@RestController
+@RequestMapping("/api/pbx/sync")
+@RequiredArgsConstructor
+@Slf4j
+public class PbxSyncController {
+
+    private final PbxSyncService pbxSyncService;
+
+    /**
+     * Latest CDR the API holds for a source
+     */
+    @GetMapping("/watermark")
+    public ResponseEntity<PbxSyncWatermark> getWatermark(
+            @RequestParam(required = false) String sourceId,
+            @RequestHeader(value = PbxIntegrationController.SOURCE_ID_HEADER, required = false) String headerSourceId) {
+        String source = resolveSource(sourceId, headerSourceId);
+        log.debug("Getting PBX sync watermark for source {}", source);
+        return ResponseEntity.ok(pbxSyncService.getWatermark(source));
+    }
+
+    /**
+     * Range digest of pbx_call_ids a source delivered in [from, to)
+     */
+    @GetMapping("/digest")
+    public ResponseEntity<PbxSyncDigest> getDigest(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(defaultValue = "3600") long bucketSeconds,
+            @RequestParam(required = false) String sourceId,
+            @RequestHeader(value = PbxIntegrationController.SOURCE_ID_HEADER, required = false) String headerSourceId) {
+        String source = resolveSource(sourceId, headerSourceId);
+        log.debug("Getting PBX sync digest for source {}: {} - {} ({}s buckets)", source, from, to, bucketSeconds);
+        try {
+            return ResponseEntity.ok(pbxSyncService.getDigest(source, from, to, bucketSeconds));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected PBX sync digest request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private static String resolveSource(String sourceId, String headerSourceId) {
+        String source = sourceId != null && !sourceId.isBlank() ? sourceId : headerSourceId;
+        return source != null && !source.isBlank() ? source.trim() : null;
+    }
+}
@@ -0,0 +1,25 @@
+package com.wai.callform.controller;
+
+import com.wai.callform.service.SupervisorFeed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/supervisor")
+@RequiredArgsConstructor
+public class SupervisorFeedController {
+
+    private final SupervisorFeed supervisorFeed;
+
+    /**
+     * Live feed of call group alerts and the pending PBX backlog (snapshot, then deltas)
+     */
+    @GetMapping(value = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter feed() {
+        return supervisorFeed.subscribe();
+    }
+}
@@ -2,14 +2,24 @@ package com.wai.callform.controller;
 
 import com.wai.callform.dto.SubjectEntityDto;
 import com.wai.callform.dto.TaskEntityDto;
+import com.wai.callform.dto.TaskSubjectGraphDocument;
+import com.wai.callform.dto.TaskSubjectImportResult;
+import com.wai.callform.dto.TypeaheadMatch;
+import com.wai.callform.service.ReferenceDataResponses;
+import com.wai.callform.service.TaskSubjectImportService;
 import com.wai.callform.service.TaskSubjectService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 /**
  * REST Controller for managing Tasks and Subjects in the fisheries data collection system.
@@ -23,25 +33,53 @@ import java.util.UUID;
 public class TaskSubjectController {
 
     private final TaskSubjectService taskSubjectService;
+    private final TaskSubjectImportService taskSubjectImportService;
 
     /**
      * Get all active tasks with their associated subjects
      */
     @GetMapping("/tasks")
-    public ResponseEntity<List<TaskEntityDto>> getAllTasks() {
+    public ResponseEntity<byte[]> getAllTasks(ServletWebRequest request) {
         log.info("Fetching all active tasks");
-        List<TaskEntityDto> tasks = taskSubjectService.getAllActiveTasks();
-        return ResponseEntity.ok(tasks);
+        ReferenceDataResponses responses = taskSubjectService.getResponses();
+        return json(request, responses, responses::activeTasksJson);
     }
 
     /**
      * Get all active subjects
      */
     @GetMapping("/subjects")
-    public ResponseEntity<List<SubjectEntityDto>> getAllSubjects() {
+    public ResponseEntity<byte[]> getAllSubjects(ServletWebRequest request) {
         log.info("Fetching all active subjects");
-        List<SubjectEntityDto> subjects = taskSubjectService.getAllActiveSubjects();
-        return ResponseEntity.ok(subjects);
+        ReferenceDataResponses responses = taskSubjectService.getResponses();
+        return json(request, responses, responses::activeSubjectsJson);
+    }
+
+    /**
+     * Active tasks matching what has been typed so far, best matches first
+     */
+    @GetMapping("/tasks/typeahead")
+    public ResponseEntity<List<TypeaheadMatch>> typeaheadTasks(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "10") int limit,
+            ServletWebRequest request) {
+        long version = taskSubjectService.getSnapshot().version();
+        return ConditionalGet.respond(request, ConditionalGet.ofReferenceVersion(version),
+                () -> taskSubjectService.searchTasks(query, limit));
+    }
+
+    /**
+     * Active subjects matching what has been typed so far, optionally only those valid for a task
+     */
+    @GetMapping("/subjects/typeahead")
+    public ResponseEntity<List<TypeaheadMatch>> typeaheadSubjects(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) UUID taskId,
+            @RequestParam(defaultValue = "10") int limit,
+            ServletWebRequest request) {
+        long version = taskSubjectService.getSnapshot().version();
+        return ConditionalGet.respond(request, ConditionalGet.ofReferenceVersion(version),
+                () -> taskSubjectService.searchSubjects(query, taskId, limit));
     }
 
     /**
@@ -49,10 +87,11 @@ public class TaskSubjectController {
      */
     @GetMapping("/tasks/{taskId}/subjects")
     public ResponseEntity<List<SubjectEntityDto>> getSubjectsForTask(
-            @PathVariable UUID taskId) {
+            @PathVariable UUID taskId, ServletWebRequest request) {
         log.info("Fetching subjects for task: {}", taskId);
-        List<SubjectEntityDto> subjects = taskSubjectService.getSubjectsForTask(taskId);
-        return ResponseEntity.ok(subjects);
+        long version = taskSubjectService.getSnapshot().version();
+        return ConditionalGet.respond(request, ConditionalGet.ofReferenceVersion(version),
+                () -> taskSubjectService.getSubjectsForTask(taskId));
     }
 
     /**
@@ -60,10 +99,11 @@ public class TaskSubjectController {
      */
     @GetMapping("/tasks/{taskId}")
     public ResponseEntity<TaskEntityDto> getTaskById(
-            @PathVariable UUID taskId) {
+            @PathVariable UUID taskId, ServletWebRequest request) {
         log.info("Fetching task by ID: {}", taskId);
-        TaskEntityDto task = taskSubjectService.getTaskById(taskId);
-        return ResponseEntity.ok(task);
+        long version = taskSubjectService.getSnapshot().version();
+        return ConditionalGet.respond(request, ConditionalGet.ofReferenceVersion(version),
+                () -> taskSubjectService.getTaskById(taskId));
     }
 
     /**
@@ -72,10 +112,12 @@ public class TaskSubjectController {
     @GetMapping("/validate")
     public ResponseEntity<Boolean> validateTaskSubjectRelationship(
             @RequestParam UUID taskId,
-            @RequestParam UUID subjectId) {
+            @RequestParam UUID subjectId,
+            ServletWebRequest request) {
         log.info("Validating task-subject relationship: task={}, subject={}", taskId, subjectId);
-        boolean isValid = taskSubjectService.isSubjectValidForTask(taskId, subjectId);
-        return ResponseEntity.ok(isValid);
+        long version = taskSubjectService.getSnapshot().version();
+        return ConditionalGet.respond(request, ConditionalGet.ofReferenceVersion(version),
+                () -> taskSubjectService.isSubjectValidForTask(taskId, subjectId));
     }
 
     /**
@@ -102,37 +144,49 @@ public class TaskSubjectController {
         return ResponseEntity.ok(subject);
     }
 
+    /**
+     * Export every task and subject (active or not) with their relationships as an import document
+     */
+    @GetMapping("/graph")
+    public ResponseEntity<TaskSubjectGraphDocument> exportGraph() {
+        log.info("Exporting task-subject graph");
+        return ResponseEntity.ok(taskSubjectImportService.exportGraph());
+    }
+
+    /**
+     * Bulk import: make tasks, subjects and relationships match the document (admin function)
+     */
+    @PutMapping("/graph")
+    public ResponseEntity<?> importGraph(
+            @Valid @RequestBody TaskSubjectGraphDocument document,
+            @RequestParam(defaultValue = "false") boolean dryRun) {
+        log.info("Importing task-subject graph: {} tasks, {} subjects (dry run: {})",
+                document.getTasks().size(), document.getSubjects().size(), dryRun);
+        try {
+            TaskSubjectImportResult result = taskSubjectImportService.importGraph(document, dryRun);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected task-subject import: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * Get reference data summary for dashboard/overview
      */
     @GetMapping("/summary")
-    public ResponseEntity<TaskSubjectSummary> getTaskSubjectSummary() {
+    public ResponseEntity<byte[]> getTaskSubjectSummary(ServletWebRequest request) {
         log.info("Fetching task-subject summary");
-        
-        List<TaskEntityDto> tasks = taskSubjectService.getAllActiveTasks();
-        List<SubjectEntityDto> subjects = taskSubjectService.getAllActiveSubjects();
-        
-        long totalTasks = tasks.size();
-        long totalSubjects = subjects.size();
-        long totalRelationships = tasks.stream()
-            .mapToLong(task -> task.getSubjects().size())
-            .sum();
-
-        TaskSubjectSummary summary = new TaskSubjectSummary(
-            totalTasks, totalSubjects, totalRelationships, tasks, subjects
-        );
-        
-        return ResponseEntity.ok(summary);
+        ReferenceDataResponses responses = taskSubjectService.getResponses();
+        return json(request, responses, responses::summaryJson);
     }
 
     /**
-     * Summary DTO for task-subject overview
+     * Serve JSON serialized once per reference data version, or 304 if the client has that version
      */
-    public record TaskSubjectSummary(
-        long totalTasks,
-        long totalSubjects, 
-        long totalRelationships,
-        List<TaskEntityDto> tasks,
-        List<SubjectEntityDto> subjects
-    ) {}
-}
\ No newline at end of file
+    private static ResponseEntity<byte[]> json(ServletWebRequest request, ReferenceDataResponses responses,
+                                               Supplier<byte[]> body) {
+        return ConditionalGet.respond(request, ConditionalGet.ofReferenceVersion(responses.version()),
+                MediaType.APPLICATION_JSON, body);
+    }
+}
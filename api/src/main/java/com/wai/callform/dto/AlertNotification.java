@@ -0,0 +1,20 @@
+package com.wai.callform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Body POSTed to notification destinations when a call group alert is raised or resolved.
+ * Subject and text are ready-made for email relays; webhooks can use the alert itself.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertNotification {
+    // "alert-raised" or "alert-resolved", matching the supervisor feed event names
+    private String event;
+    private String subject;
+    private String text;
+    private CallGroupAlertDto alert;
+}
@@ -1,12 +1,14 @@
 package com.wai.callform.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Data
@@ -65,4 +67,8 @@ public class CallEntryDto {
     private boolean inProgress;
     private boolean completed;
     private Long durationMinutes;
+
+    // Ranked task/subject suggestions from caller history (pending PBX calls only)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<ClassificationSuggestion> suggestions;
 }
\ No newline at end of file
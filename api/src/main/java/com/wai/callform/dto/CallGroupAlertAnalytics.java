@@ -0,0 +1,52 @@
+package com.wai.callform.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Alert frequency and time-to-resolve per call group over [from, to).
+ * Resolve times are in seconds and cover resolved alerts only; buckets are fixed-size slices of
+ * the window by alert creation time, listed only when non-empty.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CallGroupAlertAnalytics {
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSXXX")
+    private OffsetDateTime from;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSXXX")
+    private OffsetDateTime to;
+
+    private long bucketSeconds;
+    private List<GroupStats> groups;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class GroupStats {
+        private String callGroupId;
+        private String callGroupName;
+        private long alertCount;
+        private long resolvedCount;
+        private Double meanSecondsToResolve;
+        private Double p50SecondsToResolve;
+        private Double p90SecondsToResolve;
+        private List<Bucket> buckets;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bucket {
+        // Bucket index from the start of the window
+        private int index;
+        private long alertCount;
+    }
+}
@@ -0,0 +1,33 @@
+package com.wai.callform.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CallGroupDto {
+
+    @NotBlank(message = "Call group ID is required")
+    @Size(max = 100, message = "Call group ID must not exceed 100 characters")
+    private String id;
+
+    @NotBlank(message = "Call group name is required")
+    @Size(max = 255, message = "Call group name must not exceed 255 characters")
+    private String name;
+
+    private Boolean isMonitored;
+
+    @NotNull(message = "Member emails are required")
+    private Set<String> memberEmails;
+
+    // Live coverage state (read-only)
+    private Integer availableMembers;
+    private Boolean covered;
+}
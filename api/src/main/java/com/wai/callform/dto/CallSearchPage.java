@@ -0,0 +1,29 @@
+package com.wai.callform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of comment search results, best matches first when ranked, otherwise newest first
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CallSearchPage {
+    private List<Hit> hits;
+    // Pass back as cursor for the next page; null on the last page
+    private String nextCursor;
+    // False when the search window was too broad to rank; hits are then newest first
+    private boolean ranked;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Hit {
+        private CallEntryDto call;
+        private float rank;
+    }
+}
@@ -0,0 +1,23 @@
+package com.wai.callform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Likely task/subject for a call, based on how earlier calls from the same number were classified
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClassificationSuggestion {
+    private UUID taskId;
+    private String taskName;
+    private UUID subjectId;
+    private String subjectName;
+    private long callCount;
+    // Share of this number's classified calls that used this task/subject (0..1)
+    private double confidence;
+}
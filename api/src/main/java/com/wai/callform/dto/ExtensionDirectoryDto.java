@@ -0,0 +1,29 @@
+package com.wai.callform.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExtensionDirectoryDto {
+
+    @NotBlank(message = "Extension is required")
+    @Size(max = 20, message = "Extension must not exceed 20 characters")
+    private String extension;
+
+    @NotBlank(message = "Email is required")
+    @Email(message = "Email must be valid")
+    @Size(max = 255, message = "Email must not exceed 255 characters")
+    private String email;
+
+    @NotBlank(message = "Display name is required")
+    @Size(max = 255, message = "Display name must not exceed 255 characters")
+    private String displayName;
+
+    private Boolean isActive;
+}
@@ -0,0 +1,37 @@
+package com.wai.callform.dto;
+
+import lombok.Data;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Progress of an admin PBX backfill import
+ */
+@Data
+public class PbxBackfillStatus {
+
+    private UUID id;
+    private String format;
+    private Phase phase;
+    private long rowsRead;
+    private long rowsInvalid;
+    private long rowsStaged;
+    // Attached to an overlapping manual call instead of inserted
+    private long rowsMerged;
+    private long rowsInserted;
+    private long rowsDuplicate;
+    private List<String> sampleErrors;
+    private String errorMessage;
+    private OffsetDateTime submittedAt;
+    private OffsetDateTime completedAt;
+
+    public enum Phase {
+        QUEUED,
+        STAGING,
+        MERGING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,53 @@
+package com.wai.callform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Per-item outcome of a batched PBX ingest request
+ */
+@Data
+public class PbxBatchResult {
+
+    private int received;
+    private int created;
+    private int merged;
+    private int duplicates;
+    private int invalid;
+    private List<ItemResult> items = new ArrayList<>();
+
+    public void add(ItemResult item) {
+        items.add(item);
+        received++;
+        switch (item.getStatus()) {
+            case CREATED -> created++;
+            case MERGED -> merged++;
+            case DUPLICATE -> duplicates++;
+            case INVALID -> invalid++;
+        }
+    }
+
+    public enum ItemStatus {
+        CREATED,
+        /** Attached to a call the tech had already started by hand */
+        MERGED,
+        DUPLICATE,
+        INVALID
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemResult {
+        private int index;
+        private String pbxCallId;
+        private ItemStatus status;
+        private UUID callEntryId;
+        private String error;
+    }
+}
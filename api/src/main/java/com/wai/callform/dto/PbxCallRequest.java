@@ -41,6 +41,10 @@ public class PbxCallRequest {
     @Size(max = 100, message = "PBX call ID must not exceed 100 characters")
     private String pbxCallId;
 
+    // Sideloader that sent the record; filled from the X-Source-Id header when absent
+    @Size(max = 100, message = "Source ID must not exceed 100 characters")
+    private String sourceId;
+
     public enum CallDirection {
         INBOUND,
         OUTBOUND
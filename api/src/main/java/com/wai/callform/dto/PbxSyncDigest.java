@@ -0,0 +1,42 @@
+package com.wai.callform.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Range digest of the pbx_call_ids a source has delivered in a time window.
+ * The window is split into fixed buckets by CDR end time; each non-empty bucket carries its call
+ * count and the XOR of the 64-bit FNV-1a hashes of its pbx_call_ids (UTF-8, lowercase hex).
+ * A sideloader computes the same over its own CDRs and re-sends only buckets that differ.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PbxSyncDigest {
+    private String sourceId;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSXXX")
+    private OffsetDateTime from;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSXXX")
+    private OffsetDateTime to;
+
+    private long bucketSeconds;
+    private long totalCalls;
+    private List<Bucket> buckets;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bucket {
+        // Bucket index from the start of the window
+        private int index;
+        private long count;
+        private String hash;
+    }
+}
@@ -0,0 +1,22 @@
+package com.wai.callform.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Latest CDR the API holds for a sideloader source (null fields if it has none yet)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PbxSyncWatermark {
+    private String sourceId;
+    private String latestPbxCallId;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSXXX")
+    private OffsetDateTime latestCdrAt;
+}
@@ -0,0 +1,21 @@
+package com.wai.callform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Pending PBX backlog change on the supervisor feed.
+ * pendingByUser holds the new count for each tech whose backlog changed (0 = cleared); when full
+ * is true it replaces the whole per-tech map (sent after a reconcile with the database).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingBacklogUpdate {
+    private long pendingTotal;
+    private Map<String, Long> pendingByUser;
+    private boolean full;
+}
@@ -0,0 +1,24 @@
+package com.wai.callform.dto;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Column projection of a pending (unclassified) PBX call.
+ * Pending calls have no task or subject, so only call_entries columns are needed.
+ */
+public interface PendingPbxCallView {
+    UUID getId();
+    String getDatatechName();
+    String getDatatechEmail();
+    OffsetDateTime getStartTime();
+    OffsetDateTime getEndTime();
+    Boolean getIsInbound();
+    Boolean getIsAgent();
+    String getComments();
+    String getPhoneNumber();
+    String getPbxCallId();
+    OffsetDateTime getPbxDataReceivedAt();
+    OffsetDateTime getCreatedAt();
+    OffsetDateTime getUpdatedAt();
+}
@@ -0,0 +1,9 @@
+package com.wai.callform.dto;
+
+/**
+ * Number of unclassified PBX calls per tech, used to seed the supervisor feed's backlog counts
+ */
+public interface PendingPbxCountView {
+    String getDatatechEmail();
+    long getPendingCount();
+}
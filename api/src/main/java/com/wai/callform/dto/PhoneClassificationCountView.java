@@ -0,0 +1,15 @@
+package com.wai.callform.dto;
+
+import java.util.UUID;
+
+/**
+ * Number of classified calls per (phone number, task, subject), used to seed CallerHistoryIndex
+ */
+public interface PhoneClassificationCountView {
+    String getPhoneNumber();
+    UUID getTaskId();
+    String getTaskName();
+    UUID getSubjectId();
+    String getSubjectName();
+    long getCallCount();
+}
@@ -0,0 +1,20 @@
+package com.wai.callform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * First event on the supervisor feed: active alerts and the pending PBX backlog per tech
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SupervisorFeedSnapshot {
+    private List<CallGroupAlertDto> activeAlerts;
+    private long pendingTotal;
+    private Map<String, Long> pendingByUser;
+}
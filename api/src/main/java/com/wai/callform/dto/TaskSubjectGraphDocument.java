@@ -0,0 +1,69 @@
+package com.wai.callform.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The whole task/subject graph as one document, for bulk export and import.
+ * Tasks and subjects are matched to existing rows by name (case-insensitive); each task lists the
+ * names of the subjects valid for it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskSubjectGraphDocument {
+
+    @NotNull(message = "Tasks are required")
+    private List<@Valid TaskNode> tasks = new ArrayList<>();
+
+    @NotNull(message = "Subjects are required")
+    private List<@Valid SubjectNode> subjects = new ArrayList<>();
+
+    // Treat the document as the whole graph: deactivate existing tasks and subjects it leaves out
+    // (they are never deleted, calls still reference them) and unlink omitted tasks from their subjects.
+    // Off by default, so a partial document only touches what it lists.
+    private boolean deactivateMissing;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TaskNode {
+
+        @NotBlank(message = "Task name is required")
+        @Size(max = 100, message = "Task name must not exceed 100 characters")
+        private String name;
+
+        // Defaults to true
+        private Boolean isActive;
+
+        // Existing tasks keep theirs and new ones follow document order when omitted
+        private Integer sortOrder;
+
+        @NotNull(message = "Task subjects are required")
+        private List<String> subjects = new ArrayList<>();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SubjectNode {
+
+        @NotBlank(message = "Subject name is required")
+        @Size(max = 100, message = "Subject name must not exceed 100 characters")
+        private String name;
+
+        // Defaults to true
+        private Boolean isActive;
+
+        // Existing subjects keep theirs and new ones follow document order when omitted
+        private Integer sortOrder;
+    }
+}
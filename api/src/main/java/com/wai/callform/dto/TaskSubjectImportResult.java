@@ -0,0 +1,25 @@
+package com.wai.callform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What a task/subject graph import changed (or would change, for a dry run)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskSubjectImportResult {
+    private boolean applied;
+    private int tasksCreated;
+    private int tasksUpdated;
+    private int tasksDeactivated;
+    private int subjectsCreated;
+    private int subjectsUpdated;
+    private int subjectsDeactivated;
+    private int relationshipsAdded;
+    private int relationshipsRemoved;
+    // Reference data version after the import
+    private long version;
+}
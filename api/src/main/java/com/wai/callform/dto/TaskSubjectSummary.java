@@ -0,0 +1,21 @@
+package com.wai.callform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Summary DTO for task-subject overview
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskSubjectSummary {
+    private long totalTasks;
+    private long totalSubjects;
+    private long totalRelationships;
+    private List<TaskEntityDto> tasks;
+    private List<SubjectEntityDto> subjects;
+}
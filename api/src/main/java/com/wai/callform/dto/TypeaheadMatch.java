@@ -0,0 +1,29 @@
+package com.wai.callform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * A task or subject whose name matches a typeahead query, best matches first
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TypeaheadMatch {
+    private UUID id;
+    private String name;
+    private Integer sortOrder;
+    private MatchType matchType;
+    // Where the query starts in the name, for highlighting
+    private int matchStart;
+
+    public enum MatchType {
+        EXACT,
+        PREFIX,
+        WORD_PREFIX,
+        CONTAINS
+    }
+}
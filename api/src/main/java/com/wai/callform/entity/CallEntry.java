@@ -81,6 +81,14 @@ public class CallEntry {
     @Column(name = "pbx_data_received_at")
     private OffsetDateTime pbxDataReceivedAt;
 
+    @Size(max = 100)
+    @Column(name = "pbx_source_id", length = 100)
+    private String pbxSourceId;
+
+    // End time reported by the CDR; end_time stays the tech's when the CDR is merged into a manual call
+    @Column(name = "pbx_cdr_end_time")
+    private OffsetDateTime pbxCdrEndTime;
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private OffsetDateTime createdAt;
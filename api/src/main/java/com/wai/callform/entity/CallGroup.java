@@ -0,0 +1,61 @@
+package com.wai.callform.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.OffsetDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 3CX call group and the techs who answer it, used for server-side coverage evaluation.
+ */
+@Entity
+@Table(name = "call_groups")
+@Data
+@EqualsAndHashCode(of = "id")
+public class CallGroup {
+
+    @Id
+    @NotBlank
+    @Size(max = 100)
+    @Column(name = "id", nullable = false, length = 100)
+    private String id;
+
+    @NotBlank
+    @Size(max = 255)
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @Column(name = "is_monitored", nullable = false)
+    private Boolean isMonitored = true;
+
+    @ElementCollection
+    @CollectionTable(name = "call_group_members", joinColumns = @JoinColumn(name = "call_group_id"))
+    @Column(name = "datatech_email", nullable = false)
+    private Set<String> memberEmails = new HashSet<>();
+
+    @Column(name = "created_at", updatable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private OffsetDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = OffsetDateTime.now();
+        }
+        if (updatedAt == null) {
+            updatedAt = OffsetDateTime.now();
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = OffsetDateTime.now();
+    }
+}
@@ -0,0 +1,61 @@
+package com.wai.callform.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Entity mapping a 3CX extension to the DataTech user who owns it.
+ */
+@Entity
+@Table(name = "extension_directory")
+@Data
+@EqualsAndHashCode(of = "extension")
+public class ExtensionDirectoryEntry {
+
+    @Id
+    @NotBlank
+    @Size(max = 20)
+    @Column(name = "extension", nullable = false, length = 20)
+    private String extension;
+
+    @NotBlank
+    @Email
+    @Size(max = 255)
+    @Column(name = "email", nullable = false)
+    private String email;
+
+    @NotBlank
+    @Size(max = 255)
+    @Column(name = "display_name", nullable = false)
+    private String displayName;
+
+    @Column(name = "is_active", nullable = false)
+    private Boolean isActive = true;
+
+    @Column(name = "created_at", updatable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private OffsetDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = OffsetDateTime.now();
+        }
+        if (updatedAt == null) {
+            updatedAt = OffsetDateTime.now();
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = OffsetDateTime.now();
+    }
+}
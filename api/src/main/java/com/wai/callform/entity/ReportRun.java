@@ -61,6 +61,21 @@ public class ReportRun {
     @Column(name = "completed_at")
     private OffsetDateTime completedAt;
 
+    // Worker lease fields (heartbeat-renewed while the report is RUNNING)
+    @Size(max = 255)
+    @Column(name = "leased_by")
+    private String leasedBy;
+
+    @Column(name = "lease_expires_at")
+    private OffsetDateTime leaseExpiresAt;
+
+    @NotNull
+    @Column(name = "retry_count", nullable = false)
+    private Integer retryCount = 0;
+
+    @Column(name = "next_attempt_at")
+    private OffsetDateTime nextAttemptAt;
+
     // Enums for type safety
     public enum ReportStatus {
         PENDING,
@@ -94,7 +109,26 @@ public class ReportRun {
         this.startedAt = OffsetDateTime.now();
     }
 
+    public void acquireLease(String workerId, OffsetDateTime leaseExpiresAt) {
+        markAsStarted();
+        this.leasedBy = workerId;
+        this.leaseExpiresAt = leaseExpiresAt;
+        this.nextAttemptAt = null;
+    }
+
+    /**
+     * Return a report whose worker stopped heartbeating to the pending queue
+     */
+    public void returnToQueue(OffsetDateTime nextAttemptAt) {
+        this.status = ReportStatus.PENDING;
+        this.retryCount = retryCount != null ? retryCount + 1 : 1;
+        this.nextAttemptAt = nextAttemptAt;
+        this.startedAt = null;
+        releaseLease();
+    }
+
     public void markAsCompleted(String resultUrl) {
+        releaseLease();
         this.status = ReportStatus.COMPLETED;
         this.resultUrl = resultUrl;
         this.completedAt = OffsetDateTime.now();
@@ -102,11 +136,17 @@ public class ReportRun {
     }
 
     public void markAsFailed(String errorMessage) {
+        releaseLease();
         this.status = ReportStatus.FAILED;
         this.errorMessage = errorMessage;
         this.completedAt = OffsetDateTime.now();
     }
 
+    private void releaseLease() {
+        this.leasedBy = null;
+        this.leaseExpiresAt = null;
+    }
+
     public long getProcessingTimeMinutes() {
         if (startedAt == null || completedAt == null) {
             return 0;
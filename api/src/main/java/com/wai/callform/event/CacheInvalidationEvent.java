@@ -0,0 +1,26 @@
+package com.wai.callform.event;
+
+/**
+ * Data behind an in-process cache changed. Writers publish these inside their transaction; the
+ * CacheInvalidationBus relays them to the other API nodes on commit, where they are republished
+ * with remote set so each node reloads its own copy.
+ */
+public record CacheInvalidationEvent(Type type, boolean remote) {
+
+    public CacheInvalidationEvent(Type type) {
+        this(type, false);
+    }
+
+    public enum Type {
+        // Tasks, subjects or their relationships (TaskSubjectSnapshot)
+        REFERENCE_DATA,
+        // A call started or ended (calls in progress held by CallGroupCoverageEngine)
+        CALL_ACTIVITY,
+        // The pending PBX backlog changed (per-tech counts held by SupervisorFeed)
+        PENDING_BACKLOG,
+        // A call group alert was raised or resolved (active alert set in CallGroupAlertService)
+        CALL_GROUP_ALERTS,
+        // A call group or its members changed (CallGroupCoverageEngine)
+        CALL_GROUPS
+    }
+}
@@ -0,0 +1,14 @@
+package com.wai.callform.event;
+
+/**
+ * A tech started or ended a call (published once the change is committed)
+ */
+public record CallActivityEvent(String datatechEmail, Type type) {
+
+    public enum Type {
+        STARTED,
+        ENDED,
+        // Start/end times were edited; whether the tech is still on a call has to be re-read
+        EDITED
+    }
+}
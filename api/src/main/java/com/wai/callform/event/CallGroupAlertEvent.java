@@ -0,0 +1,19 @@
+package com.wai.callform.event;
+
+import com.wai.callform.dto.CallGroupAlertDto;
+
+/**
+ * A call group alert was raised or resolved (published once the change is committed).
+ * local is false when the change was made on another API node and only observed here.
+ */
+public record CallGroupAlertEvent(Type type, CallGroupAlertDto alert, boolean local) {
+
+    public CallGroupAlertEvent(Type type, CallGroupAlertDto alert) {
+        this(type, alert, true);
+    }
+
+    public enum Type {
+        RAISED,
+        RESOLVED
+    }
+}
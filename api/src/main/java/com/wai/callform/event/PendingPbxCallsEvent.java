@@ -0,0 +1,10 @@
+package com.wai.callform.event;
+
+import java.util.Map;
+
+/**
+ * The pending PBX backlog changed: per tech email, how many unclassified PBX calls were added
+ * (positive) or classified (negative)
+ */
+public record PendingPbxCallsEvent(Map<String, Integer> deltaByUser) {
+}
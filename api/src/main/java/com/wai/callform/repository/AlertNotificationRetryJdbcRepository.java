@@ -0,0 +1,83 @@
+package com.wai.callform.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Durable retry queue for alert notifications.
+ * Due rows are claimed with a single UPDATE ... FOR UPDATE SKIP LOCKED that pushes next_attempt_at
+ * out by a lease, so nodes never deliver the same retry concurrently and a node that dies mid-delivery
+ * only delays the row until its lease runs out. A claimed retry may wait in its destination queue
+ * past the lease, so the claiming node renews the lease when delivery starts and skips the delivery
+ * if another node has claimed the row since.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AlertNotificationRetryJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO alert_notification_retries (id, destination_url, payload, attempts, next_attempt_at, " +
+            "last_error, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String CLAIM_DUE_SQL =
+            "UPDATE alert_notification_retries SET next_attempt_at = ? " +
+            "WHERE id IN (SELECT id FROM alert_notification_retries WHERE next_attempt_at <= ? " +
+            "             ORDER BY next_attempt_at LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, destination_url, payload, attempts";
+
+    private static final String RENEW_LEASE_SQL =
+            "UPDATE alert_notification_retries SET next_attempt_at = ? WHERE id = ? AND next_attempt_at = ?";
+
+    private static final String RESCHEDULE_SQL =
+            "UPDATE alert_notification_retries SET attempts = ?, next_attempt_at = ?, last_error = ? WHERE id = ?";
+
+    private static final String DELETE_SQL = "DELETE FROM alert_notification_retries WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insert(PendingRetry retry, OffsetDateTime nextAttemptAt, String lastError) {
+        Timestamp now = Timestamp.from(OffsetDateTime.now().toInstant());
+        jdbcTemplate.update(INSERT_SQL, retry.id(), retry.destinationUrl(), retry.payload(), retry.attempts(),
+                Timestamp.from(nextAttemptAt.toInstant()), lastError, now);
+    }
+
+    /**
+     * Claim up to limit retries due at now, leasing them until leaseUntil
+     */
+    public List<PendingRetry> claimDue(OffsetDateTime now, OffsetDateTime leaseUntil, int limit) {
+        return jdbcTemplate.query(CLAIM_DUE_SQL,
+                (rs, rowNum) -> new PendingRetry(rs.getObject(1, UUID.class), rs.getString(2), rs.getString(3),
+                        rs.getInt(4)),
+                Timestamp.from(leaseUntil.toInstant()), Timestamp.from(now.toInstant()), limit);
+    }
+
+    /**
+     * Extend a claim from heldUntil to leaseUntil
+     *
+     * @return false if the row is gone or was claimed again after heldUntil
+     */
+    public boolean renewLease(UUID id, OffsetDateTime heldUntil, OffsetDateTime leaseUntil) {
+        return jdbcTemplate.update(RENEW_LEASE_SQL, Timestamp.from(leaseUntil.toInstant()), id,
+                Timestamp.from(heldUntil.toInstant())) > 0;
+    }
+
+    public void reschedule(UUID id, int attempts, OffsetDateTime nextAttemptAt, String lastError) {
+        jdbcTemplate.update(RESCHEDULE_SQL, attempts, Timestamp.from(nextAttemptAt.toInstant()), lastError, id);
+    }
+
+    public void delete(UUID id) {
+        jdbcTemplate.update(DELETE_SQL, id);
+    }
+
+    /**
+     * A notification awaiting redelivery; attempts counts deliveries already tried
+     */
+    public record PendingRetry(UUID id, String destinationUrl, String payload, int attempts) {
+    }
+}
@@ -0,0 +1,249 @@
+package com.wai.callform.repository;
+
+import com.wai.callform.entity.CallEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * JDBC-level writes for call entries where JPA's one-row-at-a-time persist is too slow.
+ * Used by PBX ingest to insert in batches and let the unique pbx_call_id index reject duplicates.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CallEntryJdbcRepository {
+
+    private static final String INSERT_PBX_CALL_SQL =
+            "INSERT INTO call_entries (id, datatech_name, datatech_email, start_time, end_time, " +
+            "is_inbound, is_agent, phone_number, pbx_call_id, is_pbx_originated, pbx_data_received_at, " +
+            "created_at, updated_at, pbx_source_id, pbx_cdr_end_time) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, true, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (pbx_call_id) WHERE pbx_call_id IS NOT NULL DO NOTHING";
+
+    // Attach a CDR to the closest overlapping manual call for the same tech, unless the CDR is
+    // already logged. The overlap probe is served by idx_call_entries_unmatched_manual_period.
+    private static final String MERGE_PBX_CALL_SQL =
+            "UPDATE call_entries c SET pbx_call_id = ?, pbx_data_received_at = ?, " +
+            "phone_number = COALESCE(c.phone_number, ?), updated_at = ?, pbx_source_id = ?, pbx_cdr_end_time = ? " +
+            "WHERE c.id = (" +
+            "SELECT m.id FROM call_entries m " +
+            "WHERE m.pbx_call_id IS NULL AND m.is_pbx_originated = false " +
+            "AND call_entry_period(m.start_time, m.end_time) && tstzrange(CAST(? AS timestamptz), CAST(? AS timestamptz), '[]') " +
+            "AND LOWER(m.datatech_email) = LOWER(?) " +
+            "ORDER BY ABS(EXTRACT(EPOCH FROM (m.start_time - CAST(? AS timestamptz)))), m.id " +
+            "LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+            "AND NOT EXISTS (SELECT 1 FROM call_entries d WHERE d.pbx_call_id = ?)";
+
+    private static final String FIND_IDS_BY_PBX_CALL_ID_SQL =
+            "SELECT pbx_call_id, id FROM call_entries WHERE pbx_call_id = ANY (?)";
+
+    private static final String CURRENT_TRANSACTION_ID_SQL =
+            "SELECT CAST(CAST(pg_current_xact_id() AS text) AS bigint)";
+
+    private static final String CURRENT_SNAPSHOT_SQL = "SELECT CAST(pg_current_snapshot() AS text)";
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert PBX-originated call entries in JDBC batches.
+     * Entries must already have their id assigned.
+     *
+     * @return one flag per entry, true if inserted and false if its pbx_call_id already existed
+     */
+    public boolean[] insertPbxCalls(List<CallEntry> entries) {
+        int[][] batchCounts = jdbcTemplate.batchUpdate(INSERT_PBX_CALL_SQL, entries, BATCH_SIZE,
+                this::bindPbxCall);
+
+        boolean[] inserted = new boolean[entries.size()];
+        int index = 0;
+        for (int[] counts : batchCounts) {
+            for (int count : counts) {
+                inserted[index++] = count > 0;
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Insert a single PBX-originated call entry.
+     * Entry must already have its id assigned.
+     *
+     * @return true if inserted, false if its pbx_call_id already existed
+     */
+    public boolean insertPbxCall(CallEntry entry) {
+        return jdbcTemplate.update(INSERT_PBX_CALL_SQL, ps -> bindPbxCall(ps, entry)) > 0;
+    }
+
+    /**
+     * Merge a PBX call into an overlapping, not yet matched manual call by the same tech.
+     * The manual call keeps its times and classification; it gains the PBX call id and
+     * the phone number if the tech didn't enter one.
+     *
+     * @return the id of the manual call the CDR was merged into, if any
+     */
+    public Optional<UUID> mergePbxCallIntoManualCall(CallEntry pbxEntry, Duration tolerance) {
+        List<UUID> ids = jdbcTemplate.query(MERGE_PBX_CALL_SQL + " RETURNING c.id",
+                ps -> bindMerge(ps, pbxEntry, tolerance),
+                (rs, rowNum) -> rs.getObject(1, UUID.class));
+        return ids.stream().findFirst();
+    }
+
+    /**
+     * Batched form of mergePbxCallIntoManualCall.
+     * Must run inside a transaction. If a concurrent ingest commits one of these pbx_call_ids first,
+     * the unique index rejects the batch; it is then rolled back to a savepoint and retried row by
+     * row, each under its own savepoint, so only the conflicting rows are lost.
+     *
+     * @return one outcome per entry
+     */
+    public MergeOutcome[] mergePbxCallsIntoManualCalls(List<CallEntry> pbxEntries, Duration tolerance) {
+        return jdbcTemplate.execute((ConnectionCallback<MergeOutcome[]>) connection -> {
+            MergeOutcome[] outcomes = new MergeOutcome[pbxEntries.size()];
+            Savepoint batch = connection.setSavepoint();
+            try {
+                int[][] batchCounts = jdbcTemplate.batchUpdate(MERGE_PBX_CALL_SQL, pbxEntries, BATCH_SIZE,
+                        (ps, entry) -> bindMerge(ps, entry, tolerance));
+                connection.releaseSavepoint(batch);
+                int index = 0;
+                for (int[] counts : batchCounts) {
+                    for (int count : counts) {
+                        outcomes[index++] = count > 0 ? MergeOutcome.MERGED : MergeOutcome.NOT_MERGED;
+                    }
+                }
+                return outcomes;
+            } catch (DuplicateKeyException e) {
+                connection.rollback(batch);
+            }
+
+            for (int i = 0; i < pbxEntries.size(); i++) {
+                CallEntry entry = pbxEntries.get(i);
+                Savepoint row = connection.setSavepoint();
+                try {
+                    int count = jdbcTemplate.update(MERGE_PBX_CALL_SQL, ps -> bindMerge(ps, entry, tolerance));
+                    connection.releaseSavepoint(row);
+                    outcomes[i] = count > 0 ? MergeOutcome.MERGED : MergeOutcome.NOT_MERGED;
+                } catch (DuplicateKeyException e) {
+                    connection.rollback(row);
+                    outcomes[i] = MergeOutcome.DUPLICATE;
+                }
+            }
+            return outcomes;
+        });
+    }
+
+    /**
+     * Look up call entry ids by PBX call id in one query
+     */
+    public Map<String, UUID> findIdsByPbxCallIds(Collection<String> pbxCallIds) {
+        Map<String, UUID> ids = new HashMap<>();
+        if (pbxCallIds.isEmpty()) {
+            return ids;
+        }
+        jdbcTemplate.query(FIND_IDS_BY_PBX_CALL_ID_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", pbxCallIds.toArray())),
+                rs -> {
+                    ids.put(rs.getString(1), rs.getObject(2, UUID.class));
+                });
+        return ids;
+    }
+
+    /**
+     * Id of the current transaction (assigning one if it has not written yet)
+     */
+    public long currentTransactionId() {
+        return jdbcTemplate.queryForObject(CURRENT_TRANSACTION_ID_SQL, Long.class);
+    }
+
+    /**
+     * The snapshot the current statement or (under REPEATABLE READ) transaction sees
+     */
+    public TransactionSnapshot currentSnapshot() {
+        return TransactionSnapshot.parse(jdbcTemplate.queryForObject(CURRENT_SNAPSHOT_SQL, String.class));
+    }
+
+    /**
+     * A pg_snapshot: transactions below xmin are finished, those at or above xmax had not started,
+     * and inProgress lists the ones in between that were still running
+     */
+    public record TransactionSnapshot(long xmin, long xmax, Set<Long> inProgress) {
+
+        static TransactionSnapshot parse(String text) {
+            String[] parts = text.split(":", -1);
+            Set<Long> inProgress = new HashSet<>();
+            if (parts.length > 2 && !parts[2].isEmpty()) {
+                for (String xid : parts[2].split(",")) {
+                    inProgress.add(Long.parseLong(xid));
+                }
+            }
+            return new TransactionSnapshot(Long.parseLong(parts[0]), Long.parseLong(parts[1]), inProgress);
+        }
+
+        /**
+         * Whether the committed transaction xid's writes are visible in this snapshot
+         */
+        public boolean isVisible(long xid) {
+            return xid < xmin || (xid < xmax && !inProgress.contains(xid));
+        }
+    }
+
+    /**
+     * Result of merging one CDR: attached to a manual call, left for insert, or already logged
+     */
+    public enum MergeOutcome {
+        MERGED, NOT_MERGED, DUPLICATE
+    }
+
+    private void bindMerge(PreparedStatement ps, CallEntry entry, Duration tolerance) throws SQLException {
+        ps.setString(1, entry.getPbxCallId());
+        ps.setTimestamp(2, toTimestamp(entry.getPbxDataReceivedAt()));
+        ps.setString(3, entry.getPhoneNumber());
+        ps.setTimestamp(4, toTimestamp(entry.getUpdatedAt()));
+        ps.setString(5, entry.getPbxSourceId());
+        ps.setTimestamp(6, toTimestamp(entry.getPbxCdrEndTime()));
+        ps.setTimestamp(7, toTimestamp(entry.getStartTime().minus(tolerance)));
+        ps.setTimestamp(8, toTimestamp(entry.getEndTime().plus(tolerance)));
+        ps.setString(9, entry.getDatatechEmail());
+        ps.setTimestamp(10, toTimestamp(entry.getStartTime()));
+        ps.setString(11, entry.getPbxCallId());
+    }
+
+    private void bindPbxCall(PreparedStatement ps, CallEntry entry) throws SQLException {
+        ps.setObject(1, entry.getId());
+        ps.setString(2, entry.getDatatechName());
+        ps.setString(3, entry.getDatatechEmail());
+        ps.setTimestamp(4, toTimestamp(entry.getStartTime()));
+        ps.setTimestamp(5, toTimestamp(entry.getEndTime()));
+        ps.setBoolean(6, Boolean.TRUE.equals(entry.getIsInbound()));
+        ps.setBoolean(7, Boolean.TRUE.equals(entry.getIsAgent()));
+        ps.setString(8, entry.getPhoneNumber());
+        ps.setString(9, entry.getPbxCallId());
+        ps.setTimestamp(10, toTimestamp(entry.getPbxDataReceivedAt()));
+        ps.setTimestamp(11, toTimestamp(entry.getCreatedAt()));
+        ps.setTimestamp(12, toTimestamp(entry.getUpdatedAt()));
+        ps.setString(13, entry.getPbxSourceId());
+        ps.setTimestamp(14, toTimestamp(entry.getPbxCdrEndTime()));
+    }
+
+    private static Timestamp toTimestamp(OffsetDateTime value) {
+        return value != null ? Timestamp.from(value.toInstant()) : null;
+    }
+}
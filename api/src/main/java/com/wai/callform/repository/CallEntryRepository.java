@@ -1,5 +1,8 @@
 package com.wai.callform.repository;
 
+import com.wai.callform.dto.PendingPbxCallView;
+import com.wai.callform.dto.PendingPbxCountView;
+import com.wai.callform.dto.PhoneClassificationCountView;
 import com.wai.callform.entity.CallEntry;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -9,6 +12,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -30,6 +34,10 @@ public interface CallEntryRepository extends JpaRepository<CallEntry, UUID> {
     @Query("SELECT c FROM CallEntry c WHERE c.datatechEmail = :email AND c.startTime IS NOT NULL AND c.endTime IS NULL")
     Optional<CallEntry> findActiveCallByUser(@Param("email") String datatechEmail);
 
+    // Techs with a call in progress that started after the cutoff (served by idx_call_entries_in_progress)
+    @Query("SELECT DISTINCT c.datatechEmail FROM CallEntry c WHERE c.endTime IS NULL AND c.startTime >= :since")
+    List<String> findEmailsWithCallsInProgressSince(@Param("since") OffsetDateTime since);
+
     // Find calls within date range
     @Query("SELECT c FROM CallEntry c WHERE c.startTime BETWEEN :startDate AND :endDate ORDER BY c.startTime DESC")
     List<CallEntry> findByDateRange(@Param("startDate") OffsetDateTime startDate, 
@@ -112,6 +120,74 @@ public interface CallEntryRepository extends JpaRepository<CallEntry, UUID> {
     // Find pending PBX calls for a specific user
     List<CallEntry> findByDatatechEmailAndIsPbxOriginatedTrueAndTaskIsNull(String datatechEmail);
 
+    // Pending PBX calls as a single projection query, oldest first (served by idx_call_entries_pending_pbx)
+    @Query(value = "SELECT c.id AS id, c.datatechName AS datatechName, c.datatechEmail AS datatechEmail, " +
+           "c.startTime AS startTime, c.endTime AS endTime, c.isInbound AS isInbound, c.isAgent AS isAgent, " +
+           "c.comments AS comments, c.phoneNumber AS phoneNumber, c.pbxCallId AS pbxCallId, " +
+           "c.pbxDataReceivedAt AS pbxDataReceivedAt, c.createdAt AS createdAt, c.updatedAt AS updatedAt " +
+           "FROM CallEntry c WHERE c.isPbxOriginated = true AND c.task IS NULL " +
+           "ORDER BY c.startTime ASC, c.id ASC",
+           countQuery = "SELECT COUNT(c) FROM CallEntry c WHERE c.isPbxOriginated = true AND c.task IS NULL")
+    Page<PendingPbxCallView> findPendingPbxCalls(Pageable pageable);
+
+    // Pending PBX calls for one user as a single projection query (served by idx_call_entries_pending_pbx_user)
+    @Query(value = "SELECT c.id AS id, c.datatechName AS datatechName, c.datatechEmail AS datatechEmail, " +
+           "c.startTime AS startTime, c.endTime AS endTime, c.isInbound AS isInbound, c.isAgent AS isAgent, " +
+           "c.comments AS comments, c.phoneNumber AS phoneNumber, c.pbxCallId AS pbxCallId, " +
+           "c.pbxDataReceivedAt AS pbxDataReceivedAt, c.createdAt AS createdAt, c.updatedAt AS updatedAt " +
+           "FROM CallEntry c WHERE c.datatechEmail = :email AND c.isPbxOriginated = true AND c.task IS NULL " +
+           "ORDER BY c.startTime ASC, c.id ASC",
+           countQuery = "SELECT COUNT(c) FROM CallEntry c " +
+                   "WHERE c.datatechEmail = :email AND c.isPbxOriginated = true AND c.task IS NULL")
+    Page<PendingPbxCallView> findPendingPbxCallsForUser(@Param("email") String datatechEmail, Pageable pageable);
+
+    // Pending PBX calls after a (startTime, id) position, so paging is not thrown off by calls
+    // classified between pages; the count is of what remains
+    @Query(value = "SELECT c.id AS id, c.datatechName AS datatechName, c.datatechEmail AS datatechEmail, " +
+           "c.startTime AS startTime, c.endTime AS endTime, c.isInbound AS isInbound, c.isAgent AS isAgent, " +
+           "c.comments AS comments, c.phoneNumber AS phoneNumber, c.pbxCallId AS pbxCallId, " +
+           "c.pbxDataReceivedAt AS pbxDataReceivedAt, c.createdAt AS createdAt, c.updatedAt AS updatedAt " +
+           "FROM CallEntry c WHERE c.isPbxOriginated = true AND c.task IS NULL " +
+           "AND (c.startTime > :afterStartTime OR (c.startTime = :afterStartTime AND c.id > :afterId)) " +
+           "ORDER BY c.startTime ASC, c.id ASC",
+           countQuery = "SELECT COUNT(c) FROM CallEntry c WHERE c.isPbxOriginated = true AND c.task IS NULL " +
+                   "AND (c.startTime > :afterStartTime OR (c.startTime = :afterStartTime AND c.id > :afterId))")
+    Page<PendingPbxCallView> findPendingPbxCallsAfter(@Param("afterStartTime") OffsetDateTime afterStartTime,
+                                                      @Param("afterId") UUID afterId, Pageable pageable);
+
+    // Pending PBX calls for one user after a (startTime, id) position
+    @Query(value = "SELECT c.id AS id, c.datatechName AS datatechName, c.datatechEmail AS datatechEmail, " +
+           "c.startTime AS startTime, c.endTime AS endTime, c.isInbound AS isInbound, c.isAgent AS isAgent, " +
+           "c.comments AS comments, c.phoneNumber AS phoneNumber, c.pbxCallId AS pbxCallId, " +
+           "c.pbxDataReceivedAt AS pbxDataReceivedAt, c.createdAt AS createdAt, c.updatedAt AS updatedAt " +
+           "FROM CallEntry c WHERE c.datatechEmail = :email AND c.isPbxOriginated = true AND c.task IS NULL " +
+           "AND (c.startTime > :afterStartTime OR (c.startTime = :afterStartTime AND c.id > :afterId)) " +
+           "ORDER BY c.startTime ASC, c.id ASC",
+           countQuery = "SELECT COUNT(c) FROM CallEntry c " +
+                   "WHERE c.datatechEmail = :email AND c.isPbxOriginated = true AND c.task IS NULL " +
+                   "AND (c.startTime > :afterStartTime OR (c.startTime = :afterStartTime AND c.id > :afterId))")
+    Page<PendingPbxCallView> findPendingPbxCallsForUserAfter(@Param("email") String datatechEmail,
+                                                             @Param("afterStartTime") OffsetDateTime afterStartTime,
+                                                             @Param("afterId") UUID afterId, Pageable pageable);
+
+    // Classified call counts per phone number and task/subject (one aggregate pass to seed CallerHistoryIndex)
+    @Query("SELECT c.phoneNumber AS phoneNumber, t.id AS taskId, t.name AS taskName, " +
+           "s.id AS subjectId, s.name AS subjectName, COUNT(c) AS callCount " +
+           "FROM CallEntry c JOIN c.task t LEFT JOIN c.subject s " +
+           "WHERE c.phoneNumber IS NOT NULL " +
+           "GROUP BY c.phoneNumber, t.id, t.name, s.id, s.name")
+    List<PhoneClassificationCountView> countClassificationsByPhoneNumber();
+
+    // Size of the pending PBX backlog (index-only scan of idx_call_entries_pending_pbx)
+    @Query("SELECT COUNT(c) FROM CallEntry c WHERE c.isPbxOriginated = true AND c.task IS NULL")
+    long countPendingPbxCalls();
+
+    // Pending PBX backlog per tech (index-only scan of idx_call_entries_pending_pbx_user)
+    @Query("SELECT c.datatechEmail AS datatechEmail, COUNT(c) AS pendingCount " +
+           "FROM CallEntry c WHERE c.isPbxOriginated = true AND c.task IS NULL " +
+           "GROUP BY c.datatechEmail")
+    List<PendingPbxCountView> countPendingPbxCallsByUser();
+
     // Find all PBX-originated calls
     List<CallEntry> findByIsPbxOriginatedTrueOrderByPbxDataReceivedAtDesc();
 
@@ -120,4 +196,8 @@ public interface CallEntryRepository extends JpaRepository<CallEntry, UUID> {
     List<CallEntry> findPbxCallsByDateRange(@Param("startDate") OffsetDateTime startDate,
                                            @Param("endDate") OffsetDateTime endDate);
 
+    // Calls by id with their task and subject in the same query (search results)
+    @Query("SELECT c FROM CallEntry c LEFT JOIN FETCH c.task LEFT JOIN FETCH c.subject WHERE c.id IN :ids")
+    List<CallEntry> findAllWithTaskAndSubjectByIdIn(@Param("ids") Collection<UUID> ids);
+
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.wai.callform.repository;
+
+import com.wai.callform.entity.CallGroupAlert;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+
+/**
+ * JDBC-level writes for call group alerts.
+ * Raising an alert is a single INSERT that the unique partial index on active alerts
+ * (uq_call_group_alerts_active_group) turns into a no-op when the group already has one.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CallGroupAlertJdbcRepository {
+
+    private static final String INSERT_ACTIVE_ALERT_SQL =
+            "INSERT INTO call_group_alerts (id, call_group_id, call_group_name, alert_type, alert_message, " +
+            "is_active, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, true, ?) " +
+            "ON CONFLICT (call_group_id) WHERE is_active DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert an active alert. Alert must already have its id and createdAt assigned.
+     *
+     * @return true if inserted, false if the call group already had an active alert
+     */
+    public boolean insertActiveAlert(CallGroupAlert alert) {
+        return jdbcTemplate.update(INSERT_ACTIVE_ALERT_SQL, ps -> {
+            ps.setObject(1, alert.getId());
+            ps.setString(2, alert.getCallGroupId());
+            ps.setString(3, alert.getCallGroupName());
+            ps.setString(4, alert.getAlertType());
+            ps.setString(5, alert.getAlertMessage());
+            ps.setTimestamp(6, Timestamp.from(alert.getCreatedAt().toInstant()));
+        }) > 0;
+    }
+}
@@ -1,10 +1,14 @@
 package com.wai.callform.repository;
 
 import com.wai.callform.entity.CallGroupAlert;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -27,6 +31,24 @@ public interface CallGroupAlertRepository extends JpaRepository<CallGroupAlert,
      */
     List<CallGroupAlert> findByCallGroupIdOrderByCreatedAtDesc(String callGroupId);
 
+    /**
+     * Alerts created in [from, to), paged (history view)
+     */
+    @Query("SELECT a FROM CallGroupAlert a WHERE a.createdAt >= :from AND a.createdAt < :to")
+    Page<CallGroupAlert> findHistory(@Param("from") OffsetDateTime from,
+                                     @Param("to") OffsetDateTime to,
+                                     Pageable pageable);
+
+    /**
+     * A call group's alerts created in [from, to), paged (served by idx_call_group_alerts_group_created)
+     */
+    @Query("SELECT a FROM CallGroupAlert a " +
+           "WHERE a.callGroupId = :callGroupId AND a.createdAt >= :from AND a.createdAt < :to")
+    Page<CallGroupAlert> findHistoryForGroup(@Param("callGroupId") String callGroupId,
+                                             @Param("from") OffsetDateTime from,
+                                             @Param("to") OffsetDateTime to,
+                                             Pageable pageable);
+
     /**
      * Find alerts by type
      */
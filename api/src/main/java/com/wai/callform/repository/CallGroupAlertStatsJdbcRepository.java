@@ -0,0 +1,85 @@
+package com.wai.callform.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+
+/**
+ * Read-side aggregate over call_group_alerts for the analytics endpoint.
+ * One pass over the window (idx_call_group_alerts_group_created) yields both the per-group totals
+ * and the per-bucket counts via GROUPING SETS; total rows come back with a null bucket.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CallGroupAlertStatsJdbcRepository {
+
+    private static final String STATS_SQL =
+            "SELECT call_group_id, MAX(call_group_name), bucket, COUNT(*), COUNT(resolve_seconds), " +
+            "AVG(resolve_seconds), " +
+            "percentile_cont(0.5) WITHIN GROUP (ORDER BY resolve_seconds), " +
+            "percentile_cont(0.9) WITHIN GROUP (ORDER BY resolve_seconds) " +
+            "FROM (SELECT call_group_id, call_group_name, " +
+            "      FLOOR(EXTRACT(EPOCH FROM (created_at - CAST(? AS timestamptz))) / ?)::int AS bucket, " +
+            "      EXTRACT(EPOCH FROM (resolved_at - created_at)) AS resolve_seconds " +
+            "      FROM call_group_alerts " +
+            "      WHERE created_at >= ? AND created_at < ? %s) a " +
+            "GROUP BY GROUPING SETS ((call_group_id), (call_group_id, bucket)) " +
+            "ORDER BY call_group_id, bucket NULLS FIRST";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Stream per-group totals and per-bucket counts for alerts created in [from, to).
+     * For each group the total row (bucket null) comes first, followed by its buckets in order.
+     */
+    public void forEachGroupStats(OffsetDateTime from, OffsetDateTime to, long bucketSeconds, String callGroupId,
+                                  AlertStatsHandler handler) {
+        Timestamp fromTs = Timestamp.from(from.toInstant());
+        Timestamp toTs = Timestamp.from(to.toInstant());
+        RowCallbackHandler rowHandler = rs -> handler.accept(mapRow(rs));
+        if (callGroupId != null) {
+            jdbcTemplate.query(STATS_SQL.formatted("AND call_group_id = ?"), rowHandler,
+                    fromTs, bucketSeconds, fromTs, toTs, callGroupId);
+        } else {
+            jdbcTemplate.query(STATS_SQL.formatted(""), rowHandler, fromTs, bucketSeconds, fromTs, toTs);
+        }
+    }
+
+    private AlertStatsRow mapRow(ResultSet rs) throws SQLException {
+        int bucket = rs.getInt(3);
+        Integer bucketIndex = rs.wasNull() ? null : bucket;
+        return new AlertStatsRow(
+                rs.getString(1),
+                rs.getString(2),
+                bucketIndex,
+                rs.getLong(4),
+                rs.getLong(5),
+                nullableDouble(rs, 6),
+                nullableDouble(rs, 7),
+                nullableDouble(rs, 8));
+    }
+
+    private static Double nullableDouble(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    /**
+     * A group total (bucket == null) or one bucket of a group
+     */
+    public record AlertStatsRow(String callGroupId, String callGroupName, Integer bucket, long alertCount,
+                                long resolvedCount, Double meanSecondsToResolve, Double p50SecondsToResolve,
+                                Double p90SecondsToResolve) {
+    }
+
+    @FunctionalInterface
+    public interface AlertStatsHandler {
+        void accept(AlertStatsRow row);
+    }
+}
@@ -0,0 +1,16 @@
+package com.wai.callform.repository;
+
+import com.wai.callform.entity.CallGroup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CallGroupRepository extends JpaRepository<CallGroup, String> {
+
+    // All groups with their members in one query (seeds the coverage engine)
+    @Query("SELECT DISTINCT g FROM CallGroup g LEFT JOIN FETCH g.memberEmails ORDER BY g.id")
+    List<CallGroup> findAllWithMembers();
+}
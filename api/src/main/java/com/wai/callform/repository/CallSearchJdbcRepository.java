@@ -0,0 +1,85 @@
+package com.wai.callform.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Ranked full-text search over call comments (comments_tsv, idx_call_entries_comments_tsv).
+ * The query is parsed with websearch_to_tsquery, so "quoted phrases", OR and -exclusions work as in
+ * a web search box. Ranked results are ordered by rank, then newest first, and paged by keyset: the
+ * next page starts after the (rank, start_time, id) of the last row of the previous one. Ranking has to
+ * score every match before the first row is returned, so unranked results are ordered newest first
+ * and paged on (start_time, id), which stops as soon as a page is filled.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CallSearchJdbcRepository {
+
+    private static final String SEARCH_SQL =
+            "SELECT id, rank, start_time FROM (" +
+            "    SELECT c.id, c.start_time, ts_rank_cd(c.comments_tsv, q.query) AS rank " +
+            "    FROM call_entries c, websearch_to_tsquery('english', ?) AS q(query) " +
+            "    WHERE c.comments_tsv @@ q.query %s" +
+            ") m %s" +
+            "ORDER BY %s " +
+            "LIMIT ?";
+
+    private static final String RANKED_ORDER = "rank DESC, start_time DESC, id DESC";
+    private static final String RECENT_ORDER = "start_time DESC, id DESC";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Up to limit matches for query, optionally for one tech and within [startDate, endDate],
+     * continuing after the given position (null for the first page)
+     *
+     * @param ranked best match first if true, newest first otherwise
+     */
+    public List<Hit> search(String query, String userEmail, OffsetDateTime startDate, OffsetDateTime endDate,
+                            Hit after, int limit, boolean ranked) {
+        StringBuilder filters = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        args.add(query);
+        if (userEmail != null) {
+            filters.append("AND c.datatech_email = ? ");
+            args.add(userEmail);
+        }
+        if (startDate != null) {
+            filters.append("AND c.start_time >= ? ");
+            args.add(startDate);
+        }
+        if (endDate != null) {
+            filters.append("AND c.start_time <= ? ");
+            args.add(endDate);
+        }
+        String keyset = "";
+        if (after != null && ranked) {
+            keyset = "WHERE (rank, start_time, id) < (CAST(? AS real), CAST(? AS timestamptz), CAST(? AS uuid)) ";
+            args.add(after.rank());
+            args.add(after.startTime());
+            args.add(after.id());
+        } else if (after != null) {
+            keyset = "WHERE (start_time, id) < (CAST(? AS timestamptz), CAST(? AS uuid)) ";
+            args.add(after.startTime());
+            args.add(after.id());
+        }
+        args.add(limit);
+
+        return jdbcTemplate.query(SEARCH_SQL.formatted(filters, keyset, ranked ? RANKED_ORDER : RECENT_ORDER),
+                (rs, rowNum) -> new Hit(rs.getObject(1, UUID.class), rs.getFloat(2),
+                        rs.getObject(3, OffsetDateTime.class)),
+                args.toArray());
+    }
+
+    /**
+     * A matching call and its position in the ranked order
+     */
+    public record Hit(UUID id, float rank, OffsetDateTime startTime) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.wai.callform.repository;
+
+import com.wai.callform.entity.ExtensionDirectoryEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for ExtensionDirectoryEntry operations.
+ */
+@Repository
+public interface ExtensionDirectoryRepository extends JpaRepository<ExtensionDirectoryEntry, String> {
+
+    // Find all active directory entries (snapshot source)
+    List<ExtensionDirectoryEntry> findByIsActiveTrue();
+
+    // Find all entries ordered by extension (admin listing)
+    List<ExtensionDirectoryEntry> findAllByOrderByExtensionAsc();
+}
@@ -0,0 +1,235 @@
+package com.wai.callform.repository;
+
+import com.wai.callform.entity.CallEntry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * Bulk load of historical PBX calls: rows are streamed with COPY into a temporary staging table.
+ * CDRs that overlap a manual call by the same tech are first attached to it, as live ingest does;
+ * the rest are merged into call_entries in one INSERT ... SELECT, letting the unique pbx_call_id
+ * index drop calls that are already logged (or repeated within the file).
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class PbxBackfillJdbcRepository {
+
+    private static final String CREATE_STAGING_SQL =
+            "CREATE TEMP TABLE pbx_backfill_staging (" +
+            "id UUID NOT NULL, datatech_name VARCHAR(255) NOT NULL, datatech_email VARCHAR(255) NOT NULL, " +
+            "start_time TIMESTAMP WITH TIME ZONE NOT NULL, end_time TIMESTAMP WITH TIME ZONE NOT NULL, " +
+            "is_inbound BOOLEAN NOT NULL, phone_number VARCHAR(50), pbx_call_id VARCHAR(100) NOT NULL, " +
+            "pbx_source_id VARCHAR(100)" +
+            ") ON COMMIT DROP";
+
+    private static final String COPY_STAGING_SQL =
+            "COPY pbx_backfill_staging (id, datatech_name, datatech_email, start_time, end_time, " +
+            "is_inbound, phone_number, pbx_call_id, pbx_source_id) FROM STDIN WITH (FORMAT csv)";
+
+    // Set-based form of CallEntryJdbcRepository's MERGE_PBX_CALL_SQL: each not yet logged CDR picks the
+    // closest overlapping unmatched manual call by the same tech, each manual call takes at most one
+    // CDR, and merged CDRs are removed from staging so the insert below skips them
+    private static final String ATTACH_TO_MANUAL_CALLS_SQL =
+            "WITH candidates AS (" +
+            "SELECT DISTINCT ON (s.pbx_call_id) s.* FROM pbx_backfill_staging s " +
+            "WHERE NOT EXISTS (SELECT 1 FROM call_entries d WHERE d.pbx_call_id = s.pbx_call_id) " +
+            "ORDER BY s.pbx_call_id), " +
+            "matched AS (" +
+            "SELECT DISTINCT ON (m.id) m.id AS manual_id, s.pbx_call_id, s.phone_number, s.pbx_source_id, " +
+            "s.end_time AS cdr_end_time FROM candidates s " +
+            "CROSS JOIN LATERAL (SELECT m.id, m.start_time FROM call_entries m " +
+            "WHERE m.pbx_call_id IS NULL AND m.is_pbx_originated = false " +
+            "AND call_entry_period(m.start_time, m.end_time) && " +
+            "tstzrange(s.start_time - CAST(? AS integer) * INTERVAL '1 second', " +
+            "s.end_time + CAST(? AS integer) * INTERVAL '1 second', '[]') " +
+            "AND LOWER(m.datatech_email) = LOWER(s.datatech_email) " +
+            "ORDER BY ABS(EXTRACT(EPOCH FROM (m.start_time - s.start_time))), m.id LIMIT 1) m " +
+            "ORDER BY m.id, ABS(EXTRACT(EPOCH FROM (m.start_time - s.start_time))), s.pbx_call_id), " +
+            "merged AS (" +
+            "UPDATE call_entries c SET pbx_call_id = matched.pbx_call_id, pbx_data_received_at = ?, " +
+            "phone_number = COALESCE(c.phone_number, matched.phone_number), updated_at = ?, " +
+            "pbx_source_id = matched.pbx_source_id, pbx_cdr_end_time = matched.cdr_end_time " +
+            "FROM matched WHERE c.id = matched.manual_id AND c.pbx_call_id IS NULL " +
+            "RETURNING c.pbx_call_id), " +
+            "unstaged AS (" +
+            "DELETE FROM pbx_backfill_staging s USING merged WHERE s.pbx_call_id = merged.pbx_call_id) " +
+            "SELECT COUNT(*) FROM merged";
+
+    private static final String MERGE_STAGING_SQL =
+            "WITH inserted AS (" +
+            "INSERT INTO call_entries (id, datatech_name, datatech_email, start_time, end_time, " +
+            "is_inbound, is_agent, phone_number, pbx_call_id, is_pbx_originated, pbx_data_received_at, " +
+            "created_at, updated_at, pbx_source_id, pbx_cdr_end_time) " +
+            "SELECT id, datatech_name, datatech_email, start_time, end_time, is_inbound, false, phone_number, " +
+            "pbx_call_id, true, ?, ?, ?, pbx_source_id, end_time FROM pbx_backfill_staging " +
+            "ON CONFLICT (pbx_call_id) WHERE pbx_call_id IS NOT NULL DO NOTHING " +
+            "RETURNING datatech_email) " +
+            "SELECT datatech_email, COUNT(*) FROM inserted GROUP BY datatech_email";
+
+    // Flush to the server roughly every megabyte of CSV
+    private static final int COPY_CHUNK_CHARS = 1024 * 1024;
+
+    private final DataSource dataSource;
+
+    /**
+     * Stage and merge PBX call entries in one transaction
+     *
+     * @param entries        entries to load; ids must already be assigned
+     * @param receivedAt     stamped as pbx_data_received_at/created_at/updated_at on inserted rows
+     * @param mergeTolerance overlap tolerance for attaching CDRs to manual calls, or null not to attach
+     * @param onStaged       called with the running staged row count after each chunk
+     * @param onMerging      called once staging is complete and the merge starts
+     */
+    public BackfillCounts stageAndMerge(Iterator<CallEntry> entries, OffsetDateTime receivedAt,
+                                        Duration mergeTolerance, LongConsumer onStaged,
+                                        Runnable onMerging) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(CREATE_STAGING_SQL);
+                }
+
+                long staged = copyToStaging(connection, entries, onStaged);
+
+                onMerging.run();
+                Timestamp received = Timestamp.from(receivedAt.toInstant());
+                long attached = 0;
+                if (mergeTolerance != null) {
+                    try (PreparedStatement attach = connection.prepareStatement(ATTACH_TO_MANUAL_CALLS_SQL)) {
+                        attach.setInt(1, (int) mergeTolerance.toSeconds());
+                        attach.setInt(2, (int) mergeTolerance.toSeconds());
+                        attach.setTimestamp(3, received);
+                        attach.setTimestamp(4, received);
+                        try (ResultSet rs = attach.executeQuery()) {
+                            rs.next();
+                            attached = rs.getLong(1);
+                        }
+                    }
+                }
+
+                long inserted = 0;
+                Map<String, Integer> pendingAdded = new HashMap<>();
+                try (PreparedStatement merge = connection.prepareStatement(MERGE_STAGING_SQL)) {
+                    merge.setTimestamp(1, received);
+                    merge.setTimestamp(2, received);
+                    merge.setTimestamp(3, received);
+                    try (ResultSet rs = merge.executeQuery()) {
+                        while (rs.next()) {
+                            pendingAdded.put(rs.getString(1), rs.getInt(2));
+                            inserted += rs.getLong(2);
+                        }
+                    }
+                }
+
+                connection.commit();
+                return new BackfillCounts(staged, attached, inserted, pendingAdded);
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private long copyToStaging(Connection connection, Iterator<CallEntry> entries,
+                               LongConsumer onStaged) throws SQLException {
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STAGING_SQL);
+        try {
+            StringBuilder chunk = new StringBuilder(COPY_CHUNK_CHARS + 1024);
+            long staged = 0;
+            while (entries.hasNext()) {
+                appendRow(chunk, entries.next());
+                staged++;
+                if (chunk.length() >= COPY_CHUNK_CHARS) {
+                    writeChunk(copyIn, chunk);
+                    onStaged.accept(staged);
+                }
+            }
+            writeChunk(copyIn, chunk);
+            long copied = copyIn.endCopy();
+            onStaged.accept(copied);
+            return copied;
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static void appendRow(StringBuilder out, CallEntry entry) {
+        appendField(out, entry.getId());
+        out.append(',');
+        appendField(out, entry.getDatatechName());
+        out.append(',');
+        appendField(out, entry.getDatatechEmail());
+        out.append(',');
+        appendField(out, entry.getStartTime());
+        out.append(',');
+        appendField(out, entry.getEndTime());
+        out.append(',');
+        appendField(out, Boolean.TRUE.equals(entry.getIsInbound()));
+        out.append(',');
+        appendField(out, entry.getPhoneNumber());
+        out.append(',');
+        appendField(out, entry.getPbxCallId());
+        out.append(',');
+        appendField(out, entry.getPbxSourceId());
+        out.append('\n');
+    }
+
+    /**
+     * Quoted CSV field; null is written as an empty unquoted field, which COPY reads as NULL
+     */
+    private static void appendField(StringBuilder out, Object value) {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        out.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    private static void writeChunk(CopyIn copyIn, StringBuilder chunk) throws SQLException {
+        if (chunk.length() == 0) {
+            return;
+        }
+        byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        chunk.setLength(0);
+    }
+
+    /**
+     * @param pendingAdded inserted rows (now pending classification) per tech email
+     */
+    public record BackfillCounts(long staged, long merged, long inserted, Map<String, Integer> pendingAdded) {
+    }
+}
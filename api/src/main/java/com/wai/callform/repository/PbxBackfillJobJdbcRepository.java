@@ -0,0 +1,191 @@
+package com.wai.callform.repository;
+
+import com.wai.callform.dto.PbxBackfillStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Durable state of PBX backfill jobs.
+ * The node that spooled an upload leases its job and heartbeats the lease while the job is queued or
+ * running; progress writes are conditional on still holding it. A job whose lease lapsed is claimed by
+ * whichever node has its spool file and run again from the start.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PbxBackfillJobJdbcRepository {
+
+    private static final String UNFINISHED = "phase NOT IN ('COMPLETED', 'FAILED')";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO pbx_backfill_jobs (id, format, source_id, phase, submitted_at, leased_by, lease_expires_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SAVE_PROGRESS_SQL =
+            "UPDATE pbx_backfill_jobs SET phase = ?, rows_read = ?, rows_invalid = ?, rows_staged = ?, " +
+            "rows_merged = ?, rows_inserted = ?, rows_duplicate = ?, sample_errors = ?, error_message = ?, completed_at = ?, " +
+            "leased_by = ?, lease_expires_at = ? " +
+            "WHERE id = ? AND leased_by = ?";
+
+    private static final String RENEW_LEASES_SQL =
+            "UPDATE pbx_backfill_jobs SET lease_expires_at = ? " +
+            "WHERE id = ANY (?) AND leased_by = ? AND " + UNFINISHED;
+
+    private static final String FIND_ABANDONED_SQL =
+            "SELECT id, format, source_id, lease_expires_at FROM pbx_backfill_jobs " +
+            "WHERE " + UNFINISHED + " AND lease_expires_at < ? ORDER BY submitted_at";
+
+    private static final String RESET_JOB =
+            "UPDATE pbx_backfill_jobs SET phase = 'QUEUED', rows_read = 0, rows_invalid = 0, rows_staged = 0, " +
+            "rows_merged = 0, rows_inserted = 0, rows_duplicate = 0, sample_errors = '{}', error_message = NULL, " +
+            "completed_at = NULL, leased_by = ?, lease_expires_at = ? ";
+
+    private static final String CLAIM_SQL =
+            RESET_JOB + "WHERE id = ? AND " + UNFINISHED + " AND lease_expires_at < ?";
+
+    private static final String RETRY_SQL = RESET_JOB + "WHERE id = ? AND phase = 'FAILED'";
+
+    private static final String FAIL_ABANDONED_SQL =
+            "UPDATE pbx_backfill_jobs SET phase = 'FAILED', error_message = ?, completed_at = ?, " +
+            "leased_by = NULL, lease_expires_at = NULL " +
+            "WHERE id = ? AND " + UNFINISHED + " AND lease_expires_at < ?";
+
+    private static final String SELECT_STATUS =
+            "SELECT id, format, phase, rows_read, rows_invalid, rows_staged, rows_merged, rows_inserted, rows_duplicate, " +
+            "sample_errors, error_message, submitted_at, completed_at FROM pbx_backfill_jobs ";
+
+    private static final String FIND_SQL = SELECT_STATUS + "WHERE id = ?";
+
+    private static final String FIND_RECENT_SQL = SELECT_STATUS + "ORDER BY submitted_at DESC LIMIT ?";
+
+    private static final String FIND_SOURCE_ID_SQL = "SELECT source_id FROM pbx_backfill_jobs WHERE id = ?";
+
+    private static final RowMapper<PbxBackfillStatus> STATUS_MAPPER = (rs, rowNum) -> {
+        PbxBackfillStatus status = new PbxBackfillStatus();
+        status.setId(rs.getObject("id", UUID.class));
+        status.setFormat(rs.getString("format"));
+        status.setPhase(PbxBackfillStatus.Phase.valueOf(rs.getString("phase")));
+        status.setRowsRead(rs.getLong("rows_read"));
+        status.setRowsInvalid(rs.getLong("rows_invalid"));
+        status.setRowsStaged(rs.getLong("rows_staged"));
+        status.setRowsMerged(rs.getLong("rows_merged"));
+        status.setRowsInserted(rs.getLong("rows_inserted"));
+        status.setRowsDuplicate(rs.getLong("rows_duplicate"));
+        Array errors = rs.getArray("sample_errors");
+        status.setSampleErrors(errors != null ? List.of((String[]) errors.getArray()) : List.of());
+        status.setErrorMessage(rs.getString("error_message"));
+        status.setSubmittedAt(rs.getObject("submitted_at", OffsetDateTime.class));
+        status.setCompletedAt(rs.getObject("completed_at", OffsetDateTime.class));
+        return status;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insert(PbxBackfillStatus status, String sourceId, String workerId, OffsetDateTime leaseExpiresAt) {
+        jdbcTemplate.update(INSERT_SQL, status.getId(), status.getFormat(), sourceId, status.getPhase().name(),
+                toTimestamp(status.getSubmittedAt()), workerId, toTimestamp(leaseExpiresAt));
+    }
+
+    /**
+     * Write a job's progress while this worker holds it; a finished job (completedAt set) releases the lease
+     *
+     * @return false if another node has since claimed the job
+     */
+    public boolean saveProgress(PbxBackfillStatus status, String workerId, OffsetDateTime leaseExpiresAt) {
+        boolean finished = status.getCompletedAt() != null;
+        return jdbcTemplate.update(SAVE_PROGRESS_SQL, ps -> {
+            ps.setString(1, status.getPhase().name());
+            ps.setLong(2, status.getRowsRead());
+            ps.setLong(3, status.getRowsInvalid());
+            ps.setLong(4, status.getRowsStaged());
+            ps.setLong(5, status.getRowsMerged());
+            ps.setLong(6, status.getRowsInserted());
+            ps.setLong(7, status.getRowsDuplicate());
+            ps.setArray(8, ps.getConnection().createArrayOf("text", status.getSampleErrors().toArray()));
+            ps.setString(9, status.getErrorMessage());
+            ps.setTimestamp(10, toTimestamp(status.getCompletedAt()));
+            ps.setString(11, finished ? null : workerId);
+            ps.setTimestamp(12, finished ? null : toTimestamp(leaseExpiresAt));
+            ps.setObject(13, status.getId());
+            ps.setString(14, workerId);
+        }) > 0;
+    }
+
+    /**
+     * Heartbeat: extend the leases this worker holds on unfinished jobs in one update
+     */
+    public int renewLeases(Collection<UUID> ids, String workerId, OffsetDateTime leaseExpiresAt) {
+        return jdbcTemplate.update(RENEW_LEASES_SQL, ps -> {
+            ps.setTimestamp(1, toTimestamp(leaseExpiresAt));
+            ps.setArray(2, ps.getConnection().createArrayOf("uuid", ids.toArray()));
+            ps.setString(3, workerId);
+        });
+    }
+
+    /**
+     * Unfinished jobs whose lease lapsed before now, oldest first
+     */
+    public List<AbandonedJob> findAbandoned(OffsetDateTime now) {
+        return jdbcTemplate.query(FIND_ABANDONED_SQL,
+                (rs, rowNum) -> new AbandonedJob(rs.getObject(1, UUID.class), rs.getString(2), rs.getString(3),
+                        rs.getObject(4, OffsetDateTime.class)),
+                toTimestamp(now));
+    }
+
+    /**
+     * Take over an abandoned job and reset its progress for a fresh run
+     *
+     * @return false if the job finished or another node claimed it first
+     */
+    public boolean claim(UUID id, String workerId, OffsetDateTime now, OffsetDateTime leaseExpiresAt) {
+        return jdbcTemplate.update(CLAIM_SQL, workerId, toTimestamp(leaseExpiresAt), id, toTimestamp(now)) > 0;
+    }
+
+    /**
+     * Reset a failed job to QUEUED under this worker's lease (admin retry)
+     *
+     * @return false if the job is not in the FAILED phase
+     */
+    public boolean retry(UUID id, String workerId, OffsetDateTime leaseExpiresAt) {
+        return jdbcTemplate.update(RETRY_SQL, workerId, toTimestamp(leaseExpiresAt), id) > 0;
+    }
+
+    /**
+     * Fail an abandoned job that no node can resume
+     */
+    public boolean failAbandoned(UUID id, String errorMessage, OffsetDateTime now) {
+        return jdbcTemplate.update(FAIL_ABANDONED_SQL, errorMessage, toTimestamp(now), id, toTimestamp(now)) > 0;
+    }
+
+    public Optional<PbxBackfillStatus> find(UUID id) {
+        return jdbcTemplate.query(FIND_SQL, STATUS_MAPPER, id).stream().findFirst();
+    }
+
+    public List<PbxBackfillStatus> findRecent(int limit) {
+        return jdbcTemplate.query(FIND_RECENT_SQL, STATUS_MAPPER, limit);
+    }
+
+    /**
+     * @return the source id the job was submitted with, or null if it had none
+     */
+    public String findSourceId(UUID id) {
+        List<String> sourceIds = jdbcTemplate.queryForList(FIND_SOURCE_ID_SQL, String.class, id);
+        return sourceIds.isEmpty() ? null : sourceIds.get(0);
+    }
+
+    private static Timestamp toTimestamp(OffsetDateTime value) {
+        return value != null ? Timestamp.from(value.toInstant()) : null;
+    }
+
+    public record AbandonedJob(UUID id, String format, String sourceId, OffsetDateTime leaseExpiresAt) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.wai.callform.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-side queries for the sideloader sync protocol.
+ * Both read the CDR's own end time (pbx_cdr_end_time, which the sideloader buckets by; end_time is
+ * the tech's once a CDR is merged into a manual call) and are served by
+ * idx_call_entries_pbx_source_cdr_end_time. A null source means calls ingested before sources were tracked.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PbxSyncJdbcRepository {
+
+    private static final String LATEST_SQL =
+            "SELECT pbx_call_id, pbx_cdr_end_time FROM call_entries " +
+            "WHERE %s AND pbx_call_id IS NOT NULL AND pbx_cdr_end_time IS NOT NULL " +
+            "ORDER BY pbx_cdr_end_time DESC LIMIT 1";
+
+    private static final String WINDOW_SQL =
+            "SELECT pbx_call_id, pbx_cdr_end_time FROM call_entries " +
+            "WHERE %s AND pbx_call_id IS NOT NULL AND pbx_cdr_end_time >= ? AND pbx_cdr_end_time < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Most recent PBX call (by CDR end time) delivered by a source
+     */
+    public Optional<SyncedCall> findLatest(String sourceId) {
+        List<SyncedCall> latest = sourceId != null
+                ? jdbcTemplate.query(LATEST_SQL.formatted("pbx_source_id = ?"), this::mapSyncedCall, sourceId)
+                : jdbcTemplate.query(LATEST_SQL.formatted("pbx_source_id IS NULL"), this::mapSyncedCall);
+        return latest.stream().findFirst();
+    }
+
+    /**
+     * Stream the PBX calls a source delivered with an end time in [from, to)
+     */
+    public void forEachInWindow(String sourceId, OffsetDateTime from, OffsetDateTime to,
+                                SyncedCallHandler handler) {
+        Timestamp fromTs = Timestamp.from(from.toInstant());
+        Timestamp toTs = Timestamp.from(to.toInstant());
+        RowCallbackHandler rowHandler =
+                rs -> handler.accept(rs.getString(1), rs.getTimestamp(2).toInstant().toEpochMilli());
+        if (sourceId != null) {
+            jdbcTemplate.query(WINDOW_SQL.formatted("pbx_source_id = ?"), rowHandler, sourceId, fromTs, toTs);
+        } else {
+            jdbcTemplate.query(WINDOW_SQL.formatted("pbx_source_id IS NULL"), rowHandler, fromTs, toTs);
+        }
+    }
+
+    private SyncedCall mapSyncedCall(ResultSet rs, int rowNum) throws SQLException {
+        return new SyncedCall(rs.getString(1), rs.getTimestamp(2).toInstant().atOffset(ZoneOffset.UTC));
+    }
+
+    public record SyncedCall(String pbxCallId, OffsetDateTime endTime) {
+    }
+
+    @FunctionalInterface
+    public interface SyncedCallHandler {
+        void accept(String pbxCallId, long endTimeEpochMillis);
+    }
+}
@@ -1,14 +1,20 @@
 package com.wai.callform.repository;
 
 import com.wai.callform.entity.ReportRun;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -39,6 +45,50 @@ public interface ReportRunRepository extends JpaRepository<ReportRun, UUID> {
     @Query("SELECT r FROM ReportRun r WHERE r.status = 'RUNNING' AND r.startedAt < :cutoffTime")
     List<ReportRun> findStuckReports(@Param("cutoffTime") OffsetDateTime cutoffTime);
 
+    // Lease-based work queue queries. The lock timeout hint of -2 renders as SKIP LOCKED,
+    // so concurrent workers/reapers on other nodes never block on or double-claim a row.
+
+    // Claim the oldest pending reports whose retry backoff has elapsed
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT r FROM ReportRun r WHERE r.status = 'PENDING' AND (r.nextAttemptAt IS NULL OR r.nextAttemptAt <= :now) ORDER BY r.createdAt ASC")
+    List<ReportRun> findReadyPendingReportsForUpdate(@Param("now") OffsetDateTime now, Pageable pageable);
+
+    // Find running reports whose worker stopped renewing its lease
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT r FROM ReportRun r WHERE r.status = 'RUNNING' AND r.leaseExpiresAt < :now ORDER BY r.leaseExpiresAt ASC")
+    List<ReportRun> findExpiredLeasesForUpdate(@Param("now") OffsetDateTime now);
+
+    // Find running reports started before leases existed, so never leased, that have run longer than a lease
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT r FROM ReportRun r WHERE r.status = 'RUNNING' AND r.leaseExpiresAt IS NULL AND r.startedAt < :cutoffTime ORDER BY r.startedAt ASC")
+    List<ReportRun> findUnleasedStuckReportsForUpdate(@Param("cutoffTime") OffsetDateTime cutoffTime);
+
+    // Heartbeat: extend the leases this worker still holds
+    @Modifying
+    @Query("UPDATE ReportRun r SET r.leaseExpiresAt = :leaseExpiresAt WHERE r.id IN :ids AND r.leasedBy = :workerId AND r.status = 'RUNNING'")
+    int renewLeases(@Param("ids") Collection<UUID> ids,
+                    @Param("workerId") String workerId,
+                    @Param("leaseExpiresAt") OffsetDateTime leaseExpiresAt);
+
+    // Which of these reports this worker still holds, after a heartbeat renewed fewer than expected
+    @Query("SELECT r.id FROM ReportRun r WHERE r.id IN :ids AND r.leasedBy = :workerId AND r.status = 'RUNNING'")
+    List<UUID> findLeasedIds(@Param("ids") Collection<UUID> ids, @Param("workerId") String workerId);
+
+    // Finish a run only while this worker still holds its lease; 0 rows means the reaper reassigned it
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ReportRun r SET r.status = :status, r.resultUrl = :resultUrl, r.errorMessage = :errorMessage, " +
+           "r.completedAt = :completedAt, r.leasedBy = NULL, r.leaseExpiresAt = NULL " +
+           "WHERE r.id = :id AND r.leasedBy = :workerId AND r.status = 'RUNNING'")
+    int finishLeased(@Param("id") UUID id,
+                     @Param("workerId") String workerId,
+                     @Param("status") ReportRun.ReportStatus status,
+                     @Param("resultUrl") String resultUrl,
+                     @Param("errorMessage") String errorMessage,
+                     @Param("completedAt") OffsetDateTime completedAt);
+
     // Find reports by user and status
     List<ReportRun> findByRequestedByAndStatusOrderByCreatedAtDesc(String requestedBy, 
                                                                   ReportRun.ReportStatus status);
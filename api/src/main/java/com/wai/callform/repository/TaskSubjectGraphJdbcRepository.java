@@ -0,0 +1,175 @@
+package com.wai.callform.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Loads the whole task/subject graph (all rows, active or not) with the reference data version
+ * it corresponds to, for the in-memory snapshot held by TaskSubjectService, and applies bulk
+ * imports. Each write is one statement over unnest()ed arrays, however many rows it covers.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TaskSubjectGraphJdbcRepository {
+
+    private static final String VERSION_SQL = "SELECT version FROM reference_data_version";
+
+    // The whole graph in one statement (one consistent read): kind V is the version row, T a task,
+    // S a subject and R a relationship (task id, subject id). Tasks and subjects come out in display order.
+    private static final String GRAPH_SQL =
+            "SELECT 'V' AS kind, NULL::uuid AS id, NULL::uuid AS other_id, NULL AS name, NULL::boolean AS is_active, " +
+            "       NULL::int AS sort_order, NULL::timestamptz AS created_at, NULL::timestamptz AS updated_at, version " +
+            "FROM reference_data_version " +
+            "UNION ALL " +
+            "SELECT 'T', id, NULL, name, is_active, sort_order, created_at, updated_at, NULL FROM task_entities " +
+            "UNION ALL " +
+            "SELECT 'S', id, NULL, name, is_active, sort_order, created_at, updated_at, NULL FROM subject_entities " +
+            "UNION ALL " +
+            "SELECT 'R', task_id, subject_id, NULL, NULL, NULL, NULL, NULL, NULL FROM task_subject_relationships " +
+            "ORDER BY sort_order, name";
+
+    // Serializes imports: held until the importing transaction ends
+    private static final String LOCK_VERSION_SQL = "SELECT version FROM reference_data_version FOR UPDATE";
+
+    private static final String INSERT_ROWS_SQL =
+            "INSERT INTO %s (id, name, is_active, sort_order, created_at, updated_at) " +
+            "SELECT id, name, is_active, sort_order, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP " +
+            "FROM unnest(?::uuid[], ?::varchar[], ?::boolean[], ?::int[]) AS r(id, name, is_active, sort_order)";
+
+    private static final String UPDATE_ROWS_SQL =
+            "UPDATE %s t SET name = r.name, is_active = r.is_active, sort_order = r.sort_order, " +
+            "       updated_at = CURRENT_TIMESTAMP " +
+            "FROM unnest(?::uuid[], ?::varchar[], ?::boolean[], ?::int[]) AS r(id, name, is_active, sort_order) " +
+            "WHERE t.id = r.id";
+
+    private static final String INSERT_RELATIONSHIPS_SQL =
+            "INSERT INTO task_subject_relationships (task_id, subject_id) " +
+            "SELECT task_id, subject_id FROM unnest(?::uuid[], ?::uuid[]) AS r(task_id, subject_id)";
+
+    private static final String DELETE_RELATIONSHIPS_SQL =
+            "DELETE FROM task_subject_relationships t " +
+            "USING unnest(?::uuid[], ?::uuid[]) AS r(task_id, subject_id) " +
+            "WHERE t.task_id = r.task_id AND t.subject_id = r.subject_id";
+
+    private static final String TASKS = "task_entities";
+    private static final String SUBJECTS = "subject_entities";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Current reference data version (cheap check before a reload)
+     */
+    public long currentVersion() {
+        Long version = jdbcTemplate.queryForObject(VERSION_SQL, Long.class);
+        return version != null ? version : 0;
+    }
+
+    /**
+     * Read the version and the whole graph in a single query
+     */
+    public Graph load() {
+        long[] version = {0};
+        List<Row> tasks = new ArrayList<>();
+        List<Row> subjects = new ArrayList<>();
+        List<Relationship> relationships = new ArrayList<>();
+        jdbcTemplate.query(GRAPH_SQL, rs -> {
+            switch (rs.getString(1)) {
+                case "V" -> version[0] = rs.getLong(9);
+                case "T" -> tasks.add(mapRow(rs));
+                case "S" -> subjects.add(mapRow(rs));
+                default -> relationships.add(new Relationship(rs.getObject(2, UUID.class), rs.getObject(3, UUID.class)));
+            }
+        });
+        return new Graph(version[0], tasks, subjects, relationships);
+    }
+
+    /**
+     * Lock the version row for the rest of the transaction, so concurrent imports apply one at a time
+     */
+    public void lockVersion() {
+        jdbcTemplate.queryForObject(LOCK_VERSION_SQL, Long.class);
+    }
+
+    public void insertTasks(List<Row> tasks) {
+        writeRows(INSERT_ROWS_SQL.formatted(TASKS), tasks);
+    }
+
+    public void updateTasks(List<Row> tasks) {
+        writeRows(UPDATE_ROWS_SQL.formatted(TASKS), tasks);
+    }
+
+    public void insertSubjects(List<Row> subjects) {
+        writeRows(INSERT_ROWS_SQL.formatted(SUBJECTS), subjects);
+    }
+
+    public void updateSubjects(List<Row> subjects) {
+        writeRows(UPDATE_ROWS_SQL.formatted(SUBJECTS), subjects);
+    }
+
+    public void insertRelationships(List<Relationship> relationships) {
+        writeRelationships(INSERT_RELATIONSHIPS_SQL, relationships);
+    }
+
+    public void deleteRelationships(List<Relationship> relationships) {
+        writeRelationships(DELETE_RELATIONSHIPS_SQL, relationships);
+    }
+
+    // Empty lists are skipped: statement triggers bump the reference data version even for zero rows
+    private void writeRows(String sql, List<Row> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(sql, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("uuid", rows.stream().map(Row::id).toArray()));
+            ps.setArray(2, connection.createArrayOf("varchar", rows.stream().map(Row::name).toArray()));
+            ps.setArray(3, connection.createArrayOf("bool", rows.stream().map(Row::active).toArray()));
+            ps.setArray(4, connection.createArrayOf("int4", rows.stream().map(Row::sortOrder).toArray()));
+        });
+    }
+
+    private void writeRelationships(String sql, List<Relationship> relationships) {
+        if (relationships.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(sql, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("uuid",
+                    relationships.stream().map(Relationship::taskId).toArray()));
+            ps.setArray(2, connection.createArrayOf("uuid",
+                    relationships.stream().map(Relationship::subjectId).toArray()));
+        });
+    }
+
+    private Row mapRow(ResultSet rs) throws SQLException {
+        return new Row(
+                rs.getObject(2, UUID.class),
+                rs.getString(4),
+                rs.getBoolean(5),
+                rs.getObject(6, Integer.class),
+                rs.getObject(7, OffsetDateTime.class),
+                rs.getObject(8, OffsetDateTime.class));
+    }
+
+    /**
+     * A task or subject row
+     */
+    public record Row(UUID id, String name, boolean active, Integer sortOrder, OffsetDateTime createdAt,
+                      OffsetDateTime updatedAt) {
+    }
+
+    public record Relationship(UUID taskId, UUID subjectId) {
+    }
+
+    public record Graph(long version, List<Row> tasks, List<Row> subjects, List<Relationship> relationships) {
+    }
+}
@@ -0,0 +1,282 @@
+package com.wai.callform.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wai.callform.dto.AlertNotification;
+import com.wai.callform.dto.CallGroupAlertDto;
+import com.wai.callform.event.CallGroupAlertEvent;
+import com.wai.callform.repository.AlertNotificationRetryJdbcRepository;
+import com.wai.callform.repository.AlertNotificationRetryJdbcRepository.PendingRetry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans committed call group alert events out to webhooks and email relays (HTTP POST of an
+ * AlertNotification) without holding up the thread that raised the alert.
+ * Each destination has its own small worker pool and bounded queue, so a slow or dead endpoint only
+ * backs up its own deliveries. A failed delivery, or one that finds its queue full, is written to
+ * alert_notification_retries and retried with exponential backoff by a periodic sweep on any node.
+ * A claimed retry holds a lease that is renewed when its delivery starts, so one that waited in a
+ * busy queue is not sent by both this node and a node that claimed it after the lease ran out.
+ */
+@Component
+@Slf4j
+public class AlertNotificationDispatcher {
+
+    private final AlertNotificationRetryJdbcRepository retryRepository;
+    private final ObjectMapper objectMapper;
+    private final boolean notifyResolved;
+    private final Duration requestTimeout;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration retryLease;
+    private final int retryBatchSize;
+
+    private final HttpClient httpClient;
+    private final Map<String, ThreadPoolExecutor> destinations = new LinkedHashMap<>();
+    // Claimed retries queued or being delivered on this node, with the lease each one holds
+    private final Map<UUID, OffsetDateTime> queuedRetries = new ConcurrentHashMap<>();
+    // Persists deliveries that overflowed their queue off the publishing thread
+    private final ExecutorService spillExecutor = Executors.newSingleThreadExecutor(
+            daemonThreads("alert-notify-spill"));
+
+    public AlertNotificationDispatcher(AlertNotificationRetryJdbcRepository retryRepository,
+                                       ObjectMapper objectMapper,
+                                       @Value("${callform.notifications.destinations:}") String destinationUrls,
+                                       @Value("${callform.notifications.notify-resolved:true}") boolean notifyResolved,
+                                       @Value("${callform.notifications.queue-capacity:100}") int queueCapacity,
+                                       @Value("${callform.notifications.max-concurrency-per-destination:2}") int maxConcurrency,
+                                       @Value("${callform.notifications.request-timeout-ms:5000}") long requestTimeoutMs,
+                                       @Value("${callform.notifications.max-attempts:8}") int maxAttempts,
+                                       @Value("${callform.notifications.initial-backoff-ms:30000}") long initialBackoffMs,
+                                       @Value("${callform.notifications.max-backoff-ms:3600000}") long maxBackoffMs,
+                                       @Value("${callform.notifications.retry-batch-size:50}") int retryBatchSize) {
+        this.retryRepository = retryRepository;
+        this.objectMapper = objectMapper;
+        this.notifyResolved = notifyResolved;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = Duration.ofMillis(initialBackoffMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+        // A claimed retry is left alone by other nodes for longer than its delivery can take
+        this.retryLease = requestTimeout.multipliedBy(4).plus(initialBackoff);
+        this.retryBatchSize = retryBatchSize;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(requestTimeout).build();
+
+        Arrays.stream(destinationUrls.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .forEach(url -> {
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency,
+                            60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                            daemonThreads("alert-notify-" + URI.create(url).getHost()));
+                    executor.allowCoreThreadTimeOut(true);
+                    destinations.put(url, executor);
+                });
+        if (!destinations.isEmpty()) {
+            log.info("Alert notifications enabled for {} destinations", destinations.size());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlert(CallGroupAlertEvent event) {
+        // Changes observed from other nodes are notified by the node that made them
+        if (destinations.isEmpty() || !event.local()
+                || (event.type() == CallGroupAlertEvent.Type.RESOLVED && !notifyResolved)) {
+            return;
+        }
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(toNotification(event));
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize notification for alert {}", event.alert().getId(), e);
+            return;
+        }
+        for (String url : destinations.keySet()) {
+            PendingRetry delivery = new PendingRetry(null, url, payload, 0);
+            if (!submit(delivery)) {
+                log.warn("Notification queue for {} is full; deferring to the retry table", url);
+                spillExecutor.execute(() -> scheduleRetry(delivery, 0, "Notification queue full"));
+            }
+        }
+    }
+
+    /**
+     * Hand due retries from the durable table back to their destination queues
+     */
+    @Scheduled(fixedDelayString = "${callform.notifications.retry-interval-ms:15000}",
+            initialDelayString = "${callform.notifications.retry-interval-ms:15000}")
+    public void retryDue() {
+        if (destinations.isEmpty()) {
+            return;
+        }
+        OffsetDateTime now = OffsetDateTime.now();
+        OffsetDateTime leaseUntil = leaseFrom(now);
+        List<PendingRetry> due = retryRepository.claimDue(now, leaseUntil, retryBatchSize);
+        for (PendingRetry retry : due) {
+            if (!destinations.containsKey(retry.destinationUrl())) {
+                log.warn("Dropping notification retry for unconfigured destination {}", retry.destinationUrl());
+                retryRepository.delete(retry.id());
+            } else if (queuedRetries.replace(retry.id(), leaseUntil) != null) {
+                // Claimed again while still queued here; the queued copy now holds the new lease
+                log.debug("Notification retry {} is already queued for {}", retry.id(), retry.destinationUrl());
+            } else {
+                queuedRetries.put(retry.id(), leaseUntil);
+                if (!submit(retry)) {
+                    // Still leased; picked up again once the lease runs out
+                    queuedRetries.remove(retry.id());
+                    log.debug("Notification queue for {} is full; retry {} deferred", retry.destinationUrl(), retry.id());
+                }
+            }
+        }
+        if (!due.isEmpty()) {
+            log.debug("Requeued {} alert notification retries", due.size());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        destinations.values().forEach(ExecutorService::shutdown);
+        spillExecutor.shutdown();
+    }
+
+    private boolean submit(PendingRetry delivery) {
+        try {
+            destinations.get(delivery.destinationUrl()).execute(() -> deliver(delivery));
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private void deliver(PendingRetry delivery) {
+        if (delivery.id() == null) {
+            send(delivery);
+            return;
+        }
+        try {
+            OffsetDateTime heldUntil = queuedRetries.get(delivery.id());
+            OffsetDateTime leaseUntil = leaseFrom(OffsetDateTime.now());
+            if (heldUntil == null || !retryRepository.renewLease(delivery.id(), heldUntil, leaseUntil)) {
+                log.debug("Notification retry {} was claimed elsewhere while queued; skipping", delivery.id());
+                return;
+            }
+            queuedRetries.put(delivery.id(), leaseUntil);
+            send(delivery);
+        } catch (RuntimeException e) {
+            // Left to the lease: claimed again once it runs out
+            log.error("Failed to renew lease on alert notification retry {}", delivery.id(), e);
+        } finally {
+            queuedRetries.remove(delivery.id());
+        }
+    }
+
+    private void send(PendingRetry delivery) {
+        int attempt = delivery.attempts() + 1;
+        String error;
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(delivery.destinationUrl()))
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(delivery.payload()))
+                    .build();
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() / 100 == 2) {
+                if (delivery.id() != null) {
+                    retryRepository.delete(delivery.id());
+                }
+                return;
+            }
+            error = "HTTP " + response.statusCode();
+        } catch (IOException e) {
+            error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "Interrupted";
+        } catch (RuntimeException e) {
+            log.error("Failed to deliver alert notification to {}", delivery.destinationUrl(), e);
+            error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+
+        log.warn("Alert notification to {} failed (attempt {}/{}): {}",
+                delivery.destinationUrl(), attempt, maxAttempts, error);
+        scheduleRetry(delivery, attempt, error);
+    }
+
+    private void scheduleRetry(PendingRetry delivery, int attempts, String error) {
+        try {
+            if (attempts >= maxAttempts) {
+                log.error("Giving up on alert notification to {} after {} attempts", delivery.destinationUrl(), attempts);
+                if (delivery.id() != null) {
+                    retryRepository.delete(delivery.id());
+                }
+                return;
+            }
+            OffsetDateTime nextAttemptAt = OffsetDateTime.now().plus(backoff(attempts));
+            if (delivery.id() == null) {
+                retryRepository.insert(new PendingRetry(UUID.randomUUID(), delivery.destinationUrl(),
+                        delivery.payload(), attempts), nextAttemptAt, error);
+            } else {
+                retryRepository.reschedule(delivery.id(), attempts, nextAttemptAt, error);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to record alert notification retry for {}", delivery.destinationUrl(), e);
+        }
+    }
+
+    // Truncated to what the database stores, so renewLease can match the lease exactly
+    private OffsetDateTime leaseFrom(OffsetDateTime now) {
+        return now.plus(retryLease).truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    Duration backoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(Math.max(attempts - 1, 0), 20));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    private static AlertNotification toNotification(CallGroupAlertEvent event) {
+        CallGroupAlertDto alert = event.alert();
+        String group = alert.getCallGroupName() != null ? alert.getCallGroupName() : alert.getCallGroupId();
+        if (event.type() == CallGroupAlertEvent.Type.RAISED) {
+            return new AlertNotification("alert-raised", "Call group alert: " + group,
+                    alert.getAlertMessage() != null ? alert.getAlertMessage() : alert.getAlertType(), alert);
+        }
+        return new AlertNotification("alert-resolved", "Call group alert resolved: " + group,
+                "The " + alert.getAlertType() + " alert for " + group + " has been resolved.", alert);
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
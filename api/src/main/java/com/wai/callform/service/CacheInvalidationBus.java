@@ -0,0 +1,241 @@
+package com.wai.callform.service;
+
+import com.wai.callform.event.CacheInvalidationEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cross-node cache invalidation over PostgreSQL LISTEN/NOTIFY.
+ * Local CacheInvalidationEvents are sent with pg_notify inside the writer's transaction, so Postgres
+ * delivers them only if it commits (and folds duplicates within it). Every node holds one dedicated
+ * listening connection and republishes what other nodes sent as remote events, which the owning
+ * services answer by reloading their in-memory copy. Dispatch is coalesced per type on a single
+ * worker, so a burst of writes costs each node one reload. Notifications sent while the listener
+ * is disconnected are lost, so after a reconnect every cache is reloaded in full.
+ */
+@Component
+@Slf4j
+public class CacheInvalidationBus {
+
+    static final String CHANNEL = "callform_cache_invalidation";
+
+    private static final String NOTIFY_SQL = "SELECT pg_notify(?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int pollTimeoutMs;
+    private final long reconnectDelayMs;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // Types waiting for the dispatcher; one worker so reloads of the same cache never overlap
+    private final Set<CacheInvalidationEvent.Type> dirtyTypes = EnumSet.noneOf(CacheInvalidationEvent.Type.class);
+    private final Executor dispatcher;
+
+    private volatile boolean running;
+    private volatile Connection connection;
+
+    @Autowired
+    public CacheInvalidationBus(JdbcTemplate jdbcTemplate,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${callform.cache.invalidation.enabled:true}") boolean enabled,
+                                @Value("${spring.datasource.url}") String url,
+                                @Value("${spring.datasource.username:}") String username,
+                                @Value("${spring.datasource.password:}") String password,
+                                @Value("${callform.cache.invalidation.poll-timeout-ms:10000}") int pollTimeoutMs,
+                                @Value("${callform.cache.invalidation.reconnect-delay-ms:5000}") long reconnectDelayMs) {
+        this(jdbcTemplate, eventPublisher, enabled, url, username, password, pollTimeoutMs, reconnectDelayMs,
+                Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "cache-invalidation-dispatcher");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    CacheInvalidationBus(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher, boolean enabled,
+                         String url, String username, String password, int pollTimeoutMs, long reconnectDelayMs,
+                         Executor dispatcher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.pollTimeoutMs = pollTimeoutMs;
+        this.reconnectDelayMs = reconnectDelayMs;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Relay a local invalidation to the other nodes as part of the writer's transaction
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void publish(CacheInvalidationEvent event) {
+        if (!enabled || event.remote()) {
+            return;
+        }
+        jdbcTemplate.query(NOTIFY_SQL, (RowCallbackHandler) row -> { }, CHANNEL, nodeId + ":" + event.type());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        Thread listener = new Thread(this::listen, "cache-invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        closeQuietly(connection);
+        if (dispatcher instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void listen() {
+        boolean lostConnection = false;
+        while (running) {
+            try (Connection listening = DriverManager.getConnection(url, username, password);
+                 Statement statement = listening.createStatement()) {
+                connection = listening;
+                statement.execute("LISTEN " + CHANNEL);
+                log.info("Listening for cache invalidations on {} as node {}", CHANNEL, nodeId);
+                if (lostConnection) {
+                    onReconnected();
+                }
+
+                PGConnection pgConnection = listening.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMs);
+                    if (notifications == null || notifications.length == 0) {
+                        // A dead peer is only noticed on a round trip, so probe while idle
+                        statement.execute("SELECT 1");
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        onNotification(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                lostConnection = true;
+                log.warn("Cache invalidation listener disconnected ({}); reconnecting in {} ms",
+                        e.getMessage(), reconnectDelayMs);
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            } finally {
+                connection = null;
+            }
+        }
+    }
+
+    /**
+     * Handle one notification payload ("node:TYPE"); our own are skipped, the writer has already
+     * updated this node's caches
+     */
+    void onNotification(String payload) {
+        int separator = payload.indexOf(':');
+        if (separator < 0 || payload.startsWith(nodeId + ":")) {
+            return;
+        }
+        CacheInvalidationEvent.Type type;
+        try {
+            type = CacheInvalidationEvent.Type.valueOf(payload.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            // Sent by a newer node during a rolling deploy
+            log.debug("Ignoring unknown cache invalidation {}", payload);
+            return;
+        }
+        scheduleDispatch(EnumSet.of(type));
+    }
+
+    /**
+     * Reload every cache: invalidations sent while the listener was disconnected never arrive
+     */
+    void onReconnected() {
+        log.warn("Cache invalidation listener reconnected; reloading all caches");
+        scheduleDispatch(EnumSet.allOf(CacheInvalidationEvent.Type.class));
+    }
+
+    String nodeId() {
+        return nodeId;
+    }
+
+    private void scheduleDispatch(Collection<CacheInvalidationEvent.Type> types) {
+        boolean wasIdle;
+        synchronized (dirtyTypes) {
+            wasIdle = dirtyTypes.isEmpty();
+            dirtyTypes.addAll(types);
+        }
+        if (wasIdle) {
+            dispatcher.execute(this::dispatchDirtyTypes);
+        }
+    }
+
+    private void dispatchDirtyTypes() {
+        while (true) {
+            CacheInvalidationEvent.Type type;
+            synchronized (dirtyTypes) {
+                if (dirtyTypes.isEmpty()) {
+                    return;
+                }
+                type = dirtyTypes.iterator().next();
+                dirtyTypes.remove(type);
+            }
+            try {
+                eventPublisher.publishEvent(new CacheInvalidationEvent(type, true));
+            } catch (RuntimeException e) {
+                log.error("Failed to apply remote cache invalidation {}", type, e);
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Failed to close cache invalidation listener connection", e);
+        }
+    }
+}
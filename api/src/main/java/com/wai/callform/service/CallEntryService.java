@@ -6,11 +6,15 @@ import com.wai.callform.dto.UpdateCallRequest;
 import com.wai.callform.entity.CallEntry;
 import com.wai.callform.entity.TaskEntity;
 import com.wai.callform.entity.SubjectEntity;
+import com.wai.callform.event.CacheInvalidationEvent;
+import com.wai.callform.event.CallActivityEvent;
+import com.wai.callform.event.PendingPbxCallsEvent;
 import com.wai.callform.repository.CallEntryRepository;
 import com.wai.callform.repository.TaskEntityRepository;
 import com.wai.callform.repository.SubjectEntityRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -18,6 +22,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -31,6 +36,8 @@ public class CallEntryService {
     private final TaskEntityRepository taskEntityRepository;
     private final SubjectEntityRepository subjectEntityRepository;
     private final TaskSubjectService taskSubjectService;
+    private final CallerHistoryIndex callerHistoryIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Start a new call for the specified user
@@ -52,6 +59,8 @@ public class CallEntryService {
 
         CallEntry savedCall = callEntryRepository.save(callEntry);
         log.info("Created new call entry with ID: {}", savedCall.getId());
+        eventPublisher.publishEvent(new CallActivityEvent(savedCall.getDatatechEmail(), CallActivityEvent.Type.STARTED));
+        eventPublisher.publishEvent(new CacheInvalidationEvent(CacheInvalidationEvent.Type.CALL_ACTIVITY));
 
         return mapToDto(savedCall);
     }
@@ -75,6 +84,8 @@ public class CallEntryService {
 
         log.info("Ended call ID: {}, duration: {} minutes",
                 savedCall.getId(), savedCall.getCallDurationMinutes());
+        eventPublisher.publishEvent(new CallActivityEvent(savedCall.getDatatechEmail(), CallActivityEvent.Type.ENDED));
+        eventPublisher.publishEvent(new CacheInvalidationEvent(CacheInvalidationEvent.Type.CALL_ACTIVITY));
 
         return mapToDto(savedCall);
     }
@@ -88,6 +99,8 @@ public class CallEntryService {
 
         CallEntry callEntry = callEntryRepository.findById(callId)
                 .orElseThrow(() -> new IllegalArgumentException("Call not found"));
+        TaskEntity previousTask = callEntry.getTask();
+        SubjectEntity previousSubject = callEntry.getSubject();
 
         // Update boolean fields
         if (request.getIsInbound() != null) {
@@ -139,6 +152,21 @@ public class CallEntryService {
         CallEntry savedCall = callEntryRepository.save(callEntry);
         log.info("Updated call ID: {}", savedCall.getId());
 
+        callerHistoryIndex.recordReclassification(savedCall.getPhoneNumber(),
+                previousTask, previousSubject, savedCall.getTask(), savedCall.getSubject());
+
+        // A PBX call leaves the pending backlog once it has a task (and rejoins it if the task is cleared)
+        if (Boolean.TRUE.equals(savedCall.getIsPbxOriginated()) && (previousTask == null) != (savedCall.getTask() == null)) {
+            eventPublisher.publishEvent(new PendingPbxCallsEvent(
+                    Map.of(savedCall.getDatatechEmail(), savedCall.getTask() != null ? -1 : 1)));
+            eventPublisher.publishEvent(new CacheInvalidationEvent(CacheInvalidationEvent.Type.PENDING_BACKLOG));
+        }
+        // Edited start/end times can open or close a call in progress
+        if (request.getStartTime() != null || request.getEndTime() != null) {
+            eventPublisher.publishEvent(new CallActivityEvent(savedCall.getDatatechEmail(), CallActivityEvent.Type.EDITED));
+            eventPublisher.publishEvent(new CacheInvalidationEvent(CacheInvalidationEvent.Type.CALL_ACTIVITY));
+        }
+
         return mapToDto(savedCall);
     }
 
@@ -258,7 +286,7 @@ public class CallEntryService {
     /**
      * Map entity to DTO
      */
-    private CallEntryDto mapToDto(CallEntry entity) {
+    public CallEntryDto mapToDto(CallEntry entity) {
         CallEntryDto dto = new CallEntryDto();
         dto.setId(entity.getId());
         dto.setDatatechName(entity.getDatatechName());
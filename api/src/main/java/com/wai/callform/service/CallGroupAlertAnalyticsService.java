@@ -0,0 +1,64 @@
+package com.wai.callform.service;
+
+import com.wai.callform.dto.CallGroupAlertAnalytics;
+import com.wai.callform.repository.CallGroupAlertStatsJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Alert frequency and time-to-resolve per call group, aggregated in the database
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class CallGroupAlertAnalyticsService {
+
+    static final Duration MAX_WINDOW = Duration.ofDays(366);
+    static final long MIN_BUCKET_SECONDS = 60;
+    static final int MAX_BUCKETS = 10_000;
+
+    private final CallGroupAlertStatsJdbcRepository statsRepository;
+
+    /**
+     * Per-group counts, mean/p50/p90 time-to-resolve and bucketed frequency for alerts created in [from, to)
+     */
+    public CallGroupAlertAnalytics getAnalytics(OffsetDateTime from, OffsetDateTime to, long bucketSeconds,
+                                                String callGroupId) {
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("Window end must be after start");
+        }
+        if (Duration.between(from, to).compareTo(MAX_WINDOW) > 0) {
+            throw new IllegalArgumentException("Window must not exceed " + MAX_WINDOW.toDays() + " days");
+        }
+        if (bucketSeconds < MIN_BUCKET_SECONDS) {
+            throw new IllegalArgumentException("Bucket size must be at least " + MIN_BUCKET_SECONDS + " seconds");
+        }
+        if (Duration.between(from, to).toSeconds() / bucketSeconds >= MAX_BUCKETS) {
+            throw new IllegalArgumentException("Window and bucket size give more than " + MAX_BUCKETS + " buckets");
+        }
+
+        List<CallGroupAlertAnalytics.GroupStats> groups = new ArrayList<>();
+        statsRepository.forEachGroupStats(from, to, bucketSeconds, callGroupId, row -> {
+            if (row.bucket() == null) {
+                // Group totals arrive first, then that group's buckets
+                groups.add(new CallGroupAlertAnalytics.GroupStats(row.callGroupId(), row.callGroupName(),
+                        row.alertCount(), row.resolvedCount(), row.meanSecondsToResolve(),
+                        row.p50SecondsToResolve(), row.p90SecondsToResolve(), new ArrayList<>()));
+            } else {
+                groups.get(groups.size() - 1).getBuckets()
+                        .add(new CallGroupAlertAnalytics.Bucket(row.bucket(), row.alertCount()));
+            }
+        });
+
+        log.debug("Alert analytics {} - {}: {} call groups", from, to, groups.size());
+        return new CallGroupAlertAnalytics(from, to, bucketSeconds, groups);
+    }
+}
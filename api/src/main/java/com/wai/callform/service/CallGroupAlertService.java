@@ -2,14 +2,30 @@ package com.wai.callform.service;
 
 import com.wai.callform.dto.CallGroupAlertDto;
 import com.wai.callform.entity.CallGroupAlert;
+import com.wai.callform.event.CacheInvalidationEvent;
+import com.wai.callform.event.CallGroupAlertEvent;
+import com.wai.callform.repository.CallGroupAlertJdbcRepository;
 import com.wai.callform.repository.CallGroupAlertRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -17,36 +33,107 @@ import java.util.UUID;
 @Transactional(readOnly = true)
 public class CallGroupAlertService {
 
+    private static final int MAX_RAISE_ATTEMPTS = 2;
+
     private final CallGroupAlertRepository alertRepository;
+    private final CallGroupAlertJdbcRepository alertJdbcRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Active alert per call group, so the sideloader's repeated checks for a group that is already
+    // alerting are answered without a query. Updated after commit; reloaded when another API node
+    // raises or resolves one (CacheInvalidationBus) and periodically as a fallback.
+    private final Map<String, CallGroupAlertDto> activeByGroup = new ConcurrentHashMap<>();
+
+    /**
+     * Reload the active alert set from the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${callform.alerts.active-refresh-interval-ms:60000}",
+            initialDelayString = "${callform.alerts.active-refresh-interval-ms:60000}")
+    public void refreshActiveAlerts() {
+        Map<String, CallGroupAlertDto> active = alertRepository.findByIsActiveTrue()
+                .stream()
+                .map(this::mapToDto)
+                .collect(Collectors.toMap(CallGroupAlertDto::getCallGroupId, Function.identity(),
+                        (first, second) -> first));
+        activeByGroup.values().removeIf(cached -> {
+            CallGroupAlertDto current = active.get(cached.getCallGroupId());
+            if (current != null && current.getId().equals(cached.getId())) {
+                return false;
+            }
+            // Resolved (or replaced) on another node
+            cached.setIsActive(false);
+            eventPublisher.publishEvent(new CallGroupAlertEvent(CallGroupAlertEvent.Type.RESOLVED, cached, false));
+            return true;
+        });
+        active.values().forEach(alert -> cacheRaised(alert, false));
+        log.debug("Active call group alerts refreshed: {} groups", active.size());
+    }
+
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (event.remote() && event.type() == CacheInvalidationEvent.Type.CALL_GROUP_ALERTS) {
+            refreshActiveAlerts();
+        }
+    }
 
     /**
      * Create or update an alert for a call group
-     * If an active alert already exists for the group, it won't create a duplicate
+     * If an active alert already exists for the group, it won't create a duplicate. Repeat checks are
+     * answered from the active set; one resolved on another node drops out of it when that node's
+     * invalidation arrives, or at the next periodic refresh.
      */
     @Transactional
     public CallGroupAlertDto createOrUpdateAlert(CallGroupAlertDto alertDto) {
-        log.info("Creating/updating alert for call group: {}", alertDto.getCallGroupId());
+        String callGroupId = alertDto.getCallGroupId();
+        CallGroupAlertDto cached = activeByGroup.get(callGroupId);
+        if (cached != null) {
+            log.debug("Active alert already exists for call group: {}", callGroupId);
+            return cached;
+        }
 
-        // Check if an active alert already exists for this call group
-        var existingAlert = alertRepository.findByCallGroupIdAndIsActiveTrue(alertDto.getCallGroupId());
+        log.info("Creating alert for call group: {}", callGroupId);
+        for (int attempt = 1; attempt <= MAX_RAISE_ATTEMPTS; attempt++) {
+            CallGroupAlert alert = new CallGroupAlert();
+            alert.setId(UUID.randomUUID());
+            alert.setCallGroupId(callGroupId);
+            alert.setCallGroupName(alertDto.getCallGroupName());
+            alert.setAlertType(alertDto.getAlertType());
+            alert.setAlertMessage(alertDto.getAlertMessage());
+            alert.setIsActive(true);
+            alert.setCreatedAt(OffsetDateTime.now());
 
-        if (existingAlert.isPresent()) {
-            log.info("Active alert already exists for call group: {}", alertDto.getCallGroupId());
-            return mapToDto(existingAlert.get());
-        }
+            // The unique partial index decides atomically whether this check raises the alert
+            if (alertJdbcRepository.insertActiveAlert(alert)) {
+                log.info("Created new alert: id={}, callGroupId={}", alert.getId(), callGroupId);
+                eventPublisher.publishEvent(new CacheInvalidationEvent(CacheInvalidationEvent.Type.CALL_GROUP_ALERTS));
+                return remember(mapToDto(alert));
+            }
 
-        // Create new alert
-        CallGroupAlert alert = new CallGroupAlert();
-        alert.setCallGroupId(alertDto.getCallGroupId());
-        alert.setCallGroupName(alertDto.getCallGroupName());
-        alert.setAlertType(alertDto.getAlertType());
-        alert.setAlertMessage(alertDto.getAlertMessage());
-        alert.setIsActive(true);
+            // Another check (or node) raised it first; it may also have been resolved since
+            Optional<CallGroupAlert> existing = alertRepository.findByCallGroupIdAndIsActiveTrue(callGroupId);
+            if (existing.isPresent()) {
+                log.info("Active alert already exists for call group: {}", callGroupId);
+                return remember(mapToDto(existing.get()));
+            }
+        }
+        throw new IllegalStateException("Active alert for call group kept changing: " + callGroupId);
+    }
 
-        CallGroupAlert savedAlert = alertRepository.save(alert);
-        log.info("Created new alert: id={}, callGroupId={}", savedAlert.getId(), savedAlert.getCallGroupId());
+    /**
+     * Active alerts as currently cached in memory, oldest first (no query)
+     */
+    public List<CallGroupAlertDto> getCachedActiveAlerts() {
+        return activeByGroup.values().stream()
+                .sorted(Comparator.comparing(CallGroupAlertDto::getCreatedAt))
+                .toList();
+    }
 
-        return mapToDto(savedAlert);
+    /**
+     * A call group's active alert as currently cached in memory (no query)
+     */
+    public Optional<CallGroupAlertDto> getCachedActiveAlert(String callGroupId) {
+        return Optional.ofNullable(activeByGroup.get(callGroupId));
     }
 
     /**
@@ -71,6 +158,18 @@ public class CallGroupAlertService {
                 .toList();
     }
 
+    /**
+     * Alerts created in [from, to), optionally for one call group, newest first
+     */
+    public Page<CallGroupAlertDto> getAlertHistory(String callGroupId, OffsetDateTime from, OffsetDateTime to,
+                                                   Pageable pageable) {
+        log.debug("Fetching alert history for call group {}: {} - {}", callGroupId, from, to);
+        Page<CallGroupAlert> alerts = callGroupId != null
+                ? alertRepository.findHistoryForGroup(callGroupId, from, to, pageable)
+                : alertRepository.findHistory(from, to, pageable);
+        return alerts.map(this::mapToDto);
+    }
+
     /**
      * Resolve an alert
      */
@@ -87,6 +186,7 @@ public class CallGroupAlertService {
 
         alert.resolve();
         CallGroupAlert savedAlert = alertRepository.save(alert);
+        forget(savedAlert);
 
         log.info("Alert resolved: id={}", savedAlert.getId());
         return mapToDto(savedAlert);
@@ -103,17 +203,11 @@ public class CallGroupAlertService {
         activeAlert.ifPresent(alert -> {
             alert.resolve();
             alertRepository.save(alert);
+            forget(alert);
             log.info("Resolved alert for call group: {}", callGroupId);
         });
     }
 
-    /**
-     * Check if there's an active alert for a call group
-     */
-    public boolean hasActiveAlert(String callGroupId) {
-        return alertRepository.existsActiveAlertForCallGroup(callGroupId);
-    }
-
     /**
      * Get alerts by type
      */
@@ -125,6 +219,41 @@ public class CallGroupAlertService {
                 .toList();
     }
 
+    /**
+     * Cache a group's active alert once the surrounding transaction commits, announcing it if new
+     */
+    private CallGroupAlertDto remember(CallGroupAlertDto alert) {
+        TransactionSupport.afterCommit(() -> cacheRaised(alert, true));
+        return alert;
+    }
+
+    private void cacheRaised(CallGroupAlertDto alert, boolean local) {
+        CallGroupAlertDto previous = activeByGroup.put(alert.getCallGroupId(), alert);
+        if (previous != null && previous.getId().equals(alert.getId())) {
+            return;
+        }
+        if (previous != null) {
+            // Resolved on another node before this node's cache caught up
+            previous.setIsActive(false);
+            eventPublisher.publishEvent(new CallGroupAlertEvent(CallGroupAlertEvent.Type.RESOLVED, previous, false));
+        }
+        eventPublisher.publishEvent(new CallGroupAlertEvent(CallGroupAlertEvent.Type.RAISED, alert, local));
+    }
+
+    /**
+     * Drop a group's cached alert once the resolving transaction commits (unless a newer one replaced it)
+     * and announce the resolution
+     */
+    private void forget(CallGroupAlert resolved) {
+        CallGroupAlertDto dto = mapToDto(resolved);
+        eventPublisher.publishEvent(new CacheInvalidationEvent(CacheInvalidationEvent.Type.CALL_GROUP_ALERTS));
+        TransactionSupport.afterCommit(() -> {
+            activeByGroup.computeIfPresent(resolved.getCallGroupId(),
+                    (groupId, cached) -> resolved.getId().equals(cached.getId()) ? null : cached);
+            eventPublisher.publishEvent(new CallGroupAlertEvent(CallGroupAlertEvent.Type.RESOLVED, dto));
+        });
+    }
+
     /**
      * Map entity to DTO
      */
@@ -0,0 +1,346 @@
+package com.wai.callform.service;
+
+import com.wai.callform.dto.CallGroupAlertDto;
+import com.wai.callform.dto.CallGroupDto;
+import com.wai.callform.entity.CallGroup;
+import com.wai.callform.event.CacheInvalidationEvent;
+import com.wai.callform.event.CallActivityEvent;
+import com.wai.callform.repository.CallEntryRepository;
+import com.wai.callform.repository.CallGroupRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Server-side call group coverage.
+ * Holds each monitored group's members and which techs are busy on a call in progress, updated by
+ * CallActivityEvents as calls start and end. A group is uncovered when, during business hours, none
+ * of its members is free; the affected groups are re-evaluated on every change and a
+ * NO_AVAILABLE_USERS alert is raised or resolved within moments instead of on the next cron poll.
+ * Calls in progress and membership are re-read when another node announces a change over the
+ * CacheInvalidationBus, and periodically as a fallback.
+ * Off by default, like the sideloader's server_side_coverage switch: with both on, the sideloader's
+ * NO_ASSIGNED_USERS alert would hold the group's single active alert slot and this engine could
+ * neither raise its own nor resolve that one.
+ */
+@Component
+@Slf4j
+public class CallGroupCoverageEngine {
+
+    static final String ALERT_TYPE = "NO_AVAILABLE_USERS";
+
+    private final CallGroupRepository callGroupRepository;
+    private final CallEntryRepository callEntryRepository;
+    private final CallGroupAlertService callGroupAlertService;
+    private final boolean enabled;
+    private final ZoneId timezone;
+    private final Set<DayOfWeek> businessDays;
+    private final LocalTime businessStart;
+    private final LocalTime businessEnd;
+    private final Duration maxCallAge;
+    private final Clock clock;
+
+    // Guarded by this
+    private Map<String, GroupState> groups = Map.of();
+    private Map<String, Set<String>> groupsByMember = Map.of();
+    private final Set<String> busy = new HashSet<>();
+    private boolean businessHoursOpen;
+
+    // Groups waiting for the evaluator; one worker so alert writes for a group never interleave
+    private final Set<String> dirtyGroups = new LinkedHashSet<>();
+    private final Executor evaluator;
+
+    @Autowired
+    public CallGroupCoverageEngine(CallGroupRepository callGroupRepository,
+                                   CallEntryRepository callEntryRepository,
+                                   CallGroupAlertService callGroupAlertService,
+                                   @Value("${callform.coverage.enabled:false}") boolean enabled,
+                                   @Value("${callform.coverage.timezone:America/Anchorage}") String timezone,
+                                   @Value("${callform.coverage.business-days:MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY}") String businessDays,
+                                   @Value("${callform.coverage.business-start:08:00}") String businessStart,
+                                   @Value("${callform.coverage.business-end:17:00}") String businessEnd,
+                                   @Value("${callform.coverage.max-call-hours:4}") long maxCallHours) {
+        this(callGroupRepository, callEntryRepository, callGroupAlertService, enabled, ZoneId.of(timezone),
+                parseDays(businessDays), LocalTime.parse(businessStart), LocalTime.parse(businessEnd),
+                Duration.ofHours(maxCallHours), Clock.systemUTC(), Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "coverage-evaluator");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    CallGroupCoverageEngine(CallGroupRepository callGroupRepository,
+                            CallEntryRepository callEntryRepository,
+                            CallGroupAlertService callGroupAlertService,
+                            boolean enabled, ZoneId timezone, Set<DayOfWeek> businessDays,
+                            LocalTime businessStart, LocalTime businessEnd, Duration maxCallAge, Clock clock,
+                            Executor evaluator) {
+        this.callGroupRepository = callGroupRepository;
+        this.callEntryRepository = callEntryRepository;
+        this.callGroupAlertService = callGroupAlertService;
+        this.enabled = enabled;
+        this.timezone = timezone;
+        this.businessDays = businessDays;
+        this.businessStart = businessStart;
+        this.businessEnd = businessEnd;
+        this.maxCallAge = maxCallAge;
+        this.clock = clock;
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Reload groups, members and calls in progress, then re-evaluate every group
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${callform.coverage.reload-interval-ms:300000}",
+            initialDelayString = "${callform.coverage.reload-interval-ms:300000}")
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+        List<CallGroup> loaded = callGroupRepository.findAllWithMembers();
+        List<String> onCall = callEntryRepository.findEmailsWithCallsInProgressSince(
+                OffsetDateTime.now(clock).minus(maxCallAge));
+
+        Map<String, GroupState> newGroups = new HashMap<>();
+        Map<String, Set<String>> newByMember = new HashMap<>();
+        for (CallGroup group : loaded) {
+            Set<String> members = group.getMemberEmails().stream()
+                    .map(CallGroupCoverageEngine::normalize)
+                    .collect(Collectors.toUnmodifiableSet());
+            newGroups.put(group.getId(), new GroupState(group.getName(),
+                    Boolean.TRUE.equals(group.getIsMonitored()), members));
+            for (String member : members) {
+                newByMember.computeIfAbsent(member, key -> new HashSet<>()).add(group.getId());
+            }
+        }
+
+        Set<String> evaluate = new HashSet<>(newGroups.keySet());
+        synchronized (this) {
+            // Deleted groups are evaluated once more so their alerts get resolved
+            evaluate.addAll(groups.keySet());
+            groups = newGroups;
+            groupsByMember = newByMember;
+            busy.clear();
+            onCall.stream().map(CallGroupCoverageEngine::normalize).forEach(busy::add);
+            businessHoursOpen = isBusinessHours();
+        }
+        log.debug("Coverage engine reloaded: {} groups, {} techs on calls", newGroups.size(), onCall.size());
+        scheduleEvaluation(evaluate);
+    }
+
+    /**
+     * Re-read which techs are on a call, re-evaluating only the groups of techs whose state changed
+     */
+    public void refreshBusy() {
+        if (!enabled) {
+            return;
+        }
+        List<String> onCall = callEntryRepository.findEmailsWithCallsInProgressSince(
+                OffsetDateTime.now(clock).minus(maxCallAge));
+        Set<String> nowBusy = onCall.stream().map(CallGroupCoverageEngine::normalize).collect(Collectors.toSet());
+        Set<String> affected = new HashSet<>();
+        synchronized (this) {
+            Set<String> changed = new HashSet<>(busy);
+            changed.addAll(nowBusy);
+            changed.removeIf(email -> busy.contains(email) == nowBusy.contains(email));
+            busy.clear();
+            busy.addAll(nowBusy);
+            changed.forEach(email -> affected.addAll(groupsByMember.getOrDefault(email, Set.of())));
+        }
+        scheduleEvaluation(affected);
+    }
+
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (!event.remote()) {
+            return;
+        }
+        switch (event.type()) {
+            case CALL_ACTIVITY -> refreshBusy();
+            case CALL_GROUPS -> reload();
+            default -> {
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCallActivity(CallActivityEvent event) {
+        if (!enabled || event.datatechEmail() == null) {
+            return;
+        }
+        if (event.type() == CallActivityEvent.Type.EDITED) {
+            refreshBusy();
+            return;
+        }
+        String email = normalize(event.datatechEmail());
+        Set<String> affected;
+        synchronized (this) {
+            boolean changed = event.type() == CallActivityEvent.Type.STARTED ? busy.add(email) : busy.remove(email);
+            affected = changed ? groupsByMember.getOrDefault(email, Set.of()) : Set.of();
+        }
+        scheduleEvaluation(affected);
+    }
+
+    /**
+     * Re-evaluate every group when business hours open or close (in-memory check, no queries)
+     */
+    @Scheduled(fixedDelayString = "${callform.coverage.clock-check-interval-ms:30000}")
+    public void checkBusinessHours() {
+        if (!enabled) {
+            return;
+        }
+        Set<String> all;
+        synchronized (this) {
+            boolean open = isBusinessHours();
+            if (open == businessHoursOpen) {
+                return;
+            }
+            businessHoursOpen = open;
+            all = groups.keySet();
+        }
+        log.info("Business hours {}; re-evaluating call group coverage", businessHoursOpen ? "opened" : "closed");
+        scheduleEvaluation(all);
+    }
+
+    /**
+     * Current coverage of every configured group
+     */
+    public synchronized List<CallGroupDto> getCoverage() {
+        List<CallGroupDto> coverage = new ArrayList<>();
+        groups.forEach((id, group) -> coverage.add(new CallGroupDto(id, group.name(), group.monitored(),
+                group.members(), availableMembers(group), isCovered(group))));
+        coverage.sort((a, b) -> a.getId().compareTo(b.getId()));
+        return coverage;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (evaluator instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void scheduleEvaluation(Collection<String> groupIds) {
+        if (groupIds.isEmpty()) {
+            return;
+        }
+        boolean wasIdle;
+        synchronized (dirtyGroups) {
+            wasIdle = dirtyGroups.isEmpty();
+            dirtyGroups.addAll(groupIds);
+        }
+        if (wasIdle) {
+            evaluator.execute(this::evaluateDirtyGroups);
+        }
+    }
+
+    private void evaluateDirtyGroups() {
+        while (true) {
+            String groupId;
+            synchronized (dirtyGroups) {
+                if (dirtyGroups.isEmpty()) {
+                    return;
+                }
+                groupId = dirtyGroups.iterator().next();
+                dirtyGroups.remove(groupId);
+            }
+            try {
+                evaluate(groupId);
+            } catch (RuntimeException e) {
+                log.error("Failed to evaluate coverage for call group {}", groupId, e);
+            }
+        }
+    }
+
+    private void evaluate(String groupId) {
+        GroupState group;
+        boolean covered;
+        synchronized (this) {
+            group = groups.get(groupId);
+            covered = group == null || isCovered(group);
+        }
+
+        Optional<CallGroupAlertDto> active = callGroupAlertService.getCachedActiveAlert(groupId);
+        if (!covered && active.isEmpty()) {
+            log.warn("Call group {} has no available members during business hours", groupId);
+            CallGroupAlertDto alert = new CallGroupAlertDto();
+            alert.setCallGroupId(groupId);
+            alert.setCallGroupName(group.name());
+            alert.setAlertType(ALERT_TYPE);
+            alert.setAlertMessage("Call group \"" + group.name() + "\" has no available users during business hours");
+            callGroupAlertService.createOrUpdateAlert(alert);
+        } else if (covered && active.isPresent() && ALERT_TYPE.equals(active.get().getAlertType())) {
+            log.info("Call group {} is covered again, resolving alert", groupId);
+            callGroupAlertService.resolveAlertsForCallGroup(groupId);
+        }
+    }
+
+    // Callers hold the monitor
+    private boolean isCovered(GroupState group) {
+        return !group.monitored() || !businessHoursOpen || availableMembers(group) > 0;
+    }
+
+    private int availableMembers(GroupState group) {
+        int available = 0;
+        for (String member : group.members()) {
+            if (!busy.contains(member)) {
+                available++;
+            }
+        }
+        return available;
+    }
+
+    private boolean isBusinessHours() {
+        ZonedDateTime now = ZonedDateTime.now(clock.withZone(timezone));
+        LocalTime time = now.toLocalTime();
+        return businessDays.contains(now.getDayOfWeek()) && !time.isBefore(businessStart) && time.isBefore(businessEnd);
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<DayOfWeek> parseDays(String days) {
+        Set<DayOfWeek> parsed = EnumSet.noneOf(DayOfWeek.class);
+        Arrays.stream(days.split(","))
+                .map(String::trim)
+                .filter(day -> !day.isEmpty())
+                .map(day -> DayOfWeek.valueOf(day.toUpperCase(Locale.ROOT)))
+                .forEach(parsed::add);
+        return parsed;
+    }
+
+    private record GroupState(String name, boolean monitored, Set<String> members) {
+    }
+}
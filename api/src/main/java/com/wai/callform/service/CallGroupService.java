@@ -0,0 +1,63 @@
+package com.wai.callform.service;
+
+import com.wai.callform.dto.CallGroupDto;
+import com.wai.callform.entity.CallGroup;
+import com.wai.callform.event.CacheInvalidationEvent;
+import com.wai.callform.repository.CallGroupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Call groups and their members (admin maintenance); coverage is evaluated by CallGroupCoverageEngine
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class CallGroupService {
+
+    private final CallGroupRepository callGroupRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Create or replace a call group and its member list
+     */
+    @Transactional
+    public void saveGroup(CallGroupDto dto) {
+        CallGroup group = callGroupRepository.findById(dto.getId()).orElseGet(() -> {
+            CallGroup created = new CallGroup();
+            created.setId(dto.getId());
+            return created;
+        });
+        group.setName(dto.getName());
+        group.setIsMonitored(dto.getIsMonitored() == null || dto.getIsMonitored());
+        group.getMemberEmails().clear();
+        group.getMemberEmails().addAll(dto.getMemberEmails().stream()
+                .filter(email -> email != null && !email.isBlank())
+                .map(email -> email.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet()));
+        callGroupRepository.save(group);
+        eventPublisher.publishEvent(new CacheInvalidationEvent(CacheInvalidationEvent.Type.CALL_GROUPS));
+        log.info("Saved call group {} with {} members", group.getId(), group.getMemberEmails().size());
+    }
+
+    /**
+     * Delete a call group; returns false if it did not exist
+     */
+    @Transactional
+    public boolean deleteGroup(String id) {
+        if (!callGroupRepository.existsById(id)) {
+            return false;
+        }
+        callGroupRepository.deleteById(id);
+        eventPublisher.publishEvent(new CacheInvalidationEvent(CacheInvalidationEvent.Type.CALL_GROUPS));
+        log.info("Deleted call group {}", id);
+        return true;
+    }
+}
@@ -0,0 +1,103 @@
+package com.wai.callform.service;
+
+import com.wai.callform.dto.CallSearchPage;
+import com.wai.callform.entity.CallEntry;
+import com.wai.callform.repository.CallEntryRepository;
+import com.wai.callform.repository.CallSearchJdbcRepository;
+import com.wai.callform.repository.CallSearchJdbcRepository.Hit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text search over call comments with keyset pagination.
+ * Ranking scores every matching call before the first page can be returned, so results are ranked
+ * only when the search has a date window of at most MAX_RANKED_WINDOW; broader searches come back
+ * newest first, which needs only as many matches as fill the page. The cursor handed to clients is
+ * the (rank, start time, id) of the last hit on a page.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class CallSearchService {
+
+    static final int MAX_PAGE_SIZE = 100;
+    static final int MAX_QUERY_LENGTH = 200;
+    static final Duration MAX_RANKED_WINDOW = Duration.ofDays(31);
+
+    private final CallSearchJdbcRepository searchRepository;
+    private final CallEntryRepository callEntryRepository;
+    private final CallEntryService callEntryService;
+
+    /**
+     * Calls whose comments match query, optionally for one tech and within [startDate, endDate];
+     * best match first when the window is bounded and at most MAX_RANKED_WINDOW, otherwise newest first
+     *
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @throws IllegalArgumentException for a blank or overlong query, a reversed date range or a bad cursor
+     */
+    public CallSearchPage searchComments(String query, String userEmail, OffsetDateTime startDate,
+                                         OffsetDateTime endDate, String cursor, int size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search text is required");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Search text must not exceed " + MAX_QUERY_LENGTH + " characters");
+        }
+        if (startDate != null && endDate != null && endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("endDate must not be before startDate");
+        }
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        Hit after = cursor != null ? decodeCursor(cursor) : null;
+        boolean ranked = startDate != null && endDate != null
+                && Duration.between(startDate, endDate).compareTo(MAX_RANKED_WINDOW) <= 0;
+
+        // One extra row tells whether there is a next page
+        List<Hit> hits = searchRepository.search(query.trim(), userEmail, startDate, endDate, after, limit + 1, ranked);
+        boolean hasMore = hits.size() > limit;
+        List<Hit> page = hasMore ? hits.subList(0, limit) : hits;
+        log.debug("Comment search \"{}\" returned {} hits (ranked: {}, more: {})", query, page.size(), ranked, hasMore);
+
+        Map<UUID, CallEntry> calls = page.isEmpty() ? Map.of()
+                : callEntryRepository.findAllWithTaskAndSubjectByIdIn(page.stream().map(Hit::id).toList()).stream()
+                        .collect(Collectors.toMap(CallEntry::getId, Function.identity()));
+        List<CallSearchPage.Hit> results = page.stream()
+                // A call deleted between the two queries is skipped
+                .filter(hit -> calls.containsKey(hit.id()))
+                .map(hit -> new CallSearchPage.Hit(callEntryService.mapToDto(calls.get(hit.id())), hit.rank()))
+                .toList();
+        return new CallSearchPage(results, hasMore ? encodeCursor(page.get(page.size() - 1)) : null, ranked);
+    }
+
+    static String encodeCursor(Hit hit) {
+        String position = hit.rank() + "|" + hit.startTime().toInstant() + "|" + hit.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Hit decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (position.length != 3) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new Hit(UUID.fromString(position[2]), Float.parseFloat(position[0]),
+                    OffsetDateTime.ofInstant(Instant.parse(position[1]), ZoneOffset.UTC));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid search cursor", e);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.wai.callform.service;
+
+import com.wai.callform.dto.ClassificationSuggestion;
+import com.wai.callform.dto.PhoneClassificationCountView;
+import com.wai.callform.entity.SubjectEntity;
+import com.wai.callform.entity.TaskEntity;
+import com.wai.callform.repository.CallEntryJdbcRepository;
+import com.wai.callform.repository.CallEntryJdbcRepository.TransactionSnapshot;
+import com.wai.callform.repository.CallEntryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory frequency index of phone number -> (task, subject) classification counts.
+ * Seeded with one aggregate query at startup, then kept current as CallEntryService classifies
+ * calls, so pending PBX calls can carry suggestions without scanning call history per request.
+ * A periodic rebuild folds in classifications made on other API nodes. Changes committed while a
+ * rebuild is loading are buffered with their transaction id and replayed onto the new index unless
+ * the rebuild's snapshot already saw them, so none are lost or counted twice.
+ */
+@Component
+@Slf4j
+public class CallerHistoryIndex {
+
+    private final CallEntryRepository callEntryRepository;
+    private final CallEntryJdbcRepository callEntryJdbcRepository;
+    private final TransactionTemplate snapshotTransaction;
+    private final int maxSuggestions;
+
+    private volatile Map<String, PhoneHistory> byPhone = new ConcurrentHashMap<>();
+    // Orders changes against the swap of a rebuilt index
+    private final Object lock = new Object();
+    // Changes applied while a rebuild is loading; null when none is running
+    private List<Change> changesDuringRebuild;
+    // Snapshot the current index was loaded from; changes it already saw are not applied again
+    private TransactionSnapshot loadedSnapshot;
+
+    public CallerHistoryIndex(CallEntryRepository callEntryRepository,
+                              CallEntryJdbcRepository callEntryJdbcRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${callform.suggestions.max-per-call:3}") int maxSuggestions) {
+        this.callEntryRepository = callEntryRepository;
+        this.callEntryJdbcRepository = callEntryJdbcRepository;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTransaction.setReadOnly(true);
+        this.maxSuggestions = maxSuggestions;
+    }
+
+    /**
+     * Rebuild the index from call history
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${callform.suggestions.rebuild-interval-ms:3600000}",
+            initialDelayString = "${callform.suggestions.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        synchronized (lock) {
+            changesDuringRebuild = new ArrayList<>();
+        }
+        try {
+            // One REPEATABLE READ transaction, so the counts are exactly what the snapshot saw
+            Loaded loaded = snapshotTransaction.execute(status -> new Loaded(
+                    callEntryJdbcRepository.currentSnapshot(),
+                    callEntryRepository.countClassificationsByPhoneNumber()));
+
+            Map<String, PhoneHistory> rebuilt = new ConcurrentHashMap<>();
+            for (PhoneClassificationCountView row : loaded.rows()) {
+                String phone = normalizePhone(row.getPhoneNumber());
+                if (phone == null) {
+                    continue;
+                }
+                rebuilt.computeIfAbsent(phone, key -> new PhoneHistory())
+                        .add(new Classification(row.getTaskId(), row.getTaskName(), row.getSubjectId(), row.getSubjectName()),
+                                row.getCallCount());
+            }
+
+            int replayed = 0;
+            synchronized (lock) {
+                for (Change change : changesDuringRebuild) {
+                    if (!change.seenBy(loaded.snapshot())) {
+                        change.applyTo(rebuilt);
+                        replayed++;
+                    }
+                }
+                byPhone = rebuilt;
+                loadedSnapshot = loaded.snapshot();
+            }
+            log.info("Caller history index rebuilt: {} phone numbers, {} concurrent changes replayed",
+                    rebuilt.size(), replayed);
+        } finally {
+            synchronized (lock) {
+                changesDuringRebuild = null;
+            }
+        }
+    }
+
+    /**
+     * Record a call's classification changing from (oldTask, oldSubject) to (newTask, newSubject).
+     * Applied after the surrounding transaction commits so rolled-back updates aren't counted.
+     */
+    public void recordReclassification(String phoneNumber,
+                                       TaskEntity oldTask, SubjectEntity oldSubject,
+                                       TaskEntity newTask, SubjectEntity newSubject) {
+        String phone = normalizePhone(phoneNumber);
+        if (phone == null) {
+            return;
+        }
+        Classification before = Classification.of(oldTask, oldSubject);
+        Classification after = Classification.of(newTask, newSubject);
+        if (Objects.equals(before, after)) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private long transactionId = UNKNOWN_TRANSACTION;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    try {
+                        transactionId = callEntryJdbcRepository.currentTransactionId();
+                    } catch (DataAccessException e) {
+                        // Still counted; a rebuild running concurrently may count it twice
+                        log.warn("Could not read transaction id for caller history change: {}", e.getMessage());
+                    }
+                }
+
+                @Override
+                public void afterCommit() {
+                    apply(new Change(phone, before, after, transactionId));
+                }
+            });
+        } else {
+            apply(new Change(phone, before, after, UNKNOWN_TRANSACTION));
+        }
+    }
+
+    private void apply(Change change) {
+        synchronized (lock) {
+            // A rebuild may already have loaded this commit if it finished before afterCommit ran
+            if (!change.seenBy(loadedSnapshot)) {
+                change.applyTo(byPhone);
+            }
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        }
+    }
+
+    /**
+     * Most frequent classifications for calls from this number, best first
+     */
+    public List<ClassificationSuggestion> suggest(String phoneNumber) {
+        String phone = normalizePhone(phoneNumber);
+        PhoneHistory history = phone != null ? byPhone.get(phone) : null;
+        return history != null ? history.top(maxSuggestions) : List.of();
+    }
+
+    /**
+     * Reduce a phone number to its digits, dropping a leading US country code
+     */
+    static String normalizePhone(String phoneNumber) {
+        if (phoneNumber == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(phoneNumber.length());
+        for (int i = 0; i < phoneNumber.length(); i++) {
+            char c = phoneNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        if (digits.length() == 11 && digits.charAt(0) == '1') {
+            digits.deleteCharAt(0);
+        }
+        return digits.length() > 0 ? digits.toString() : null;
+    }
+
+    private static final long UNKNOWN_TRANSACTION = -1;
+
+    private record Loaded(TransactionSnapshot snapshot, List<PhoneClassificationCountView> rows) {
+    }
+
+    /**
+     * One committed classification change; transactionId is UNKNOWN_TRANSACTION outside a transaction
+     */
+    private record Change(String phone, Classification before, Classification after, long transactionId) {
+
+        boolean seenBy(TransactionSnapshot snapshot) {
+            return snapshot != null && transactionId != UNKNOWN_TRANSACTION && snapshot.isVisible(transactionId);
+        }
+
+        void applyTo(Map<String, PhoneHistory> index) {
+            PhoneHistory history = index.computeIfAbsent(phone, key -> new PhoneHistory());
+            if (before != null) {
+                history.add(before, -1);
+            }
+            if (after != null) {
+                history.add(after, 1);
+            }
+        }
+    }
+
+    private record Classification(UUID taskId, String taskName, UUID subjectId, String subjectName) {
+
+        static Classification of(TaskEntity task, SubjectEntity subject) {
+            if (task == null) {
+                return null;
+            }
+            return new Classification(task.getId(), task.getName(),
+                    subject != null ? subject.getId() : null, subject != null ? subject.getName() : null);
+        }
+
+        // Names are carried for display only; identity is the task/subject pair
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Classification that
+                    && Objects.equals(taskId, that.taskId) && Objects.equals(subjectId, that.subjectId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(taskId, subjectId);
+        }
+    }
+
+    private static final class PhoneHistory {
+
+        private final Map<Classification, Long> counts = new HashMap<>();
+        private long total;
+
+        synchronized void add(Classification classification, long delta) {
+            long updated = counts.getOrDefault(classification, 0L) + delta;
+            if (updated > 0) {
+                // Replace the key so renamed tasks/subjects pick up the latest names
+                counts.remove(classification);
+                counts.put(classification, updated);
+            } else {
+                counts.remove(classification);
+            }
+            total = Math.max(0, total + delta);
+        }
+
+        synchronized List<ClassificationSuggestion> top(int limit) {
+            List<ClassificationSuggestion> suggestions = new ArrayList<>(Math.min(limit, counts.size()));
+            counts.entrySet().stream()
+                    .sorted(Map.Entry.<Classification, Long>comparingByValue().reversed()
+                            .thenComparing(entry -> entry.getKey().taskName(), Comparator.nullsLast(Comparator.naturalOrder())))
+                    .limit(limit)
+                    .forEach(entry -> suggestions.add(new ClassificationSuggestion(
+                            entry.getKey().taskId(), entry.getKey().taskName(),
+                            entry.getKey().subjectId(), entry.getKey().subjectName(),
+                            entry.getValue(), total > 0 ? (double) entry.getValue() / total : 0)));
+            return suggestions;
+        }
+    }
+}
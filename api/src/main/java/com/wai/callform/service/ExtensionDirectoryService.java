@@ -0,0 +1,209 @@
+package com.wai.callform.service;
+
+import com.wai.callform.dto.ExtensionDirectoryDto;
+import com.wai.callform.entity.ExtensionDirectoryEntry;
+import com.wai.callform.repository.ExtensionDirectoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Directory of PBX extensions and the users who own them.
+ * Lookups are answered from an immutable in-memory snapshot that is swapped atomically on
+ * every refresh; the periodic refresh evicts extensions that were removed or deactivated.
+ */
+@Service
+@Slf4j
+@Transactional(readOnly = true)
+public class ExtensionDirectoryService {
+
+    private final ExtensionDirectoryRepository directoryRepository;
+    private final String csvPath;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+
+    public ExtensionDirectoryService(ExtensionDirectoryRepository directoryRepository,
+                                     @Value("${callform.directory.csv-path:}") String csvPath) {
+        this.directoryRepository = directoryRepository;
+        this.csvPath = csvPath;
+    }
+
+    /**
+     * Resolve the owner of an extension
+     */
+    public Optional<DirectoryEntry> findByExtension(String extension) {
+        if (extension == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(snapshot.get().byExtension().get(extension.trim()));
+    }
+
+    /**
+     * Resolve a directory entry by the owner's email (case-insensitive)
+     */
+    public Optional<DirectoryEntry> findByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(snapshot.get().byEmail().get(email.trim().toLowerCase(Locale.ROOT)));
+    }
+
+    /**
+     * Get all directory entries (admin listing)
+     */
+    public List<ExtensionDirectoryDto> getAllEntries() {
+        return directoryRepository.findAllByOrderByExtensionAsc()
+                .stream()
+                .map(entry -> new ExtensionDirectoryDto(entry.getExtension(), entry.getEmail(),
+                        entry.getDisplayName(), entry.getIsActive()))
+                .toList();
+    }
+
+    /**
+     * Load the configured CSV (if any) and build the first snapshot
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initialize() {
+        if (csvPath != null && !csvPath.isBlank()) {
+            Path path = Path.of(csvPath);
+            if (Files.exists(path)) {
+                try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                    ImportResult result = importCsv(reader);
+                    log.info("Loaded extension directory from {}: {}", path, result);
+                } catch (IOException | IllegalArgumentException e) {
+                    log.error("Failed to load extension directory CSV {}", path, e);
+                }
+            } else {
+                log.warn("Extension directory CSV not found: {}", path);
+            }
+        }
+        refresh();
+    }
+
+    /**
+     * Rebuild the in-memory snapshot from the database
+     */
+    @Scheduled(fixedDelayString = "${callform.directory.refresh-interval-ms:300000}",
+            initialDelayString = "${callform.directory.refresh-interval-ms:300000}")
+    public void refresh() {
+        List<DirectoryEntry> entries = directoryRepository.findByIsActiveTrue()
+                .stream()
+                .map(entry -> new DirectoryEntry(entry.getExtension(), entry.getEmail(), entry.getDisplayName()))
+                .toList();
+
+        Map<String, DirectoryEntry> byExtension = entries.stream()
+                .collect(Collectors.toUnmodifiableMap(DirectoryEntry::extension, Function.identity()));
+        Map<String, DirectoryEntry> byEmail = entries.stream()
+                .collect(Collectors.toUnmodifiableMap(entry -> entry.email().toLowerCase(Locale.ROOT),
+                        Function.identity(), (first, second) -> first));
+
+        snapshot.set(new Snapshot(byExtension, byEmail));
+        log.debug("Extension directory snapshot refreshed: {} extensions", byExtension.size());
+    }
+
+    /**
+     * Bulk upsert directory entries from CSV with header: extension,email,display_name[,is_active]
+     * Call refresh() after the transaction commits to publish the new entries.
+     */
+    @Transactional
+    public ImportResult importCsv(Reader source) throws IOException {
+        BufferedReader reader = new BufferedReader(source);
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            throw new IllegalArgumentException("CSV is empty");
+        }
+
+        List<String> header = CsvSupport.parseLine(headerLine).stream()
+                .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                .toList();
+        int extensionCol = header.indexOf("extension");
+        int emailCol = header.indexOf("email");
+        int nameCol = header.indexOf("display_name");
+        int activeCol = header.indexOf("is_active");
+        if (extensionCol < 0 || emailCol < 0 || nameCol < 0) {
+            throw new IllegalArgumentException("CSV header must contain extension, email and display_name");
+        }
+
+        Map<String, ExtensionDirectoryEntry> existing = directoryRepository.findAll()
+                .stream()
+                .collect(Collectors.toMap(ExtensionDirectoryEntry::getExtension, Function.identity()));
+
+        Map<String, ExtensionDirectoryEntry> toSave = new HashMap<>();
+        int created = 0;
+        int updated = 0;
+        int skipped = 0;
+        String line;
+        int lineNumber = 1;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> fields = CsvSupport.parseLine(line);
+            String extension = field(fields, extensionCol);
+            String email = field(fields, emailCol);
+            String displayName = field(fields, nameCol);
+            if (extension.isEmpty() || extension.length() > 20 || !email.contains("@") || displayName.isEmpty()) {
+                log.warn("Skipping invalid extension directory row {}: {}", lineNumber, line);
+                skipped++;
+                continue;
+            }
+
+            ExtensionDirectoryEntry entry = existing.get(extension);
+            if (entry == null) {
+                entry = new ExtensionDirectoryEntry();
+                entry.setExtension(extension);
+                existing.put(extension, entry);
+                created++;
+            } else if (!toSave.containsKey(extension)) {
+                updated++;
+            }
+            entry.setEmail(email);
+            entry.setDisplayName(displayName);
+            entry.setIsActive(activeCol < 0 || !"false".equalsIgnoreCase(field(fields, activeCol)));
+            toSave.put(extension, entry);
+        }
+
+        directoryRepository.saveAll(toSave.values());
+        ImportResult result = new ImportResult(created, updated, skipped);
+        log.info("Imported extension directory CSV: {}", result);
+        return result;
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < fields.size() ? fields.get(index).trim() : "";
+    }
+
+    /**
+     * Resolved directory entry as held in the snapshot
+     */
+    public record DirectoryEntry(String extension, String email, String displayName) {
+    }
+
+    public record ImportResult(int created, int updated, int skipped) {
+    }
+
+    private record Snapshot(Map<String, DirectoryEntry> byExtension, Map<String, DirectoryEntry> byEmail) {
+        static final Snapshot EMPTY = new Snapshot(Map.of(), Map.of());
+    }
+}
@@ -0,0 +1,172 @@
+package com.wai.callform.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission control for machine-to-machine ingest (3CX sideloader CDRs and call group alerts).
+ * Each source gets its own token bucket per endpoint class so one runaway sideloader can't
+ * starve the others, and ingest is shed entirely while requests are already queueing for a
+ * database connection so interactive traffic from techs keeps getting connections.
+ * PBX ingest is charged one token per call record, whether it arrives alone, in a batch or in a stream frame.
+ */
+@Component
+@Slf4j
+public class IngestRateLimiter {
+
+    public enum Limit { PBX, ALERTS }
+
+    private static final long IDLE_EVICTION_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final Map<Limit, BucketSpec> specs;
+    private final int maxAwaitingConnections;
+    private final LongSupplier nanoTime;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public IngestRateLimiter(DataSource dataSource,
+                             @Value("${callform.ratelimit.enabled:true}") boolean enabled,
+                             @Value("${callform.ratelimit.pbx.capacity:5000}") int pbxCapacity,
+                             @Value("${callform.ratelimit.pbx.refill-per-second:200}") double pbxRefillPerSecond,
+                             @Value("${callform.ratelimit.alerts.capacity:20}") int alertsCapacity,
+                             @Value("${callform.ratelimit.alerts.refill-per-second:2}") double alertsRefillPerSecond,
+                             @Value("${callform.ratelimit.shed.max-awaiting-connections:3}") int maxAwaitingConnections) {
+        this(dataSource, enabled, Map.of(
+                Limit.PBX, new BucketSpec(pbxCapacity, pbxRefillPerSecond),
+                Limit.ALERTS, new BucketSpec(alertsCapacity, alertsRefillPerSecond)),
+                maxAwaitingConnections, System::nanoTime);
+    }
+
+    IngestRateLimiter(DataSource dataSource, boolean enabled, Map<Limit, BucketSpec> specs,
+                      int maxAwaitingConnections, LongSupplier nanoTime) {
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.specs = specs;
+        this.maxAwaitingConnections = maxAwaitingConnections;
+        this.nanoTime = nanoTime;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Take one token from the source's bucket
+     *
+     * @return 0 if the request is admitted, otherwise the number of seconds until a token is available
+     */
+    public long tryAcquire(Limit limit, String sourceKey) {
+        return tryAcquire(limit, sourceKey, 1);
+    }
+
+    /**
+     * Take one token per record from the source's bucket. A batch larger than the bucket is admitted
+     * once the bucket is full and leaves it in debt, so the source still averages the refill rate.
+     *
+     * @return 0 if the records are admitted, otherwise the number of seconds until enough tokens are available
+     */
+    public long tryAcquire(Limit limit, String sourceKey, int permits) {
+        if (permits <= 0) {
+            return 0;
+        }
+        BucketSpec spec = specs.get(limit);
+        long now = nanoTime.getAsLong();
+        TokenBucket bucket = buckets.computeIfAbsent(limit + ":" + sourceKey,
+                key -> new TokenBucket(spec, now));
+        return bucket.tryConsume(now, permits);
+    }
+
+    /**
+     * True when requests are already waiting for a pooled connection; ingest should back off
+     */
+    public boolean isDatabaseSaturated() {
+        HikariPoolMXBean pool = poolMXBean();
+        return pool != null && pool.getThreadsAwaitingConnection() >= maxAwaitingConnections;
+    }
+
+    /**
+     * Drop buckets that have been idle long enough to have refilled completely
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleBuckets() {
+        long now = nanoTime.getAsLong();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.isIdle(now));
+        if (buckets.size() < before) {
+            log.debug("Evicted {} idle rate limit buckets", before - buckets.size());
+        }
+    }
+
+    int bucketCount() {
+        return buckets.size();
+    }
+
+    private HikariPoolMXBean poolMXBean() {
+        try {
+            if (dataSource != null && dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            }
+        } catch (SQLException e) {
+            log.debug("Could not inspect connection pool: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    record BucketSpec(int capacity, double refillPerSecond) {
+    }
+
+    private static final class TokenBucket {
+
+        private final BucketSpec spec;
+        private double tokens;
+        private long lastRefillNanos;
+        private long lastUsedNanos;
+
+        TokenBucket(BucketSpec spec, long now) {
+            this.spec = spec;
+            this.tokens = spec.capacity();
+            this.lastRefillNanos = now;
+            this.lastUsedNanos = now;
+        }
+
+        synchronized long tryConsume(long now, int permits) {
+            refill(now);
+            lastUsedNanos = now;
+            double required = Math.min(permits, spec.capacity());
+            if (tokens >= required) {
+                tokens -= permits;
+                return 0;
+            }
+            double secondsUntilTokens = (required - tokens) / spec.refillPerSecond();
+            return Math.max(1, (long) Math.ceil(secondsUntilTokens));
+        }
+
+        synchronized boolean isIdle(long now) {
+            refill(now);
+            return now - lastUsedNanos >= IDLE_EVICTION_NANOS && tokens >= spec.capacity();
+        }
+
+        private void refill(long now) {
+            long elapsed = now - lastRefillNanos;
+            if (elapsed > 0) {
+                tokens = Math.min(spec.capacity(), tokens + elapsed / 1e9 * spec.refillPerSecond());
+                lastRefillNanos = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,512 @@
+package com.wai.callform.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wai.callform.dto.PbxBackfillStatus;
+import com.wai.callform.dto.PbxCallRequest;
+import com.wai.callform.entity.CallEntry;
+import com.wai.callform.event.CacheInvalidationEvent;
+import com.wai.callform.event.PendingPbxCallsEvent;
+import com.wai.callform.repository.PbxBackfillJdbcRepository;
+import com.wai.callform.repository.PbxBackfillJobJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Admin backfill of historical CDRs (new call group onboarding, long sideloader outages).
+ * The upload is spooled to disk, then a single background worker parses it as CSV or NDJSON
+ * PbxCallRequest records, streams valid rows through COPY into a staging table and merges them
+ * into call_entries, attaching CDRs to overlapping manual calls the way live ingest does. Jobs run
+ * one at a time per node. Their progress is kept in pbx_backfill_jobs,
+ * so any node can answer a status poll; the receiving node leases the job while it holds it, and if
+ * that node dies a node that can see the spool file (the same node after a restart, or any node when
+ * the spool directory is shared) runs it again. Re-running is safe: the merge skips logged calls.
+ * A failed job keeps its spool file until an admin retries it or discards the file.
+ */
+@Service
+@Slf4j
+public class PbxBackfillService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final int MAX_SAMPLE_ERRORS = 100;
+    private static final int MAX_RECENT_JOBS = 50;
+    private static final long PROGRESS_SAVE_INTERVAL_MS = 1000;
+
+    private final PbxIntegrationService pbxIntegrationService;
+    private final PbxBackfillJdbcRepository backfillRepository;
+    private final PbxBackfillJobJdbcRepository jobRepository;
+    private final ObjectMapper objectMapper;
+    private final PbxIngestMetrics pbxIngestMetrics;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Path spoolDir;
+    // Null when merging into manual calls is disabled
+    private final Duration mergeTolerance;
+    private final Duration leaseDuration;
+    private final Duration abandonAfter;
+    private final String workerId = UUID.randomUUID().toString();
+
+    private final Executor worker;
+    // Jobs queued or running on this node; their leases are renewed together on each heartbeat
+    private final Map<UUID, Job> localJobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PbxBackfillService(PbxIntegrationService pbxIntegrationService,
+                              PbxBackfillJdbcRepository backfillRepository,
+                              PbxBackfillJobJdbcRepository jobRepository,
+                              ObjectMapper objectMapper,
+                              PbxIngestMetrics pbxIngestMetrics,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${callform.pbx.backfill.dir:data/pbx-backfill}") String spoolDir,
+                              @Value("${callform.pbx.backfill.lease-seconds:120}") long leaseSeconds,
+                              @Value("${callform.pbx.backfill.abandon-after-minutes:60}") long abandonAfterMinutes,
+                              @Value("${callform.pbx.merge.enabled:true}") boolean mergeEnabled,
+                              @Value("${callform.pbx.merge.tolerance-seconds:120}") long mergeToleranceSeconds) {
+        this(pbxIntegrationService, backfillRepository, jobRepository, objectMapper, pbxIngestMetrics,
+                eventPublisher, spoolDir, leaseSeconds, abandonAfterMinutes,
+                mergeEnabled ? Duration.ofSeconds(mergeToleranceSeconds) : null,
+                Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "pbx-backfill");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    PbxBackfillService(PbxIntegrationService pbxIntegrationService, PbxBackfillJdbcRepository backfillRepository,
+                       PbxBackfillJobJdbcRepository jobRepository, ObjectMapper objectMapper,
+                       PbxIngestMetrics pbxIngestMetrics, ApplicationEventPublisher eventPublisher, String spoolDir,
+                       long leaseSeconds, long abandonAfterMinutes, Duration mergeTolerance, Executor worker) {
+        this.worker = worker;
+        this.pbxIntegrationService = pbxIntegrationService;
+        this.backfillRepository = backfillRepository;
+        this.jobRepository = jobRepository;
+        this.objectMapper = objectMapper;
+        this.pbxIngestMetrics = pbxIngestMetrics;
+        this.eventPublisher = eventPublisher;
+        this.spoolDir = Path.of(spoolDir);
+        this.mergeTolerance = mergeTolerance;
+        this.leaseDuration = Duration.ofSeconds(leaseSeconds);
+        this.abandonAfter = Duration.ofMinutes(abandonAfterMinutes);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (worker instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Spool an uploaded file to disk and queue it for import
+     */
+    public PbxBackfillStatus submit(InputStream body, Format format, String sourceId) throws IOException {
+        Files.createDirectories(spoolDir);
+        UUID jobId = UUID.randomUUID();
+        Path file = spoolFile(jobId, format);
+        long bytes = Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+        log.info("Spooled PBX backfill {} ({} bytes, {})", jobId, bytes, format);
+
+        Job job = new Job(jobId, format, sourceId);
+        try {
+            jobRepository.insert(job.toStatus(), job.sourceId, workerId, OffsetDateTime.now().plus(leaseDuration));
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        enqueue(job, file);
+        return job.toStatus();
+    }
+
+    public PbxBackfillStatus getStatus(UUID jobId) {
+        return jobRepository.find(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("Backfill not found: " + jobId));
+    }
+
+    public List<PbxBackfillStatus> getRecentJobs() {
+        return jobRepository.findRecent(MAX_RECENT_JOBS);
+    }
+
+    /**
+     * Run a failed job again from its kept spool file
+     */
+    public PbxBackfillStatus retry(UUID jobId) {
+        PbxBackfillStatus status = getStatus(jobId);
+        if (status.getPhase() != PbxBackfillStatus.Phase.FAILED) {
+            throw new IllegalStateException("Only failed backfills can be retried: " + jobId + " is " + status.getPhase());
+        }
+        Format format = Format.valueOf(status.getFormat());
+        Path file = spoolFile(jobId, format);
+        if (!Files.exists(file)) {
+            throw new IllegalStateException("Spool file for backfill " + jobId + " is not on this node or was discarded");
+        }
+        String sourceId = jobRepository.findSourceId(jobId);
+        if (!jobRepository.retry(jobId, workerId, OffsetDateTime.now().plus(leaseDuration))) {
+            throw new IllegalStateException("Backfill " + jobId + " is no longer failed");
+        }
+        log.info("Retrying failed PBX backfill {}", jobId);
+        Job job = new Job(jobId, format, sourceId);
+        enqueue(job, file);
+        return job.toStatus();
+    }
+
+    /**
+     * Delete the spool file a failed job kept for retry
+     */
+    public void discard(UUID jobId) throws IOException {
+        PbxBackfillStatus status = getStatus(jobId);
+        if (status.getPhase() != PbxBackfillStatus.Phase.FAILED) {
+            throw new IllegalStateException("Only failed backfills keep a spool file: " + jobId + " is " + status.getPhase());
+        }
+        if (Files.deleteIfExists(spoolFile(jobId, Format.valueOf(status.getFormat())))) {
+            log.info("Discarded spool file of failed PBX backfill {}", jobId);
+        }
+    }
+
+    /**
+     * Heartbeat: extend the leases on every job this node has queued or running
+     */
+    @Scheduled(fixedDelayString = "${callform.pbx.backfill.heartbeat-interval-ms:30000}")
+    public void renewLeases() {
+        if (localJobs.isEmpty()) {
+            return;
+        }
+        Set<UUID> held = Set.copyOf(localJobs.keySet());
+        int renewed = jobRepository.renewLeases(held, workerId, OffsetDateTime.now().plus(leaseDuration));
+        log.debug("Renewed {} of {} PBX backfill leases", renewed, held.size());
+    }
+
+    /**
+     * Resume unfinished jobs whose node stopped heartbeating, if their spool file is reachable from here;
+     * fail the ones no node has picked up for abandon-after-minutes
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${callform.pbx.backfill.recovery-interval-ms:60000}",
+            initialDelayString = "${callform.pbx.backfill.recovery-interval-ms:60000}")
+    public void recoverAbandonedJobs() {
+        OffsetDateTime now = OffsetDateTime.now();
+        for (PbxBackfillJobJdbcRepository.AbandonedJob abandoned : jobRepository.findAbandoned(now)) {
+            Format format = Format.valueOf(abandoned.format());
+            Path file = spoolFile(abandoned.id(), format);
+            if (Files.exists(file)) {
+                if (jobRepository.claim(abandoned.id(), workerId, now, now.plus(leaseDuration))) {
+                    log.warn("Resuming abandoned PBX backfill {} from its spool file", abandoned.id());
+                    enqueue(new Job(abandoned.id(), format, abandoned.sourceId()), file);
+                }
+            } else if (abandoned.leaseExpiresAt().isBefore(now.minus(abandonAfter))
+                    && jobRepository.failAbandoned(abandoned.id(), "Abandoned: spool file not found on any node", now)) {
+                log.warn("Failed abandoned PBX backfill {}: no node resumed it", abandoned.id());
+            }
+        }
+    }
+
+    void run(Job job, Path file) {
+        OffsetDateTime receivedAt = OffsetDateTime.now();
+        job.phase = PbxBackfillStatus.Phase.STAGING;
+        saveProgress(job);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            RecordReader records = job.format == Format.CSV
+                    ? new CsvRecordReader(reader)
+                    : new NdjsonRecordReader(reader);
+
+            PbxBackfillJdbcRepository.BackfillCounts counts = backfillRepository.stageAndMerge(
+                    new EntryIterator(records, job, receivedAt), receivedAt, mergeTolerance,
+                    staged -> {
+                        job.rowsStaged = staged;
+                        saveProgressThrottled(job);
+                    },
+                    () -> {
+                        job.phase = PbxBackfillStatus.Phase.MERGING;
+                        saveProgress(job);
+                    });
+
+            job.rowsStaged = counts.staged();
+            job.rowsMerged = counts.merged();
+            job.rowsInserted = counts.inserted();
+            job.rowsDuplicate = counts.staged() - counts.merged() - counts.inserted();
+            job.phase = PbxBackfillStatus.Phase.COMPLETED;
+            log.info("PBX backfill {} complete: read={}, invalid={}, merged={}, inserted={}, duplicates={}",
+                    job.id, job.rowsRead, job.rowsInvalid, job.rowsMerged, job.rowsInserted, job.rowsDuplicate);
+
+            publishChanges(job, counts);
+        } catch (Exception e) {
+            log.error("PBX backfill {} failed after {} rows; keeping {} for retry", job.id, job.rowsRead, file, e);
+            job.errorMessage = e.getMessage();
+            job.phase = PbxBackfillStatus.Phase.FAILED;
+        } finally {
+            job.completedAt = OffsetDateTime.now();
+            saveProgress(job);
+            localJobs.remove(job.id);
+        }
+        if (job.phase == PbxBackfillStatus.Phase.COMPLETED) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete backfill spool file {}", file);
+            }
+        }
+    }
+
+    /**
+     * Tell supervisors, other nodes and the ingest metrics about the rows a backfill added
+     */
+    private void publishChanges(Job job, PbxBackfillJdbcRepository.BackfillCounts counts) {
+        try {
+            if (!counts.pendingAdded().isEmpty()) {
+                eventPublisher.publishEvent(new PendingPbxCallsEvent(counts.pendingAdded()));
+                eventPublisher.publishEvent(new CacheInvalidationEvent(CacheInvalidationEvent.Type.PENDING_BACKLOG));
+            }
+            pbxIngestMetrics.recordBackfill(job.rowsInserted, job.rowsMerged, job.rowsDuplicate, job.rowsInvalid);
+            pbxIngestMetrics.refreshPendingBacklog();
+        } catch (RuntimeException e) {
+            // The rows are committed; listeners catch up on their next refresh
+            log.warn("Could not publish changes from PBX backfill {}: {}", job.id, e.getMessage());
+        }
+    }
+
+    private void enqueue(Job job, Path file) {
+        localJobs.put(job.id, job);
+        worker.execute(() -> run(job, file));
+    }
+
+    private Path spoolFile(UUID jobId, Format format) {
+        return spoolDir.resolve(jobId + (format == Format.CSV ? ".csv" : ".ndjson"));
+    }
+
+    private void saveProgressThrottled(Job job) {
+        long now = System.currentTimeMillis();
+        if (now - job.lastSavedAtMs >= PROGRESS_SAVE_INTERVAL_MS) {
+            saveProgress(job);
+        }
+    }
+
+    private void saveProgress(Job job) {
+        job.lastSavedAtMs = System.currentTimeMillis();
+        try {
+            if (!jobRepository.saveProgress(job.toStatus(), workerId, OffsetDateTime.now().plus(leaseDuration))) {
+                log.warn("PBX backfill {} was claimed by another node; not recording progress", job.id);
+            }
+        } catch (RuntimeException e) {
+            // Progress is advisory; the import itself carries on
+            log.warn("Could not record progress of PBX backfill {}: {}", job.id, e.getMessage());
+        }
+    }
+
+    /**
+     * Validated, mapped entries from a record stream; invalid records are counted and skipped
+     */
+    private final class EntryIterator implements Iterator<CallEntry> {
+
+        private final RecordReader records;
+        private final Job job;
+        private final OffsetDateTime receivedAt;
+        private CallEntry next;
+
+        EntryIterator(RecordReader records, Job job, OffsetDateTime receivedAt) {
+            this.records = records;
+            this.job = job;
+            this.receivedAt = receivedAt;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                PbxCallRequest request;
+                try {
+                    request = records.next();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (RuntimeException e) {
+                    job.rowsRead++;
+                    job.invalid("record " + job.rowsRead + ": " + e.getMessage());
+                    continue;
+                }
+                if (request == null) {
+                    return false;
+                }
+                job.rowsRead++;
+                if (request.getSourceId() == null) {
+                    request.setSourceId(job.sourceId);
+                }
+                String error = pbxIntegrationService.validate(request);
+                if (error != null) {
+                    job.invalid("record " + job.rowsRead + " (" + request.getPbxCallId() + "): " + error);
+                    continue;
+                }
+                CallEntry entry = pbxIntegrationService.buildCallEntry(request, receivedAt);
+                entry.setId(UUID.randomUUID());
+                next = entry;
+            }
+            return true;
+        }
+
+        @Override
+        public CallEntry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            CallEntry entry = next;
+            next = null;
+            return entry;
+        }
+    }
+
+    private interface RecordReader {
+        /**
+         * @return the next record, or null at end of input; throws RuntimeException for an unreadable record
+         */
+        PbxCallRequest next() throws IOException;
+    }
+
+    private final class NdjsonRecordReader implements RecordReader {
+
+        private final BufferedReader reader;
+
+        NdjsonRecordReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public PbxCallRequest next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    try {
+                        return objectMapper.readValue(line, PbxCallRequest.class);
+                    } catch (JsonProcessingException e) {
+                        throw new IllegalArgumentException(e.getOriginalMessage(), e);
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * CSV whose header names PbxCallRequest properties (pbxCallId, phoneNumber, callDuration, ...)
+     */
+    private final class CsvRecordReader implements RecordReader {
+
+        private final BufferedReader reader;
+        private List<String> header;
+
+        CsvRecordReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public PbxCallRequest next() throws IOException {
+            if (header == null) {
+                String headerLine = reader.readLine();
+                if (headerLine == null) {
+                    return null;
+                }
+                header = CsvSupport.parseLine(headerLine).stream().map(String::trim).toList();
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                List<String> fields = CsvSupport.parseLine(line);
+                Map<String, String> values = new HashMap<>();
+                for (int i = 0; i < header.size() && i < fields.size(); i++) {
+                    String value = fields.get(i).trim();
+                    if (!value.isEmpty()) {
+                        values.put(header.get(i), header.get(i).equals("callDirection")
+                                ? value.toUpperCase(Locale.ROOT) : value);
+                    }
+                }
+                return objectMapper.convertValue(values, PbxCallRequest.class);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Mutable progress of one import; written by the worker thread and saved to pbx_backfill_jobs
+     */
+    static final class Job {
+
+        private final UUID id;
+        private final Format format;
+        private final String sourceId;
+        private final OffsetDateTime submittedAt = OffsetDateTime.now();
+        private final List<String> sampleErrors = new ArrayList<>();
+        private volatile PbxBackfillStatus.Phase phase = PbxBackfillStatus.Phase.QUEUED;
+        private volatile long rowsRead;
+        private volatile long rowsInvalid;
+        private volatile long rowsStaged;
+        private volatile long rowsMerged;
+        private volatile long rowsInserted;
+        private volatile long rowsDuplicate;
+        private volatile String errorMessage;
+        private volatile OffsetDateTime completedAt;
+        private long lastSavedAtMs;
+
+        Job(UUID id, Format format, String sourceId) {
+            this.id = id;
+            this.format = format;
+            this.sourceId = sourceId != null && !sourceId.isBlank() ? sourceId.trim() : null;
+        }
+
+        private void invalid(String error) {
+            rowsInvalid++;
+            synchronized (sampleErrors) {
+                if (sampleErrors.size() < MAX_SAMPLE_ERRORS) {
+                    sampleErrors.add(error);
+                }
+            }
+        }
+
+        PbxBackfillStatus toStatus() {
+            PbxBackfillStatus status = new PbxBackfillStatus();
+            status.setId(id);
+            status.setFormat(format.name());
+            status.setPhase(phase);
+            status.setRowsRead(rowsRead);
+            status.setRowsInvalid(rowsInvalid);
+            status.setRowsStaged(rowsStaged);
+            status.setRowsMerged(rowsMerged);
+            status.setRowsInserted(rowsInserted);
+            status.setRowsDuplicate(rowsDuplicate);
+            synchronized (sampleErrors) {
+                status.setSampleErrors(List.copyOf(sampleErrors));
+            }
+            status.setErrorMessage(errorMessage);
+            status.setSubmittedAt(submittedAt);
+            status.setCompletedAt(completedAt);
+            return status;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.wai.callform.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wai.callform.dto.PbxBatchResult;
+import com.wai.callform.dto.PbxCallRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Durable write-behind journal for PBX ingest ("journal" ingest mode).
+ * The controller appends each validated PbxCallRequest as one NDJSON line and fsyncs before
+ * acknowledging with 202. A background drainer replays the journal from the last checkpoint into
+ * call_entries in batches; the unique pbx_call_id index makes re-draining after a crash harmless.
+ * The journal is truncated once it has been fully drained and grows past the compaction threshold.
+ * A batch that keeps failing for reasons other than the database being unreachable is moved to a
+ * dead-letter file after max-drain-attempts, so one poison record cannot stall the drain.
+ */
+@Component
+@Slf4j
+public class PbxIngestJournal {
+
+    private static final byte NEWLINE = '\n';
+    private static final int MAX_READ_BYTES = 4 * 1024 * 1024;
+
+    private final ObjectMapper objectMapper;
+    private final PbxIntegrationService pbxIntegrationService;
+    private final boolean enabled;
+    private final Path journalFile;
+    private final Path checkpointFile;
+    private final Path deadLetterFile;
+    private final int drainBatchSize;
+    private final long compactThresholdBytes;
+    private final int maxDrainAttempts;
+
+    private final Object appendLock = new Object();
+    private final Object drainLock = new Object();
+    private FileChannel channel;
+    // Failed attempts at the batch starting at failingCheckpoint; guarded by drainLock
+    private long failingCheckpoint = -1;
+    private int failedAttempts;
+
+    public PbxIngestJournal(ObjectMapper objectMapper,
+                            PbxIntegrationService pbxIntegrationService,
+                            @Value("${callform.pbx.ingest.mode:sync}") String ingestMode,
+                            @Value("${callform.pbx.journal.dir:data/pbx-journal}") String journalDir,
+                            @Value("${callform.pbx.journal.drain-batch-size:500}") int drainBatchSize,
+                            @Value("${callform.pbx.journal.compact-threshold-bytes:16777216}") long compactThresholdBytes,
+                            @Value("${callform.pbx.journal.max-drain-attempts:5}") int maxDrainAttempts) {
+        this.objectMapper = objectMapper;
+        this.pbxIntegrationService = pbxIntegrationService;
+        this.enabled = "journal".equalsIgnoreCase(ingestMode);
+        this.journalFile = Path.of(journalDir, "pbx-ingest.journal");
+        this.checkpointFile = Path.of(journalDir, "pbx-ingest.checkpoint");
+        this.deadLetterFile = Path.of(journalDir, "pbx-ingest.deadletter");
+        this.drainBatchSize = drainBatchSize;
+        this.compactThresholdBytes = compactThresholdBytes;
+        this.maxDrainAttempts = maxDrainAttempts;
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(journalFile.getParent());
+        channel = FileChannel.open(journalFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        log.info("PBX ingest journal opened at {} ({} bytes, checkpoint {})",
+                journalFile.toAbsolutePath(), channel.size(), readCheckpoint());
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Durably append a PBX record; returns once the record is on disk
+     *
+     * @return the journal offset the record was written at
+     */
+    public long append(PbxCallRequest request) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(request);
+            ByteBuffer buffer = ByteBuffer.allocate(json.length + 1).put(json).put(NEWLINE).flip();
+
+            synchronized (appendLock) {
+                long offset = channel.size();
+                long position = offset;
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                channel.force(false);
+                return offset;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append PBX record to ingest journal", e);
+        }
+    }
+
+    /**
+     * Bytes appended but not yet written to the database
+     */
+    public long pendingBytes() {
+        if (!enabled) {
+            return 0;
+        }
+        try {
+            return Math.max(0, channel.size() - readCheckpoint());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Replay anything left in the journal from before a restart
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        long pending = pendingBytes();
+        if (pending > 0) {
+            log.info("Replaying {} bytes of PBX ingest journal from before restart", pending);
+        }
+        drain();
+    }
+
+    /**
+     * Background writer: drain the journal into call_entries in batches until caught up
+     */
+    @Scheduled(fixedDelayString = "${callform.pbx.journal.drain-interval-ms:1000}")
+    public void drain() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (drainLock) {
+            try {
+                while (drainBatch()) {
+                    // keep going until the journal is caught up
+                }
+                compactIfDrained();
+            } catch (Exception e) {
+                // Checkpoint was not advanced; the same records are retried on the next run
+                log.error("Failed to drain PBX ingest journal", e);
+            }
+        }
+    }
+
+    /**
+     * Write one batch from the checkpoint onward
+     *
+     * @return true if a batch was written and more may remain
+     */
+    private boolean drainBatch() throws IOException {
+        long checkpoint = readCheckpoint();
+        long size = channel.size();
+        if (checkpoint > size) {
+            // Crashed between truncating the journal and resetting the checkpoint
+            checkpoint = 0;
+            writeCheckpoint(0);
+        }
+        if (checkpoint == size) {
+            return false;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size - checkpoint, MAX_READ_BYTES));
+        long position = checkpoint;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+        byte[] bytes = buffer.array();
+        int length = buffer.position();
+
+        List<PbxCallRequest> requests = new ArrayList<>();
+        int consumed = 0;
+        int lineStart = 0;
+        for (int i = 0; i < length && requests.size() < drainBatchSize; i++) {
+            if (bytes[i] != NEWLINE) {
+                continue;
+            }
+            if (i > lineStart) {
+                String line = new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8);
+                try {
+                    requests.add(objectMapper.readValue(line, PbxCallRequest.class));
+                } catch (IOException e) {
+                    log.error("Skipping unreadable PBX journal record at offset {}: {}",
+                            checkpoint + lineStart, e.getMessage());
+                }
+            }
+            lineStart = i + 1;
+            consumed = lineStart;
+        }
+
+        if (consumed == 0) {
+            if (length == MAX_READ_BYTES) {
+                log.error("PBX journal record at offset {} exceeds {} bytes, skipping", checkpoint, MAX_READ_BYTES);
+                writeCheckpoint(checkpoint + length);
+                return true;
+            }
+            // Only a partially written trailing record; wait for the rest
+            return false;
+        }
+
+        if (!requests.isEmpty()) {
+            PbxBatchResult result;
+            try {
+                result = pbxIntegrationService.createCallsFromPbx(requests);
+            } catch (RuntimeException e) {
+                if (!countFailure(checkpoint, e)) {
+                    throw e;
+                }
+                deadLetter(bytes, consumed);
+                log.error("Moved {} PBX journal records at offset {} to {} after {} failed attempts: {}",
+                        requests.size(), checkpoint, deadLetterFile, maxDrainAttempts, e.getMessage());
+                writeCheckpoint(checkpoint + consumed);
+                return true;
+            }
+            result.getItems().stream()
+                    .filter(item -> item.getStatus() == PbxBatchResult.ItemStatus.INVALID)
+                    .forEach(item -> log.error("Dropping invalid journaled PBX record {}: {}",
+                            item.getPbxCallId(), item.getError()));
+            log.debug("Drained {} PBX journal records: created={}, duplicates={}",
+                    result.getReceived(), result.getCreated(), result.getDuplicates());
+        }
+
+        writeCheckpoint(checkpoint + consumed);
+        return true;
+    }
+
+    /**
+     * Count a failed attempt at the batch starting at checkpoint
+     *
+     * @return true once the batch has failed max-drain-attempts times and should be dead-lettered
+     */
+    private boolean countFailure(long checkpoint, RuntimeException e) {
+        // An unreachable database fails every batch alike; wait it out rather than dead-letter
+        if (e instanceof DataAccessResourceFailureException || e instanceof TransientDataAccessException) {
+            return false;
+        }
+        if (checkpoint != failingCheckpoint) {
+            failingCheckpoint = checkpoint;
+            failedAttempts = 0;
+        }
+        if (++failedAttempts < maxDrainAttempts) {
+            return false;
+        }
+        failingCheckpoint = -1;
+        failedAttempts = 0;
+        return true;
+    }
+
+    /**
+     * Durably append raw journal lines to the dead-letter file, to be inspected and re-sent by hand
+     */
+    private void deadLetter(byte[] bytes, int length) throws IOException {
+        try (FileChannel deadLetter = FileChannel.open(deadLetterFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+            while (buffer.hasRemaining()) {
+                deadLetter.write(buffer);
+            }
+            deadLetter.force(false);
+        }
+    }
+
+    private void compactIfDrained() throws IOException {
+        if (channel.size() < compactThresholdBytes) {
+            return;
+        }
+        synchronized (appendLock) {
+            long size = channel.size();
+            if (readCheckpoint() == size) {
+                channel.truncate(0);
+                channel.force(true);
+                writeCheckpoint(0);
+                log.info("Compacted fully drained PBX ingest journal ({} bytes)", size);
+            }
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        if (!Files.exists(checkpointFile)) {
+            return 0;
+        }
+        String value = Files.readString(checkpointFile, StandardCharsets.UTF_8).trim();
+        return value.isEmpty() ? 0 : Long.parseLong(value);
+    }
+
+    private void writeCheckpoint(long offset) throws IOException {
+        Path temp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        Files.writeString(temp, Long.toString(offset), StandardCharsets.UTF_8);
+        Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
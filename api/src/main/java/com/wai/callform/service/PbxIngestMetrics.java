@@ -0,0 +1,105 @@
+package com.wai.callform.service;
+
+import com.wai.callform.repository.CallEntryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Micrometer meters for PBX ingest, exported via /actuator/prometheus.
+ * - callform.pbx.ingest{result=created|merged|duplicate|invalid}: ingest and duplicate rates
+ * - callform.pbx.ingest.lag: pbxDataReceivedAt minus the CDR timestamp (end of call)
+ * - callform.pbx.pending: unclassified PBX calls, refreshed on a schedule rather than per scrape
+ */
+@Component
+@Slf4j
+public class PbxIngestMetrics {
+
+    private final CallEntryRepository callEntryRepository;
+    private final Counter created;
+    private final Counter merged;
+    private final Counter duplicates;
+    private final Counter invalid;
+    private final Timer lag;
+    private final AtomicLong pendingBacklog = new AtomicLong();
+
+    public PbxIngestMetrics(MeterRegistry registry, CallEntryRepository callEntryRepository) {
+        this.callEntryRepository = callEntryRepository;
+        this.created = ingestCounter(registry, "created");
+        this.merged = ingestCounter(registry, "merged");
+        this.duplicates = ingestCounter(registry, "duplicate");
+        this.invalid = ingestCounter(registry, "invalid");
+        this.lag = Timer.builder("callform.pbx.ingest.lag")
+                .description("Delay between the end of a call and its CDR reaching the API")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofSeconds(1))
+                .maximumExpectedValue(Duration.ofHours(24))
+                .register(registry);
+        Gauge.builder("callform.pbx.pending", pendingBacklog, AtomicLong::get)
+                .description("PBX-originated calls still waiting for a tech to classify them")
+                .register(registry);
+    }
+
+    private static Counter ingestCounter(MeterRegistry registry, String result) {
+        return Counter.builder("callform.pbx.ingest")
+                .description("PBX call records received, by outcome")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    public void recordCreated(OffsetDateTime cdrTimestamp, OffsetDateTime receivedAt) {
+        created.increment();
+        recordLag(cdrTimestamp, receivedAt);
+    }
+
+    public void recordMerged(OffsetDateTime cdrTimestamp, OffsetDateTime receivedAt) {
+        merged.increment();
+        recordLag(cdrTimestamp, receivedAt);
+    }
+
+    private void recordLag(OffsetDateTime cdrTimestamp, OffsetDateTime receivedAt) {
+        if (cdrTimestamp != null && receivedAt != null) {
+            Duration delay = Duration.between(cdrTimestamp, receivedAt);
+            // Clock skew between the PBX and the API can make this slightly negative
+            lag.record(delay.isNegative() ? Duration.ZERO : delay);
+        }
+    }
+
+    /**
+     * Count a finished backfill's outcomes. No lag is recorded: its CDRs are historical by design.
+     */
+    public void recordBackfill(long createdCount, long mergedCount, long duplicateCount, long invalidCount) {
+        created.increment(createdCount);
+        merged.increment(mergedCount);
+        duplicates.increment(duplicateCount);
+        invalid.increment(invalidCount);
+    }
+
+    public void recordDuplicate() {
+        duplicates.increment();
+    }
+
+    public void recordInvalid() {
+        invalid.increment();
+    }
+
+    /**
+     * Refresh the pending backlog gauge
+     */
+    @Scheduled(fixedDelayString = "${callform.pbx.metrics.pending-refresh-interval-ms:30000}")
+    public void refreshPendingBacklog() {
+        try {
+            pendingBacklog.set(callEntryRepository.countPendingPbxCalls());
+        } catch (Exception e) {
+            log.warn("Failed to refresh pending PBX backlog gauge: {}", e.getMessage());
+        }
+    }
+}
@@ -1,16 +1,36 @@
 package com.wai.callform.service;
 
 import com.wai.callform.dto.CallEntryDto;
+import com.wai.callform.dto.PbxBatchResult;
 import com.wai.callform.dto.PbxCallRequest;
+import com.wai.callform.dto.PendingPbxCallView;
 import com.wai.callform.entity.CallEntry;
+import com.wai.callform.event.PendingPbxCallsEvent;
+import com.wai.callform.repository.CallEntryJdbcRepository;
+import com.wai.callform.repository.CallEntryJdbcRepository.MergeOutcome;
 import com.wai.callform.repository.CallEntryRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -20,6 +40,18 @@ public class PbxIntegrationService {
 
     private final CallEntryRepository callEntryRepository;
     private final CallEntryService callEntryService;
+    private final CallEntryJdbcRepository callEntryJdbcRepository;
+    private final Validator validator;
+    private final ExtensionDirectoryService extensionDirectoryService;
+    private final PbxIngestMetrics pbxIngestMetrics;
+    private final CallerHistoryIndex callerHistoryIndex;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${callform.pbx.merge.enabled:true}")
+    private boolean mergeEnabled;
+
+    @Value("${callform.pbx.merge.tolerance-seconds:120}")
+    private long mergeToleranceSeconds;
 
     /**
      * Create a call entry from PBX data
@@ -30,26 +62,222 @@ public class PbxIntegrationService {
         log.info("Creating call entry from PBX data: pbxCallId={}, extension={}, email={}",
                 request.getPbxCallId(), request.getCallOwnerExtension(), request.getCallOwnerEmail());
 
-        // Check if this PBX call has already been processed
-        if (request.getPbxCallId() != null) {
-            var existing = callEntryRepository.findByPbxCallId(request.getPbxCallId());
-            if (existing.isPresent()) {
-                log.warn("PBX call already exists: {}", request.getPbxCallId());
+        OffsetDateTime receivedAt = OffsetDateTime.now();
+        CallEntry callEntry = buildCallEntry(request, receivedAt);
+        callEntry.setId(UUID.randomUUID());
+        callEntry.setCreatedAt(receivedAt);
+        callEntry.setUpdatedAt(receivedAt);
+
+        // Tech may have started this call by hand already; attach the CDR to that row instead
+        if (mergeEnabled) {
+            Optional<UUID> mergedInto;
+            try {
+                mergedInto = callEntryJdbcRepository.mergePbxCallIntoManualCall(callEntry, mergeTolerance());
+            } catch (DuplicateKeyException e) {
+                // Same CDR ingested concurrently and the other request won
+                pbxIngestMetrics.recordDuplicate();
                 throw new IllegalStateException("PBX call has already been logged: " + request.getPbxCallId());
             }
+            if (mergedInto.isPresent()) {
+                pbxIngestMetrics.recordMerged(request.getTimestamp(), receivedAt);
+                log.info("Merged PBX call {} into manually started call entry {}",
+                        request.getPbxCallId(), mergedInto.get());
+                return callEntryService.getCall(mergedInto.get());
+            }
+        }
+
+        // The unique pbx_call_id index decides duplicates atomically, so concurrent retries of
+        // the same call can't both insert (no check-then-insert race, no extra lookup)
+        if (!callEntryJdbcRepository.insertPbxCall(callEntry)) {
+            log.warn("PBX call already exists: {}", request.getPbxCallId());
+            pbxIngestMetrics.recordDuplicate();
+            throw new IllegalStateException("PBX call has already been logged: " + request.getPbxCallId());
+        }
+
+        pbxIngestMetrics.recordCreated(request.getTimestamp(), receivedAt);
+        eventPublisher.publishEvent(new PendingPbxCallsEvent(Map.of(callEntry.getDatatechEmail(), 1)));
+        log.info("Created PBX-originated call entry: id={}, pbxCallId={}",
+                callEntry.getId(), callEntry.getPbxCallId());
+
+        // Freshly inserted row has no task/subject yet, so the in-memory entry is the full picture
+        return callEntryService.mapToDto(callEntry);
+    }
+
+    /**
+     * Create call entries from a batch of PBX records (sideloader backlog replay).
+     * Items are validated individually, merged into overlapping manual calls where possible, and
+     * otherwise inserted in JDBC batches; rows whose pbx_call_id already exists are skipped by the
+     * unique index and reported as duplicates.
+     */
+    @Transactional
+    public PbxBatchResult createCallsFromPbx(List<PbxCallRequest> requests) {
+        log.info("Creating call entries from PBX batch of {} records", requests.size());
+
+        PbxBatchResult result = new PbxBatchResult();
+        PbxBatchResult.ItemResult[] itemResults = new PbxBatchResult.ItemResult[requests.size()];
+        List<CallEntry> toInsert = new ArrayList<>();
+        List<Integer> insertIndexes = new ArrayList<>();
+        OffsetDateTime receivedAt = OffsetDateTime.now();
+
+        for (int i = 0; i < requests.size(); i++) {
+            PbxCallRequest request = requests.get(i);
+            String error = validate(request);
+            if (error != null) {
+                itemResults[i] = new PbxBatchResult.ItemResult(i,
+                        request != null ? request.getPbxCallId() : null,
+                        PbxBatchResult.ItemStatus.INVALID, null, error);
+                pbxIngestMetrics.recordInvalid();
+                continue;
+            }
+
+            CallEntry callEntry = buildCallEntry(request, receivedAt);
+            callEntry.setId(UUID.randomUUID());
+            callEntry.setCreatedAt(receivedAt);
+            callEntry.setUpdatedAt(receivedAt);
+            toInsert.add(callEntry);
+            insertIndexes.add(i);
+        }
+
+        if (mergeEnabled && !toInsert.isEmpty()) {
+            MergeOutcome[] outcomes = callEntryJdbcRepository.mergePbxCallsIntoManualCalls(toInsert, mergeTolerance());
+            List<CallEntry> mergedEntries = new ArrayList<>();
+            List<CallEntry> remaining = new ArrayList<>();
+            List<Integer> remainingIndexes = new ArrayList<>();
+            for (int j = 0; j < toInsert.size(); j++) {
+                if (outcomes[j] == MergeOutcome.MERGED) {
+                    mergedEntries.add(toInsert.get(j));
+                    itemResults[insertIndexes.get(j)] = new PbxBatchResult.ItemResult(insertIndexes.get(j),
+                            toInsert.get(j).getPbxCallId(), PbxBatchResult.ItemStatus.MERGED, null, null);
+                } else if (outcomes[j] == MergeOutcome.DUPLICATE) {
+                    // Same CDR ingested concurrently and the other request won
+                    itemResults[insertIndexes.get(j)] = new PbxBatchResult.ItemResult(insertIndexes.get(j),
+                            toInsert.get(j).getPbxCallId(), PbxBatchResult.ItemStatus.DUPLICATE, null,
+                            "PBX call has already been logged");
+                    pbxIngestMetrics.recordDuplicate();
+                } else {
+                    remaining.add(toInsert.get(j));
+                    remainingIndexes.add(insertIndexes.get(j));
+                }
+            }
+
+            if (!mergedEntries.isEmpty()) {
+                Map<String, UUID> mergedIds = callEntryJdbcRepository.findIdsByPbxCallIds(
+                        mergedEntries.stream().map(CallEntry::getPbxCallId).toList());
+                for (CallEntry mergedEntry : mergedEntries) {
+                    pbxIngestMetrics.recordMerged(mergedEntry.getEndTime(), receivedAt);
+                }
+                for (PbxBatchResult.ItemResult itemResult : itemResults) {
+                    if (itemResult != null && itemResult.getStatus() == PbxBatchResult.ItemStatus.MERGED) {
+                        itemResult.setCallEntryId(mergedIds.get(itemResult.getPbxCallId()));
+                    }
+                }
+            }
+            toInsert = remaining;
+            insertIndexes = remainingIndexes;
         }
 
-        // Determine user email - use provided email or fall back to a default
+        if (!toInsert.isEmpty()) {
+            boolean[] inserted = callEntryJdbcRepository.insertPbxCalls(toInsert);
+            Map<String, Integer> pendingAdded = new HashMap<>();
+            for (int j = 0; j < toInsert.size(); j++) {
+                CallEntry callEntry = toInsert.get(j);
+                int index = insertIndexes.get(j);
+                if (inserted[j]) {
+                    itemResults[index] = new PbxBatchResult.ItemResult(index, callEntry.getPbxCallId(),
+                            PbxBatchResult.ItemStatus.CREATED, callEntry.getId(), null);
+                    pbxIngestMetrics.recordCreated(callEntry.getEndTime(), receivedAt);
+                    pendingAdded.merge(callEntry.getDatatechEmail(), 1, Integer::sum);
+                } else {
+                    itemResults[index] = new PbxBatchResult.ItemResult(index, callEntry.getPbxCallId(),
+                            PbxBatchResult.ItemStatus.DUPLICATE, null, "PBX call has already been logged");
+                    pbxIngestMetrics.recordDuplicate();
+                }
+            }
+            if (!pendingAdded.isEmpty()) {
+                eventPublisher.publishEvent(new PendingPbxCallsEvent(pendingAdded));
+            }
+        }
+
+        for (PbxBatchResult.ItemResult itemResult : itemResults) {
+            result.add(itemResult);
+        }
+
+        log.info("PBX batch complete: received={}, created={}, merged={}, duplicates={}, invalid={}",
+                result.getReceived(), result.getCreated(), result.getMerged(), result.getDuplicates(),
+                result.getInvalid());
+        return result;
+    }
+
+    /**
+     * Get pending PBX calls (calls that need completion by user), oldest first
+     */
+    public Page<CallEntryDto> getPendingPbxCalls(Pageable pageable) {
+        log.debug("Fetching pending PBX calls: {}", pageable);
+
+        return callEntryRepository.findPendingPbxCalls(pageable)
+                .map(this::mapPendingToDto);
+    }
+
+    /**
+     * Get the pending PBX calls after a (startTime, id) position, oldest first
+     */
+    public Page<CallEntryDto> getPendingPbxCallsAfter(OffsetDateTime afterStartTime, UUID afterId, Pageable pageable) {
+        log.debug("Fetching pending PBX calls after {}/{}: {}", afterStartTime, afterId, pageable);
+
+        return callEntryRepository.findPendingPbxCallsAfter(afterStartTime, afterId, pageable)
+                .map(this::mapPendingToDto);
+    }
+
+    /**
+     * Get pending PBX calls for a specific user, oldest first
+     */
+    public Page<CallEntryDto> getPendingPbxCallsForUser(String userEmail, Pageable pageable) {
+        log.debug("Fetching pending PBX calls for user: {} ({})", userEmail, pageable);
+
+        return callEntryRepository.findPendingPbxCallsForUser(userEmail, pageable)
+                .map(this::mapPendingToDto);
+    }
+
+    /**
+     * Get pending PBX calls for a specific user after a (startTime, id) position, oldest first
+     */
+    public Page<CallEntryDto> getPendingPbxCallsForUserAfter(String userEmail, OffsetDateTime afterStartTime,
+                                                              UUID afterId, Pageable pageable) {
+        log.debug("Fetching pending PBX calls for user: {} after {}/{} ({})", userEmail, afterStartTime, afterId, pageable);
+
+        return callEntryRepository.findPendingPbxCallsForUserAfter(userEmail, afterStartTime, afterId, pageable)
+                .map(this::mapPendingToDto);
+    }
+
+    private Duration mergeTolerance() {
+        return Duration.ofSeconds(mergeToleranceSeconds);
+    }
+
+    /**
+     * Map a PBX record onto a new (unsaved) call entry
+     */
+    CallEntry buildCallEntry(PbxCallRequest request, OffsetDateTime receivedAt) {
+        // Determine user email - use provided email, the extension directory, or fall back to a default
         String userEmail = request.getCallOwnerEmail();
+        Optional<ExtensionDirectoryService.DirectoryEntry> directoryEntry;
         if (userEmail == null || userEmail.isBlank()) {
-            log.warn("No email provided for extension {}, using extension as email", request.getCallOwnerExtension());
-            userEmail = request.getCallOwnerExtension() + "@unknown.local";
+            directoryEntry = extensionDirectoryService.findByExtension(request.getCallOwnerExtension());
+            if (directoryEntry.isPresent()) {
+                userEmail = directoryEntry.get().email();
+            } else {
+                log.warn("No email provided for extension {}, using extension as email", request.getCallOwnerExtension());
+                userEmail = request.getCallOwnerExtension() + "@unknown.local";
+            }
+        } else {
+            directoryEntry = extensionDirectoryService.findByEmail(userEmail);
         }
 
         // Create call entry
         CallEntry callEntry = new CallEntry();
         callEntry.setDatatechEmail(userEmail);
-        callEntry.setDatatechName(extractNameFromEmail(userEmail));
+        callEntry.setDatatechName(directoryEntry.isPresent()
+                ? directoryEntry.get().displayName()
+                : extractNameFromEmail(userEmail));
 
         // Calculate start time from end time (timestamp) and duration
         OffsetDateTime endTime = request.getTimestamp();
@@ -65,46 +293,62 @@ public class PbxIntegrationService {
         callEntry.setPhoneNumber(request.getPhoneNumber());
         callEntry.setPbxCallId(request.getPbxCallId());
         callEntry.setIsPbxOriginated(true);
-        callEntry.setPbxDataReceivedAt(OffsetDateTime.now());
+        callEntry.setPbxDataReceivedAt(receivedAt);
+        callEntry.setPbxSourceId(request.getSourceId());
+        callEntry.setPbxCdrEndTime(endTime);
 
-        // Save the entry
-        CallEntry savedEntry = callEntryRepository.save(callEntry);
-        log.info("Created PBX-originated call entry: id={}, pbxCallId={}",
-                savedEntry.getId(), savedEntry.getPbxCallId());
-
-        return callEntryService.getCall(savedEntry.getId());
+        return callEntry;
     }
 
     /**
-     * Get all pending PBX calls (calls that need completion by user)
+     * Map a pending-call projection to DTO (pending calls never have a task or subject)
      */
-    public List<CallEntryDto> getPendingPbxCalls() {
-        log.debug("Fetching pending PBX calls");
+    private CallEntryDto mapPendingToDto(PendingPbxCallView view) {
+        CallEntryDto dto = new CallEntryDto();
+        dto.setId(view.getId());
+        dto.setDatatechName(view.getDatatechName());
+        dto.setDatatechEmail(view.getDatatechEmail());
+        dto.setStartTime(view.getStartTime());
+        dto.setEndTime(view.getEndTime());
+        dto.setIsInbound(view.getIsInbound());
+        dto.setIsAgent(view.getIsAgent());
+        dto.setComments(view.getComments());
+
+        // PBX integration fields
+        dto.setPhoneNumber(view.getPhoneNumber());
+        dto.setPbxCallId(view.getPbxCallId());
+        dto.setIsPbxOriginated(true);
+        dto.setPbxDataReceivedAt(view.getPbxDataReceivedAt());
+
+        dto.setCreatedAt(view.getCreatedAt());
+        dto.setUpdatedAt(view.getUpdatedAt());
+
+        // Set computed fields
+        boolean hasTimes = view.getStartTime() != null && view.getEndTime() != null;
+        dto.setInProgress(view.getStartTime() != null && view.getEndTime() == null);
+        dto.setCompleted(hasTimes);
+        dto.setDurationMinutes(hasTimes ? Duration.between(view.getStartTime(), view.getEndTime()).toMinutes() : 0L);
 
-        return callEntryRepository.findByIsPbxOriginatedTrueAndTaskIsNull()
-                .stream()
-                .map(callEntryService::getCall)
-                .toList();
+        dto.setSuggestions(callerHistoryIndex.suggest(view.getPhoneNumber()));
+
+        return dto;
     }
 
     /**
-     * Get pending PBX calls for a specific user
+     * Bean-validate a single batch item, returning a combined error message or null if valid
      */
-    public List<CallEntryDto> getPendingPbxCallsForUser(String userEmail) {
-        log.debug("Fetching pending PBX calls for user: {}", userEmail);
-
-        return callEntryRepository.findByDatatechEmailAndIsPbxOriginatedTrueAndTaskIsNull(userEmail)
-                .stream()
-                .map(entity -> {
-                    try {
-                        return callEntryService.getCall(entity.getId());
-                    } catch (Exception e) {
-                        log.error("Error mapping call entry to DTO", e);
-                        return null;
-                    }
-                })
-                .filter(dto -> dto != null)
-                .toList();
+    String validate(PbxCallRequest request) {
+        if (request == null) {
+            return "Empty record";
+        }
+        Set<ConstraintViolation<PbxCallRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
     }
 
     /**
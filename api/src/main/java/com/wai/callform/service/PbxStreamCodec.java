@@ -0,0 +1,224 @@
+package com.wai.callform.service;
+
+import com.wai.callform.dto.PbxBatchResult;
+import com.wai.callform.dto.PbxCallRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary framing for the PBX ingest stream (/api/pbx/stream).
+ * Integers are unsigned LEB128 varints (zigzag for signed values) and strings are a varint byte
+ * length followed by UTF-8. Events carry client-assigned consecutive sequence numbers starting at
+ * the frame's first sequence; acks and retries refer back to those sequences.
+ *
+ * <pre>
+ * EVENTS (client): 0x01 firstSeq count { flags pbxCallId phoneNumber extension [email] [callGroupId] [sourceId]
+ *                                        duration endEpochMillis offsetSeconds(zigzag) }*
+ * ACK    (server): 0x02 firstSeq count { status [error if INVALID] }*
+ * RETRY  (server): 0x03 firstSeq count reason retryAfterSeconds
+ * </pre>
+ */
+public final class PbxStreamCodec {
+
+    public static final byte EVENTS = 0x01;
+    public static final byte ACK = 0x02;
+    public static final byte RETRY = 0x03;
+
+    private static final int FLAG_EMAIL = 0x01;
+    private static final int FLAG_CALL_GROUP = 0x02;
+    private static final int FLAG_OUTBOUND = 0x04;
+    private static final int FLAG_SOURCE = 0x08;
+
+    private static final int MAX_STRING_BYTES = 1024;
+
+    private PbxStreamCodec() {
+    }
+
+    /**
+     * Why the server asks the client to resend a range of events
+     */
+    public enum RetryReason {
+        RATE_LIMITED,
+        OVERLOADED,
+        SERVER_ERROR
+    }
+
+    /**
+     * Decoded EVENTS frame
+     */
+    public record EventsFrame(long firstSequence, List<PbxCallRequest> events) {
+    }
+
+    /**
+     * Decode an EVENTS frame, rejecting frames with more than maxEvents events
+     *
+     * @throws IllegalArgumentException if the frame is malformed
+     */
+    public static EventsFrame decodeEvents(ByteBuffer frame, int maxEvents) {
+        try {
+            if (frame.get() != EVENTS) {
+                throw new IllegalArgumentException("Expected EVENTS frame");
+            }
+            long firstSequence = readVarLong(frame);
+            int count = (int) readVarLong(frame);
+            if (count < 0 || count > maxEvents) {
+                throw new IllegalArgumentException("Frame holds " + count + " events, limit is " + maxEvents);
+            }
+
+            List<PbxCallRequest> events = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int flags = frame.get() & 0xff;
+                PbxCallRequest request = new PbxCallRequest();
+                request.setPbxCallId(readString(frame));
+                request.setPhoneNumber(readString(frame));
+                request.setCallOwnerExtension(readString(frame));
+                if ((flags & FLAG_EMAIL) != 0) {
+                    request.setCallOwnerEmail(readString(frame));
+                }
+                if ((flags & FLAG_CALL_GROUP) != 0) {
+                    request.setCallGroupId(readString(frame));
+                }
+                if ((flags & FLAG_SOURCE) != 0) {
+                    request.setSourceId(readString(frame));
+                }
+                request.setCallDirection((flags & FLAG_OUTBOUND) != 0
+                        ? PbxCallRequest.CallDirection.OUTBOUND
+                        : PbxCallRequest.CallDirection.INBOUND);
+                request.setCallDuration((int) readVarLong(frame));
+                long endEpochMillis = readVarLong(frame);
+                int offsetSeconds = (int) zigzagDecode(readVarLong(frame));
+                request.setTimestamp(OffsetDateTime.ofInstant(Instant.ofEpochMilli(endEpochMillis),
+                        ZoneOffset.ofTotalSeconds(offsetSeconds)));
+                events.add(request);
+            }
+            if (frame.hasRemaining()) {
+                throw new IllegalArgumentException("Trailing bytes after " + count + " events");
+            }
+            return new EventsFrame(firstSequence, events);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated EVENTS frame", e);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid event timestamp", e);
+        }
+    }
+
+    /**
+     * Encode an EVENTS frame (used by tests and load tooling; the sideloader has its own encoder)
+     */
+    public static byte[] encodeEvents(long firstSequence, List<PbxCallRequest> events) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + events.size() * 96);
+        out.write(EVENTS);
+        writeVarLong(out, firstSequence);
+        writeVarLong(out, events.size());
+        for (PbxCallRequest event : events) {
+            int flags = (event.getCallOwnerEmail() != null ? FLAG_EMAIL : 0)
+                    | (event.getCallGroupId() != null ? FLAG_CALL_GROUP : 0)
+                    | (event.getSourceId() != null ? FLAG_SOURCE : 0)
+                    | (event.getCallDirection() == PbxCallRequest.CallDirection.OUTBOUND ? FLAG_OUTBOUND : 0);
+            out.write(flags);
+            writeString(out, event.getPbxCallId());
+            writeString(out, event.getPhoneNumber());
+            writeString(out, event.getCallOwnerExtension());
+            if (event.getCallOwnerEmail() != null) {
+                writeString(out, event.getCallOwnerEmail());
+            }
+            if (event.getCallGroupId() != null) {
+                writeString(out, event.getCallGroupId());
+            }
+            if (event.getSourceId() != null) {
+                writeString(out, event.getSourceId());
+            }
+            writeVarLong(out, event.getCallDuration());
+            writeVarLong(out, event.getTimestamp().toInstant().toEpochMilli());
+            writeVarLong(out, zigzagEncode(event.getTimestamp().getOffset().getTotalSeconds()));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Encode an ACK frame for the events starting at firstSequence, in batch result order
+     */
+    public static byte[] encodeAck(long firstSequence, PbxBatchResult result) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + result.getItems().size());
+        out.write(ACK);
+        writeVarLong(out, firstSequence);
+        writeVarLong(out, result.getItems().size());
+        for (PbxBatchResult.ItemResult item : result.getItems()) {
+            out.write(item.getStatus().ordinal());
+            if (item.getStatus() == PbxBatchResult.ItemStatus.INVALID) {
+                writeString(out, truncate(item.getError() != null ? item.getError() : "Invalid record"));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Encode a RETRY frame asking the client to resend count events starting at firstSequence
+     */
+    public static byte[] encodeRetry(long firstSequence, int count, RetryReason reason, long retryAfterSeconds) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16);
+        out.write(RETRY);
+        writeVarLong(out, firstSequence);
+        writeVarLong(out, count);
+        out.write(reason.ordinal());
+        writeVarLong(out, retryAfterSeconds);
+        return out.toByteArray();
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+
+    private static long zigzagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long zigzagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        long length = readVarLong(in);
+        if (length < 0 || length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("String field of " + length + " bytes exceeds limit");
+        }
+        byte[] bytes = new byte[(int) length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String truncate(String error) {
+        return error.length() > 200 ? error.substring(0, 200) : error;
+    }
+}
@@ -0,0 +1,97 @@
+package com.wai.callform.service;
+
+import com.wai.callform.dto.PbxSyncDigest;
+import com.wai.callform.dto.PbxSyncWatermark;
+import com.wai.callform.repository.PbxSyncJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lets a sideloader ask what the API already has, so after a restart it sends only the gaps
+ * instead of re-posting overlapping windows and relying on duplicate rejection.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class PbxSyncService {
+
+    static final Duration MAX_WINDOW = Duration.ofDays(31);
+    static final long MIN_BUCKET_SECONDS = 60;
+    static final int MAX_BUCKETS = 10_000;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final PbxSyncJdbcRepository pbxSyncJdbcRepository;
+
+    /**
+     * Latest CDR delivered by a source
+     */
+    public PbxSyncWatermark getWatermark(String sourceId) {
+        return pbxSyncJdbcRepository.findLatest(sourceId)
+                .map(latest -> new PbxSyncWatermark(sourceId, latest.pbxCallId(), latest.endTime()))
+                .orElseGet(() -> new PbxSyncWatermark(sourceId, null, null));
+    }
+
+    /**
+     * Per-bucket count and hash of the pbx_call_ids a source delivered in [from, to)
+     */
+    public PbxSyncDigest getDigest(String sourceId, OffsetDateTime from, OffsetDateTime to, long bucketSeconds) {
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("Window end must be after start");
+        }
+        if (Duration.between(from, to).compareTo(MAX_WINDOW) > 0) {
+            throw new IllegalArgumentException("Window must not exceed " + MAX_WINDOW.toDays() + " days");
+        }
+        if (bucketSeconds < MIN_BUCKET_SECONDS) {
+            throw new IllegalArgumentException("Bucket size must be at least " + MIN_BUCKET_SECONDS + " seconds");
+        }
+        long bucketMillis = bucketSeconds * 1000;
+        long fromMillis = from.toInstant().toEpochMilli();
+        long windowMillis = to.toInstant().toEpochMilli() - fromMillis;
+        int bucketCount = (int) Math.min(Integer.MAX_VALUE, (windowMillis + bucketMillis - 1) / bucketMillis);
+        if (bucketCount > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Window and bucket size give more than " + MAX_BUCKETS + " buckets");
+        }
+
+        long[] counts = new long[bucketCount];
+        long[] hashes = new long[bucketCount];
+        pbxSyncJdbcRepository.forEachInWindow(sourceId, from, to, (pbxCallId, endTimeMillis) -> {
+            int index = (int) ((endTimeMillis - fromMillis) / bucketMillis);
+            counts[index]++;
+            hashes[index] ^= fnv1a64(pbxCallId);
+        });
+
+        List<PbxSyncDigest.Bucket> buckets = new ArrayList<>();
+        long total = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            if (counts[i] > 0) {
+                buckets.add(new PbxSyncDigest.Bucket(i, counts[i], String.format("%016x", hashes[i])));
+                total += counts[i];
+            }
+        }
+        log.debug("PBX sync digest for source {}: {} calls in {} buckets", sourceId, total, buckets.size());
+        return new PbxSyncDigest(sourceId, from, to, bucketSeconds, total, buckets);
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes of a pbx_call_id (mirrored by the sideloader)
+     */
+    static long fnv1a64(String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
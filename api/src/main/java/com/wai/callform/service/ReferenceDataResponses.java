@@ -0,0 +1,163 @@
+package com.wai.callform.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wai.callform.dto.SubjectEntityDto;
+import com.wai.callform.dto.TaskEntityDto;
+import com.wai.callform.dto.TaskSubjectSummary;
+import com.wai.callform.dto.TypeaheadMatch;
+import com.wai.callform.repository.TaskSubjectGraphJdbcRepository.Row;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Reference data responses precomputed from one TaskSubjectSnapshot: the task and subject DTOs
+ * (nested references list active rows only, in display order) and the serialized JSON of the
+ * list and summary endpoints, and typeahead indexes over active task and subject names. Built once
+ * per snapshot version; the DTOs must be treated as read-only.
+ */
+public final class ReferenceDataResponses {
+
+    private final TaskSubjectSnapshot snapshot;
+    private final Map<UUID, TaskEntityDto> tasksById = new HashMap<>();
+    private final Map<UUID, SubjectEntityDto> subjectsById = new HashMap<>();
+    private final List<TaskEntityDto> activeTasks;
+    private final List<SubjectEntityDto> activeSubjects;
+    private final byte[] activeTasksJson;
+    private final byte[] activeSubjectsJson;
+    private final byte[] summaryJson;
+    private final TypeaheadIndex taskTypeahead;
+    private final TypeaheadIndex subjectTypeahead;
+
+    ReferenceDataResponses(TaskSubjectSnapshot snapshot, ObjectMapper objectMapper) {
+        this.snapshot = snapshot;
+        snapshot.tasks().forEach(task -> tasksById.put(task.id(), toTaskDto(task)));
+        snapshot.subjects().forEach(subject -> subjectsById.put(subject.id(), toSubjectDto(subject)));
+        this.activeTasks = snapshot.tasks().stream().filter(Row::active).map(task -> tasksById.get(task.id())).toList();
+        this.activeSubjects = snapshot.subjects().stream().filter(Row::active)
+                .map(subject -> subjectsById.get(subject.id())).toList();
+
+        this.taskTypeahead = new TypeaheadIndex(snapshot.tasks().stream().filter(Row::active).toList());
+        this.subjectTypeahead = new TypeaheadIndex(snapshot.subjects().stream().filter(Row::active).toList());
+
+        long totalRelationships = activeTasks.stream().mapToLong(TaskEntityDto::getSubjectCount).sum();
+        TaskSubjectSummary summary = new TaskSubjectSummary(activeTasks.size(), activeSubjects.size(),
+                totalRelationships, activeTasks, activeSubjects);
+        try {
+            this.activeTasksJson = objectMapper.writeValueAsBytes(activeTasks);
+            this.activeSubjectsJson = objectMapper.writeValueAsBytes(activeSubjects);
+            this.summaryJson = objectMapper.writeValueAsBytes(summary);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize reference data", e);
+        }
+    }
+
+    public long version() {
+        return snapshot.version();
+    }
+
+    public List<TaskEntityDto> activeTasks() {
+        return activeTasks;
+    }
+
+    public List<SubjectEntityDto> activeSubjects() {
+        return activeSubjects;
+    }
+
+    /**
+     * Any task (active or not) by id
+     */
+    public Optional<TaskEntityDto> task(UUID taskId) {
+        return Optional.ofNullable(tasksById.get(taskId));
+    }
+
+    /**
+     * Active subjects linked to a task, in display order
+     */
+    public List<SubjectEntityDto> activeSubjectsOf(UUID taskId) {
+        return snapshot.subjectsOf(taskId).stream()
+                .filter(Row::active)
+                .map(subject -> subjectsById.get(subject.id()))
+                .toList();
+    }
+
+    /**
+     * Active tasks whose name matches query, best first
+     */
+    public List<TypeaheadMatch> searchTasks(String query, int limit) {
+        return taskTypeahead.search(query, limit, task -> true);
+    }
+
+    /**
+     * Active subjects whose name matches query, best first; only those linked to taskId if given
+     */
+    public List<TypeaheadMatch> searchSubjects(String query, UUID taskId, int limit) {
+        return subjectTypeahead.search(query, limit,
+                taskId == null ? subject -> true : subject -> snapshot.isSubjectValidForTask(taskId, subject.id()));
+    }
+
+    public byte[] activeTasksJson() {
+        return activeTasksJson;
+    }
+
+    public byte[] activeSubjectsJson() {
+        return activeSubjectsJson;
+    }
+
+    public byte[] summaryJson() {
+        return summaryJson;
+    }
+
+    private TaskEntityDto toTaskDto(Row task) {
+        Set<TaskEntityDto.SubjectReferenceDto> subjectRefs = snapshot.subjectsOf(task.id()).stream()
+                .filter(Row::active)
+                .map(subject -> TaskEntityDto.SubjectReferenceDto.builder()
+                        .id(subject.id())
+                        .name(subject.name())
+                        .sortOrder(subject.sortOrder())
+                        .build())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        return TaskEntityDto.builder()
+                .id(task.id())
+                .name(task.name())
+                .isActive(task.active())
+                .sortOrder(task.sortOrder())
+                .createdAt(task.createdAt())
+                .updatedAt(task.updatedAt())
+                .subjects(subjectRefs)
+                .subjectCount(subjectRefs.size())
+                .hasSubjects(!subjectRefs.isEmpty())
+                .build();
+    }
+
+    private SubjectEntityDto toSubjectDto(Row subject) {
+        Set<SubjectEntityDto.TaskReferenceDto> taskRefs = snapshot.tasksOf(subject.id()).stream()
+                .filter(Row::active)
+                .map(task -> SubjectEntityDto.TaskReferenceDto.builder()
+                        .id(task.id())
+                        .name(task.name())
+                        .sortOrder(task.sortOrder())
+                        .build())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        return SubjectEntityDto.builder()
+                .id(subject.id())
+                .name(subject.name())
+                .isActive(subject.active())
+                .sortOrder(subject.sortOrder())
+                .createdAt(subject.createdAt())
+                .updatedAt(subject.updatedAt())
+                .tasks(taskRefs)
+                .taskCount(taskRefs.size())
+                .isAssignedToTasks(!taskRefs.isEmpty())
+                .build();
+    }
+}
@@ -0,0 +1,221 @@
+package com.wai.callform.service;
+
+import com.wai.callform.entity.ReportRun;
+import com.wai.callform.repository.ReportRunRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Lease bookkeeping for async report processing.
+ * A worker holds a time-limited lease on each RUNNING report and renews it on a heartbeat.
+ * If a node dies mid-run its leases lapse, and the reaper returns those reports to PENDING
+ * with an exponential backoff so another worker can pick them up.
+ */
+@Service
+@Slf4j
+@Transactional
+public class ReportLeaseService {
+
+    private final ReportRunRepository reportRunRepository;
+    private final String workerId;
+    private final Duration leaseDuration;
+    private final int maxAttempts;
+    private final Duration backoffBase;
+    private final Duration backoffMax;
+
+    // Reports this node is currently processing; renewed together on each heartbeat
+    private final Set<UUID> heldLeases = ConcurrentHashMap.newKeySet();
+    // Reports a heartbeat found reassigned while this node was still running them
+    private final Set<UUID> lostLeases = ConcurrentHashMap.newKeySet();
+
+    public ReportLeaseService(ReportRunRepository reportRunRepository,
+                              @Value("${callform.reports.lease.duration-seconds:60}") long leaseSeconds,
+                              @Value("${callform.reports.retry.max-attempts:3}") int maxAttempts,
+                              @Value("${callform.reports.retry.backoff-base-seconds:30}") long backoffBaseSeconds,
+                              @Value("${callform.reports.retry.backoff-max-seconds:900}") long backoffMaxSeconds) {
+        this.reportRunRepository = reportRunRepository;
+        this.workerId = resolveWorkerId();
+        this.leaseDuration = Duration.ofSeconds(leaseSeconds);
+        this.maxAttempts = maxAttempts;
+        this.backoffBase = Duration.ofSeconds(backoffBaseSeconds);
+        this.backoffMax = Duration.ofSeconds(backoffMaxSeconds);
+    }
+
+    /**
+     * Claim a specific pending report for this worker
+     */
+    public ReportRun claim(UUID reportId) {
+        ReportRun reportRun = reportRunRepository.findById(reportId)
+                .orElseThrow(() -> new IllegalArgumentException("Report not found"));
+
+        if (reportRun.getStatus() != ReportRun.ReportStatus.PENDING) {
+            throw new IllegalStateException("Report is not in pending status");
+        }
+
+        return acquire(reportRun);
+    }
+
+    /**
+     * Claim the oldest pending report that is ready to run, skipping rows other workers have locked
+     */
+    public Optional<ReportRun> claimNextReady() {
+        return reportRunRepository.findReadyPendingReportsForUpdate(OffsetDateTime.now(), PageRequest.of(0, 1))
+                .stream()
+                .findFirst()
+                .map(this::acquire);
+    }
+
+    /**
+     * Record a successful run and release the lease.
+     * Empty if the lease was lost (the reaper handed the report to another worker); the result is discarded.
+     */
+    public Optional<ReportRun> complete(UUID reportId, String resultUrl) {
+        return finish(reportId, ReportRun.ReportStatus.COMPLETED, resultUrl, null);
+    }
+
+    /**
+     * Record a failed run and release the lease; empty if the lease was lost
+     */
+    public Optional<ReportRun> fail(UUID reportId, String errorMessage) {
+        return finish(reportId, ReportRun.ReportStatus.FAILED, null, errorMessage);
+    }
+
+    /**
+     * Whether a heartbeat found that another worker has taken over this report
+     */
+    public boolean isLeaseLost(UUID reportId) {
+        return lostLeases.contains(reportId);
+    }
+
+    /**
+     * Forget a report whose lease was lost without touching its row, which now belongs to another worker
+     */
+    public void abandon(UUID reportId) {
+        heldLeases.remove(reportId);
+        lostLeases.remove(reportId);
+    }
+
+    /**
+     * Heartbeat: extend every lease this node still holds in a single update.
+     * Leases that were not renewed have been reaped; they are dropped and flagged so the run stops.
+     */
+    @Scheduled(fixedDelayString = "${callform.reports.lease.heartbeat-interval-ms:20000}")
+    public void renewHeldLeases() {
+        if (heldLeases.isEmpty()) {
+            return;
+        }
+
+        Set<UUID> held = Set.copyOf(heldLeases);
+        int renewed = reportRunRepository.renewLeases(held, workerId, OffsetDateTime.now().plus(leaseDuration));
+        log.debug("Renewed {} of {} report leases for worker {}", renewed, held.size(), workerId);
+        if (renewed == held.size()) {
+            return;
+        }
+
+        Set<UUID> stillHeld = Set.copyOf(reportRunRepository.findLeasedIds(held, workerId));
+        for (UUID reportId : held) {
+            if (!stillHeld.contains(reportId) && heldLeases.remove(reportId)) {
+                lostLeases.add(reportId);
+                log.warn("Worker {} lost its lease on report {}; abandoning the run", workerId, reportId);
+            }
+        }
+    }
+
+    /**
+     * Reaper: return reports with lapsed leases to the queue, or fail them once retries are exhausted
+     */
+    @Scheduled(fixedDelayString = "${callform.reports.lease.reaper-interval-ms:30000}")
+    public void reapExpiredLeases() {
+        OffsetDateTime now = OffsetDateTime.now();
+
+        List<ReportRun> expired = reportRunRepository.findExpiredLeasesForUpdate(now);
+
+        // Reports started before leases existed never got one; treat them as expired once they exceed a lease
+        List<ReportRun> unleased = reportRunRepository.findUnleasedStuckReportsForUpdate(now.minus(leaseDuration));
+
+        if (expired.isEmpty() && unleased.isEmpty()) {
+            return;
+        }
+
+        for (ReportRun reportRun : concat(expired, unleased)) {
+            int attempts = reportRun.getRetryCount() + 1;
+            if (attempts >= maxAttempts) {
+                log.warn("Report {} lease expired (worker {}), giving up after {} attempts",
+                        reportRun.getId(), reportRun.getLeasedBy(), attempts);
+                reportRun.markAsFailed("Worker lease expired after " + attempts + " attempts");
+            } else {
+                OffsetDateTime nextAttemptAt = now.plus(backoffFor(reportRun.getRetryCount()));
+                log.warn("Report {} lease expired (worker {}), returning to queue; next attempt at {}",
+                        reportRun.getId(), reportRun.getLeasedBy(), nextAttemptAt);
+                reportRun.returnToQueue(nextAttemptAt);
+            }
+            reportRunRepository.save(reportRun);
+        }
+    }
+
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    private ReportRun acquire(ReportRun reportRun) {
+        reportRun.acquireLease(workerId, OffsetDateTime.now().plus(leaseDuration));
+        ReportRun saved = reportRunRepository.save(reportRun);
+        lostLeases.remove(saved.getId());
+        heldLeases.add(saved.getId());
+        log.info("Worker {} leased report {} (attempt {})", workerId, saved.getId(), saved.getRetryCount() + 1);
+        return saved;
+    }
+
+    private Optional<ReportRun> finish(UUID reportId, ReportRun.ReportStatus status, String resultUrl,
+                                       String errorMessage) {
+        heldLeases.remove(reportId);
+        lostLeases.remove(reportId);
+        int updated = reportRunRepository.finishLeased(reportId, workerId, status, resultUrl, errorMessage,
+                OffsetDateTime.now());
+        if (updated == 0) {
+            log.warn("Worker {} no longer holds the lease on report {}; discarding its {} result",
+                    workerId, reportId, status);
+            return Optional.empty();
+        }
+        return reportRunRepository.findById(reportId);
+    }
+
+    /**
+     * Exponential backoff: base * 2^retries, capped at the configured maximum
+     */
+    Duration backoffFor(int retryCount) {
+        Duration backoff = backoffBase.multipliedBy(1L << Math.min(retryCount, 20));
+        return backoff.compareTo(backoffMax) > 0 ? backoffMax : backoff;
+    }
+
+    private static List<ReportRun> concat(List<ReportRun> first, List<ReportRun> second) {
+        if (second.isEmpty()) {
+            return first;
+        }
+        return Stream.concat(first.stream(), second.stream()).toList();
+    }
+
+    private static String resolveWorkerId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown-host";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
@@ -34,6 +35,7 @@ public class ReportService {
     private final ReportRunRepository reportRunRepository;
     private final CallEntryRepository callEntryRepository;
     private final CallEntryService callEntryService;
+    private final ReportLeaseService reportLeaseService;
 
     /**
      * Generate a live report (immediate response)
@@ -94,9 +96,7 @@ public class ReportService {
         ReportRun savedReport = reportRunRepository.save(reportRun);
         log.info("Queued async report with ID: {}", savedReport.getId());
 
-        // For production: implement background processing with Spring @Async or message
-        // queue
-        // Current implementation: synchronous processing for simplicity
+        // Picked up by ReportWorker once committed; the lease/reaper cycle handles crashed workers
 
         return mapReportToDto(savedReport);
     }
@@ -130,23 +130,23 @@ public class ReportService {
 
     /**
      * Simulate processing a pending report (for development/testing)
+     * Claims a lease on the report first so the reaper can reclaim it if this node dies mid-run.
      */
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ReportRunDto processReport(UUID reportId) {
         log.info("Processing report ID: {}", reportId);
+        return runClaimedReport(reportLeaseService.claim(reportId));
+    }
 
-        ReportRun reportRun = reportRunRepository.findById(reportId)
-                .orElseThrow(() -> new IllegalArgumentException("Report not found"));
-
-        if (reportRun.getStatus() != ReportRun.ReportStatus.PENDING) {
-            throw new IllegalStateException("Report is not in pending status");
-        }
+    /**
+     * Run a report this worker already holds a lease on.
+     * Runs outside a transaction so the lease claim and heartbeats are visible to other nodes.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ReportRunDto runClaimedReport(ReportRun reportRun) {
+        UUID reportId = reportRun.getId();
 
         try {
-            // Mark as started
-            reportRun.markAsStarted();
-            reportRunRepository.save(reportRun);
-
             // Simulate processing time
             Thread.sleep(1000);
 
@@ -163,17 +163,24 @@ public class ReportService {
             // Current implementation: store result URL for download
             String resultUrl = "/api/reports/" + reportId + "/download";
 
-            reportRun.markAsCompleted(resultUrl);
-            ReportRun savedReport = reportRunRepository.save(reportRun);
+            if (reportLeaseService.isLeaseLost(reportId)) {
+                log.warn("Dropping output of report ID: {}, its lease was reassigned", reportId);
+                reportLeaseService.abandon(reportId);
+                return getReportStatus(reportId);
+            }
 
-            log.info("Completed processing report ID: {}", reportId);
-            return mapReportToDto(savedReport);
+            return reportLeaseService.complete(reportId, resultUrl)
+                    .map(savedReport -> {
+                        log.info("Completed processing report ID: {}", reportId);
+                        return mapReportToDto(savedReport);
+                    })
+                    .orElseGet(() -> getReportStatus(reportId));
 
         } catch (Exception e) {
             log.error("Failed to process report ID: {}", reportId, e);
-            reportRun.markAsFailed(e.getMessage());
-            reportRunRepository.save(reportRun);
-            return mapReportToDto(reportRun);
+            return reportLeaseService.fail(reportId, e.getMessage())
+                    .map(this::mapReportToDto)
+                    .orElseGet(() -> getReportStatus(reportId));
         }
     }
 
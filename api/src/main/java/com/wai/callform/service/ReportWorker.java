@@ -0,0 +1,38 @@
+package com.wai.callform.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Background worker that drains the async report queue.
+ * Each node claims ready reports through ReportLeaseService, so work returned to PENDING
+ * by the lease reaper is redistributed to whichever node polls next.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(prefix = "callform.reports.worker", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ReportWorker {
+
+    private final ReportLeaseService reportLeaseService;
+    private final ReportService reportService;
+
+    /**
+     * Poll for pending reports and run them one at a time until the queue is empty
+     */
+    @Scheduled(fixedDelayString = "${callform.reports.worker.poll-interval-ms:5000}")
+    public void pollPendingReports() {
+        try {
+            var next = reportLeaseService.claimNextReady();
+            while (next.isPresent()) {
+                reportService.runClaimedReport(next.get());
+                next = reportLeaseService.claimNextReady();
+            }
+        } catch (Exception e) {
+            log.error("Report worker poll failed", e);
+        }
+    }
+}
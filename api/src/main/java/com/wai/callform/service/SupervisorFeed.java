@@ -0,0 +1,284 @@
+package com.wai.callform.service;
+
+import com.wai.callform.dto.PendingBacklogUpdate;
+import com.wai.callform.dto.PendingPbxCountView;
+import com.wai.callform.dto.SupervisorFeedSnapshot;
+import com.wai.callform.event.CacheInvalidationEvent;
+import com.wai.callform.event.CallGroupAlertEvent;
+import com.wai.callform.event.PendingPbxCallsEvent;
+import com.wai.callform.repository.CallEntryRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Server-sent event feed for supervisor screens.
+ * Each subscriber first gets a "snapshot" event (active alerts and the pending PBX backlog per tech)
+ * and then deltas: "alert-raised", "alert-resolved" and "pending-backlog". All state is held in
+ * memory and kept current from committed changes, so connected screens cost no database queries;
+ * a reconcile folds in calls classified on other API nodes as they announce them, and periodically
+ * anything else (such as PBX ingest elsewhere).
+ * Events are only queued on the publishing thread; a small sender pool writes them to the sockets.
+ * A subscriber whose queue fills up is disconnected and gets a fresh snapshot when it reconnects.
+ */
+@Component
+@Slf4j
+public class SupervisorFeed {
+
+    private final CallGroupAlertService callGroupAlertService;
+    private final CallEntryRepository callEntryRepository;
+    private final long emitterTimeoutMs;
+    private final int maxQueuedEvents;
+    private final Executor sender;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    // Guards pendingByUser and orders snapshots before deltas for new subscribers
+    private final Object lock = new Object();
+    private final Map<String, Long> pendingByUser = new HashMap<>();
+
+    @Autowired
+    public SupervisorFeed(CallGroupAlertService callGroupAlertService,
+                          CallEntryRepository callEntryRepository,
+                          @Value("${callform.supervisor.feed.timeout-ms:1800000}") long emitterTimeoutMs,
+                          @Value("${callform.supervisor.feed.max-queued-events:256}") int maxQueuedEvents,
+                          @Value("${callform.supervisor.feed.sender-threads:2}") int senderThreads) {
+        this(callGroupAlertService, callEntryRepository, emitterTimeoutMs, maxQueuedEvents,
+                Executors.newFixedThreadPool(senderThreads, runnable -> {
+                    Thread thread = new Thread(runnable, "supervisor-feed-sender");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    SupervisorFeed(CallGroupAlertService callGroupAlertService, CallEntryRepository callEntryRepository,
+                   long emitterTimeoutMs, int maxQueuedEvents, Executor sender) {
+        this.callGroupAlertService = callGroupAlertService;
+        this.callEntryRepository = callEntryRepository;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.maxQueuedEvents = maxQueuedEvents;
+        this.sender = sender;
+    }
+
+    /**
+     * Open a feed: sends the snapshot, then every delta until the client disconnects or times out
+     * (EventSource reconnects on its own and receives a fresh snapshot)
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+
+        synchronized (lock) {
+            SupervisorFeedSnapshot snapshot = new SupervisorFeedSnapshot(
+                    callGroupAlertService.getCachedActiveAlerts(), total(), Map.copyOf(pendingByUser));
+            subscriber.enqueue(new FeedEvent("snapshot", snapshot));
+            subscribers.add(subscriber);
+        }
+        log.debug("Supervisor feed subscribed ({} open)", subscribers.size());
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlert(CallGroupAlertEvent event) {
+        String name = event.type() == CallGroupAlertEvent.Type.RAISED ? "alert-raised" : "alert-resolved";
+        synchronized (lock) {
+            broadcast(name, event.alert());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPendingChanged(PendingPbxCallsEvent event) {
+        synchronized (lock) {
+            Map<String, Long> changed = new HashMap<>();
+            event.deltaByUser().forEach((email, delta) -> {
+                long count = Math.max(0, pendingByUser.getOrDefault(email, 0L) + delta);
+                if (count == 0) {
+                    pendingByUser.remove(email);
+                } else {
+                    pendingByUser.put(email, count);
+                }
+                changed.put(email, count);
+            });
+            if (!changed.isEmpty()) {
+                broadcast("pending-backlog", new PendingBacklogUpdate(total(), changed, false));
+            }
+        }
+    }
+
+    /**
+     * Reload backlog counts from the database, pushing a full update if they drifted
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${callform.supervisor.feed.reconcile-interval-ms:300000}",
+            initialDelayString = "${callform.supervisor.feed.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        Map<String, Long> counts = new HashMap<>();
+        for (PendingPbxCountView row : callEntryRepository.countPendingPbxCallsByUser()) {
+            counts.put(row.getDatatechEmail(), row.getPendingCount());
+        }
+        synchronized (lock) {
+            if (counts.equals(pendingByUser)) {
+                return;
+            }
+            pendingByUser.clear();
+            pendingByUser.putAll(counts);
+            broadcast("pending-backlog", new PendingBacklogUpdate(total(), Map.copyOf(counts), true));
+        }
+        log.debug("Supervisor feed backlog reconciled: {} techs with pending calls", counts.size());
+    }
+
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (event.remote() && event.type() == CacheInvalidationEvent.Type.PENDING_BACKLOG) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Keep idle connections open through proxies
+     */
+    @Scheduled(fixedDelayString = "${callform.supervisor.feed.heartbeat-interval-ms:20000}")
+    public void heartbeat() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        synchronized (lock) {
+            broadcast(null, null);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (sender instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    Map<String, Long> pendingByUser() {
+        synchronized (lock) {
+            return Map.copyOf(pendingByUser);
+        }
+    }
+
+    private long total() {
+        return pendingByUser.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Queue an event for every subscriber (a null name is a heartbeat comment); never blocks on I/O
+     */
+    private void broadcast(String name, Object data) {
+        FeedEvent event = new FeedEvent(name, data);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.enqueue(event);
+        }
+    }
+
+    private record FeedEvent(String name, Object data) {
+    }
+
+    /**
+     * One connected screen: a bounded queue of events drained by at most one sender task at a time
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Deque<FeedEvent> queue = new ArrayDeque<>();
+        private boolean draining;
+        private boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void enqueue(FeedEvent event) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (queue.size() >= maxQueuedEvents) {
+                    // Too slow to keep up; it resyncs from a fresh snapshot when EventSource reconnects
+                    log.warn("Disconnecting slow supervisor feed subscriber ({} events queued)", queue.size());
+                    closed = true;
+                    queue.clear();
+                } else {
+                    queue.add(event);
+                    if (draining) {
+                        return;
+                    }
+                    draining = true;
+                }
+            }
+            if (closed) {
+                close();
+                return;
+            }
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                close();
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                FeedEvent event;
+                synchronized (this) {
+                    event = queue.poll();
+                    if (event == null || closed) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(event.name() == null
+                            ? SseEmitter.event().comment("heartbeat")
+                            : SseEmitter.event().name(event.name()).data(event.data()));
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away; the container completes the emitter
+                    synchronized (this) {
+                        closed = true;
+                        queue.clear();
+                        draining = false;
+                    }
+                    subscribers.remove(this);
+                    return;
+                }
+            }
+        }
+
+        private void close() {
+            subscribers.remove(this);
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                // Already completed
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.wai.callform.service;
+
+import com.wai.callform.dto.TaskSubjectGraphDocument;
+import com.wai.callform.dto.TaskSubjectImportResult;
+import com.wai.callform.repository.TaskSubjectGraphJdbcRepository.Graph;
+import com.wai.callform.repository.TaskSubjectGraphJdbcRepository.Relationship;
+import com.wai.callform.repository.TaskSubjectGraphJdbcRepository.Row;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The row changes that turn the current task/subject graph into an imported document.
+ * Tasks and subjects are matched by case-insensitive name; new ones get fresh ids, and existing ones
+ * are only updated if their name, active flag or sort order differ. Each listed task's relationships
+ * become exactly its subject list. Tasks left out of the document keep their rows and relationships,
+ * unless the document asks to deactivate missing rows, in which case they also lose their relationships.
+ */
+final class TaskSubjectGraphDiff {
+
+    final List<Row> taskInserts = new ArrayList<>();
+    final List<Row> taskUpdates = new ArrayList<>();
+    final List<Row> subjectInserts = new ArrayList<>();
+    final List<Row> subjectUpdates = new ArrayList<>();
+    final List<Relationship> relationshipInserts = new ArrayList<>();
+    final List<Relationship> relationshipDeletes = new ArrayList<>();
+    private int tasksDeactivated;
+    private int subjectsDeactivated;
+    // Rows deactivated by the last diffRows call
+    private int deactivated;
+
+    private TaskSubjectGraphDiff() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the document names a task or subject twice, or a task lists
+     *                                  a subject the document does not define
+     */
+    static TaskSubjectGraphDiff of(Graph current, TaskSubjectGraphDocument document) {
+        TaskSubjectGraphDiff diff = new TaskSubjectGraphDiff();
+
+        Map<String, UUID> subjectIds = diff.diffRows("subject", current.subjects(),
+                document.getSubjects().stream()
+                        .map(subject -> new Wanted(subject.getName(), subject.getIsActive(), subject.getSortOrder()))
+                        .toList(),
+                document.isDeactivateMissing(), diff.subjectInserts, diff.subjectUpdates);
+        diff.subjectsDeactivated = diff.deactivated;
+
+        Map<String, UUID> taskIds = diff.diffRows("task", current.tasks(),
+                document.getTasks().stream()
+                        .map(task -> new Wanted(task.getName(), task.getIsActive(), task.getSortOrder()))
+                        .toList(),
+                document.isDeactivateMissing(), diff.taskInserts, diff.taskUpdates);
+        diff.tasksDeactivated = diff.deactivated;
+
+        Map<UUID, Set<UUID>> currentSubjectsByTask = new HashMap<>();
+        for (Relationship relationship : current.relationships()) {
+            currentSubjectsByTask.computeIfAbsent(relationship.taskId(), task -> new HashSet<>())
+                    .add(relationship.subjectId());
+        }
+        for (TaskSubjectGraphDocument.TaskNode task : document.getTasks()) {
+            UUID taskId = taskIds.get(key(task.getName()));
+            Set<UUID> wanted = new LinkedHashSet<>();
+            for (String subjectName : task.getSubjects()) {
+                UUID subjectId = subjectName != null ? subjectIds.get(key(subjectName)) : null;
+                if (subjectId == null) {
+                    throw new IllegalArgumentException(
+                            "Task \"" + task.getName() + "\" lists unknown subject: " + subjectName);
+                }
+                wanted.add(subjectId);
+            }
+            Set<UUID> existing = currentSubjectsByTask.getOrDefault(taskId, Set.of());
+            wanted.stream()
+                    .filter(subjectId -> !existing.contains(subjectId))
+                    .forEach(subjectId -> diff.relationshipInserts.add(new Relationship(taskId, subjectId)));
+            existing.stream()
+                    .filter(subjectId -> !wanted.contains(subjectId))
+                    .forEach(subjectId -> diff.relationshipDeletes.add(new Relationship(taskId, subjectId)));
+        }
+        if (document.isDeactivateMissing()) {
+            Set<UUID> listedTasks = new HashSet<>(taskIds.values());
+            current.relationships().stream()
+                    .filter(relationship -> !listedTasks.contains(relationship.taskId()))
+                    .forEach(diff.relationshipDeletes::add);
+        }
+        return diff;
+    }
+
+    boolean isEmpty() {
+        return taskInserts.isEmpty() && taskUpdates.isEmpty() && subjectInserts.isEmpty() && subjectUpdates.isEmpty()
+                && relationshipInserts.isEmpty() && relationshipDeletes.isEmpty();
+    }
+
+    TaskSubjectImportResult toResult(boolean applied, long version) {
+        return new TaskSubjectImportResult(applied,
+                taskInserts.size(), taskUpdates.size() - tasksDeactivated, tasksDeactivated,
+                subjectInserts.size(), subjectUpdates.size() - subjectsDeactivated, subjectsDeactivated,
+                relationshipInserts.size(), relationshipDeletes.size(), version);
+    }
+
+    /**
+     * Diff one kind of row, returning the id of every row the document names, by key
+     */
+    private Map<String, UUID> diffRows(String kind, List<Row> existing, List<Wanted> wanted, boolean deactivateMissing,
+                                       List<Row> inserts, List<Row> updates) {
+        Map<String, Row> existingByKey = new HashMap<>();
+        existing.forEach(row -> existingByKey.put(key(row.name()), row));
+
+        Map<String, UUID> ids = new HashMap<>();
+        for (int i = 0; i < wanted.size(); i++) {
+            Wanted row = wanted.get(i);
+            String key = key(row.name());
+            if (ids.containsKey(key)) {
+                throw new IllegalArgumentException("Duplicate " + kind + " in document: " + row.name());
+            }
+            boolean active = row.active() == null || row.active();
+            Row current = existingByKey.get(key);
+            if (current == null) {
+                UUID id = UUID.randomUUID();
+                inserts.add(new Row(id, row.name().trim(), active,
+                        row.sortOrder() != null ? row.sortOrder() : (i + 1) * 10, null, null));
+                ids.put(key, id);
+                continue;
+            }
+            Integer sortOrder = row.sortOrder() != null ? row.sortOrder() : current.sortOrder();
+            if (!current.name().equals(row.name().trim()) || current.active() != active
+                    || !Objects.equals(current.sortOrder(), sortOrder)) {
+                updates.add(new Row(current.id(), row.name().trim(), active, sortOrder, null, null));
+            }
+            ids.put(key, current.id());
+        }
+
+        deactivated = 0;
+        if (deactivateMissing) {
+            for (Row row : existing) {
+                if (row.active() && !ids.containsKey(key(row.name()))) {
+                    updates.add(new Row(row.id(), row.name(), false, row.sortOrder(), null, null));
+                    deactivated++;
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Wanted(String name, Boolean active, Integer sortOrder) {
+    }
+}
@@ -0,0 +1,76 @@
+package com.wai.callform.service;
+
+import com.wai.callform.dto.TaskSubjectGraphDocument;
+import com.wai.callform.dto.TaskSubjectImportResult;
+import com.wai.callform.event.CacheInvalidationEvent;
+import com.wai.callform.repository.TaskSubjectGraphJdbcRepository;
+import com.wai.callform.repository.TaskSubjectGraphJdbcRepository.Graph;
+import com.wai.callform.repository.TaskSubjectGraphJdbcRepository.Row;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Bulk export and import of the task/subject graph (admin maintenance).
+ * An import is diffed against the current graph and applied in one transaction with one statement
+ * per kind of change, so the reference data version moves exactly once (or not at all if nothing
+ * changed) and every node reloads its snapshot once.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class TaskSubjectImportService {
+
+    private final TaskSubjectGraphJdbcRepository graphRepository;
+    private final TaskSubjectService taskSubjectService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * The current graph as an import document (from the in-memory snapshot)
+     */
+    public TaskSubjectGraphDocument exportGraph() {
+        TaskSubjectSnapshot snapshot = taskSubjectService.getSnapshot();
+        List<TaskSubjectGraphDocument.TaskNode> tasks = snapshot.tasks().stream()
+                .map(task -> new TaskSubjectGraphDocument.TaskNode(task.name(), task.active(), task.sortOrder(),
+                        snapshot.subjectsOf(task.id()).stream().map(Row::name).toList()))
+                .toList();
+        List<TaskSubjectGraphDocument.SubjectNode> subjects = snapshot.subjects().stream()
+                .map(subject -> new TaskSubjectGraphDocument.SubjectNode(subject.name(), subject.active(),
+                        subject.sortOrder()))
+                .toList();
+        return new TaskSubjectGraphDocument(tasks, subjects, true);
+    }
+
+    /**
+     * Make the graph match the document; with dryRun, only report what would change
+     *
+     * @throws IllegalArgumentException if the document is inconsistent (see TaskSubjectGraphDiff)
+     */
+    @Transactional
+    public TaskSubjectImportResult importGraph(TaskSubjectGraphDocument document, boolean dryRun) {
+        graphRepository.lockVersion();
+        Graph current = graphRepository.load();
+        TaskSubjectGraphDiff diff = TaskSubjectGraphDiff.of(current, document);
+        if (dryRun || diff.isEmpty()) {
+            return diff.toResult(false, current.version());
+        }
+
+        graphRepository.insertSubjects(diff.subjectInserts);
+        graphRepository.updateSubjects(diff.subjectUpdates);
+        graphRepository.insertTasks(diff.taskInserts);
+        graphRepository.updateTasks(diff.taskUpdates);
+        graphRepository.deleteRelationships(diff.relationshipDeletes);
+        graphRepository.insertRelationships(diff.relationshipInserts);
+
+        TaskSubjectImportResult result = diff.toResult(true, graphRepository.currentVersion());
+        log.info("Imported task/subject graph at version {}: {}", result.getVersion(), result);
+        eventPublisher.publishEvent(new CacheInvalidationEvent(CacheInvalidationEvent.Type.REFERENCE_DATA));
+        TransactionSupport.afterCommit(taskSubjectService::refreshSnapshot);
+        return result;
+    }
+}
@@ -1,24 +1,38 @@
 package com.wai.callform.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wai.callform.dto.SubjectEntityDto;
 import com.wai.callform.dto.TaskEntityDto;
+import com.wai.callform.dto.TypeaheadMatch;
 import com.wai.callform.entity.SubjectEntity;
 import com.wai.callform.entity.TaskEntity;
+import com.wai.callform.event.CacheInvalidationEvent;
 import com.wai.callform.repository.SubjectEntityRepository;
 import com.wai.callform.repository.TaskEntityRepository;
+import com.wai.callform.repository.TaskSubjectGraphJdbcRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 /**
  * Service for managing Tasks and Subjects and their relationships.
  * Handles all business logic for task-subject operations.
+ * Validation is answered from an immutable TaskSubjectSnapshot, swapped atomically after admin
+ * writes commit, when another node announces a change over the CacheInvalidationBus, and whenever
+ * the reference data version moves (the periodic check catches anything the bus missed).
+ * Snapshot-backed reads are SUPPORTS so they don't check out a connection for a transaction.
  */
 @Service
 @RequiredArgsConstructor
@@ -26,76 +40,145 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class TaskSubjectService {
 
+    static final int MAX_TYPEAHEAD_RESULTS = 50;
+
     private final TaskEntityRepository taskRepository;
     private final SubjectEntityRepository subjectRepository;
+    private final TaskSubjectGraphJdbcRepository graphRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicReference<TaskSubjectSnapshot> snapshot = new AtomicReference<>(TaskSubjectSnapshot.EMPTY);
+    private final AtomicReference<ReferenceDataResponses> responses = new AtomicReference<>();
+
+    /**
+     * Current snapshot of the task/subject graph (loaded on first use if startup has not yet)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public TaskSubjectSnapshot getSnapshot() {
+        TaskSubjectSnapshot current = snapshot.get();
+        return current.version() >= 0 ? current : loadSnapshot();
+    }
+
+    /**
+     * Reload the snapshot from the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void refreshSnapshot() {
+        loadSnapshot();
+    }
+
+    private TaskSubjectSnapshot loadSnapshot() {
+        TaskSubjectSnapshot loaded = new TaskSubjectSnapshot(graphRepository.load());
+        // Never replace a newer snapshot with one loaded concurrently from an older version
+        TaskSubjectSnapshot current = snapshot.accumulateAndGet(loaded,
+                (existing, candidate) -> candidate.version() >= existing.version() ? candidate : existing);
+        log.debug("Task/subject snapshot at version {}: {} tasks, {} subjects, {} relationships",
+                current.version(), current.tasks().size(), current.subjects().size(), current.relationshipCount());
+        return current;
+    }
+
+    /**
+     * Reload the snapshot if the reference data version has moved
+     */
+    @Scheduled(fixedDelayString = "${callform.reference.version-check-interval-ms:30000}",
+            initialDelayString = "${callform.reference.version-check-interval-ms:30000}")
+    public void refreshSnapshotIfChanged() {
+        if (graphRepository.currentVersion() != snapshot.get().version()) {
+            refreshSnapshot();
+        }
+    }
+
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (event.remote() && event.type() == CacheInvalidationEvent.Type.REFERENCE_DATA) {
+            refreshSnapshotIfChanged();
+        }
+    }
 
     /**
      * Get all active tasks with their associated subjects.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<TaskEntityDto> getAllActiveTasks() {
-        log.debug("Fetching all active tasks");
-        List<TaskEntity> tasks = taskRepository.findByIsActiveTrueOrderBySortOrderAscNameAsc();
-        return tasks.stream()
-                .map(this::convertToTaskDto)
-                .collect(Collectors.toList());
+        return getResponses().activeTasks();
     }
 
     /**
      * Get all active subjects.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<SubjectEntityDto> getAllActiveSubjects() {
-        log.debug("Fetching all active subjects");
-        List<SubjectEntity> subjects = subjectRepository.findByIsActiveTrueOrderBySortOrderAscNameAsc();
-        return subjects.stream()
-                .map(this::convertToSubjectDto)
-                .collect(Collectors.toList());
+        return getResponses().activeSubjects();
     }
 
     /**
      * Get subjects for a specific task.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<SubjectEntityDto> getSubjectsForTask(UUID taskId) {
         log.debug("Fetching subjects for task: {}", taskId);
-        
+        ReferenceDataResponses responses = getResponses();
+
         // First verify the task exists
-        TaskEntity task = taskRepository.findById(taskId)
+        responses.task(taskId)
                 .orElseThrow(() -> new IllegalArgumentException("Task not found: " + taskId));
-        
-        // Get subjects for this task
-        List<SubjectEntity> subjects = subjectRepository.findByTaskId(taskId);
-        return subjects.stream()
-                .map(this::convertToSubjectDto)
-                .collect(Collectors.toList());
+
+        return responses.activeSubjectsOf(taskId);
     }
 
     /**
      * Get a specific task with its subjects.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public TaskEntityDto getTaskById(UUID taskId) {
         log.debug("Fetching task by id: {}", taskId);
-        TaskEntity task = taskRepository.findByIdWithSubjects(taskId)
+        return getResponses().task(taskId)
                 .orElseThrow(() -> new IllegalArgumentException("Task not found: " + taskId));
-        return convertToTaskDto(task);
+    }
+
+    /**
+     * Precomputed reference data responses for the current snapshot (rebuilt once per version)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ReferenceDataResponses getResponses() {
+        TaskSubjectSnapshot current = getSnapshot();
+        ReferenceDataResponses cached = responses.get();
+        if (cached != null && cached.version() == current.version()) {
+            return cached;
+        }
+        ReferenceDataResponses built = new ReferenceDataResponses(current, objectMapper);
+        responses.set(built);
+        log.debug("Built reference data responses for version {}", built.version());
+        return built;
+    }
+
+    /**
+     * Active tasks matching a typeahead query, ranked (answered from an in-memory index).
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<TypeaheadMatch> searchTasks(String query, int limit) {
+        return getResponses().searchTasks(query, Math.min(limit, MAX_TYPEAHEAD_RESULTS));
+    }
+
+    /**
+     * Active subjects matching a typeahead query, ranked; restricted to a task's subjects if taskId is given.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<TypeaheadMatch> searchSubjects(String query, UUID taskId, int limit) {
+        return getResponses().searchSubjects(query, taskId, Math.min(limit, MAX_TYPEAHEAD_RESULTS));
     }
 
     /**
      * Check if a subject is valid for a given task.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public boolean isSubjectValidForTask(UUID taskId, UUID subjectId) {
         if (taskId == null || subjectId == null) {
             return false;
         }
         
-        TaskEntity task = taskRepository.findByIdWithSubjects(taskId)
-                .orElse(null);
-        
-        if (task == null) {
-            return false;
-        }
-        
-        // Check if the subject is in the task's subject set
-        return task.getSubjects().stream()
-                .anyMatch(subject -> subject.getId().equals(subjectId));
+        return getSnapshot().isSubjectValidForTask(taskId, subjectId);
     }
 
     /**
@@ -168,6 +251,8 @@ public class TaskSubjectService {
         task.setIsActive(true);
         
         task = taskRepository.save(task);
+        eventPublisher.publishEvent(new CacheInvalidationEvent(CacheInvalidationEvent.Type.REFERENCE_DATA));
+        TransactionSupport.afterCommit(this::refreshSnapshot);
         return convertToTaskDto(task);
     }
 
@@ -189,6 +274,8 @@ public class TaskSubjectService {
         subject.setIsActive(true);
         
         subject = subjectRepository.save(subject);
+        eventPublisher.publishEvent(new CacheInvalidationEvent(CacheInvalidationEvent.Type.REFERENCE_DATA));
+        TransactionSupport.afterCommit(this::refreshSnapshot);
         return convertToSubjectDto(subject);
     }
 }
\ No newline at end of file
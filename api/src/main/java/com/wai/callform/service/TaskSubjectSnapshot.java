@@ -0,0 +1,135 @@
+package com.wai.callform.service;
+
+import com.wai.callform.repository.TaskSubjectGraphJdbcRepository.Graph;
+import com.wai.callform.repository.TaskSubjectGraphJdbcRepository.Relationship;
+import com.wai.callform.repository.TaskSubjectGraphJdbcRepository.Row;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Immutable view of every task, subject and task-subject relationship at one reference data version.
+ * Tasks and subjects are numbered in display order (sort order, then name); relationships are kept as
+ * one bitset of subject numbers per task and one of task numbers per subject, so a validity check is a
+ * map lookup and a bit test.
+ */
+public final class TaskSubjectSnapshot {
+
+    static final TaskSubjectSnapshot EMPTY = new TaskSubjectSnapshot(new Graph(-1, List.of(), List.of(), List.of()));
+
+    private final long version;
+    private final Row[] tasks;
+    private final Row[] subjects;
+    private final Map<UUID, Integer> taskIndex;
+    private final Map<UUID, Integer> subjectIndex;
+    private final BitSet[] subjectsByTask;
+    private final BitSet[] tasksBySubject;
+
+    TaskSubjectSnapshot(Graph graph) {
+        this.version = graph.version();
+        this.tasks = graph.tasks().toArray(Row[]::new);
+        this.subjects = graph.subjects().toArray(Row[]::new);
+        this.taskIndex = index(tasks);
+        this.subjectIndex = index(subjects);
+        this.subjectsByTask = bitsets(tasks.length);
+        this.tasksBySubject = bitsets(subjects.length);
+        for (Relationship relationship : graph.relationships()) {
+            Integer task = taskIndex.get(relationship.taskId());
+            Integer subject = subjectIndex.get(relationship.subjectId());
+            if (task != null && subject != null) {
+                subjectsByTask[task].set(subject);
+                tasksBySubject[subject].set(task);
+            }
+        }
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Whether the subject is linked to the task (regardless of either being active)
+     */
+    public boolean isSubjectValidForTask(UUID taskId, UUID subjectId) {
+        Integer task = taskIndex.get(taskId);
+        Integer subject = subjectIndex.get(subjectId);
+        return task != null && subject != null && subjectsByTask[task].get(subject);
+    }
+
+    public Optional<Row> task(UUID taskId) {
+        Integer task = taskIndex.get(taskId);
+        return task != null ? Optional.of(tasks[task]) : Optional.empty();
+    }
+
+    public Optional<Row> subject(UUID subjectId) {
+        Integer subject = subjectIndex.get(subjectId);
+        return subject != null ? Optional.of(subjects[subject]) : Optional.empty();
+    }
+
+    /**
+     * All tasks in display order
+     */
+    public List<Row> tasks() {
+        return List.of(tasks);
+    }
+
+    /**
+     * All subjects in display order
+     */
+    public List<Row> subjects() {
+        return List.of(subjects);
+    }
+
+    /**
+     * Subjects linked to a task, in display order (empty for an unknown task)
+     */
+    public List<Row> subjectsOf(UUID taskId) {
+        Integer task = taskIndex.get(taskId);
+        return task != null ? select(subjectsByTask[task], subjects) : List.of();
+    }
+
+    /**
+     * Tasks linked to a subject, in display order (empty for an unknown subject)
+     */
+    public List<Row> tasksOf(UUID subjectId) {
+        Integer subject = subjectIndex.get(subjectId);
+        return subject != null ? select(tasksBySubject[subject], tasks) : List.of();
+    }
+
+    public int relationshipCount() {
+        int count = 0;
+        for (BitSet subjectsOfTask : subjectsByTask) {
+            count += subjectsOfTask.cardinality();
+        }
+        return count;
+    }
+
+    private static List<Row> select(BitSet members, Row[] rows) {
+        List<Row> selected = new ArrayList<>(members.cardinality());
+        for (int i = members.nextSetBit(0); i >= 0; i = members.nextSetBit(i + 1)) {
+            selected.add(rows[i]);
+        }
+        return selected;
+    }
+
+    private static Map<UUID, Integer> index(Row[] rows) {
+        Map<UUID, Integer> index = new HashMap<>(rows.length * 2);
+        for (int i = 0; i < rows.length; i++) {
+            index.put(rows[i].id(), i);
+        }
+        return index;
+    }
+
+    private static BitSet[] bitsets(int count) {
+        BitSet[] bitsets = new BitSet[count];
+        for (int i = 0; i < count; i++) {
+            bitsets[i] = new BitSet();
+        }
+        return bitsets;
+    }
+}
@@ -0,0 +1,30 @@
+package com.wai.callform.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Helpers for work tied to the outcome of the surrounding Spring-managed transaction
+ */
+final class TransactionSupport {
+
+    private TransactionSupport() {
+    }
+
+    /**
+     * Run an action once the surrounding transaction commits (never if it rolls back),
+     * or straight away when there is no transaction
+     */
+    static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
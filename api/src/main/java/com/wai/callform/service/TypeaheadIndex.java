@@ -0,0 +1,130 @@
+package com.wai.callform.service;
+
+import com.wai.callform.dto.TypeaheadMatch;
+import com.wai.callform.dto.TypeaheadMatch.MatchType;
+import com.wai.callform.repository.TaskSubjectGraphJdbcRepository.Row;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/**
+ * Case-insensitive prefix and substring index over task or subject names.
+ * Every suffix of every lowercased name is kept in one sorted array, so the names containing a query
+ * are the contiguous run of suffixes that start with it, found with a binary search. A suffix at
+ * offset 0 is a prefix match and one after a non-alphanumeric character a word-prefix match; matches
+ * rank exact, prefix, word prefix, then substring, with shorter names and then display order first.
+ */
+final class TypeaheadIndex {
+
+    private final Row[] rows;
+    private final String[] keys;
+    // Suffix i is keys[suffixRow[i]] from suffixOffset[i], in lexicographic order
+    private final int[] suffixRow;
+    private final int[] suffixOffset;
+
+    /**
+     * rows in display order
+     */
+    TypeaheadIndex(List<Row> rows) {
+        this.rows = rows.toArray(Row[]::new);
+        this.keys = new String[this.rows.length];
+        List<int[]> suffixes = new ArrayList<>();
+        for (int row = 0; row < this.rows.length; row++) {
+            String key = normalize(this.rows[row].name());
+            keys[row] = key;
+            for (int offset = 0; offset < key.length(); offset++) {
+                // A trimmed query never starts with whitespace
+                if (!Character.isWhitespace(key.charAt(offset))) {
+                    suffixes.add(new int[]{row, offset});
+                }
+            }
+        }
+        suffixes.sort((a, b) -> compare(keys[a[0]], a[1], keys[b[0]], b[1]));
+        this.suffixRow = suffixes.stream().mapToInt(suffix -> suffix[0]).toArray();
+        this.suffixOffset = suffixes.stream().mapToInt(suffix -> suffix[1]).toArray();
+    }
+
+    /**
+     * Up to limit best matches for query among the rows accepted by filter (none for a blank query)
+     */
+    List<TypeaheadMatch> search(String query, int limit, Predicate<Row> filter) {
+        String needle = query == null ? "" : normalize(query);
+        if (needle.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        // Best match per row: type ordinal and offset, -1 when the row does not match
+        int[] bestType = new int[rows.length];
+        int[] bestOffset = new int[rows.length];
+        Arrays.fill(bestType, -1);
+        List<Integer> matched = new ArrayList<>();
+        for (int i = lowerBound(needle); i < suffixRow.length; i++) {
+            int row = suffixRow[i];
+            int offset = suffixOffset[i];
+            if (!keys[row].startsWith(needle, offset)) {
+                break;
+            }
+            int type = matchType(keys[row], offset, needle).ordinal();
+            if (bestType[row] < 0) {
+                matched.add(row);
+            }
+            if (bestType[row] < 0 || type < bestType[row] || (type == bestType[row] && offset < bestOffset[row])) {
+                bestType[row] = type;
+                bestOffset[row] = offset;
+            }
+        }
+
+        return matched.stream()
+                .filter(row -> filter.test(rows[row]))
+                .sorted(Comparator.<Integer>comparingInt(row -> bestType[row])
+                        .thenComparingInt(row -> keys[row].length())
+                        .thenComparingInt(row -> row))
+                .limit(limit)
+                .map(row -> new TypeaheadMatch(rows[row].id(), rows[row].name(), rows[row].sortOrder(),
+                        MatchType.values()[bestType[row]], bestOffset[row]))
+                .toList();
+    }
+
+    // First suffix not less than needle
+    private int lowerBound(String needle) {
+        int low = 0;
+        int high = suffixRow.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(keys[suffixRow[mid]], suffixOffset[mid], needle, 0) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static MatchType matchType(String key, int offset, String needle) {
+        if (offset == 0) {
+            return key.length() == needle.length() ? MatchType.EXACT : MatchType.PREFIX;
+        }
+        return Character.isLetterOrDigit(key.charAt(offset - 1)) ? MatchType.CONTAINS : MatchType.WORD_PREFIX;
+    }
+
+    private static int compare(String a, int aOffset, String b, int bOffset) {
+        int aLength = a.length() - aOffset;
+        int bLength = b.length() - bOffset;
+        int length = Math.min(aLength, bLength);
+        for (int i = 0; i < length; i++) {
+            int diff = a.charAt(aOffset + i) - b.charAt(bOffset + i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return aLength - bLength;
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
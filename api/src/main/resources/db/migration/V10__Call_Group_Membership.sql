@@ -0,0 +1,22 @@
+-- Call groups and their member techs so the API can evaluate coverage itself
+-- (a group is uncovered during business hours when none of its members is free to take a call)
+CREATE TABLE call_groups (
+    id VARCHAR(100) PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    is_monitored BOOLEAN NOT NULL DEFAULT true,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE call_group_members (
+    call_group_id VARCHAR(100) NOT NULL REFERENCES call_groups(id) ON DELETE CASCADE,
+    datatech_email VARCHAR(255) NOT NULL,
+    PRIMARY KEY (call_group_id, datatech_email)
+);
+
+-- Calls in progress per tech, used to seed and reconcile the in-memory availability state
+CREATE INDEX idx_call_entries_in_progress ON call_entries(datatech_email, start_time)
+    WHERE end_time IS NULL;
+
+COMMENT ON TABLE call_groups IS '3CX call groups whose coverage the API evaluates (ids match CallGroupAlert.call_group_id)';
+COMMENT ON TABLE call_group_members IS 'Techs who answer a call group; a member on a call in progress is unavailable';
@@ -0,0 +1,6 @@
+-- V11: Serve per-group alert history and analytics windows from one index
+-- (call_group_id, created_at) also covers the lookups by call_group_id alone.
+
+CREATE INDEX idx_call_group_alerts_group_created ON call_group_alerts(call_group_id, created_at);
+
+DROP INDEX IF EXISTS idx_call_group_alerts_group_id;
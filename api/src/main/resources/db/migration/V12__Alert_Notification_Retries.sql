@@ -0,0 +1,18 @@
+-- V12: Durable retry queue for alert notifications whose first delivery attempt failed
+
+CREATE TABLE alert_notification_retries (
+    id UUID PRIMARY KEY,
+    destination_url TEXT NOT NULL,
+    payload TEXT NOT NULL,
+    attempts INTEGER NOT NULL,
+    next_attempt_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    last_error TEXT,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- The retry sweep claims due rows oldest-first
+CREATE INDEX idx_alert_notification_retries_next_attempt ON alert_notification_retries(next_attempt_at);
+
+COMMENT ON TABLE alert_notification_retries IS 'Alert notifications awaiting redelivery to a webhook or email relay';
+COMMENT ON COLUMN alert_notification_retries.attempts IS 'Delivery attempts made so far';
+COMMENT ON COLUMN alert_notification_retries.next_attempt_at IS 'Earliest time of the next attempt; pushed forward as a lease while a node is delivering';
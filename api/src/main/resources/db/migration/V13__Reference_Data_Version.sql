@@ -0,0 +1,38 @@
+-- V13: Version counter for task/subject reference data
+-- API nodes hold an immutable in-memory snapshot of tasks, subjects and their relationships and
+-- only reload it when this counter moves. Statement triggers bump it at most once per transaction,
+-- so every writer (API, bulk loads, hand-run SQL) invalidates the snapshots.
+
+CREATE TABLE reference_data_version (
+    id BOOLEAN PRIMARY KEY DEFAULT true CHECK (id),
+    version BIGINT NOT NULL,
+    bumped_txid BIGINT,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO reference_data_version (id, version) VALUES (true, 1);
+
+CREATE FUNCTION bump_reference_data_version() RETURNS trigger AS $$
+BEGIN
+    UPDATE reference_data_version
+    SET version = version + 1,
+        bumped_txid = txid_current(),
+        updated_at = CURRENT_TIMESTAMP
+    WHERE bumped_txid IS DISTINCT FROM txid_current();
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_task_entities_reference_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON task_entities
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_reference_data_version();
+
+CREATE TRIGGER trg_subject_entities_reference_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON subject_entities
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_reference_data_version();
+
+CREATE TRIGGER trg_task_subject_relationships_reference_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON task_subject_relationships
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_reference_data_version();
+
+COMMENT ON TABLE reference_data_version IS 'Single-row counter bumped once per transaction that changes tasks, subjects or their relationships';
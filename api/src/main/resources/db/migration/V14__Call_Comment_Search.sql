@@ -0,0 +1,12 @@
+-- V14: Full-text search over call comments
+-- Supervisors search comments for vessel names and permit numbers. The tsvector is kept by Postgres
+-- as a stored generated column and indexed with GIN, so a search reads only the matching calls.
+-- Adding a stored column rewrites call_entries once; run this migration in a maintenance window.
+
+ALTER TABLE call_entries
+    ADD COLUMN comments_tsv tsvector
+    GENERATED ALWAYS AS (to_tsvector('english', COALESCE(comments, ''))) STORED;
+
+CREATE INDEX idx_call_entries_comments_tsv ON call_entries USING GIN (comments_tsv);
+
+COMMENT ON COLUMN call_entries.comments_tsv IS 'Searchable form of comments (english configuration), maintained by Postgres';
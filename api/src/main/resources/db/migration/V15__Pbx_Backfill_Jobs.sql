@@ -0,0 +1,31 @@
+-- V15: Persist PBX backfill jobs so any API node can report their progress and unfinished
+-- jobs are picked up again after the node running them restarts
+
+CREATE TABLE pbx_backfill_jobs (
+    id UUID PRIMARY KEY,
+    format VARCHAR(10) NOT NULL,
+    source_id VARCHAR(100),
+    phase VARCHAR(20) NOT NULL,
+    rows_read BIGINT NOT NULL DEFAULT 0,
+    rows_invalid BIGINT NOT NULL DEFAULT 0,
+    rows_staged BIGINT NOT NULL DEFAULT 0,
+    rows_inserted BIGINT NOT NULL DEFAULT 0,
+    rows_duplicate BIGINT NOT NULL DEFAULT 0,
+    sample_errors TEXT[] NOT NULL DEFAULT '{}',
+    error_message TEXT,
+    submitted_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    completed_at TIMESTAMP WITH TIME ZONE,
+    leased_by VARCHAR(255),
+    lease_expires_at TIMESTAMP WITH TIME ZONE
+);
+
+-- Admin list of recent backfills, newest first
+CREATE INDEX idx_pbx_backfill_jobs_submitted ON pbx_backfill_jobs(submitted_at DESC);
+
+-- Recovery scans unfinished jobs by lease expiry
+CREATE INDEX idx_pbx_backfill_jobs_unfinished_lease ON pbx_backfill_jobs(lease_expires_at)
+    WHERE phase NOT IN ('COMPLETED', 'FAILED');
+
+COMMENT ON TABLE pbx_backfill_jobs IS 'Admin imports of historical PBX call records and their progress';
+COMMENT ON COLUMN pbx_backfill_jobs.leased_by IS 'Node that holds the spooled upload and is queuing or running the job';
+COMMENT ON COLUMN pbx_backfill_jobs.lease_expires_at IS 'Heartbeat deadline; an unfinished job past this time is resumed by a node that has its spool file';
@@ -0,0 +1,15 @@
+-- The sideloader's sync digest buckets calls by CDR end time. A CDR merged into a manual call keeps
+-- the manual call's end_time (NULL while the call form is still open), so the CDR's own end time
+-- is stored separately and the watermark/digest read it instead.
+ALTER TABLE call_entries
+    ADD COLUMN pbx_cdr_end_time TIMESTAMP WITH TIME ZONE;
+
+-- Rows so far were inserted straight from their CDR, so end_time is the CDR end time
+UPDATE call_entries SET pbx_cdr_end_time = end_time WHERE pbx_call_id IS NOT NULL;
+
+DROP INDEX idx_call_entries_pbx_source_end_time;
+
+CREATE INDEX idx_call_entries_pbx_source_cdr_end_time ON call_entries(pbx_source_id, pbx_cdr_end_time)
+    WHERE pbx_call_id IS NOT NULL;
+
+COMMENT ON COLUMN call_entries.pbx_cdr_end_time IS 'End time reported by the PBX CDR; differs from end_time when the CDR was merged into a manual call';
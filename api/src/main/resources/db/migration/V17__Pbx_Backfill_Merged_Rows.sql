@@ -0,0 +1,5 @@
+-- Backfilled CDRs that overlap a manually started call are attached to it instead of inserted
+ALTER TABLE pbx_backfill_jobs
+    ADD COLUMN rows_merged BIGINT NOT NULL DEFAULT 0;
+
+COMMENT ON COLUMN pbx_backfill_jobs.rows_merged IS 'CDRs attached to an overlapping manual call by the same tech';
@@ -0,0 +1,19 @@
+-- Add lease/heartbeat and retry tracking to report_runs so crashed workers' reports can be reclaimed
+ALTER TABLE report_runs
+    ADD COLUMN leased_by VARCHAR(255),
+    ADD COLUMN lease_expires_at TIMESTAMP WITH TIME ZONE,
+    ADD COLUMN retry_count INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN next_attempt_at TIMESTAMP WITH TIME ZONE;
+
+-- Reaper scans running reports by lease expiry
+CREATE INDEX idx_report_runs_running_lease ON report_runs(lease_expires_at)
+    WHERE status = 'RUNNING';
+
+-- Workers pick up pending reports oldest-first once their backoff has elapsed
+CREATE INDEX idx_report_runs_pending_ready ON report_runs(next_attempt_at, created_at)
+    WHERE status = 'PENDING';
+
+COMMENT ON COLUMN report_runs.leased_by IS 'Identifier of the worker node currently processing the report';
+COMMENT ON COLUMN report_runs.lease_expires_at IS 'Heartbeat deadline; a RUNNING report past this time is returned to PENDING';
+COMMENT ON COLUMN report_runs.retry_count IS 'Number of times the report was reclaimed after an expired lease';
+COMMENT ON COLUMN report_runs.next_attempt_at IS 'Earliest time a reclaimed report may be picked up again (retry backoff)';
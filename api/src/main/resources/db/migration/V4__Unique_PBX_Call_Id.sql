@@ -0,0 +1,39 @@
+-- Make pbx_call_id unique so PBX ingest can rely on INSERT ... ON CONFLICT instead of check-then-insert
+
+-- Resolve duplicates created by the old check-then-insert race before adding the constraint.
+-- Prefer the row a tech already classified, then the oldest. Unclassified extras are removed;
+-- classified extras are kept but detached from the PBX call id.
+WITH ranked AS (
+    SELECT id,
+           task_id,
+           ROW_NUMBER() OVER (
+               PARTITION BY pbx_call_id
+               ORDER BY (task_id IS NOT NULL) DESC, created_at ASC, id ASC
+           ) AS rn
+    FROM call_entries
+    WHERE pbx_call_id IS NOT NULL
+)
+DELETE FROM call_entries c
+USING ranked r
+WHERE c.id = r.id AND r.rn > 1 AND r.task_id IS NULL;
+
+WITH ranked AS (
+    SELECT id,
+           ROW_NUMBER() OVER (
+               PARTITION BY pbx_call_id
+               ORDER BY (task_id IS NOT NULL) DESC, created_at ASC, id ASC
+           ) AS rn
+    FROM call_entries
+    WHERE pbx_call_id IS NOT NULL
+)
+UPDATE call_entries c
+SET pbx_call_id = NULL
+FROM ranked r
+WHERE c.id = r.id AND r.rn > 1;
+
+-- Replace the plain lookup index with a partial unique index (manual calls have no pbx_call_id)
+DROP INDEX IF EXISTS idx_call_entries_pbx_call_id;
+CREATE UNIQUE INDEX uq_call_entries_pbx_call_id ON call_entries(pbx_call_id)
+    WHERE pbx_call_id IS NOT NULL;
+
+COMMENT ON INDEX uq_call_entries_pbx_call_id IS 'One call entry per 3CX call; conflict target for idempotent PBX ingest';
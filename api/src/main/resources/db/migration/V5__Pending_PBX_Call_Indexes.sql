@@ -0,0 +1,7 @@
+-- Partial indexes covering only unclassified PBX calls (the "pending" backlog techs still need to complete).
+-- They stay small no matter how large call_entries grows, and match the oldest-first listing order.
+CREATE INDEX idx_call_entries_pending_pbx_user ON call_entries(datatech_email, start_time)
+    WHERE is_pbx_originated AND task_id IS NULL;
+
+CREATE INDEX idx_call_entries_pending_pbx ON call_entries(start_time)
+    WHERE is_pbx_originated AND task_id IS NULL;
@@ -0,0 +1,14 @@
+-- Server-side directory of PBX extensions so ingest can resolve the call owner without the sideloader's mapping
+CREATE TABLE extension_directory (
+    extension VARCHAR(20) PRIMARY KEY,
+    email VARCHAR(255) NOT NULL,
+    display_name VARCHAR(255) NOT NULL,
+    is_active BOOLEAN NOT NULL DEFAULT true,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_extension_directory_email ON extension_directory(LOWER(email));
+
+COMMENT ON TABLE extension_directory IS 'Maps 3CX extensions to DataTech users; cached in memory by the API for PBX ingest';
+COMMENT ON COLUMN extension_directory.display_name IS 'Name written to call_entries.datatech_name for calls on this extension';
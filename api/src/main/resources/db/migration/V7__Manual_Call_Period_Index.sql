@@ -0,0 +1,20 @@
+-- Interval index used to match incoming PBX CDRs to calls a tech already started by hand.
+-- Calls still in progress (no end_time) are treated as lasting at most 4 hours so a call form left
+-- open doesn't swallow every later CDR; a bad end_time before start_time collapses to a point.
+-- Declared IMMUTABLE so it can back an index: adding an hours-only interval to a timestamptz
+-- does not depend on the session time zone.
+CREATE FUNCTION call_entry_period(start_time TIMESTAMP WITH TIME ZONE, end_time TIMESTAMP WITH TIME ZONE)
+    RETURNS TSTZRANGE
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE
+AS $$
+    SELECT tstzrange(start_time,
+                     GREATEST(start_time, COALESCE(end_time, start_time + INTERVAL '4 hours')),
+                     '[]')
+$$;
+
+-- Only manual calls that haven't been matched to a CDR yet; stays small as call_entries grows
+CREATE INDEX idx_call_entries_unmatched_manual_period ON call_entries
+    USING gist (call_entry_period(start_time, end_time))
+    WHERE pbx_call_id IS NULL AND is_pbx_originated = false;
+
+COMMENT ON INDEX idx_call_entries_unmatched_manual_period IS 'Overlap lookup when merging PBX CDRs into manually started calls';
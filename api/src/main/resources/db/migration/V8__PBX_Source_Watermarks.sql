@@ -0,0 +1,9 @@
+-- Record which sideloader (X-Source-Id) delivered each PBX call so a source can ask what the API
+-- already has: its latest CDR (watermark) and per-bucket digests of pbx_call_ids in a window
+ALTER TABLE call_entries
+    ADD COLUMN pbx_source_id VARCHAR(100);
+
+CREATE INDEX idx_call_entries_pbx_source_end_time ON call_entries(pbx_source_id, end_time)
+    WHERE pbx_call_id IS NOT NULL;
+
+COMMENT ON COLUMN call_entries.pbx_source_id IS 'Sideloader that delivered the PBX call (X-Source-Id); NULL for calls ingested before sources were tracked';
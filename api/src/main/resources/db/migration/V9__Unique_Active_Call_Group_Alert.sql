@@ -0,0 +1,15 @@
+-- At most one active alert per call group, enforced by the database so overlapping alert checks
+-- can't both insert. Older duplicates left by the previous check-then-insert path are resolved first,
+-- keeping the earliest active alert for each group.
+UPDATE call_group_alerts a
+SET is_active = false,
+    resolved_at = NOW()
+WHERE a.is_active
+  AND EXISTS (SELECT 1
+              FROM call_group_alerts b
+              WHERE b.call_group_id = a.call_group_id
+                AND b.is_active
+                AND (b.created_at, b.id) < (a.created_at, a.id));
+
+CREATE UNIQUE INDEX uq_call_group_alerts_active_group ON call_group_alerts(call_group_id)
+    WHERE is_active;
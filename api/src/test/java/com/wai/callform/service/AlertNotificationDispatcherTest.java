@@ -0,0 +1,178 @@
+package com.wai.callform.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import com.wai.callform.dto.CallGroupAlertDto;
+import com.wai.callform.event.CallGroupAlertEvent;
+import com.wai.callform.repository.AlertNotificationRetryJdbcRepository;
+import com.wai.callform.repository.AlertNotificationRetryJdbcRepository.PendingRetry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlertNotificationDispatcherTest {
+
+    @Mock
+    private AlertNotificationRetryJdbcRepository retryRepository;
+
+    // Local stand-in for a supervisor webhook: /ok accepts, /down always fails
+    private HttpServer webhook;
+    private final Queue<String> received = new ConcurrentLinkedQueue<>();
+    private CountDownLatch deliveries;
+    private AlertNotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        deliveries = new CountDownLatch(1);
+        webhook = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        webhook.createContext("/ok", exchange -> {
+            received.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+            deliveries.countDown();
+        });
+        webhook.createContext("/down", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        webhook.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+        webhook.stop(0);
+    }
+
+    @Test
+    void testOnAlert_PostsNotificationToWebhook() throws Exception {
+        // Arrange
+        dispatcher = dispatcher(url("/ok"));
+
+        // Act
+        dispatcher.onAlert(new CallGroupAlertEvent(CallGroupAlertEvent.Type.RAISED, alert()));
+
+        // Assert
+        assertTrue(deliveries.await(5, TimeUnit.SECONDS));
+        String body = received.peek();
+        assertTrue(body.contains("\"event\":\"alert-raised\""));
+        assertTrue(body.contains("\"callGroupId\":\"support\""));
+        verifyNoInteractions(retryRepository);
+    }
+
+    @Test
+    void testOnAlert_FailedDeliveryIsQueuedForRetryWithoutAffectingOtherDestinations() throws Exception {
+        // Arrange
+        dispatcher = dispatcher(url("/down") + "," + url("/ok"));
+
+        // Act
+        dispatcher.onAlert(new CallGroupAlertEvent(CallGroupAlertEvent.Type.RAISED, alert()));
+
+        // Assert
+        assertTrue(deliveries.await(5, TimeUnit.SECONDS));
+        ArgumentCaptor<PendingRetry> retry = ArgumentCaptor.forClass(PendingRetry.class);
+        verify(retryRepository, timeout(5000)).insert(retry.capture(), any(OffsetDateTime.class), contains("503"));
+        assertEquals(url("/down"), retry.getValue().destinationUrl());
+        assertEquals(1, retry.getValue().attempts());
+        assertNotNull(retry.getValue().id());
+    }
+
+    @Test
+    void testRetryDue_DeletesRetryOnceDeliveredAndGivesUpAfterMaxAttempts() throws Exception {
+        // Arrange
+        dispatcher = dispatcher(url("/ok") + "," + url("/down"));
+        UUID delivered = UUID.randomUUID();
+        UUID exhausted = UUID.randomUUID();
+        when(retryRepository.claimDue(any(), any(), anyInt())).thenReturn(List.of(
+                new PendingRetry(delivered, url("/ok"), "{\"event\":\"alert-raised\"}", 2),
+                new PendingRetry(exhausted, url("/down"), "{\"event\":\"alert-raised\"}", 2)));
+        when(retryRepository.renewLease(any(), any(), any())).thenReturn(true);
+
+        // Act
+        dispatcher.retryDue();
+
+        // Assert
+        assertTrue(deliveries.await(5, TimeUnit.SECONDS));
+        verify(retryRepository, timeout(5000)).delete(delivered);
+        verify(retryRepository, timeout(5000)).delete(exhausted);
+        verify(retryRepository, never()).reschedule(any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void testRetryDue_SkipsRetryClaimedElsewhereWhileQueued() throws Exception {
+        // Arrange - by the time delivery starts, another node has taken over the lapsed lease
+        dispatcher = dispatcher(url("/ok"));
+        UUID retryId = UUID.randomUUID();
+        when(retryRepository.claimDue(any(), any(), anyInt())).thenReturn(List.of(
+                new PendingRetry(retryId, url("/ok"), "{\"event\":\"alert-raised\"}", 1)));
+        when(retryRepository.renewLease(eq(retryId), any(), any())).thenReturn(false);
+
+        // Act
+        dispatcher.retryDue();
+
+        // Assert
+        verify(retryRepository, timeout(5000)).renewLease(eq(retryId), any(), any());
+        assertFalse(deliveries.await(200, TimeUnit.MILLISECONDS));
+        verify(retryRepository, never()).delete(any());
+        verify(retryRepository, never()).reschedule(any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void testBackoff_DoublesUpToTheCap() {
+        dispatcher = dispatcher(url("/ok"));
+
+        assertEquals(Duration.ofSeconds(1), dispatcher.backoff(1));
+        assertEquals(Duration.ofSeconds(2), dispatcher.backoff(2));
+        assertEquals(Duration.ofSeconds(4), dispatcher.backoff(3));
+        assertEquals(Duration.ofSeconds(5), dispatcher.backoff(10));
+    }
+
+    private AlertNotificationDispatcher dispatcher(String destinations) {
+        // Three attempts in all, 1s doubling backoff capped at 5s
+        return new AlertNotificationDispatcher(retryRepository, new ObjectMapper().findAndRegisterModules(),
+                destinations, true, 10, 2, 2000, 3, 1000, 5000, 50);
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + webhook.getAddress().getPort() + path;
+    }
+
+    private static CallGroupAlertDto alert() {
+        CallGroupAlertDto alert = new CallGroupAlertDto();
+        alert.setId(UUID.randomUUID());
+        alert.setCallGroupId("support");
+        alert.setCallGroupName("Support");
+        alert.setAlertType("NO_AVAILABLE_USERS");
+        alert.setAlertMessage("No available users");
+        alert.setIsActive(true);
+        alert.setCreatedAt(OffsetDateTime.now());
+        return alert;
+    }
+}
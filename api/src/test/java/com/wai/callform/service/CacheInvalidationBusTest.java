@@ -0,0 +1,80 @@
+package com.wai.callform.service;
+
+import com.wai.callform.event.CacheInvalidationEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidationBusTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private CacheInvalidationBus bus;
+
+    @BeforeEach
+    void setUp() {
+        bus = new CacheInvalidationBus(jdbcTemplate, eventPublisher, true, "jdbc:postgresql://localhost/test",
+                "test", "test", 1000, 1000, Runnable::run);
+    }
+
+    @Test
+    void testPublish_NotifiesOtherNodesOfLocalChangesOnly() {
+        // Act
+        bus.publish(new CacheInvalidationEvent(CacheInvalidationEvent.Type.REFERENCE_DATA));
+        bus.publish(new CacheInvalidationEvent(CacheInvalidationEvent.Type.CALL_ACTIVITY, true));
+
+        // Assert
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class),
+                eq(CacheInvalidationBus.CHANNEL), eq(bus.nodeId() + ":REFERENCE_DATA"));
+    }
+
+    @Test
+    void testOnNotification_RepublishesOtherNodesChangesAsRemote() {
+        // Act
+        bus.onNotification("other-node:CALL_GROUP_ALERTS");
+        bus.onNotification(bus.nodeId() + ":REFERENCE_DATA");
+        bus.onNotification("other-node:SOMETHING_NEWER");
+
+        // Assert
+        verify(eventPublisher, times(1)).publishEvent(
+                new CacheInvalidationEvent(CacheInvalidationEvent.Type.CALL_GROUP_ALERTS, true));
+        verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    void testOnReconnected_ReloadsEveryCache() {
+        // Act
+        bus.onReconnected();
+
+        // Assert
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(CacheInvalidationEvent.Type.values().length)).publishEvent(events.capture());
+        Set<CacheInvalidationEvent.Type> reloaded = events.getAllValues().stream()
+                .map(event -> (CacheInvalidationEvent) event)
+                .peek(event -> assertTrue(event.remote()))
+                .map(CacheInvalidationEvent::type)
+                .collect(Collectors.toSet());
+        assertEquals(EnumSet.allOf(CacheInvalidationEvent.Type.class), reloaded);
+    }
+}
@@ -0,0 +1,68 @@
+package com.wai.callform.service;
+
+import com.wai.callform.dto.CallGroupAlertAnalytics;
+import com.wai.callform.repository.CallGroupAlertStatsJdbcRepository;
+import com.wai.callform.repository.CallGroupAlertStatsJdbcRepository.AlertStatsRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CallGroupAlertAnalyticsServiceTest {
+
+    @Mock
+    private CallGroupAlertStatsJdbcRepository statsRepository;
+
+    @InjectMocks
+    private CallGroupAlertAnalyticsService analyticsService;
+
+    @Test
+    void testGetAnalytics_FoldsBucketRowsUnderTheirGroupTotals() {
+        // Arrange
+        OffsetDateTime from = OffsetDateTime.parse("2024-03-01T00:00:00Z");
+        OffsetDateTime to = from.plusDays(7);
+        doAnswer(invocation -> {
+            CallGroupAlertStatsJdbcRepository.AlertStatsHandler handler = invocation.getArgument(4);
+            handler.accept(new AlertStatsRow("sales", "Sales", null, 3, 2, 450.0, 300.0, 780.0));
+            handler.accept(new AlertStatsRow("sales", "Sales", 0, 2, 2, null, null, null));
+            handler.accept(new AlertStatsRow("sales", "Sales", 4, 1, 0, null, null, null));
+            handler.accept(new AlertStatsRow("support", "Support", null, 1, 0, null, null, null));
+            handler.accept(new AlertStatsRow("support", "Support", 6, 1, 0, null, null, null));
+            return null;
+        }).when(statsRepository).forEachGroupStats(eq(from), eq(to), eq(86400L), isNull(), any());
+
+        // Act
+        CallGroupAlertAnalytics analytics = analyticsService.getAnalytics(from, to, 86400, null);
+
+        // Assert
+        assertEquals(2, analytics.getGroups().size());
+        CallGroupAlertAnalytics.GroupStats sales = analytics.getGroups().get(0);
+        assertEquals(3, sales.getAlertCount());
+        assertEquals(2, sales.getResolvedCount());
+        assertEquals(450.0, sales.getMeanSecondsToResolve());
+        assertEquals(780.0, sales.getP90SecondsToResolve());
+        assertEquals(2, sales.getBuckets().size());
+        assertEquals(4, sales.getBuckets().get(1).getIndex());
+        CallGroupAlertAnalytics.GroupStats support = analytics.getGroups().get(1);
+        assertNull(support.getMeanSecondsToResolve());
+        assertEquals(6, support.getBuckets().get(0).getIndex());
+    }
+
+    @Test
+    void testGetAnalytics_RejectsTooManyBuckets() {
+        OffsetDateTime from = OffsetDateTime.parse("2024-01-01T00:00:00Z");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> analyticsService.getAnalytics(from, from.plusDays(365), 60, null));
+        verifyNoInteractions(statsRepository);
+    }
+}
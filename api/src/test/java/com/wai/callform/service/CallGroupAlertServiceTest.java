@@ -0,0 +1,137 @@
+package com.wai.callform.service;
+
+import com.wai.callform.dto.CallGroupAlertDto;
+import com.wai.callform.entity.CallGroupAlert;
+import com.wai.callform.event.CacheInvalidationEvent;
+import com.wai.callform.event.CallGroupAlertEvent;
+import com.wai.callform.repository.CallGroupAlertJdbcRepository;
+import com.wai.callform.repository.CallGroupAlertRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CallGroupAlertServiceTest {
+
+    @Mock
+    private CallGroupAlertRepository alertRepository;
+
+    @Mock
+    private CallGroupAlertJdbcRepository alertJdbcRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private CallGroupAlertService callGroupAlertService;
+
+    private CallGroupAlertDto request;
+
+    @BeforeEach
+    void setUp() {
+        request = new CallGroupAlertDto();
+        request.setCallGroupId("support");
+        request.setCallGroupName("Support");
+        request.setAlertType("NO_AGENTS");
+        request.setAlertMessage("No agents logged in");
+    }
+
+    @Test
+    void testCreateOrUpdateAlert_RepeatChecksAnsweredInMemory() {
+        // Arrange
+        when(alertJdbcRepository.insertActiveAlert(any(CallGroupAlert.class))).thenReturn(true);
+
+        // Act
+        CallGroupAlertDto first = callGroupAlertService.createOrUpdateAlert(request);
+        CallGroupAlertDto second = callGroupAlertService.createOrUpdateAlert(request);
+
+        // Assert
+        assertEquals(first.getId(), second.getId());
+        assertTrue(callGroupAlertService.getCachedActiveAlert("support").isPresent());
+        verify(alertJdbcRepository, times(1)).insertActiveAlert(any(CallGroupAlert.class));
+        verifyNoInteractions(alertRepository);
+        verify(eventPublisher, times(1)).publishEvent(
+                new CallGroupAlertEvent(CallGroupAlertEvent.Type.RAISED, first));
+    }
+
+    @Test
+    void testCreateOrUpdateAlert_RemoteResolutionAllowsNewAlert() {
+        // Arrange - cached as active, then resolved on another node
+        CallGroupAlert resolvedElsewhere = activeAlert("support");
+        when(alertRepository.findByIsActiveTrue()).thenReturn(List.of(resolvedElsewhere), List.of());
+        callGroupAlertService.refreshActiveAlerts();
+        when(alertJdbcRepository.insertActiveAlert(any(CallGroupAlert.class))).thenReturn(true);
+
+        // Act
+        callGroupAlertService.onCacheInvalidation(
+                new CacheInvalidationEvent(CacheInvalidationEvent.Type.CALL_GROUP_ALERTS, true));
+        CallGroupAlertDto raised = callGroupAlertService.createOrUpdateAlert(request);
+
+        // Assert
+        assertNotEquals(resolvedElsewhere.getId(), raised.getId());
+        assertEquals(raised.getId(), callGroupAlertService.getCachedActiveAlert("support").orElseThrow().getId());
+    }
+
+    @Test
+    void testCreateOrUpdateAlert_ConflictReturnsExistingAlert() {
+        // Arrange - another check raised the alert first
+        CallGroupAlert existing = activeAlert("support");
+        when(alertJdbcRepository.insertActiveAlert(any(CallGroupAlert.class))).thenReturn(false);
+        when(alertRepository.findByCallGroupIdAndIsActiveTrue("support")).thenReturn(Optional.of(existing));
+
+        // Act
+        CallGroupAlertDto result = callGroupAlertService.createOrUpdateAlert(request);
+
+        // Assert
+        assertEquals(existing.getId(), result.getId());
+        assertTrue(callGroupAlertService.getCachedActiveAlert("support").isPresent());
+    }
+
+    @Test
+    void testResolveAlert_AllowsNewAlertForGroup() {
+        // Arrange
+        CallGroupAlert existing = activeAlert("support");
+        when(alertRepository.findByIsActiveTrue()).thenReturn(List.of(existing));
+        when(alertRepository.findById(existing.getId())).thenReturn(Optional.of(existing));
+        when(alertRepository.save(any(CallGroupAlert.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(alertJdbcRepository.insertActiveAlert(any(CallGroupAlert.class))).thenReturn(true);
+        callGroupAlertService.refreshActiveAlerts();
+
+        // Act
+        callGroupAlertService.resolveAlert(existing.getId());
+        CallGroupAlertDto raised = callGroupAlertService.createOrUpdateAlert(request);
+
+        // Assert
+        assertNotEquals(existing.getId(), raised.getId());
+        assertTrue(raised.getIsActive());
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, atLeastOnce()).publishEvent(events.capture());
+        assertTrue(events.getAllValues().stream().anyMatch(event -> event instanceof CallGroupAlertEvent alertEvent
+                && alertEvent.type() == CallGroupAlertEvent.Type.RESOLVED
+                && existing.getId().equals(alertEvent.alert().getId())));
+    }
+
+    private static CallGroupAlert activeAlert(String callGroupId) {
+        CallGroupAlert alert = new CallGroupAlert();
+        alert.setId(UUID.randomUUID());
+        alert.setCallGroupId(callGroupId);
+        alert.setAlertType("NO_AGENTS");
+        alert.setIsActive(true);
+        alert.setCreatedAt(OffsetDateTime.now().minusMinutes(10));
+        return alert;
+    }
+}
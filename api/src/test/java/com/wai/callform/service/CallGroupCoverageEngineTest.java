@@ -0,0 +1,150 @@
+package com.wai.callform.service;
+
+import com.wai.callform.dto.CallGroupAlertDto;
+import com.wai.callform.dto.CallGroupDto;
+import com.wai.callform.entity.CallGroup;
+import com.wai.callform.event.CacheInvalidationEvent;
+import com.wai.callform.event.CallActivityEvent;
+import com.wai.callform.repository.CallEntryRepository;
+import com.wai.callform.repository.CallGroupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CallGroupCoverageEngineTest {
+
+    private static final ZoneId ZONE = ZoneId.of("America/Anchorage");
+
+    @Mock
+    private CallGroupRepository callGroupRepository;
+
+    @Mock
+    private CallEntryRepository callEntryRepository;
+
+    @Mock
+    private CallGroupAlertService callGroupAlertService;
+
+    @BeforeEach
+    void setUp() {
+        CallGroup support = new CallGroup();
+        support.setId("support");
+        support.setName("Support");
+        support.setMemberEmails(Set.of("Alice@example.com", "bob@example.com"));
+        when(callGroupRepository.findAllWithMembers()).thenReturn(List.of(support));
+    }
+
+    @Test
+    void raisesAlertWhenLastMemberStartsCallAndResolvesWhenOneEnds() {
+        // Arrange: Wednesday 10:00, Alice already on a call
+        CallGroupCoverageEngine engine = engineAt(ZonedDateTime.of(2026, 10, 14, 10, 0, 0, 0, ZONE));
+        when(callEntryRepository.findEmailsWithCallsInProgressSince(any())).thenReturn(List.of("alice@example.com"));
+        when(callGroupAlertService.getCachedActiveAlert("support")).thenReturn(Optional.empty());
+        engine.reload();
+        verify(callGroupAlertService, never()).createOrUpdateAlert(any());
+
+        // Act: Bob starts a call
+        engine.onCallActivity(new CallActivityEvent("Bob@example.com", CallActivityEvent.Type.STARTED));
+
+        // Assert
+        ArgumentCaptor<CallGroupAlertDto> raised = ArgumentCaptor.forClass(CallGroupAlertDto.class);
+        verify(callGroupAlertService).createOrUpdateAlert(raised.capture());
+        assertEquals("support", raised.getValue().getCallGroupId());
+        assertEquals(CallGroupCoverageEngine.ALERT_TYPE, raised.getValue().getAlertType());
+        assertFalse(engine.getCoverage().get(0).getCovered());
+
+        // Act: Alice hangs up
+        CallGroupAlertDto active = raised.getValue();
+        when(callGroupAlertService.getCachedActiveAlert("support")).thenReturn(Optional.of(active));
+        engine.onCallActivity(new CallActivityEvent("alice@example.com", CallActivityEvent.Type.ENDED));
+
+        // Assert
+        verify(callGroupAlertService).resolveAlertsForCallGroup("support");
+        CallGroupDto coverage = engine.getCoverage().get(0);
+        assertTrue(coverage.getCovered());
+        assertEquals(1, coverage.getAvailableMembers());
+    }
+
+    @Test
+    void doesNotAlertOutsideBusinessHours() {
+        // Arrange: Saturday 10:00, every member on a call
+        CallGroupCoverageEngine engine = engineAt(ZonedDateTime.of(2026, 10, 17, 10, 0, 0, 0, ZONE));
+        when(callEntryRepository.findEmailsWithCallsInProgressSince(any()))
+                .thenReturn(List.of("alice@example.com", "bob@example.com"));
+        when(callGroupAlertService.getCachedActiveAlert("support")).thenReturn(Optional.empty());
+
+        // Act
+        engine.reload();
+
+        // Assert
+        verify(callGroupAlertService, never()).createOrUpdateAlert(any());
+        assertTrue(engine.getCoverage().get(0).getCovered());
+        assertEquals(0, engine.getCoverage().get(0).getAvailableMembers());
+    }
+
+    @Test
+    void remoteCallActivityRereadsCallsInProgress() {
+        // Arrange: Wednesday 10:00, nobody on a call
+        CallGroupCoverageEngine engine = engineAt(ZonedDateTime.of(2026, 10, 14, 10, 0, 0, 0, ZONE));
+        when(callEntryRepository.findEmailsWithCallsInProgressSince(any())).thenReturn(List.of());
+        when(callGroupAlertService.getCachedActiveAlert("support")).thenReturn(Optional.empty());
+        engine.reload();
+
+        // Act: both members started calls on another node
+        when(callEntryRepository.findEmailsWithCallsInProgressSince(any()))
+                .thenReturn(List.of("alice@example.com", "BOB@example.com"));
+        engine.onCacheInvalidation(new CacheInvalidationEvent(CacheInvalidationEvent.Type.CALL_ACTIVITY, true));
+
+        // Assert
+        verify(callGroupAlertService).createOrUpdateAlert(any());
+        assertEquals(0, engine.getCoverage().get(0).getAvailableMembers());
+
+        // Act: a local invalidation was already applied through CallActivityEvent
+        engine.onCacheInvalidation(new CacheInvalidationEvent(CacheInvalidationEvent.Type.CALL_ACTIVITY));
+
+        // Assert
+        verify(callEntryRepository, times(2)).findEmailsWithCallsInProgressSince(any());
+    }
+
+    @Test
+    void editedCallTimesRereadCallsInProgress() {
+        // Arrange: Wednesday 10:00, Alice on a call
+        CallGroupCoverageEngine engine = engineAt(ZonedDateTime.of(2026, 10, 14, 10, 0, 0, 0, ZONE));
+        when(callEntryRepository.findEmailsWithCallsInProgressSince(any())).thenReturn(List.of("alice@example.com"));
+        when(callGroupAlertService.getCachedActiveAlert("support")).thenReturn(Optional.empty());
+        engine.reload();
+
+        // Act: Bob's earlier call had its end time cleared on this node
+        when(callEntryRepository.findEmailsWithCallsInProgressSince(any()))
+                .thenReturn(List.of("alice@example.com", "bob@example.com"));
+        engine.onCallActivity(new CallActivityEvent("bob@example.com", CallActivityEvent.Type.EDITED));
+
+        // Assert
+        verify(callGroupAlertService).createOrUpdateAlert(any());
+        assertEquals(0, engine.getCoverage().get(0).getAvailableMembers());
+    }
+
+    private CallGroupCoverageEngine engineAt(ZonedDateTime now) {
+        return new CallGroupCoverageEngine(callGroupRepository, callEntryRepository, callGroupAlertService, true, ZONE,
+                EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), LocalTime.of(8, 0), LocalTime.of(17, 0),
+                Duration.ofHours(4), Clock.fixed(now.toInstant(), ZONE), Runnable::run);
+    }
+}
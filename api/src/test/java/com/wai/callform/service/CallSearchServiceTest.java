@@ -0,0 +1,107 @@
+package com.wai.callform.service;
+
+import com.wai.callform.dto.CallEntryDto;
+import com.wai.callform.dto.CallSearchPage;
+import com.wai.callform.entity.CallEntry;
+import com.wai.callform.repository.CallEntryRepository;
+import com.wai.callform.repository.CallSearchJdbcRepository;
+import com.wai.callform.repository.CallSearchJdbcRepository.Hit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CallSearchServiceTest {
+
+    @Mock
+    private CallSearchJdbcRepository searchRepository;
+
+    @Mock
+    private CallEntryRepository callEntryRepository;
+
+    @Mock
+    private CallEntryService callEntryService;
+
+    @InjectMocks
+    private CallSearchService callSearchService;
+
+    @Test
+    void testSearchComments_ReturnsCursorOfLastHitWhenMoreRemain() {
+        // Arrange: page size 2 within a one-week window, the repository returns the extra row
+        OffsetDateTime start = OffsetDateTime.of(2026, 10, 1, 9, 30, 15, 123456000, ZoneOffset.ofHours(-8));
+        OffsetDateTime windowStart = start.minusDays(7);
+        Hit first = new Hit(UUID.randomUUID(), 0.6f, start);
+        Hit second = new Hit(UUID.randomUUID(), 0.1f, start.minusHours(1));
+        Hit extra = new Hit(UUID.randomUUID(), 0.1f, start.minusHours(2));
+        when(searchRepository.search(eq("northern star"), isNull(), eq(windowStart), eq(start), isNull(), eq(3), eq(true)))
+                .thenReturn(List.of(first, second, extra));
+        when(callEntryRepository.findAllWithTaskAndSubjectByIdIn(List.of(first.id(), second.id())))
+                .thenReturn(List.of(call(second.id()), call(first.id())));
+        when(callEntryService.mapToDto(any())).thenAnswer(invocation -> {
+            CallEntryDto dto = new CallEntryDto();
+            dto.setId(invocation.<CallEntry>getArgument(0).getId());
+            return dto;
+        });
+
+        // Act
+        CallSearchPage page = callSearchService.searchComments(" northern star ", null, windowStart, start, null, 2);
+
+        // Assert: rank order is kept and the cursor resumes after the second hit
+        assertTrue(page.isRanked());
+        assertEquals(List.of(first.id(), second.id()), page.getHits().stream().map(hit -> hit.getCall().getId()).toList());
+        assertEquals(0.6f, page.getHits().get(0).getRank());
+        Hit resumeAfter = CallSearchService.decodeCursor(page.getNextCursor());
+        assertEquals(second.id(), resumeAfter.id());
+        assertEquals(second.rank(), resumeAfter.rank());
+        assertTrue(second.startTime().isEqual(resumeAfter.startTime()));
+    }
+
+    @Test
+    void testSearchComments_BroadSearchIsNewestFirst() {
+        // Arrange: no date window, and a window wider than MAX_RANKED_WINDOW
+        OffsetDateTime now = OffsetDateTime.now();
+        when(searchRepository.search(any(), any(), any(), any(), any(), anyInt(), anyBoolean())).thenReturn(List.of());
+
+        // Act
+        CallSearchPage unbounded = callSearchService.searchComments("permit", null, null, null, null, 25);
+        CallSearchPage wide = callSearchService.searchComments("permit", null, now.minusDays(90), now, null, 25);
+
+        // Assert
+        assertFalse(unbounded.isRanked());
+        assertFalse(wide.isRanked());
+        verify(searchRepository, times(2)).search(eq("permit"), isNull(), any(), any(), isNull(), eq(26), eq(false));
+    }
+
+    @Test
+    void testSearchComments_RejectsBadInput() {
+        assertThrows(IllegalArgumentException.class,
+                () -> callSearchService.searchComments("  ", null, null, null, null, 25));
+        assertThrows(IllegalArgumentException.class,
+                () -> callSearchService.searchComments("permit", null, null, null, "not-a-cursor", 25));
+        OffsetDateTime now = OffsetDateTime.now();
+        assertThrows(IllegalArgumentException.class,
+                () -> callSearchService.searchComments("permit", null, now, now.minusDays(1), null, 25));
+        verifyNoInteractions(searchRepository);
+    }
+
+    private static CallEntry call(UUID id) {
+        CallEntry call = new CallEntry();
+        call.setId(id);
+        return call;
+    }
+}
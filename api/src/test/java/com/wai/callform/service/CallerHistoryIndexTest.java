@@ -0,0 +1,158 @@
+package com.wai.callform.service;
+
+import com.wai.callform.dto.ClassificationSuggestion;
+import com.wai.callform.dto.PhoneClassificationCountView;
+import com.wai.callform.entity.SubjectEntity;
+import com.wai.callform.entity.TaskEntity;
+import com.wai.callform.repository.CallEntryJdbcRepository;
+import com.wai.callform.repository.CallEntryJdbcRepository.TransactionSnapshot;
+import com.wai.callform.repository.CallEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CallerHistoryIndexTest {
+
+    @Mock
+    private CallEntryRepository callEntryRepository;
+
+    @Mock
+    private CallEntryJdbcRepository callEntryJdbcRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CallerHistoryIndex callerHistoryIndex;
+    private TaskEntity permits;
+    private TaskEntity observers;
+    private SubjectEntity renewal;
+
+    @BeforeEach
+    void setUp() {
+        callerHistoryIndex = new CallerHistoryIndex(callEntryRepository, callEntryJdbcRepository, transactionManager, 2);
+        when(callEntryJdbcRepository.currentSnapshot()).thenReturn(new TransactionSnapshot(100, 100, Set.of()));
+
+        permits = task("Permits");
+        observers = task("Observers");
+        renewal = new SubjectEntity();
+        renewal.setId(UUID.randomUUID());
+        renewal.setName("Renewal");
+    }
+
+    @Test
+    void testSuggest_RanksSeededCountsAndMatchesFormattedNumbers() {
+        // Arrange
+        when(callEntryRepository.countClassificationsByPhoneNumber()).thenReturn(List.of(
+                row("907-555-1234", observers, null, 2),
+                row("+1 (907) 555-1234", permits, renewal, 5),
+                row("9075559999", observers, null, 1)));
+
+        // Act
+        callerHistoryIndex.rebuild();
+        List<ClassificationSuggestion> suggestions = callerHistoryIndex.suggest("9075551234");
+
+        // Assert
+        assertEquals(2, suggestions.size());
+        assertEquals(permits.getId(), suggestions.get(0).getTaskId());
+        assertEquals(renewal.getId(), suggestions.get(0).getSubjectId());
+        assertEquals(5, suggestions.get(0).getCallCount());
+        assertEquals(5.0 / 7, suggestions.get(0).getConfidence(), 1e-9);
+        assertEquals(observers.getId(), suggestions.get(1).getTaskId());
+        assertTrue(callerHistoryIndex.suggest("9075550000").isEmpty());
+    }
+
+    @Test
+    void testRecordReclassification_MovesCountBetweenClassifications() {
+        // Arrange
+        when(callEntryRepository.countClassificationsByPhoneNumber()).thenReturn(List.of(
+                row("9075551234", observers, null, 1)));
+        callerHistoryIndex.rebuild();
+
+        // Act - the one Observers call is re-filed under Permits, and a new call is classified as Permits
+        callerHistoryIndex.recordReclassification("9075551234", observers, null, permits, renewal);
+        callerHistoryIndex.recordReclassification("9075551234", null, null, permits, renewal);
+
+        // Assert
+        List<ClassificationSuggestion> suggestions = callerHistoryIndex.suggest("907.555.1234");
+        assertEquals(1, suggestions.size());
+        assertEquals(permits.getId(), suggestions.get(0).getTaskId());
+        assertEquals(2, suggestions.get(0).getCallCount());
+        assertEquals(1.0, suggestions.get(0).getConfidence(), 1e-9);
+    }
+
+    @Test
+    void testRebuild_ReplaysOnlyChangesItsSnapshotMissedAndHandlesClearedTasks() {
+        // Arrange - xid 90 commits before the snapshot (already in the counts), xid 150 after it
+        when(callEntryJdbcRepository.currentTransactionId()).thenReturn(90L, 150L, 95L);
+        when(callEntryRepository.countClassificationsByPhoneNumber()).thenAnswer(invocation -> {
+            commit(() -> callerHistoryIndex.recordReclassification("9075551234", null, null, observers, null));
+            commit(() -> callerHistoryIndex.recordReclassification("9075551234", null, null, permits, renewal));
+            return List.of(row("9075551234", observers, null, 3));
+        });
+
+        // Act
+        callerHistoryIndex.rebuild();
+
+        // Assert - observers counted once from the query, permits replayed
+        List<ClassificationSuggestion> suggestions = callerHistoryIndex.suggest("9075551234");
+        assertEquals(2, suggestions.size());
+        assertEquals(observers.getId(), suggestions.get(0).getTaskId());
+        assertEquals(3, suggestions.get(0).getCallCount());
+        assertEquals(permits.getId(), suggestions.get(1).getTaskId());
+        assertEquals(1, suggestions.get(1).getCallCount());
+
+        // Act - xid 95's afterCommit runs late, after the rebuild already loaded it; then the permits call's task is cleared
+        commit(() -> callerHistoryIndex.recordReclassification("9075551234", null, null, observers, null));
+        callerHistoryIndex.recordReclassification("9075551234", permits, renewal, null, null);
+
+        // Assert
+        suggestions = callerHistoryIndex.suggest("9075551234");
+        assertEquals(1, suggestions.size());
+        assertEquals(observers.getId(), suggestions.get(0).getTaskId());
+        assertEquals(3, suggestions.get(0).getCallCount());
+    }
+
+    private static void commit(Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.beforeCommit(false);
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static TaskEntity task(String name) {
+        TaskEntity task = new TaskEntity();
+        task.setId(UUID.randomUUID());
+        task.setName(name);
+        return task;
+    }
+
+    private static PhoneClassificationCountView row(String phone, TaskEntity task, SubjectEntity subject, long count) {
+        return new PhoneClassificationCountView() {
+            public String getPhoneNumber() { return phone; }
+            public UUID getTaskId() { return task.getId(); }
+            public String getTaskName() { return task.getName(); }
+            public UUID getSubjectId() { return subject != null ? subject.getId() : null; }
+            public String getSubjectName() { return subject != null ? subject.getName() : null; }
+            public long getCallCount() { return count; }
+        };
+    }
+}
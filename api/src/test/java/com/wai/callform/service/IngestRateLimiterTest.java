@@ -0,0 +1,84 @@
+package com.wai.callform.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private IngestRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new IngestRateLimiter(null, true, Map.of(
+                IngestRateLimiter.Limit.PBX, new IngestRateLimiter.BucketSpec(3, 1),
+                IngestRateLimiter.Limit.ALERTS, new IngestRateLimiter.BucketSpec(1, 0.5)),
+                3, clock::get);
+    }
+
+    @Test
+    void testTryAcquire_RejectsOnceBucketIsEmptyAndRefills() {
+        // Arrange - burst capacity of 3
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire(IngestRateLimiter.Limit.PBX, "sideloader-1"));
+        }
+
+        // Act & Assert
+        assertEquals(1, rateLimiter.tryAcquire(IngestRateLimiter.Limit.PBX, "sideloader-1"));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(0, rateLimiter.tryAcquire(IngestRateLimiter.Limit.PBX, "sideloader-1"));
+    }
+
+    @Test
+    void testTryAcquire_SourcesAndLimitsHaveSeparateBuckets() {
+        // Arrange
+        assertEquals(0, rateLimiter.tryAcquire(IngestRateLimiter.Limit.ALERTS, "sideloader-1"));
+
+        // Act & Assert
+        assertEquals(2, rateLimiter.tryAcquire(IngestRateLimiter.Limit.ALERTS, "sideloader-1"));
+        assertEquals(0, rateLimiter.tryAcquire(IngestRateLimiter.Limit.ALERTS, "sideloader-2"));
+        assertEquals(0, rateLimiter.tryAcquire(IngestRateLimiter.Limit.PBX, "sideloader-1"));
+    }
+
+    @Test
+    void testTryAcquire_BatchIsChargedPerRecord() {
+        // Arrange - 200 record burst, 50 records/s
+        rateLimiter = new IngestRateLimiter(null, true, Map.of(
+                IngestRateLimiter.Limit.PBX, new IngestRateLimiter.BucketSpec(200, 50)),
+                3, clock::get);
+
+        // Act - a full bucket admits one 5000-record batch, which leaves it 4800 records in debt
+        long first = rateLimiter.tryAcquire(IngestRateLimiter.Limit.PBX, "sideloader-1", 5000);
+        long second = rateLimiter.tryAcquire(IngestRateLimiter.Limit.PBX, "sideloader-1", 5000);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        long afterOneMinute = rateLimiter.tryAcquire(IngestRateLimiter.Limit.PBX, "sideloader-1", 1);
+
+        // Assert - the next batch waits for the bucket to refill: (200 + 4800) / 50 = 100s
+        assertEquals(0, first);
+        assertEquals(100, second);
+        assertTrue(afterOneMinute > 0);
+    }
+
+    @Test
+    void testEvictIdleBuckets_RemovesOnlyIdleFullBuckets() {
+        // Arrange
+        rateLimiter.tryAcquire(IngestRateLimiter.Limit.PBX, "idle");
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(11));
+        rateLimiter.tryAcquire(IngestRateLimiter.Limit.PBX, "busy");
+
+        // Act
+        rateLimiter.evictIdleBuckets();
+
+        // Assert
+        assertEquals(1, rateLimiter.bucketCount());
+        assertFalse(rateLimiter.isDatabaseSaturated());
+    }
+}
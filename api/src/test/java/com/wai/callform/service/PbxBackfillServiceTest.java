@@ -0,0 +1,201 @@
+package com.wai.callform.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wai.callform.dto.PbxBackfillStatus;
+import com.wai.callform.dto.PbxCallRequest;
+import com.wai.callform.entity.CallEntry;
+import com.wai.callform.event.CacheInvalidationEvent;
+import com.wai.callform.event.PendingPbxCallsEvent;
+import com.wai.callform.repository.PbxBackfillJdbcRepository;
+import com.wai.callform.repository.PbxBackfillJobJdbcRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PbxBackfillServiceTest {
+
+    @Mock
+    private PbxIntegrationService pbxIntegrationService;
+
+    @Mock
+    private PbxBackfillJdbcRepository backfillRepository;
+
+    @Mock
+    private PbxBackfillJobJdbcRepository jobRepository;
+
+    @Mock
+    private PbxIngestMetrics pbxIngestMetrics;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @TempDir
+    Path spoolDir;
+
+    private PbxBackfillService backfillService;
+    private final List<CallEntry> staged = new ArrayList<>();
+    // Jobs handed to the worker, left unrun
+    private final List<Runnable> queued = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        backfillService = new PbxBackfillService(pbxIntegrationService, backfillRepository, jobRepository,
+                new ObjectMapper().findAndRegisterModules(), pbxIngestMetrics, eventPublisher, spoolDir.toString(),
+                120, 60, Duration.ofSeconds(120), queued::add);
+        lenient().when(jobRepository.saveProgress(any(), any(), any())).thenReturn(true);
+
+        lenient().when(pbxIntegrationService.validate(any())).thenAnswer(invocation -> {
+            PbxCallRequest request = invocation.getArgument(0);
+            return request.getPhoneNumber() == null ? "phoneNumber: Phone number is required" : null;
+        });
+        lenient().when(pbxIntegrationService.buildCallEntry(any(PbxCallRequest.class), any(OffsetDateTime.class)))
+                .thenAnswer(invocation -> {
+                    PbxCallRequest request = invocation.getArgument(0);
+                    CallEntry entry = new CallEntry();
+                    entry.setPbxCallId(request.getPbxCallId());
+                    return entry;
+                });
+        // One staged entry is attached to a manual call, one is a duplicate, the rest are inserted
+        lenient().when(backfillRepository.stageAndMerge(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            Iterator<CallEntry> entries = invocation.getArgument(0);
+            entries.forEachRemaining(staged::add);
+            int inserted = Math.max(0, staged.size() - 2);
+            return new PbxBackfillJdbcRepository.BackfillCounts(staged.size(), Math.min(1, staged.size()), inserted,
+                    inserted > 0 ? Map.of("tech@wai.com", inserted) : Map.of());
+        });
+    }
+
+    @Test
+    void testRun_CsvSkipsInvalidRowsAndReportsCounts() throws Exception {
+        // Arrange
+        Path file = spoolDir.resolve("backfill.csv");
+        Files.writeString(file, String.join("\n",
+                "pbxCallId,phoneNumber,callDuration,callOwnerExtension,callDirection,timestamp",
+                "3cx-1,9075551234,300,101,inbound,2024-03-01T10:00:00.000-09:00",
+                "3cx-2,,60,102,OUTBOUND,2024-03-01T11:00:00.000-09:00",
+                "3cx-3,9075559999,not-a-number,103,INBOUND,2024-03-01T12:00:00.000-09:00",
+                "\"3cx-4\",\"907,555,0000\",45,104,INBOUND,2024-03-01T13:00:00.000-09:00",
+                "3cx-1,9075551234,300,101,INBOUND,2024-03-01T10:00:00.000-09:00"));
+        PbxBackfillService.Job job = new PbxBackfillService.Job(UUID.randomUUID(), PbxBackfillService.Format.CSV, "3cx-main");
+
+        // Act
+        backfillService.run(job, file);
+
+        // Assert
+        PbxBackfillStatus status = job.toStatus();
+        assertEquals(PbxBackfillStatus.Phase.COMPLETED, status.getPhase());
+        assertEquals(5, status.getRowsRead());
+        assertEquals(2, status.getRowsInvalid());
+        assertEquals(2, status.getSampleErrors().size());
+        assertEquals(List.of("3cx-1", "3cx-4", "3cx-1"), staged.stream().map(CallEntry::getPbxCallId).toList());
+        assertTrue(staged.stream().allMatch(entry -> entry.getId() != null));
+        assertEquals(1, status.getRowsMerged());
+        assertEquals(1, status.getRowsInserted());
+        assertEquals(1, status.getRowsDuplicate());
+        assertFalse(Files.exists(file));
+        verify(backfillRepository).stageAndMerge(any(), any(), eq(Duration.ofSeconds(120)), any(), any());
+        verify(jobRepository, atLeastOnce()).saveProgress(argThat(saved ->
+                saved.getPhase() == PbxBackfillStatus.Phase.COMPLETED && saved.getRowsInserted() == 1), any(), any());
+        verify(eventPublisher).publishEvent(new PendingPbxCallsEvent(Map.of("tech@wai.com", 1)));
+        verify(eventPublisher).publishEvent(new CacheInvalidationEvent(CacheInvalidationEvent.Type.PENDING_BACKLOG));
+        verify(pbxIngestMetrics).recordBackfill(1, 1, 1, 2);
+        verify(pbxIngestMetrics).refreshPendingBacklog();
+    }
+
+    @Test
+    void testRun_FailedJobKeepsSpoolFileForRetry() throws Exception {
+        // Arrange
+        UUID jobId = UUID.randomUUID();
+        Path file = spoolDir.resolve(jobId + ".ndjson");
+        Files.writeString(file, "{\"pbxCallId\":\"3cx-1\",\"phoneNumber\":\"9075551234\"}\n");
+        doThrow(new SQLException("connection reset"))
+                .when(backfillRepository).stageAndMerge(any(), any(), any(), any(), any());
+        PbxBackfillService.Job job = new PbxBackfillService.Job(jobId, PbxBackfillService.Format.NDJSON, "3cx-main");
+
+        // Act
+        backfillService.run(job, file);
+
+        // Assert - the upload survives the failure, and a retry queues it again
+        assertEquals(PbxBackfillStatus.Phase.FAILED, job.toStatus().getPhase());
+        assertTrue(Files.exists(file));
+        verifyNoInteractions(eventPublisher);
+
+        PbxBackfillStatus failed = job.toStatus();
+        when(jobRepository.find(jobId)).thenReturn(Optional.of(failed));
+        when(jobRepository.findSourceId(jobId)).thenReturn("3cx-main");
+        when(jobRepository.retry(eq(jobId), any(), any())).thenReturn(true);
+
+        assertEquals(PbxBackfillStatus.Phase.QUEUED, backfillService.retry(jobId).getPhase());
+        assertEquals(1, queued.size());
+        assertTrue(Files.exists(file));
+    }
+
+    @Test
+    void testRun_NdjsonMalformedLineIsCountedNotFatal() throws Exception {
+        // Arrange
+        Path file = spoolDir.resolve("backfill.ndjson");
+        Files.writeString(file, String.join("\n",
+                "{\"pbxCallId\":\"3cx-1\",\"phoneNumber\":\"9075551234\",\"callDuration\":300,"
+                        + "\"callOwnerExtension\":\"101\",\"callDirection\":\"INBOUND\","
+                        + "\"timestamp\":\"2024-03-01T10:00:00.000-09:00\"}",
+                "{\"pbxCallId\":",
+                ""));
+        PbxBackfillService.Job job = new PbxBackfillService.Job(UUID.randomUUID(), PbxBackfillService.Format.NDJSON, null);
+
+        // Act
+        backfillService.run(job, file);
+
+        // Assert
+        PbxBackfillStatus status = job.toStatus();
+        assertEquals(PbxBackfillStatus.Phase.COMPLETED, status.getPhase());
+        assertEquals(2, status.getRowsRead());
+        assertEquals(1, status.getRowsInvalid());
+        assertEquals(1, staged.size());
+    }
+
+    @Test
+    void testRecoverAbandonedJobs_ResumesWithSpoolFileAndFailsStaleWithout() throws Exception {
+        // Arrange - one lapsed job whose upload is spooled here, one long-lapsed job spooled nowhere
+        OffsetDateTime now = OffsetDateTime.now();
+        UUID resumable = UUID.randomUUID();
+        UUID lost = UUID.randomUUID();
+        Files.writeString(spoolDir.resolve(resumable + ".ndjson"), "");
+        when(jobRepository.findAbandoned(any())).thenReturn(List.of(
+                new PbxBackfillJobJdbcRepository.AbandonedJob(resumable, "NDJSON", "3cx-main", now.minusMinutes(2)),
+                new PbxBackfillJobJdbcRepository.AbandonedJob(lost, "CSV", null, now.minusHours(2))));
+        when(jobRepository.claim(eq(resumable), any(), any(), any())).thenReturn(true);
+        when(jobRepository.failAbandoned(eq(lost), any(), any())).thenReturn(true);
+
+        // Act
+        backfillService.recoverAbandonedJobs();
+
+        // Assert
+        verify(jobRepository).claim(eq(resumable), any(), any(), any());
+        verify(jobRepository, never()).claim(eq(lost), any(), any(), any());
+        verify(jobRepository).failAbandoned(eq(lost), any(), any());
+        assertEquals(1, queued.size());
+    }
+}
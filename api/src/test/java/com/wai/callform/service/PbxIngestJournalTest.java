@@ -0,0 +1,163 @@
+package com.wai.callform.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wai.callform.dto.PbxBatchResult;
+import com.wai.callform.dto.PbxCallRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PbxIngestJournalTest {
+
+    @Mock
+    private PbxIntegrationService pbxIntegrationService;
+
+    @TempDir
+    Path journalDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private PbxIngestJournal journal;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        journal = openJournal();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        journal.close();
+    }
+
+    @Test
+    void testDrain_WritesJournaledRecordsAndAdvancesCheckpoint() {
+        // Arrange
+        when(pbxIntegrationService.createCallsFromPbx(anyList())).thenReturn(new PbxBatchResult());
+        journal.append(buildRequest("3cx-call-1"));
+        journal.append(buildRequest("3cx-call-2"));
+        assertTrue(journal.pendingBytes() > 0);
+
+        // Act
+        journal.drain();
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PbxCallRequest>> captor = ArgumentCaptor.forClass(List.class);
+        verify(pbxIntegrationService).createCallsFromPbx(captor.capture());
+        assertEquals(List.of("3cx-call-1", "3cx-call-2"),
+                captor.getValue().stream().map(PbxCallRequest::getPbxCallId).toList());
+        assertEquals(0, journal.pendingBytes());
+    }
+
+    @Test
+    void testReplayOnStartup_ResumesFromCheckpoint() throws Exception {
+        // Arrange - database unavailable, so nothing is checkpointed before "restart"
+        when(pbxIntegrationService.createCallsFromPbx(anyList()))
+                .thenThrow(new RuntimeException("database down"))
+                .thenReturn(new PbxBatchResult());
+        journal.append(buildRequest("3cx-call-1"));
+        journal.drain();
+        journal.close();
+
+        // Act
+        journal = openJournal();
+        journal.replayOnStartup();
+
+        // Assert
+        verify(pbxIntegrationService, times(2)).createCallsFromPbx(anyList());
+        assertEquals(0, journal.pendingBytes());
+    }
+
+    @Test
+    void testDrain_LeavesPartialTrailingRecord() throws Exception {
+        // Arrange - simulate a crash mid-append
+        when(pbxIntegrationService.createCallsFromPbx(anyList())).thenReturn(new PbxBatchResult());
+        journal.append(buildRequest("3cx-call-1"));
+        Files.writeString(journalDir.resolve("pbx-ingest.journal"), "{\"pbxCallId\":\"3cx-ca",
+                StandardOpenOption.APPEND);
+
+        // Act
+        journal.drain();
+
+        // Assert
+        verify(pbxIntegrationService, times(1)).createCallsFromPbx(anyList());
+        assertTrue(journal.pendingBytes() > 0);
+    }
+
+    @Test
+    void testDrain_DeadLettersBatchThatKeepsFailing() throws Exception {
+        // Arrange - a record the database rejects every time, then a good one appended later
+        when(pbxIntegrationService.createCallsFromPbx(anyList()))
+                .thenThrow(new IllegalStateException("poison record"))
+                .thenThrow(new IllegalStateException("poison record"))
+                .thenThrow(new IllegalStateException("poison record"))
+                .thenReturn(new PbxBatchResult());
+        journal.append(buildRequest("3cx-poison"));
+
+        // Act - the third failure moves the batch aside and the drain carries on
+        journal.drain();
+        journal.drain();
+        assertTrue(journal.pendingBytes() > 0);
+        journal.drain();
+        journal.append(buildRequest("3cx-call-2"));
+        journal.drain();
+
+        // Assert
+        assertEquals(0, journal.pendingBytes());
+        assertTrue(Files.readString(journalDir.resolve("pbx-ingest.deadletter")).contains("3cx-poison"));
+        verify(pbxIntegrationService, times(4)).createCallsFromPbx(anyList());
+    }
+
+    @Test
+    void testDrain_DatabaseOutageIsNeverDeadLettered() {
+        // Arrange
+        when(pbxIntegrationService.createCallsFromPbx(anyList()))
+                .thenThrow(new CannotGetJdbcConnectionException("connection refused"));
+        journal.append(buildRequest("3cx-call-1"));
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            journal.drain();
+        }
+
+        // Assert
+        assertTrue(journal.pendingBytes() > 0);
+        assertFalse(Files.exists(journalDir.resolve("pbx-ingest.deadletter")));
+    }
+
+    private PbxIngestJournal openJournal() throws Exception {
+        PbxIngestJournal opened = new PbxIngestJournal(objectMapper, pbxIntegrationService, "journal",
+                journalDir.toString(), 500, 16 * 1024 * 1024, 3);
+        opened.open();
+        return opened;
+    }
+
+    private PbxCallRequest buildRequest(String pbxCallId) {
+        PbxCallRequest request = new PbxCallRequest();
+        request.setPbxCallId(pbxCallId);
+        request.setPhoneNumber("9075551234");
+        request.setCallDuration(300);
+        request.setCallOwnerExtension("101");
+        request.setCallOwnerEmail("john.doe@wostmann.com");
+        request.setCallDirection(PbxCallRequest.CallDirection.INBOUND);
+        request.setTimestamp(OffsetDateTime.now());
+        return request;
+    }
+}
@@ -1,22 +1,35 @@
 package com.wai.callform.service;
 
 import com.wai.callform.dto.CallEntryDto;
+import com.wai.callform.dto.PbxBatchResult;
 import com.wai.callform.dto.PbxCallRequest;
+import com.wai.callform.dto.PendingPbxCallView;
 import com.wai.callform.entity.CallEntry;
+import com.wai.callform.repository.CallEntryJdbcRepository;
 import com.wai.callform.repository.CallEntryRepository;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +41,24 @@ class PbxIntegrationServiceTest {
     @Mock
     private CallEntryService callEntryService;
 
+    @Mock
+    private CallEntryJdbcRepository callEntryJdbcRepository;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private ExtensionDirectoryService extensionDirectoryService;
+
+    @Mock
+    private PbxIngestMetrics pbxIngestMetrics;
+
+    @Mock
+    private CallerHistoryIndex callerHistoryIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private PbxIntegrationService pbxIntegrationService;
 
@@ -58,79 +89,166 @@ class PbxIntegrationServiceTest {
     @Test
     void testCreateCallFromPbx_Success() {
         // Arrange
-        when(callEntryRepository.findByPbxCallId(testRequest.getPbxCallId())).thenReturn(Optional.empty());
-        when(callEntryRepository.save(any(CallEntry.class))).thenReturn(testCallEntry);
-
-        CallEntryDto expectedDto = new CallEntryDto();
-        expectedDto.setId(testCallEntry.getId());
-        expectedDto.setPbxCallId(testCallEntry.getPbxCallId());
-        when(callEntryService.getCall(testCallEntry.getId())).thenReturn(expectedDto);
+        when(callEntryJdbcRepository.insertPbxCall(any(CallEntry.class))).thenReturn(true);
+        when(callEntryService.mapToDto(any(CallEntry.class))).thenAnswer(invocation -> {
+            CallEntry entry = invocation.getArgument(0);
+            CallEntryDto dto = new CallEntryDto();
+            dto.setId(entry.getId());
+            dto.setPbxCallId(entry.getPbxCallId());
+            return dto;
+        });
 
         // Act
         CallEntryDto result = pbxIntegrationService.createCallFromPbx(testRequest);
 
         // Assert
         assertNotNull(result);
-        assertEquals(testCallEntry.getId(), result.getId());
+        assertNotNull(result.getId());
         assertEquals(testRequest.getPbxCallId(), result.getPbxCallId());
 
-        verify(callEntryRepository).findByPbxCallId(testRequest.getPbxCallId());
-        verify(callEntryRepository).save(any(CallEntry.class));
-        verify(callEntryService).getCall(testCallEntry.getId());
+        verify(callEntryJdbcRepository).insertPbxCall(any(CallEntry.class));
+        verify(callEntryRepository, never()).findByPbxCallId(any());
+        verify(callEntryService, never()).getCall(any(UUID.class));
     }
 
     @Test
-    void testCreateCallFromPbx_DuplicateCall() {
+    void testCreateCallFromPbx_MergesIntoOverlappingManualCall() {
         // Arrange
-        when(callEntryRepository.findByPbxCallId(testRequest.getPbxCallId()))
-                .thenReturn(Optional.of(testCallEntry));
+        ReflectionTestUtils.setField(pbxIntegrationService, "mergeEnabled", true);
+        UUID manualCallId = UUID.randomUUID();
+        CallEntryDto manualCall = new CallEntryDto();
+        manualCall.setId(manualCallId);
+        when(callEntryJdbcRepository.mergePbxCallIntoManualCall(any(CallEntry.class), any(Duration.class)))
+                .thenReturn(Optional.of(manualCallId));
+        when(callEntryService.getCall(manualCallId)).thenReturn(manualCall);
+
+        // Act
+        CallEntryDto result = pbxIntegrationService.createCallFromPbx(testRequest);
+
+        // Assert
+        assertEquals(manualCallId, result.getId());
+        verify(callEntryJdbcRepository, never()).insertPbxCall(any(CallEntry.class));
+        verify(pbxIngestMetrics).recordMerged(eq(testRequest.getTimestamp()), any(OffsetDateTime.class));
+    }
+
+    @Test
+    void testCreateCallFromPbx_DuplicateCall() {
+        // Arrange - unique index rejects the insert
+        when(callEntryJdbcRepository.insertPbxCall(any(CallEntry.class))).thenReturn(false);
 
         // Act & Assert
         assertThrows(IllegalStateException.class, () -> {
             pbxIntegrationService.createCallFromPbx(testRequest);
         });
 
-        verify(callEntryRepository).findByPbxCallId(testRequest.getPbxCallId());
-        verify(callEntryRepository, never()).save(any(CallEntry.class));
+        verify(callEntryService, never()).mapToDto(any(CallEntry.class));
     }
 
     @Test
     void testCreateCallFromPbx_NoEmailProvided() {
         // Arrange
         testRequest.setCallOwnerEmail(null);
-        when(callEntryRepository.findByPbxCallId(testRequest.getPbxCallId())).thenReturn(Optional.empty());
-        when(callEntryRepository.save(any(CallEntry.class))).thenReturn(testCallEntry);
-
-        CallEntryDto expectedDto = new CallEntryDto();
-        expectedDto.setId(testCallEntry.getId());
-        when(callEntryService.getCall(any(UUID.class))).thenReturn(expectedDto);
+        when(callEntryJdbcRepository.insertPbxCall(any(CallEntry.class))).thenReturn(true);
+        when(callEntryService.mapToDto(any(CallEntry.class))).thenReturn(new CallEntryDto());
 
         // Act
         CallEntryDto result = pbxIntegrationService.createCallFromPbx(testRequest);
 
         // Assert
         assertNotNull(result);
-        verify(callEntryRepository).save(argThat(callEntry ->
+        verify(callEntryJdbcRepository).insertPbxCall(argThat(callEntry ->
             callEntry.getDatatechEmail().contains("@unknown.local")
         ));
     }
 
     @Test
-    void testGetPendingPbxCalls() {
+    void testCreateCallFromPbx_ResolvesOwnerFromExtensionDirectory() {
         // Arrange
-        when(callEntryRepository.findByIsPbxOriginatedTrueAndTaskIsNull())
-                .thenReturn(java.util.List.of(testCallEntry));
+        testRequest.setCallOwnerEmail(null);
+        when(extensionDirectoryService.findByExtension("101")).thenReturn(Optional.of(
+                new ExtensionDirectoryService.DirectoryEntry("101", "jane.roe@wostmann.com", "Jane Roe")));
+        when(callEntryJdbcRepository.insertPbxCall(any(CallEntry.class))).thenReturn(true);
+        when(callEntryService.mapToDto(any(CallEntry.class))).thenReturn(new CallEntryDto());
 
-        CallEntryDto dto = new CallEntryDto();
-        dto.setId(testCallEntry.getId());
-        when(callEntryService.getCall(testCallEntry.getId())).thenReturn(dto);
+        // Act
+        pbxIntegrationService.createCallFromPbx(testRequest);
+
+        // Assert
+        verify(callEntryJdbcRepository).insertPbxCall(argThat(callEntry ->
+            "jane.roe@wostmann.com".equals(callEntry.getDatatechEmail())
+                && "Jane Roe".equals(callEntry.getDatatechName())
+        ));
+    }
+
+    @Test
+    void testGetPendingPbxCalls() {
+        // Arrange
+        PendingPbxCallView view = mock(PendingPbxCallView.class);
+        when(view.getId()).thenReturn(testCallEntry.getId());
+        when(view.getStartTime()).thenReturn(OffsetDateTime.now().minusMinutes(5));
+        when(view.getEndTime()).thenReturn(OffsetDateTime.now());
+        when(callEntryRepository.findPendingPbxCalls(any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(view), PageRequest.of(0, 1), 3));
 
         // Act
-        var result = pbxIntegrationService.getPendingPbxCalls();
+        var result = pbxIntegrationService.getPendingPbxCalls(PageRequest.of(0, 1));
 
         // Assert
         assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals(testCallEntry.getId(), result.get(0).getId());
+        assertEquals(1, result.getContent().size());
+        assertEquals(3, result.getTotalElements());
+        assertTrue(result.hasNext());
+        assertEquals(testCallEntry.getId(), result.getContent().get(0).getId());
+        assertTrue(result.getContent().get(0).getIsPbxOriginated());
+        assertEquals(5L, result.getContent().get(0).getDurationMinutes());
+
+        // One projection query, no per-row re-reads
+        verify(callEntryService, never()).getCall(any(UUID.class));
+    }
+
+    @Test
+    void testCreateCallsFromPbx_ReportsPerItemStatus() {
+        // Arrange
+        PbxCallRequest duplicate = new PbxCallRequest();
+        duplicate.setPbxCallId("3cx-call-67890");
+        duplicate.setPhoneNumber("9075559999");
+        duplicate.setCallDuration(60);
+        duplicate.setCallOwnerExtension("102");
+        duplicate.setCallDirection(PbxCallRequest.CallDirection.OUTBOUND);
+        duplicate.setTimestamp(OffsetDateTime.now());
+
+        when(callEntryJdbcRepository.insertPbxCalls(anyList())).thenReturn(new boolean[] {true, false});
+
+        // Act
+        PbxBatchResult result = pbxIntegrationService.createCallsFromPbx(List.of(testRequest, duplicate));
+
+        // Assert
+        assertEquals(2, result.getReceived());
+        assertEquals(1, result.getCreated());
+        assertEquals(1, result.getDuplicates());
+        assertEquals(PbxBatchResult.ItemStatus.CREATED, result.getItems().get(0).getStatus());
+        assertNotNull(result.getItems().get(0).getCallEntryId());
+        assertEquals(PbxBatchResult.ItemStatus.DUPLICATE, result.getItems().get(1).getStatus());
+        assertEquals("3cx-call-67890", result.getItems().get(1).getPbxCallId());
+        verify(callEntryRepository, never()).findByPbxCallId(any());
+        verify(pbxIngestMetrics).recordCreated(eq(testRequest.getTimestamp()), any(OffsetDateTime.class));
+        verify(pbxIngestMetrics).recordDuplicate();
+    }
+
+    @Test
+    void testCreateCallsFromPbx_ConcurrentMergeConflictIsDuplicate() {
+        // Arrange: another ingest committed this pbx_call_id while the batch was merging
+        ReflectionTestUtils.setField(pbxIntegrationService, "mergeEnabled", true);
+        when(callEntryJdbcRepository.mergePbxCallsIntoManualCalls(anyList(), any(Duration.class)))
+                .thenReturn(new CallEntryJdbcRepository.MergeOutcome[] {CallEntryJdbcRepository.MergeOutcome.DUPLICATE});
+
+        // Act
+        PbxBatchResult result = pbxIntegrationService.createCallsFromPbx(List.of(testRequest));
+
+        // Assert
+        assertEquals(1, result.getDuplicates());
+        assertEquals(PbxBatchResult.ItemStatus.DUPLICATE, result.getItems().get(0).getStatus());
+        verify(callEntryJdbcRepository, never()).insertPbxCalls(anyList());
+        verify(pbxIngestMetrics).recordDuplicate();
     }
 }
@@ -0,0 +1,83 @@
+package com.wai.callform.service;
+
+import com.wai.callform.dto.PbxBatchResult;
+import com.wai.callform.dto.PbxCallRequest;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PbxStreamCodecTest {
+
+    @Test
+    void testEventsRoundTrip() {
+        PbxCallRequest inbound = new PbxCallRequest();
+        inbound.setPbxCallId("3cx-call-12345");
+        inbound.setPhoneNumber("9075551234");
+        inbound.setCallDuration(300);
+        inbound.setCallOwnerExtension("101");
+        inbound.setCallOwnerEmail("john.doe@wostmann.com");
+        inbound.setCallDirection(PbxCallRequest.CallDirection.INBOUND);
+        inbound.setCallGroupId("support");
+        inbound.setTimestamp(OffsetDateTime.of(2024, 3, 1, 9, 30, 15, 123_000_000, ZoneOffset.ofHours(-9)));
+
+        PbxCallRequest outbound = new PbxCallRequest();
+        outbound.setPbxCallId("3cx-call-67890");
+        outbound.setPhoneNumber("9075559999");
+        outbound.setCallDuration(0);
+        outbound.setCallOwnerExtension("102");
+        outbound.setCallDirection(PbxCallRequest.CallDirection.OUTBOUND);
+        outbound.setSourceId("3cx-main");
+        outbound.setTimestamp(OffsetDateTime.of(2024, 3, 1, 18, 0, 0, 0, ZoneOffset.UTC));
+
+        byte[] encoded = PbxStreamCodec.encodeEvents(1_000_000L, List.of(inbound, outbound));
+        PbxStreamCodec.EventsFrame frame = PbxStreamCodec.decodeEvents(ByteBuffer.wrap(encoded), 10);
+
+        assertEquals(1_000_000L, frame.firstSequence());
+        assertEquals(List.of(inbound, outbound), frame.events());
+    }
+
+    @Test
+    void testDecodeRejectsMalformedFrames() {
+        PbxCallRequest request = new PbxCallRequest();
+        request.setPbxCallId("3cx-call-1");
+        request.setPhoneNumber("9075551234");
+        request.setCallDuration(60);
+        request.setCallOwnerExtension("101");
+        request.setCallDirection(PbxCallRequest.CallDirection.INBOUND);
+        request.setTimestamp(OffsetDateTime.now(ZoneOffset.UTC));
+        byte[] encoded = PbxStreamCodec.encodeEvents(1, List.of(request, request));
+
+        // Truncated, over the per-frame limit, trailing garbage
+        assertThrows(IllegalArgumentException.class, () ->
+                PbxStreamCodec.decodeEvents(ByteBuffer.wrap(Arrays.copyOf(encoded, encoded.length - 3)), 10));
+        assertThrows(IllegalArgumentException.class, () ->
+                PbxStreamCodec.decodeEvents(ByteBuffer.wrap(encoded), 1));
+        assertThrows(IllegalArgumentException.class, () ->
+                PbxStreamCodec.decodeEvents(ByteBuffer.wrap(Arrays.copyOf(encoded, encoded.length + 1)), 10));
+    }
+
+    @Test
+    void testAckCarriesStatusPerEventAndErrorsForInvalid() {
+        PbxBatchResult result = new PbxBatchResult();
+        result.add(new PbxBatchResult.ItemResult(0, "a", PbxBatchResult.ItemStatus.CREATED, UUID.randomUUID(), null));
+        result.add(new PbxBatchResult.ItemResult(1, "b", PbxBatchResult.ItemStatus.DUPLICATE, null, "dup"));
+        result.add(new PbxBatchResult.ItemResult(2, null, PbxBatchResult.ItemStatus.INVALID, null, "pbxCallId: required"));
+
+        ByteBuffer ack = ByteBuffer.wrap(PbxStreamCodec.encodeAck(300, result));
+
+        assertEquals(PbxStreamCodec.ACK, ack.get());
+        assertEquals(300, PbxStreamCodec.readVarLong(ack));
+        assertEquals(3, PbxStreamCodec.readVarLong(ack));
+        assertEquals(PbxBatchResult.ItemStatus.CREATED.ordinal(), ack.get());
+        assertEquals(PbxBatchResult.ItemStatus.DUPLICATE.ordinal(), ack.get());
+        assertEquals(PbxBatchResult.ItemStatus.INVALID.ordinal(), ack.get());
+        assertEquals("pbxCallId: required".length(), PbxStreamCodec.readVarLong(ack));
+    }
+}
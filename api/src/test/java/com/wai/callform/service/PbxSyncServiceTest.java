@@ -0,0 +1,71 @@
+package com.wai.callform.service;
+
+import com.wai.callform.dto.PbxSyncDigest;
+import com.wai.callform.repository.PbxSyncJdbcRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PbxSyncServiceTest {
+
+    @Mock
+    private PbxSyncJdbcRepository pbxSyncJdbcRepository;
+
+    @InjectMocks
+    private PbxSyncService pbxSyncService;
+
+    @Test
+    void testFnv1a64_MatchesReferenceVectors() {
+        assertEquals(0xcbf29ce484222325L, PbxSyncService.fnv1a64(""));
+        assertEquals(0xaf63dc4c8601ec8cL, PbxSyncService.fnv1a64("a"));
+    }
+
+    @Test
+    void testGetDigest_BucketsCallsByEndTime() {
+        // Arrange
+        OffsetDateTime from = OffsetDateTime.parse("2024-03-01T00:00:00Z");
+        OffsetDateTime to = from.plusHours(3);
+        long fromMillis = from.toInstant().toEpochMilli();
+        doAnswer(invocation -> {
+            PbxSyncJdbcRepository.SyncedCallHandler handler = invocation.getArgument(3);
+            handler.accept("3cx-1", fromMillis + 60_000);
+            handler.accept("3cx-2", fromMillis + 3_599_999);
+            handler.accept("3cx-3", fromMillis + 2 * 3_600_000 + 5);
+            return null;
+        }).when(pbxSyncJdbcRepository).forEachInWindow(eq("3cx-main"), eq(from), eq(to), any());
+
+        // Act
+        PbxSyncDigest digest = pbxSyncService.getDigest("3cx-main", from, to, 3600);
+
+        // Assert
+        assertEquals(3, digest.getTotalCalls());
+        assertEquals(2, digest.getBuckets().size());
+        PbxSyncDigest.Bucket first = digest.getBuckets().get(0);
+        assertEquals(0, first.getIndex());
+        assertEquals(2, first.getCount());
+        assertEquals(String.format("%016x",
+                PbxSyncService.fnv1a64("3cx-1") ^ PbxSyncService.fnv1a64("3cx-2")), first.getHash());
+        assertEquals(2, digest.getBuckets().get(1).getIndex());
+    }
+
+    @Test
+    void testGetDigest_RejectsOversizedWindow() {
+        OffsetDateTime from = OffsetDateTime.parse("2024-03-01T00:00:00Z");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> pbxSyncService.getDigest(null, from, from.plusDays(60), 3600));
+        assertThrows(IllegalArgumentException.class,
+                () -> pbxSyncService.getDigest(null, from, from.plusDays(1), 10));
+        verifyNoInteractions(pbxSyncJdbcRepository);
+    }
+}
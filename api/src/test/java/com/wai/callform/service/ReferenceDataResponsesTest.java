@@ -0,0 +1,61 @@
+package com.wai.callform.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wai.callform.dto.TaskEntityDto;
+import com.wai.callform.repository.TaskSubjectGraphJdbcRepository.Graph;
+import com.wai.callform.repository.TaskSubjectGraphJdbcRepository.Relationship;
+import com.wai.callform.repository.TaskSubjectGraphJdbcRepository.Row;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReferenceDataResponsesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private final Row ifq = row("IFQ", true);
+    private final Row retired = row("Retired", false);
+    private final Row permits = row("Permits", true);
+    private final Row landings = row("Landings", false);
+
+    private final ReferenceDataResponses responses = new ReferenceDataResponses(new TaskSubjectSnapshot(new Graph(3,
+            List.of(ifq, retired),
+            List.of(permits, landings),
+            List.of(new Relationship(ifq.id(), permits.id()),
+                    new Relationship(ifq.id(), landings.id()),
+                    new Relationship(retired.id(), permits.id())))), objectMapper);
+
+    @Test
+    void testActiveTasks_NestOnlyActiveSubjects() {
+        List<TaskEntityDto> tasks = responses.activeTasks();
+
+        assertEquals(1, tasks.size());
+        assertEquals(1, tasks.get(0).getSubjectCount());
+        assertEquals(permits.id(), tasks.get(0).getSubjects().iterator().next().getId());
+        // Inactive tasks are still found by id, inactive subjects are not listed under a task
+        assertFalse(responses.task(retired.id()).orElseThrow().getIsActive());
+        assertEquals(List.of(permits.id()), responses.activeSubjectsOf(ifq.id()).stream().map(s -> s.getId()).toList());
+        assertEquals(1, responses.activeSubjects().get(0).getTaskCount());
+    }
+
+    @Test
+    void testSummaryJson_SerializedFromTheSameDtos() throws Exception {
+        JsonNode summary = objectMapper.readTree(responses.summaryJson());
+
+        assertEquals(3, responses.version());
+        assertEquals(1, summary.get("totalTasks").asInt());
+        assertEquals(1, summary.get("totalSubjects").asInt());
+        assertEquals(1, summary.get("totalRelationships").asInt());
+        assertEquals("IFQ", objectMapper.readTree(responses.activeTasksJson()).get(0).get("name").asText());
+    }
+
+    private static Row row(String name, boolean active) {
+        OffsetDateTime now = OffsetDateTime.now();
+        return new Row(UUID.randomUUID(), name, active, 10, now, now);
+    }
+}
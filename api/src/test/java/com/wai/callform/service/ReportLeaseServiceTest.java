@@ -0,0 +1,159 @@
+package com.wai.callform.service;
+
+import com.wai.callform.entity.ReportRun;
+import com.wai.callform.repository.ReportRunRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportLeaseServiceTest {
+
+    @Mock
+    private ReportRunRepository reportRunRepository;
+
+    private ReportLeaseService reportLeaseService;
+
+    private ReportRun testReport;
+
+    @BeforeEach
+    void setUp() {
+        reportLeaseService = new ReportLeaseService(reportRunRepository, 60, 3, 30, 900);
+
+        testReport = new ReportRun();
+        testReport.setId(UUID.randomUUID());
+        testReport.setRequestedBy("john.doe@wostmann.com");
+        testReport.setStatus(ReportRun.ReportStatus.PENDING);
+        testReport.setReportType(ReportRun.ReportType.ASYNC_USER);
+    }
+
+    @Test
+    void testClaim_AcquiresLeaseAndHeartbeatRenewsIt() {
+        // Arrange
+        when(reportRunRepository.findById(testReport.getId())).thenReturn(Optional.of(testReport));
+        when(reportRunRepository.save(any(ReportRun.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        ReportRun claimed = reportLeaseService.claim(testReport.getId());
+        reportLeaseService.renewHeldLeases();
+
+        // Assert
+        assertEquals(ReportRun.ReportStatus.RUNNING, claimed.getStatus());
+        assertEquals(reportLeaseService.getWorkerId(), claimed.getLeasedBy());
+        assertNotNull(claimed.getLeaseExpiresAt());
+        verify(reportRunRepository).renewLeases(anyCollection(), eq(reportLeaseService.getWorkerId()),
+                any(OffsetDateTime.class));
+    }
+
+    @Test
+    void testComplete_LeaseLostDiscardsResult() {
+        // Arrange: the reaper reassigned the report, so the conditional update matches nothing
+        when(reportRunRepository.findById(testReport.getId())).thenReturn(Optional.of(testReport));
+        when(reportRunRepository.save(any(ReportRun.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        reportLeaseService.claim(testReport.getId());
+        when(reportRunRepository.finishLeased(eq(testReport.getId()), eq(reportLeaseService.getWorkerId()),
+                eq(ReportRun.ReportStatus.COMPLETED), any(), any(), any(OffsetDateTime.class))).thenReturn(0);
+
+        // Act
+        Optional<ReportRun> completed = reportLeaseService.complete(testReport.getId(), "/result");
+
+        // Assert
+        assertTrue(completed.isEmpty());
+        verify(reportRunRepository, times(1)).findById(testReport.getId());
+    }
+
+    @Test
+    void testRenewHeldLeases_FlagsLeasesNotRenewed() {
+        // Arrange: two claimed reports, one since taken over by another worker
+        ReportRun other = new ReportRun();
+        other.setId(UUID.randomUUID());
+        other.setStatus(ReportRun.ReportStatus.PENDING);
+        when(reportRunRepository.findById(testReport.getId())).thenReturn(Optional.of(testReport));
+        when(reportRunRepository.findById(other.getId())).thenReturn(Optional.of(other));
+        when(reportRunRepository.save(any(ReportRun.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        reportLeaseService.claim(testReport.getId());
+        reportLeaseService.claim(other.getId());
+        when(reportRunRepository.renewLeases(anyCollection(), any(), any(OffsetDateTime.class))).thenReturn(1);
+        when(reportRunRepository.findLeasedIds(anyCollection(), eq(reportLeaseService.getWorkerId())))
+                .thenReturn(List.of(other.getId()));
+
+        // Act
+        reportLeaseService.renewHeldLeases();
+        reportLeaseService.renewHeldLeases();
+
+        // Assert: the lost lease is flagged and no longer renewed
+        assertTrue(reportLeaseService.isLeaseLost(testReport.getId()));
+        assertFalse(reportLeaseService.isLeaseLost(other.getId()));
+        verify(reportRunRepository, times(1)).findLeasedIds(anyCollection(), any());
+    }
+
+    @Test
+    void testClaim_NotPending() {
+        // Arrange
+        testReport.setStatus(ReportRun.ReportStatus.RUNNING);
+        when(reportRunRepository.findById(testReport.getId())).thenReturn(Optional.of(testReport));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> reportLeaseService.claim(testReport.getId()));
+        verify(reportRunRepository, never()).save(any(ReportRun.class));
+    }
+
+    @Test
+    void testReapExpiredLeases_ReturnsToQueueWithBackoff() {
+        // Arrange
+        testReport.acquireLease("dead-node", OffsetDateTime.now().minusMinutes(5));
+        when(reportRunRepository.findExpiredLeasesForUpdate(any(OffsetDateTime.class)))
+                .thenReturn(List.of(testReport));
+        when(reportRunRepository.findUnleasedStuckReportsForUpdate(any(OffsetDateTime.class))).thenReturn(List.of());
+
+        // Act
+        reportLeaseService.reapExpiredLeases();
+
+        // Assert
+        assertEquals(ReportRun.ReportStatus.PENDING, testReport.getStatus());
+        assertEquals(1, testReport.getRetryCount());
+        assertNull(testReport.getLeasedBy());
+        assertNull(testReport.getStartedAt());
+        assertTrue(testReport.getNextAttemptAt().isAfter(OffsetDateTime.now().plusSeconds(25)));
+        verify(reportRunRepository).save(testReport);
+    }
+
+    @Test
+    void testReapExpiredLeases_FailsAfterMaxAttempts() {
+        // Arrange
+        testReport.setRetryCount(2);
+        testReport.acquireLease("dead-node", OffsetDateTime.now().minusMinutes(5));
+        when(reportRunRepository.findExpiredLeasesForUpdate(any(OffsetDateTime.class)))
+                .thenReturn(List.of(testReport));
+        when(reportRunRepository.findUnleasedStuckReportsForUpdate(any(OffsetDateTime.class))).thenReturn(List.of());
+
+        // Act
+        reportLeaseService.reapExpiredLeases();
+
+        // Assert
+        assertEquals(ReportRun.ReportStatus.FAILED, testReport.getStatus());
+        assertNotNull(testReport.getErrorMessage());
+    }
+
+    @Test
+    void testBackoffIsExponentialAndCapped() {
+        assertEquals(Duration.ofSeconds(30), reportLeaseService.backoffFor(0));
+        assertEquals(Duration.ofSeconds(60), reportLeaseService.backoffFor(1));
+        assertEquals(Duration.ofSeconds(120), reportLeaseService.backoffFor(2));
+        assertEquals(Duration.ofSeconds(900), reportLeaseService.backoffFor(10));
+    }
+}
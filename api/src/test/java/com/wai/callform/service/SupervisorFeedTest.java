@@ -0,0 +1,84 @@
+package com.wai.callform.service;
+
+import com.wai.callform.dto.PendingPbxCountView;
+import com.wai.callform.event.CallGroupAlertEvent;
+import com.wai.callform.event.PendingPbxCallsEvent;
+import com.wai.callform.repository.CallEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SupervisorFeedTest {
+
+    @Mock
+    private CallGroupAlertService callGroupAlertService;
+
+    @Mock
+    private CallEntryRepository callEntryRepository;
+
+    private SupervisorFeed supervisorFeed;
+
+    // Sender tasks are collected rather than run, as if every subscriber's socket were stalled
+    private final List<Runnable> queued = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        supervisorFeed = new SupervisorFeed(callGroupAlertService, callEntryRepository, 60000, 2, queued::add);
+    }
+
+    @Test
+    void testBacklogSeededFromDatabaseThenKeptCurrentFromEvents() {
+        // Arrange
+        PendingPbxCountView row = mock(PendingPbxCountView.class);
+        when(row.getDatatechEmail()).thenReturn("john.doe@wostmann.com");
+        when(row.getPendingCount()).thenReturn(2L);
+        when(callEntryRepository.countPendingPbxCallsByUser()).thenReturn(List.of(row));
+        supervisorFeed.reconcile();
+
+        // Act - three new calls for Jane, both of John's classified
+        supervisorFeed.onPendingChanged(new PendingPbxCallsEvent(Map.of("jane.roe@wostmann.com", 3)));
+        supervisorFeed.onPendingChanged(new PendingPbxCallsEvent(Map.of("john.doe@wostmann.com", -2)));
+
+        // Assert
+        assertEquals(Map.of("jane.roe@wostmann.com", 3L), supervisorFeed.pendingByUser());
+    }
+
+    @Test
+    void testSubscribeSendsSnapshotWithoutQueryingDatabase() {
+        // Arrange
+        when(callGroupAlertService.getCachedActiveAlerts()).thenReturn(List.of());
+
+        // Act
+        supervisorFeed.subscribe();
+
+        // Assert
+        assertEquals(1, supervisorFeed.subscriberCount());
+        verify(callGroupAlertService).getCachedActiveAlerts();
+        verifyNoInteractions(callEntryRepository);
+    }
+
+    @Test
+    void testSlowSubscriberIsDroppedWithoutBlockingPublisher() {
+        // Arrange
+        when(callGroupAlertService.getCachedActiveAlerts()).thenReturn(List.of());
+        supervisorFeed.subscribe();
+
+        // Act - nothing is ever written, so the snapshot and one delta fill the queue of two
+        supervisorFeed.onAlert(new CallGroupAlertEvent(CallGroupAlertEvent.Type.RAISED, null));
+        supervisorFeed.onAlert(new CallGroupAlertEvent(CallGroupAlertEvent.Type.RESOLVED, null));
+
+        // Assert - one sender task was handed off, and the overflowing subscriber was disconnected
+        assertEquals(1, queued.size());
+        assertEquals(0, supervisorFeed.subscriberCount());
+    }
+}
@@ -0,0 +1,103 @@
+package com.wai.callform.service;
+
+import com.wai.callform.dto.TaskSubjectGraphDocument;
+import com.wai.callform.dto.TaskSubjectGraphDocument.SubjectNode;
+import com.wai.callform.dto.TaskSubjectGraphDocument.TaskNode;
+import com.wai.callform.dto.TaskSubjectImportResult;
+import com.wai.callform.repository.TaskSubjectGraphJdbcRepository.Graph;
+import com.wai.callform.repository.TaskSubjectGraphJdbcRepository.Relationship;
+import com.wai.callform.repository.TaskSubjectGraphJdbcRepository.Row;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskSubjectGraphDiffTest {
+
+    private final Row ifq = row("IFQ", 10);
+    private final Row crab = row("Crab", 20);
+    private final Row permits = row("Permits", 10);
+    private final Row landings = row("Landings", 20);
+
+    private final Graph current = new Graph(7, List.of(ifq, crab), List.of(permits, landings),
+            List.of(new Relationship(ifq.id(), permits.id()), new Relationship(ifq.id(), landings.id()),
+                    new Relationship(crab.id(), permits.id())));
+
+    @Test
+    void testOf_DiffsRowsAndRelationshipsByName() {
+        // Arrange: IFQ drops Landings and gains a new subject, Crab is left out, "permits" is re-cased
+        TaskSubjectGraphDocument document = new TaskSubjectGraphDocument(
+                List.of(new TaskNode("ifq", null, 10, List.of("permits", "Quota Transfers"))),
+                List.of(new SubjectNode("permits", true, null), new SubjectNode("Landings", true, null),
+                        new SubjectNode("Quota Transfers", null, null)),
+                true);
+
+        // Act
+        TaskSubjectGraphDiff diff = TaskSubjectGraphDiff.of(current, document);
+        TaskSubjectImportResult result = diff.toResult(true, 8);
+
+        // Assert
+        assertEquals(1, result.getSubjectsCreated());
+        assertEquals("Quota Transfers", diff.subjectInserts.get(0).name());
+        assertEquals(30, diff.subjectInserts.get(0).sortOrder());
+        assertEquals(1, result.getSubjectsUpdated());
+        assertEquals("permits", diff.subjectUpdates.get(0).name());
+        assertEquals(1, result.getTasksUpdated());
+        assertEquals(1, result.getTasksDeactivated());
+        assertEquals(0, result.getTasksCreated());
+        assertEquals(List.of(new Relationship(ifq.id(), diff.subjectInserts.get(0).id())), diff.relationshipInserts);
+        // Crab was left out of a whole-graph document, so it is unlinked as well as deactivated
+        assertEquals(List.of(new Relationship(ifq.id(), landings.id()), new Relationship(crab.id(), permits.id())),
+                diff.relationshipDeletes);
+    }
+
+    @Test
+    void testOf_PartialDocumentLeavesOmittedRowsAlone() {
+        // Arrange: deactivateMissing is left at its default
+        TaskSubjectGraphDocument document = new TaskSubjectGraphDocument();
+        document.setTasks(List.of(new TaskNode("IFQ", true, null, List.of("Permits"))));
+        document.setSubjects(List.of(new SubjectNode("Permits", true, null)));
+
+        // Act
+        TaskSubjectGraphDiff diff = TaskSubjectGraphDiff.of(current, document);
+        TaskSubjectImportResult result = diff.toResult(true, 8);
+
+        // Assert: only IFQ's own subject list changes; Crab and Landings keep their rows and links
+        assertEquals(0, result.getTasksDeactivated());
+        assertEquals(0, result.getSubjectsDeactivated());
+        assertTrue(diff.taskUpdates.isEmpty());
+        assertTrue(diff.subjectUpdates.isEmpty());
+        assertEquals(List.of(new Relationship(ifq.id(), landings.id())), diff.relationshipDeletes);
+    }
+
+    @Test
+    void testOf_UnchangedDocumentIsEmpty() {
+        TaskSubjectGraphDocument document = new TaskSubjectGraphDocument(
+                List.of(new TaskNode("IFQ", true, null, List.of("Permits", "Landings")),
+                        new TaskNode("Crab", true, null, List.of("Permits"))),
+                List.of(new SubjectNode("Permits", true, null), new SubjectNode("Landings", true, null)),
+                true);
+
+        assertTrue(TaskSubjectGraphDiff.of(current, document).isEmpty());
+    }
+
+    @Test
+    void testOf_RejectsDuplicatesAndUnknownSubjects() {
+        TaskSubjectGraphDocument duplicate = new TaskSubjectGraphDocument(List.of(),
+                List.of(new SubjectNode("Permits", true, null), new SubjectNode(" PERMITS ", true, null)), false);
+        TaskSubjectGraphDocument unknown = new TaskSubjectGraphDocument(
+                List.of(new TaskNode("IFQ", true, null, List.of("Halibut"))),
+                List.of(new SubjectNode("Permits", true, null)), false);
+
+        assertThrows(IllegalArgumentException.class, () -> TaskSubjectGraphDiff.of(current, duplicate));
+        assertThrows(IllegalArgumentException.class, () -> TaskSubjectGraphDiff.of(current, unknown));
+    }
+
+    private static Row row(String name, int sortOrder) {
+        OffsetDateTime now = OffsetDateTime.now();
+        return new Row(UUID.randomUUID(), name, true, sortOrder, now, now);
+    }
+}
@@ -0,0 +1,54 @@
+package com.wai.callform.service;
+
+import com.wai.callform.repository.TaskSubjectGraphJdbcRepository.Graph;
+import com.wai.callform.repository.TaskSubjectGraphJdbcRepository.Relationship;
+import com.wai.callform.repository.TaskSubjectGraphJdbcRepository.Row;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskSubjectSnapshotTest {
+
+    private final Row ifq = row("IFQ", true, 10);
+    private final Row crab = row("Crab", true, 20);
+    private final Row permits = row("Permits", true, 10);
+    private final Row landings = row("Landings", false, 20);
+    private final Row unlinked = row("Other", true, 30);
+
+    private final TaskSubjectSnapshot snapshot = new TaskSubjectSnapshot(new Graph(7,
+            List.of(ifq, crab),
+            List.of(permits, landings, unlinked),
+            List.of(new Relationship(ifq.id(), permits.id()),
+                    new Relationship(ifq.id(), landings.id()),
+                    new Relationship(crab.id(), permits.id()))));
+
+    @Test
+    void testIsSubjectValidForTask_AnswersFromRelationships() {
+        assertTrue(snapshot.isSubjectValidForTask(ifq.id(), permits.id()));
+        assertTrue(snapshot.isSubjectValidForTask(ifq.id(), landings.id()));
+        assertFalse(snapshot.isSubjectValidForTask(crab.id(), landings.id()));
+        assertFalse(snapshot.isSubjectValidForTask(ifq.id(), unlinked.id()));
+        assertFalse(snapshot.isSubjectValidForTask(UUID.randomUUID(), permits.id()));
+        assertFalse(snapshot.isSubjectValidForTask(ifq.id(), null));
+    }
+
+    @Test
+    void testLookups_KeepDisplayOrder() {
+        assertEquals(7, snapshot.version());
+        assertEquals(List.of(permits, landings), snapshot.subjectsOf(ifq.id()));
+        assertEquals(List.of(ifq, crab), snapshot.tasksOf(permits.id()));
+        assertEquals(List.of(), snapshot.tasksOf(unlinked.id()));
+        assertEquals(3, snapshot.relationshipCount());
+        assertEquals("Crab", snapshot.task(crab.id()).orElseThrow().name());
+        assertTrue(snapshot.subject(UUID.randomUUID()).isEmpty());
+    }
+
+    private static Row row(String name, boolean active, int sortOrder) {
+        OffsetDateTime now = OffsetDateTime.now();
+        return new Row(UUID.randomUUID(), name, active, sortOrder, now, now);
+    }
+}
@@ -0,0 +1,57 @@
+package com.wai.callform.service;
+
+import com.wai.callform.dto.TypeaheadMatch;
+import com.wai.callform.repository.TaskSubjectGraphJdbcRepository.Row;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TypeaheadIndexTest {
+
+    private final Row permitTransfers = row("Permit Transfers");
+    private final Row permits = row("Permits");
+    private final Row crabPermit = row("Crab permit");
+    private final Row experimental = row("Experimental");
+    private final Row ifq = row("IFQ");
+
+    private final TypeaheadIndex index = new TypeaheadIndex(List.of(permitTransfers, permits, crabPermit, experimental, ifq));
+
+    @Test
+    void testSearch_RanksExactThenPrefixThenWordPrefixThenSubstring() {
+        // Act
+        List<TypeaheadMatch> matches = index.search(" PERMIT", 10, row -> true);
+
+        // Assert: prefixes shortest first, then the word match
+        assertEquals(List.of("Permits", "Permit Transfers", "Crab permit"), names(matches));
+        assertEquals(TypeaheadMatch.MatchType.PREFIX, matches.get(0).getMatchType());
+        assertEquals(TypeaheadMatch.MatchType.WORD_PREFIX, matches.get(2).getMatchType());
+        assertEquals(5, matches.get(2).getMatchStart());
+
+        assertEquals(TypeaheadMatch.MatchType.EXACT, index.search("ifq", 10, row -> true).get(0).getMatchType());
+        List<TypeaheadMatch> substring = index.search("erm", 10, row -> true);
+        assertEquals("Permits", substring.get(0).getName());
+        assertEquals(3, substring.size());
+        assertTrue(substring.stream().allMatch(match -> match.getMatchType() == TypeaheadMatch.MatchType.CONTAINS));
+    }
+
+    @Test
+    void testSearch_AppliesFilterAndLimit() {
+        assertEquals(List.of("Permits"), names(index.search("permit", 1, row -> true)));
+        assertEquals(List.of("Crab permit"), names(index.search("permit", 10, row -> row == crabPermit)));
+        assertTrue(index.search("  ", 10, row -> true).isEmpty());
+        assertTrue(index.search("halibut", 10, row -> true).isEmpty());
+    }
+
+    private static List<String> names(List<TypeaheadMatch> matches) {
+        return matches.stream().map(TypeaheadMatch::getName).toList();
+    }
+
+    private static Row row(String name) {
+        OffsetDateTime now = OffsetDateTime.now();
+        return new Row(UUID.randomUUID(), name, true, 10, now, now);
+    }
+}
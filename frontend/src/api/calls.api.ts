@@ -8,6 +8,30 @@ import {
   CallGroupAlert,
 } from '../types/api.types';
 
+// Position of the last call seen, for keyset paging of the pending backlog
+export interface PendingPosition {
+  afterStartTime: string;
+  afterId: string;
+}
+
+// Collect every page of the pending backlog, in order. Each page starts after the last call of the
+// previous one rather than at an offset, so calls classified meanwhile don't shift later pages.
+const fetchAllPending = async (
+  fetchPage: (after?: PendingPosition) => Promise<PaginatedResponse<CallEntry>>
+): Promise<CallEntry[]> => {
+  const items: CallEntry[] = [];
+  let after: PendingPosition | undefined;
+  for (;;) {
+    const result = await fetchPage(after);
+    items.push(...result.content);
+    if (result.last || result.content.length === 0) {
+      return items;
+    }
+    const lastCall = result.content[result.content.length - 1];
+    after = { afterStartTime: lastCall.startTime, afterId: lastCall.id };
+  }
+};
+
 // Call Management API Functions
 
 export const callsApi = {
@@ -90,13 +114,32 @@ export const callsApi = {
   createCallFromPbx: (request: PbxCallRequest): Promise<CallEntry> =>
     apiClient.post('/calls/from-pbx', request).then(extractData),
 
-  // Get pending PBX calls (all users)
+  // Get one page of pending PBX calls (all users), oldest first; after overrides page
+  getPendingPbxCallsPage: (
+    page = 0,
+    size = 200,
+    after?: PendingPosition
+  ): Promise<PaginatedResponse<CallEntry>> =>
+    apiClient.get('/calls/pending-pbx', { params: { page, size, ...after } }).then(extractData),
+
+  // Get one page of pending PBX calls for specific user, oldest first; after overrides page
+  getPendingPbxCallsPageForUser: (
+    userEmail: string,
+    page = 0,
+    size = 200,
+    after?: PendingPosition
+  ): Promise<PaginatedResponse<CallEntry>> =>
+    apiClient
+      .get(`/calls/user/${userEmail}/pending-pbx`, { params: { page, size, ...after } })
+      .then(extractData),
+
+  // Get the whole pending PBX backlog (all users), oldest first, one page at a time
   getPendingPbxCalls: (): Promise<CallEntry[]> =>
-    apiClient.get('/calls/pending-pbx').then(extractData),
+    fetchAllPending((after) => callsApi.getPendingPbxCallsPage(0, 200, after)),
 
-  // Get pending PBX calls for specific user
+  // Get the whole pending PBX backlog for specific user, oldest first, one page at a time
   getPendingPbxCallsForUser: (userEmail: string): Promise<CallEntry[]> =>
-    apiClient.get(`/calls/user/${userEmail}/pending-pbx`).then(extractData),
+    fetchAllPending((after) => callsApi.getPendingPbxCallsPageForUser(userEmail, 0, 200, after)),
 
   // Call Group Alerts
 
@@ -3,6 +3,7 @@ import {
   TaskEntity,
   SubjectEntity,
   TaskSubjectSummary,
+  TypeaheadMatch,
 } from '../types/api.types';
 
 // Task-Subject Reference Data API Functions
@@ -22,6 +23,17 @@ export const referenceApi = {
   getAllSubjects: (): Promise<SubjectEntity[]> =>
     apiClient.get('/tasks-subjects/subjects').then(extractData),
 
+  // Typeahead (ranked name matches, answered from the API's in-memory index)
+  searchTasks: (query: string, limit?: number): Promise<TypeaheadMatch[]> =>
+    apiClient.get('/tasks-subjects/tasks/typeahead', {
+      params: { q: query, limit },
+    }).then(extractData),
+
+  searchSubjects: (query: string, taskId?: string, limit?: number): Promise<TypeaheadMatch[]> =>
+    apiClient.get('/tasks-subjects/subjects/typeahead', {
+      params: { q: query, taskId, limit },
+    }).then(extractData),
+
   // Validation
   validateTaskSubjectRelationship: (taskId: string, subjectId: string): Promise<boolean> =>
     apiClient.get('/tasks-subjects/validate', {
@@ -21,6 +21,17 @@ export interface CallEntry {
   inProgress: boolean;
   completed: boolean;
   durationMinutes: number;
+  suggestions?: ClassificationSuggestion[];
+}
+
+// Likely task/subject for a pending PBX call, from earlier calls with the same number
+export interface ClassificationSuggestion {
+  taskId: string;
+  taskName: string;
+  subjectId: string | null;
+  subjectName: string | null;
+  callCount: number;
+  confidence: number;
 }
 
 export interface StartCallRequest {
@@ -75,6 +86,14 @@ export interface TaskReference {
   sortOrder: number;
 }
 
+export interface TypeaheadMatch {
+  id: string;
+  name: string;
+  sortOrder: number;
+  matchType: 'EXACT' | 'PREFIX' | 'WORD_PREFIX' | 'CONTAINS';
+  matchStart: number;
+}
+
 export interface TaskSubjectSummary {
   totalTasks: number;
   totalSubjects: number;